@@ -0,0 +1,48 @@
+package in.fssa.homebakery.benchmark;
+
+import java.sql.SQLException;
+
+import in.fssa.homebakery.EmbeddedDatabase;
+
+/**
+ * Prepares the database the JMH benchmarks run against.
+ *
+ * Without a 'homebakery.db.url' system property the benchmarks use the
+ * in-memory H2 database of 'EmbeddedDatabase', filled with a generated
+ * catalog, users and orders whose size is set with the 'homebakery.seed.*'
+ * system properties. The 'embedded-db' Maven profile passes a large dataset to
+ * the benchmark JVMs. Pass the url, user name and password of a local MySQL
+ * database with -Djmh.args="-jvmArgs -Dhomebakery.db.url=..." to measure
+ * against MySQL instead.
+ */
+public class BenchmarkDatabase {
+
+	public static final int CATEGORIES = EmbeddedDatabase.CATEGORIES;
+	public static final int PRODUCTS = EmbeddedDatabase.PRODUCTS;
+	public static final int PRICES_PER_PRODUCT = EmbeddedDatabase.PRICES_PER_PRODUCT;
+	public static final int USERS = EmbeddedDatabase.USERS;
+	public static final int ORDERS_PER_USER = EmbeddedDatabase.ORDERS_PER_USER;
+
+	private BenchmarkDatabase() {
+	}
+
+	/**
+	 * Points 'ConnectionUtil' at the benchmark database and fills it if it is
+	 * empty. The catalog cache is turned off so that every service call reaches
+	 * the database.
+	 *
+	 * @throws SQLException If the database cannot be reached or filled.
+	 */
+	public static void start() throws SQLException {
+		System.setProperty("homebakery.catalogCache.enabled", "false");
+		EmbeddedDatabase.start();
+	}
+
+	/**
+	 * Closes the pooled connections of the benchmark database.
+	 */
+	public static void stop() {
+		EmbeddedDatabase.stop();
+	}
+
+}
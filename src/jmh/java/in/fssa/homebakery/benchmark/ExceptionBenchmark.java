@@ -0,0 +1,101 @@
+package in.fssa.homebakery.benchmark;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.NotFoundException;
+import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.service.ProductService;
+
+/**
+ * Measures what reporting a missing entity costs.
+ *
+ * The first pair throws from 'depth' frames deep, once with an exception that
+ * fills in its stack trace, as the services did before, and once with the
+ * stackless 'NotFoundException'. The second pair looks up a product ID that
+ * does not exist, once through 'getByProductId', which throws, and once
+ * through 'findProductById', which returns an empty result. Both lookups run
+ * the same query against the benchmark database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionBenchmark {
+
+	private static final int MISSING_PRODUCT_ID = BenchmarkDatabase.PRODUCTS + 1;
+
+	@Param({ "10", "100" })
+	public int depth;
+
+	private final ProductService productService = new ProductService();
+
+	@Setup(Level.Trial)
+	public void start() throws SQLException {
+		BenchmarkDatabase.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public RuntimeException throwWithStackTrace() {
+		try {
+			return throwAt(depth, false);
+		} catch (RuntimeException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public RuntimeException throwStackless() {
+		try {
+			return throwAt(depth, true);
+		} catch (RuntimeException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object missingProductThrows() throws ValidationException {
+		try {
+			return productService.getByProductId(MISSING_PRODUCT_ID);
+		} catch (NotFoundException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Optional<ProductDetailDTO> missingProductOptional() throws ValidationException {
+		return productService.findProductById(MISSING_PRODUCT_ID);
+	}
+
+	private static RuntimeException throwAt(int depth, boolean stackless) {
+		if (depth > 0) {
+			return throwAt(depth - 1, stackless);
+		}
+		throw stackless ? new NotFoundException("Product does not exist")
+				: new RuntimeException("Product does not exist");
+	}
+
+}
@@ -0,0 +1,51 @@
+package in.fssa.homebakery.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import in.fssa.homebakery.util.PasswordEncryptor;
+
+/**
+ * Measures the password encryption that runs for every user that is created
+ * and the decryption that runs for every user row that is read. The key is
+ * fixed, so the benchmark does not need the 'SECRET_KEY' environment variable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordEncryptorBenchmark {
+
+	private static final String SECRET_KEY = "0123456789abcdef";
+	private static final String PASSWORD = "Bench@123";
+
+	private String encryptedPassword;
+
+	@Setup
+	public void encryptPassword() throws Exception {
+		encryptedPassword = PasswordEncryptor.encrypt(PASSWORD, SECRET_KEY);
+	}
+
+	@Benchmark
+	public String encrypt() throws Exception {
+		return PasswordEncryptor.encrypt(PASSWORD, SECRET_KEY);
+	}
+
+	@Benchmark
+	public String decrypt() throws Exception {
+		return PasswordEncryptor.decrypt(encryptedPassword, SECRET_KEY);
+	}
+
+}
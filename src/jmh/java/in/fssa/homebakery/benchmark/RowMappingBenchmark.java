@@ -0,0 +1,76 @@
+package in.fssa.homebakery.benchmark;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import in.fssa.homebakery.dao.OrderDAO;
+import in.fssa.homebakery.dao.ProductDAO;
+import in.fssa.homebakery.dao.ProductPriceDAO;
+import in.fssa.homebakery.dto.OrderDetailDTO;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.model.ProductPrice;
+
+/**
+ * Measures the DAO queries that map the most rows per call, so changes to the
+ * row mappers and 'JdbcTemplate' show up without the service logic around
+ * them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+	private final ProductDAO productDAO = new ProductDAO();
+	private final ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+	private final OrderDAO orderDAO = new OrderDAO();
+
+	@Setup(Level.Trial)
+	public void start() throws SQLException {
+		BenchmarkDatabase.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public Set<ProductDetailDTO> products() throws PersistanceException {
+		return productDAO.findAll();
+	}
+
+	@Benchmark
+	public Set<ProductPrice> prices() throws PersistanceException {
+		return productPriceDAO.findAll();
+	}
+
+	@Benchmark
+	public List<ProductPrice> currentPrices() throws PersistanceException {
+		return productPriceDAO.findCurrentPriceForAllProducts();
+	}
+
+	@Benchmark
+	public List<OrderDetailDTO> orders() throws PersistanceException {
+		return orderDAO.findAllOrders();
+	}
+
+}
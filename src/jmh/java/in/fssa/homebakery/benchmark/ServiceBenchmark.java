@@ -0,0 +1,64 @@
+package in.fssa.homebakery.benchmark;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import in.fssa.homebakery.dto.OrderDetailDTO;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.service.OrderService;
+import in.fssa.homebakery.service.ProductService;
+
+/**
+ * Measures the service calls behind the product list and the order history
+ * pages, including every query they run. The catalog cache is turned off, so
+ * 'getAllProducts' reads the products and their prices on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+	private final ProductService productService = new ProductService();
+	private final OrderService orderService = new OrderService();
+	private int userId;
+
+	@Setup(Level.Trial)
+	public void start() throws SQLException {
+		BenchmarkDatabase.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public Set<ProductDetailDTO> getAllProducts() {
+		return productService.getAllProducts();
+	}
+
+	@Benchmark
+	public List<OrderDetailDTO> getOrdersByUserId() throws Exception {
+		userId = userId % BenchmarkDatabase.USERS + 1;
+		return orderService.getOrdersByUserId(userId);
+	}
+
+}
@@ -0,0 +1,60 @@
+package in.fssa.homebakery.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.model.User;
+import in.fssa.homebakery.validator.UserValidator;
+
+/**
+ * Measures the validation of a new user, once for a valid user and once for a
+ * user whose last check fails, which also pays for the exception.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserValidatorBenchmark {
+
+	private final User validUser = newUser(9876543210L);
+	private final User invalidUser = newUser(1234L);
+
+	@Benchmark
+	public User validUser() throws ValidationException {
+		UserValidator.validate(validUser);
+		return validUser;
+	}
+
+	@Benchmark
+	public ValidationException invalidPhoneNo() {
+		try {
+			UserValidator.validate(invalidUser);
+			return null;
+		} catch (ValidationException e) {
+			return e;
+		}
+	}
+
+	private static User newUser(long phoneNo) {
+		User user = new User();
+		user.setFirstName("Bench Mark");
+		user.setLastName("User");
+		user.setEmail("benchmark.user@gmail.com");
+		user.setPassword("Bench@123");
+		user.setPhoneNo(phoneNo);
+		return user;
+	}
+
+}
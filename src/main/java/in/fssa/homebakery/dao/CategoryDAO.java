@@ -1,19 +1,31 @@
 package in.fssa.homebakery.dao;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.interfaces.CategoryInterface;
+import in.fssa.homebakery.interfaces.RowMapperFactory;
 import in.fssa.homebakery.model.Category;
-import in.fssa.homebakery.util.ConnectionUtil;
 
 public class CategoryDAO implements CategoryInterface {
 
+	private static final JdbcTemplate jdbc = new JdbcTemplate();
+
+	private static final RowMapperFactory<Category> CATEGORY_MAPPER = rs -> {
+		int id = rs.findColumn("id");
+		int categoryName = rs.findColumn("category_name");
+		return row -> {
+			Category category = new Category();
+			category.setId(row.getInt(id));
+			category.setCategoryName(row.getString(categoryName));
+			return category;
+		};
+	};
+
 	@Override
 	public void create(Category newT) {
 	}
@@ -31,28 +43,13 @@ public class CategoryDAO implements CategoryInterface {
 	 * @param updatedCategory An instance of the 'Category' class containing the
 	 *                        updated category information. It should have the
 	 *                        updated category name.
+	 * @return The number of updated categories, 0 if no category has the ID.
 	 * @throws PersistanceException
 	 */
 	@Override
-	public void update(int id, Category updatedCategory) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-
-		try {
-			String query = "UPDATE categories SET category_name = ? WHERE id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setString(1, updatedCategory.getCategoryName());
-			ps.setInt(2, id);
-			ps.executeUpdate();
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps);
-		}
+	public int update(int id, Category updatedCategory) throws PersistanceException {
+		String query = "UPDATE categories SET category_name = ? WHERE id = ?";
+		return jdbc.update(query, updatedCategory.getCategoryName(), id);
 	}
 
 	/**
@@ -63,9 +60,11 @@ public class CategoryDAO implements CategoryInterface {
 	 * categories cannot be deleted.
 	 *
 	 * @param id The ID of the category to be deleted.
+	 * @return Always 0, as no category is deleted.
 	 */
 	@Override
-	public void delete(int id) {
+	public int delete(int id) {
+		return 0;
 	}
 
 	/**
@@ -86,31 +85,9 @@ public class CategoryDAO implements CategoryInterface {
 	 */
 	@Override
 	public Set<Category> findAll() throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
 		Set<Category> setOfCategory = new HashSet<>();
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, category_name FROM categories";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-			rs = ps.executeQuery();
-
-			while (rs.next()) {
-				Category category = new Category();
-				category.setId(rs.getInt("id"));
-				category.setCategoryName(rs.getString("category_name"));
-				setOfCategory.add(category);
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
+		String query = "SELECT id, category_name FROM categories";
+		jdbc.forEach(query, CATEGORY_MAPPER, setOfCategory::add);
 		return setOfCategory;
 	}
 
@@ -134,34 +111,32 @@ public class CategoryDAO implements CategoryInterface {
 	 */
 	@Override
 	public Category findById(int id) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-		Category category = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, category_name FROM categories WHERE id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setInt(1, id);
-
-			rs = ps.executeQuery();
-
-			if (rs.next()) {
-				category = new Category();
-				category.setId(rs.getInt("id"));
-				category.setCategoryName(rs.getString("category_name"));
-			}
+		String query = "SELECT id, category_name FROM categories WHERE id = ?";
+		return jdbc.queryForObject(query, CATEGORY_MAPPER, id);
+	}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
-		return category;
+	/**
+	 * Retrieves several categories from the database by their IDs at once.
+	 *
+	 * This method queries the 'categories' table for all of the provided IDs using
+	 * 'IN' lists of at most 'SqlUtil.MAX_IN_LIST_SIZE' IDs, so that any number of
+	 * IDs is served with one query per chunk instead of one query per ID.
+	 * Duplicate IDs are looked up once. If any database-related
+	 * exception occurs during the process, it is caught, and a
+	 * PersistanceException is thrown.
+	 *
+	 * @param ids The IDs of the categories to be retrieved.
+	 * @return A 'Map' from ID to the retrieved 'Category'. IDs without a matching
+	 *         record are not contained in the map.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public Map<Integer, Category> findByIds(Collection<Integer> ids) throws PersistanceException {
+		Map<Integer, Category> categoryById = new HashMap<>();
+		String query = "SELECT id, category_name FROM categories WHERE id IN (%s)";
+		jdbc.queryIn(query, ids, CATEGORY_MAPPER, category -> categoryById.put(category.getId(), category));
+		return categoryById;
 	}
 	
 	/**
@@ -179,30 +154,10 @@ public class CategoryDAO implements CategoryInterface {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
-	public static boolean categoryExists(int categoryId) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT 1 FROM categories WHERE id = ?";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, categoryId);
-
-			rs = stmt.executeQuery();
-			if (rs.next()) {
-				int count = rs.getInt(1);
-				return count > 0; // If count > 0, category exists
-			}
-
-			return false; // No rows returned, category does not exist
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	@Override
+	public boolean categoryExists(int categoryId) throws PersistanceException {
+		String query = "SELECT 1 FROM categories WHERE id = ?";
+		return jdbc.exists(query, categoryId);
 	}
 
 }
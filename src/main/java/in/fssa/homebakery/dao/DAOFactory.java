@@ -0,0 +1,90 @@
+package in.fssa.homebakery.dao;
+
+import java.util.Locale;
+
+import in.fssa.homebakery.interfaces.CategoryInterface;
+import in.fssa.homebakery.interfaces.OrderInterface;
+import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
+import in.fssa.homebakery.interfaces.UserInterface;
+
+/**
+ * Provides the DAOs of the backend selected at startup.
+ *
+ * The 'homebakery.backend' system property selects the backend once, when the
+ * class is loaded:
+ *
+ * 'mysql' (the default) returns the DAOs that run SQL through 'ConnectionUtil'.
+ *
+ * 'memory' returns DAOs that keep all data in one 'InMemoryDatabase', which
+ * starts empty and is lost when the process ends. No database connection is
+ * ever opened, and 'TransactionUtil' runs units of work under the lock of the
+ * in-memory database instead of a database transaction.
+ *
+ * The DAOs hold no state of their own apart from their database, so every
+ * caller shares one instance of each. Each one is wrapped by 'InstrumentedDAO',
+ * which records the calls of its methods in 'MethodMetrics'.
+ */
+public class DAOFactory {
+
+	public static final String BACKEND_PROPERTY = "homebakery.backend";
+
+	private static final boolean IN_MEMORY = "memory"
+			.equals(System.getProperty(BACKEND_PROPERTY, "mysql").trim().toLowerCase(Locale.ROOT));
+
+	private static final InMemoryDatabase IN_MEMORY_DATABASE = IN_MEMORY ? new InMemoryDatabase() : null;
+
+	private static final CategoryInterface CATEGORY_DAO = InstrumentedDAO.wrap(CategoryInterface.class,
+			IN_MEMORY ? new InMemoryCategoryDAO(IN_MEMORY_DATABASE) : new CategoryDAO());
+	private static final ProductInterface PRODUCT_DAO = InstrumentedDAO.wrap(ProductInterface.class,
+			IN_MEMORY ? new InMemoryProductDAO(IN_MEMORY_DATABASE) : new ProductDAO());
+	private static final ProductPricesInterface PRODUCT_PRICE_DAO = InstrumentedDAO.wrap(
+			ProductPricesInterface.class,
+			IN_MEMORY ? new InMemoryProductPriceDAO(IN_MEMORY_DATABASE) : new ProductPriceDAO());
+	private static final UserInterface USER_DAO = InstrumentedDAO.wrap(UserInterface.class,
+			IN_MEMORY ? new InMemoryUserDAO(IN_MEMORY_DATABASE) : new UserDAO());
+	private static final OrderInterface ORDER_DAO = InstrumentedDAO.wrap(OrderInterface.class,
+			IN_MEMORY ? new InMemoryOrderDAO(IN_MEMORY_DATABASE) : new OrderDAO());
+
+	private DAOFactory() {
+	}
+
+	/**
+	 * Returns whether the in-memory backend was selected.
+	 *
+	 * @return True if the DAOs keep their data in memory, false if they use MySQL.
+	 */
+	public static boolean isInMemory() {
+		return IN_MEMORY;
+	}
+
+	/**
+	 * Returns the database of the in-memory backend.
+	 *
+	 * @return The in-memory database, or null if the MySQL backend was selected.
+	 */
+	public static InMemoryDatabase getInMemoryDatabase() {
+		return IN_MEMORY_DATABASE;
+	}
+
+	public static CategoryInterface getCategoryDAO() {
+		return CATEGORY_DAO;
+	}
+
+	public static ProductInterface getProductDAO() {
+		return PRODUCT_DAO;
+	}
+
+	public static ProductPricesInterface getProductPriceDAO() {
+		return PRODUCT_PRICE_DAO;
+	}
+
+	public static UserInterface getUserDAO() {
+		return USER_DAO;
+	}
+
+	public static OrderInterface getOrderDAO() {
+		return ORDER_DAO;
+	}
+
+}
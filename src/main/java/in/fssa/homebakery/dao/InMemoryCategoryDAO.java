@@ -0,0 +1,95 @@
+package in.fssa.homebakery.dao;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import in.fssa.homebakery.interfaces.CategoryInterface;
+import in.fssa.homebakery.model.Category;
+
+/**
+ * Serves categories from an 'InMemoryDatabase' instead of MySQL.
+ *
+ * Unlike 'CategoryDAO', 'create' stores the category and sets its generated ID,
+ * so that tests and benchmarks can fill the catalog without a database.
+ */
+public class InMemoryCategoryDAO implements CategoryInterface {
+
+	private final InMemoryDatabase db;
+
+	public InMemoryCategoryDAO(InMemoryDatabase db) {
+		this.db = db;
+	}
+
+	@Override
+	public void create(Category newT) {
+		synchronized (db) {
+			int id = db.categorySequence.incrementAndGet();
+			Category category = copy(newT);
+			category.setId(id);
+			db.categories().put(id, category);
+			newT.setId(id);
+		}
+	}
+
+	@Override
+	public int update(int id, Category updatedCategory) {
+		synchronized (db) {
+			Category category = db.categories().get(id);
+			if (category == null) {
+				return 0;
+			}
+			Category updated = copy(category);
+			updated.setCategoryName(updatedCategory.getCategoryName());
+			db.categories().put(id, updated);
+			return 1;
+		}
+	}
+
+	@Override
+	public int delete(int id) {
+		return 0;
+	}
+
+	@Override
+	public Set<Category> findAll() {
+		Set<Category> setOfCategory = new HashSet<>();
+		for (Category category : db.categories().values()) {
+			setOfCategory.add(copy(category));
+		}
+		return setOfCategory;
+	}
+
+	@Override
+	public Category findById(int id) {
+		Category category = db.categories().get(id);
+		return category != null ? copy(category) : null;
+	}
+
+	@Override
+	public Map<Integer, Category> findByIds(Collection<Integer> ids) {
+		Map<Integer, Category> categoryById = new HashMap<>();
+		for (Integer id : ids) {
+			Category category = id != null ? db.categories().get(id) : null;
+			if (category != null) {
+				categoryById.put(id, copy(category));
+			}
+		}
+		return categoryById;
+	}
+
+	@Override
+	public boolean categoryExists(int categoryId) {
+		return db.categories().containsKey(categoryId);
+	}
+
+	static Category copy(Category category) {
+		Category copy = new Category();
+		copy.setId(category.getId());
+		copy.setCategoryName(category.getCategoryName());
+		return copy;
+	}
+
+}
@@ -0,0 +1,382 @@
+package in.fssa.homebakery.dao;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import in.fssa.homebakery.dto.OrderDetailDTO;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.CategoryInterface;
+import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
+import in.fssa.homebakery.interfaces.TransactionCallback;
+import in.fssa.homebakery.model.Category;
+import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.model.User;
+
+/**
+ * Holds the tables of the in-memory backend.
+ *
+ * Every table is a concurrent map from ID to row, ordered by ID where the MySQL
+ * queries read rows in ID order, and the columns the DAOs filter on are indexed
+ * the way the MySQL schema indexes them: products by category, product prices
+ * by product, users by email and phone number, orders by user. Active products
+ * with a current price are also kept in a set ordered by their lowest price and
+ * ID, which serves the price-ordered listings without sorting the catalog.
+ *
+ * Reads never lock. Outside of a unit of work they see every row that was
+ * completely written before they started, like reads at the 'READ COMMITTED'
+ * isolation level. Writes lock the database, so a row and its index entries
+ * are always changed together.
+ *
+ * 'executeInTransaction' holds the same lock for a whole unit of work, which
+ * works on its own copy of the tables. The first time it touches a group of
+ * tables (categories, products, prices, users or orders) the maps of that
+ * group are copied, and its reads and writes go to the copies. The copies
+ * replace the shared tables in one step when the unit of work completes, so
+ * other threads never see a part of it, and they are dropped when it fails, so
+ * nothing of a failed unit of work remains. Like 'AUTO_INCREMENT' in MySQL, the
+ * IDs a failed unit of work took are not given out again.
+ *
+ * The DAOs store and return copies of the model objects, so callers can change
+ * the objects they pass in or get back without changing the stored rows. A row
+ * is never changed once it is stored, which is why a unit of work only needs
+ * to copy the maps and not the rows.
+ */
+public class InMemoryDatabase {
+
+	/**
+	 * The groups of tables a unit of work copies together: a table and its
+	 * indexes.
+	 */
+	private enum Group {
+		CATEGORIES, PRODUCTS, PRICES, USERS, ORDERS
+	}
+
+	/**
+	 * The maps of all tables. The shared instance is never changed once it is
+	 * published; a unit of work changes only its own instance.
+	 */
+	private static final class Tables {
+
+		ConcurrentMap<Integer, Category> categories = new ConcurrentHashMap<>();
+
+		ConcurrentNavigableMap<Integer, ProductDetailDTO> products = new ConcurrentSkipListMap<>();
+		ConcurrentMap<Integer, Set<Integer>> productsByCategory = new ConcurrentHashMap<>();
+		ConcurrentMap<Integer, Integer> minPriceByProduct = new ConcurrentHashMap<>();
+		ConcurrentSkipListSet<Long> productsByMinPrice = new ConcurrentSkipListSet<>();
+
+		ConcurrentNavigableMap<Integer, ProductPrice> prices = new ConcurrentSkipListMap<>();
+		ConcurrentMap<Integer, Set<Integer>> pricesByProduct = new ConcurrentHashMap<>();
+
+		ConcurrentNavigableMap<Integer, User> users = new ConcurrentSkipListMap<>();
+		ConcurrentMap<String, Set<Integer>> usersByEmail = new ConcurrentHashMap<>();
+		ConcurrentMap<Long, Set<Integer>> usersByPhoneNo = new ConcurrentHashMap<>();
+
+		ConcurrentNavigableMap<Integer, OrderDetailDTO> orders = new ConcurrentSkipListMap<>();
+		ConcurrentMap<Integer, Set<Integer>> ordersByUser = new ConcurrentHashMap<>();
+
+		Tables() {
+		}
+
+		Tables(Tables other) {
+			categories = other.categories;
+			products = other.products;
+			productsByCategory = other.productsByCategory;
+			minPriceByProduct = other.minPriceByProduct;
+			productsByMinPrice = other.productsByMinPrice;
+			prices = other.prices;
+			pricesByProduct = other.pricesByProduct;
+			users = other.users;
+			usersByEmail = other.usersByEmail;
+			usersByPhoneNo = other.usersByPhoneNo;
+			orders = other.orders;
+			ordersByUser = other.ordersByUser;
+		}
+
+		/**
+		 * Replaces the maps of a group with copies, leaving the maps they were
+		 * copied from unchanged.
+		 */
+		void copy(Group group) {
+			switch (group) {
+			case CATEGORIES:
+				categories = new ConcurrentHashMap<>(categories);
+				break;
+			case PRODUCTS:
+				products = new ConcurrentSkipListMap<>(products);
+				productsByCategory = copyIndex(productsByCategory);
+				minPriceByProduct = new ConcurrentHashMap<>(minPriceByProduct);
+				productsByMinPrice = new ConcurrentSkipListSet<>(productsByMinPrice);
+				break;
+			case PRICES:
+				prices = new ConcurrentSkipListMap<>(prices);
+				pricesByProduct = copyIndex(pricesByProduct);
+				break;
+			case USERS:
+				users = new ConcurrentSkipListMap<>(users);
+				usersByEmail = copyIndex(usersByEmail);
+				usersByPhoneNo = copyIndex(usersByPhoneNo);
+				break;
+			case ORDERS:
+				orders = new ConcurrentSkipListMap<>(orders);
+				ordersByUser = copyIndex(ordersByUser);
+				break;
+			}
+		}
+
+		private static <K> ConcurrentMap<K, Set<Integer>> copyIndex(ConcurrentMap<K, Set<Integer>> index) {
+			ConcurrentMap<K, Set<Integer>> copy = new ConcurrentHashMap<>();
+			index.forEach((key, ids) -> copy.put(key, new ConcurrentSkipListSet<>(ids)));
+			return copy;
+		}
+
+	}
+
+	/**
+	 * The tables of a running unit of work and the groups it has copied so far.
+	 */
+	private static final class Transaction {
+
+		final Tables tables;
+		final Set<Group> copied = EnumSet.noneOf(Group.class);
+
+		Transaction(Tables committed) {
+			this.tables = new Tables(committed);
+		}
+
+		Tables tables(Group group) {
+			if (copied.add(group)) {
+				tables.copy(group);
+			}
+			return tables;
+		}
+
+	}
+
+	private volatile Tables committed = new Tables();
+	private final ThreadLocal<Transaction> transaction = new ThreadLocal<>();
+
+	final AtomicInteger categorySequence = new AtomicInteger();
+	final AtomicInteger productSequence = new AtomicInteger();
+	final AtomicInteger priceSequence = new AtomicInteger();
+	final AtomicInteger userSequence = new AtomicInteger();
+	final AtomicInteger orderSequence = new AtomicInteger();
+
+	/**
+	 * Runs a unit of work while no other thread can write to the database. Its
+	 * writes become visible to other threads all at once when it completes, and
+	 * are discarded if it throws anything. A unit of work started inside another
+	 * one on the same thread joins it.
+	 *
+	 * @param <T>      The type of the value returned by the callback.
+	 * @param callback The unit of work to run.
+	 * @return The value returned by the callback.
+	 * @throws PersistanceException If the callback fails with a persistence error.
+	 */
+	public synchronized <T> T executeInTransaction(TransactionCallback<T> callback) throws PersistanceException {
+		if (transaction.get() != null) {
+			return callback.doInTransaction();
+		}
+
+		Transaction current = new Transaction(committed);
+		transaction.set(current);
+		try {
+			T result = callback.doInTransaction();
+			committed = current.tables;
+			return result;
+		} finally {
+			transaction.remove();
+		}
+	}
+
+	ConcurrentMap<Integer, Category> categories() {
+		return tables(Group.CATEGORIES).categories;
+	}
+
+	ConcurrentNavigableMap<Integer, ProductDetailDTO> products() {
+		return tables(Group.PRODUCTS).products;
+	}
+
+	ConcurrentMap<Integer, Set<Integer>> productsByCategory() {
+		return tables(Group.PRODUCTS).productsByCategory;
+	}
+
+	ConcurrentMap<Integer, Integer> minPriceByProduct() {
+		return tables(Group.PRODUCTS).minPriceByProduct;
+	}
+
+	ConcurrentSkipListSet<Long> productsByMinPrice() {
+		return tables(Group.PRODUCTS).productsByMinPrice;
+	}
+
+	ConcurrentNavigableMap<Integer, ProductPrice> prices() {
+		return tables(Group.PRICES).prices;
+	}
+
+	ConcurrentMap<Integer, Set<Integer>> pricesByProduct() {
+		return tables(Group.PRICES).pricesByProduct;
+	}
+
+	ConcurrentNavigableMap<Integer, User> users() {
+		return tables(Group.USERS).users;
+	}
+
+	ConcurrentMap<String, Set<Integer>> usersByEmail() {
+		return tables(Group.USERS).usersByEmail;
+	}
+
+	ConcurrentMap<Long, Set<Integer>> usersByPhoneNo() {
+		return tables(Group.USERS).usersByPhoneNo;
+	}
+
+	ConcurrentNavigableMap<Integer, OrderDetailDTO> orders() {
+		return tables(Group.ORDERS).orders;
+	}
+
+	ConcurrentMap<Integer, Set<Integer>> ordersByUser() {
+		return tables(Group.ORDERS).ordersByUser;
+	}
+
+	/**
+	 * Returns the tables the current thread works on: the copies of its unit of
+	 * work if it runs one, or the shared tables.
+	 */
+	private Tables tables(Group group) {
+		Transaction current = transaction.get();
+		return current != null ? current.tables(group) : committed;
+	}
+
+	/**
+	 * Copies the catalog of another backend into this database, so that the
+	 * catalog can be served from memory as a read replica.
+	 *
+	 * All categories and product prices are copied, but only the active products,
+	 * because inactive products cannot be read through 'ProductInterface'. The
+	 * copied rows keep their IDs, and the lowest current price of every product is
+	 * computed from the copied prices.
+	 *
+	 * @param categoryDAO     The categories to copy.
+	 * @param productDAO      The products to copy.
+	 * @param productPriceDAO The product prices to copy.
+	 * @throws PersistanceException If the source cannot be read.
+	 */
+	public synchronized void loadCatalog(CategoryInterface categoryDAO, ProductInterface productDAO,
+			ProductPricesInterface productPriceDAO) throws PersistanceException {
+		for (Category category : categoryDAO.findAll()) {
+			categories().put(category.getId(), InMemoryCategoryDAO.copy(category));
+			categorySequence.accumulateAndGet(category.getId(), Math::max);
+		}
+		for (ProductDetailDTO product : productDAO.findAll()) {
+			ProductDetailDTO row = InMemoryProductDAO.copy(product);
+			row.setActive(true);
+			products().put(row.getId(), row);
+			index(productsByCategory(), row.getCategoryId(), row.getId());
+			productSequence.accumulateAndGet(row.getId(), Math::max);
+		}
+		for (ProductPrice price : productPriceDAO.findAll()) {
+			prices().put(price.getId(), InMemoryProductPriceDAO.copy(price));
+			index(pricesByProduct(), price.getProductId(), price.getId());
+			priceSequence.accumulateAndGet(price.getId(), Math::max);
+		}
+		for (Integer productId : products().keySet()) {
+			refreshMinPrice(productId);
+		}
+	}
+
+	/**
+	 * Recomputes the lowest current price of a product and its place in the
+	 * price order. The caller must hold the lock of the database.
+	 */
+	void refreshMinPrice(int productId) {
+		Map<Integer, ProductPrice> prices = prices();
+		Integer minPrice = null;
+		for (Integer priceId : rowIds(pricesByProduct(), productId)) {
+			ProductPrice price = prices.get(priceId);
+			if (price != null && price.getEndDate() == null
+					&& (minPrice == null || (int) price.getPrice() < minPrice)) {
+				minPrice = (int) price.getPrice();
+			}
+		}
+
+		if (!products().containsKey(productId)) {
+			return;
+		}
+		Integer oldMinPrice = minPrice == null ? minPriceByProduct().remove(productId)
+				: minPriceByProduct().put(productId, minPrice);
+		if (oldMinPrice != null) {
+			productsByMinPrice().remove(priceKey(oldMinPrice, productId));
+		}
+		reindexPriceOrder(productId);
+	}
+
+	/**
+	 * Adds an active product with a current price to the price order, or removes
+	 * any other product from it. The caller must hold the lock of the database.
+	 */
+	void reindexPriceOrder(int productId) {
+		ProductDetailDTO product = products().get(productId);
+		Integer minPrice = minPriceByProduct().get(productId);
+		if (minPrice == null) {
+			return;
+		}
+		if (product != null && product.isActive()) {
+			productsByMinPrice().add(priceKey(minPrice, productId));
+		} else {
+			productsByMinPrice().remove(priceKey(minPrice, productId));
+		}
+	}
+
+	/**
+	 * Returns the products after the given position of the price order, ordered
+	 * by lowest price and then by ID.
+	 */
+	NavigableSet<Long> productsByMinPriceAfter(boolean descending, int afterPrice, int afterId) {
+		NavigableSet<Long> productsByMinPrice = productsByMinPrice();
+		if (afterId == 0) {
+			return descending ? productsByMinPrice.descendingSet() : productsByMinPrice;
+		}
+		long key = priceKey(afterPrice, afterId);
+		return descending ? productsByMinPrice.headSet(key, false).descendingSet()
+				: productsByMinPrice.tailSet(key, false);
+	}
+
+	/**
+	 * Combines a lowest price and a product ID into one key whose natural order
+	 * is the order by price and then by ID.
+	 */
+	static long priceKey(int minPrice, int productId) {
+		return ((long) minPrice << 32) | (productId & 0xFFFFFFFFL);
+	}
+
+	static int productIdOf(long priceKey) {
+		return (int) priceKey;
+	}
+
+	static <K> void index(Map<K, Set<Integer>> index, K key, int id) {
+		index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).add(id);
+	}
+
+	static <K> void unindex(Map<K, Set<Integer>> index, K key, int id) {
+		Set<Integer> ids = index.get(key);
+		if (ids != null) {
+			ids.remove(id);
+		}
+	}
+
+	static <K> Collection<Integer> rowIds(Map<K, Set<Integer>> index, K key) {
+		Set<Integer> ids = index.get(key);
+		return ids != null ? ids : List.of();
+	}
+
+}
@@ -0,0 +1,216 @@
+package in.fssa.homebakery.dao;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import in.fssa.homebakery.dto.OrderDetailDTO;
+import in.fssa.homebakery.dto.OrderDetailDTO.OrderStatus;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.OrderInterface;
+import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.model.User;
+
+/**
+ * Serves orders from an 'InMemoryDatabase' instead of MySQL.
+ *
+ * An order row keeps only the IDs of its user, product and product price. The
+ * methods that return orders with details join the current product and price
+ * rows the way the 'LEFT JOIN' of 'OrderDAO' does, so an order whose product or
+ * price is missing still carries their IDs.
+ */
+public class InMemoryOrderDAO implements OrderInterface {
+
+	private final InMemoryDatabase db;
+
+	public InMemoryOrderDAO(InMemoryDatabase db) {
+		this.db = db;
+	}
+
+	/**
+	 * Stores a new order and sets its generated ID. Like the foreign keys of the
+	 * 'orders' table, the user, product and product price must exist.
+	 */
+	@Override
+	public void create(OrderDetailDTO order) throws PersistanceException {
+		synchronized (db) {
+			checkReferences(order);
+			int id = db.orderSequence.incrementAndGet();
+			OrderDetailDTO row = toRow(order);
+			row.setId(id);
+			db.orders().put(id, row);
+			InMemoryDatabase.index(db.ordersByUser(), row.getUser().getId(), id);
+			order.setId(id);
+		}
+	}
+
+	@Override
+	public int update(int orderId, OrderDetailDTO order) throws PersistanceException {
+		synchronized (db) {
+			OrderDetailDTO existing = db.orders().get(orderId);
+			if (existing == null) {
+				return 0;
+			}
+			checkReferences(order);
+			OrderDetailDTO row = toRow(order);
+			row.setId(orderId);
+			db.orders().put(orderId, row);
+			InMemoryDatabase.unindex(db.ordersByUser(), existing.getUser().getId(), orderId);
+			InMemoryDatabase.index(db.ordersByUser(), row.getUser().getId(), orderId);
+			return 1;
+		}
+	}
+
+	@Override
+	public void changeStatus(int orderId, OrderStatus newStatus) {
+		synchronized (db) {
+			OrderDetailDTO existing = db.orders().get(orderId);
+			if (existing != null) {
+				OrderDetailDTO row = copy(existing, true);
+				row.setUser(existing.getUser());
+				row.setStatus(newStatus);
+				db.orders().put(orderId, row);
+			}
+		}
+	}
+
+	@Override
+	public List<OrderDetailDTO> findOrdersByUserId(int userId) {
+		List<OrderDetailDTO> orderList = new ArrayList<>();
+		Map<Integer, OrderDetailDTO> orders = db.orders();
+		for (Integer orderId : InMemoryDatabase.rowIds(db.ordersByUser(), userId)) {
+			orderList.add(copy(orders.get(orderId), true));
+		}
+		return orderList;
+	}
+
+	@Override
+	public OrderDetailDTO findOrdersByOrderId(int orderId) {
+		OrderDetailDTO order = db.orders().get(orderId);
+		return order != null ? copy(order, true) : new OrderDetailDTO();
+	}
+
+	@Override
+	public List<OrderDetailDTO> findOrdersWithDetailsByUserId(int userId) {
+		List<OrderDetailDTO> orderList = new ArrayList<>();
+		Map<Integer, OrderDetailDTO> orders = db.orders();
+		for (Integer orderId : InMemoryDatabase.rowIds(db.ordersByUser(), userId)) {
+			orderList.add(withDetails(orders.get(orderId)));
+		}
+		return orderList;
+	}
+
+	@Override
+	public OrderDetailDTO findOrderWithDetailsByOrderId(int orderId) {
+		OrderDetailDTO order = db.orders().get(orderId);
+		return order != null ? withDetails(order) : null;
+	}
+
+	@Override
+	public List<OrderDetailDTO> findAllOrders() {
+		List<OrderDetailDTO> orderList = new ArrayList<>();
+		for (OrderDetailDTO order : db.orders().values()) {
+			orderList.add(copy(order, false));
+		}
+		return orderList;
+	}
+
+	@Override
+	public Stream<OrderDetailDTO> streamAllOrders() {
+		return db.orders().values().stream().map(this::withDetails);
+	}
+
+	@Override
+	public boolean orderExists(int orderId) {
+		return db.orders().containsKey(orderId);
+	}
+
+	private void checkReferences(OrderDetailDTO order) throws PersistanceException {
+		if (!db.users().containsKey(order.getUser().getId())) {
+			throw new PersistanceException("User " + order.getUser().getId() + " does not exist", false);
+		}
+		if (!db.products().containsKey(order.getProduct().getId())) {
+			throw new PersistanceException("Product " + order.getProduct().getId() + " does not exist", false);
+		}
+		if (!db.prices().containsKey(order.getProductPrice().getId())) {
+			throw new PersistanceException("Product price " + order.getProductPrice().getId() + " does not exist", false);
+		}
+	}
+
+	/**
+	 * Converts an order into the row that is stored, with the current time as
+	 * its ordered time.
+	 */
+	private static OrderDetailDTO toRow(OrderDetailDTO order) {
+		OrderDetailDTO row = new OrderDetailDTO();
+		row.setAddress(order.getAddress());
+		row.setStatus(order.getStatus());
+		row.setQuantity(order.getQuantity());
+		row.setDeliveryDate(new Timestamp(order.getDeliveryDate().getTime()));
+		row.setDeliveryTime(new Time(order.getDeliveryTime().getTime()));
+		row.setOrderedTime(new Timestamp(System.currentTimeMillis()));
+
+		User user = new User();
+		user.setId(order.getUser().getId());
+		row.setUser(user);
+		row.setProduct(productReference(order.getProduct().getId()));
+		row.setProductPrice(priceReference(order.getProductPrice().getId()));
+		return row;
+	}
+
+	/**
+	 * Copies the columns of an order row that 'OrderDAO' reads. The references
+	 * carry only the IDs of the product and the product price.
+	 */
+	private static OrderDetailDTO copy(OrderDetailDTO row, boolean withReferences) {
+		OrderDetailDTO order = new OrderDetailDTO();
+		order.setId(row.getId());
+		order.setAddress(row.getAddress());
+		order.setStatus(row.getStatus());
+		order.setQuantity(row.getQuantity());
+		order.setDeliveryDate(row.getDeliveryDate());
+		order.setDeliveryTime(row.getDeliveryTime());
+		order.setOrderedTime(row.getOrderedTime());
+		if (withReferences) {
+			order.setProduct(productReference(row.getProduct().getId()));
+			order.setProductPrice(priceReference(row.getProductPrice().getId()));
+		}
+		return order;
+	}
+
+	private OrderDetailDTO withDetails(OrderDetailDTO row) {
+		OrderDetailDTO order = copy(row, false);
+
+		int productId = row.getProduct().getId();
+		ProductDetailDTO product = db.products().get(productId);
+		if (product != null) {
+			ProductDetailDTO detail = InMemoryProductDAO.copy(product);
+			detail.setActive(product.isActive());
+			order.setProduct(detail);
+		} else {
+			order.setProduct(productReference(productId));
+		}
+
+		int priceId = row.getProductPrice().getId();
+		ProductPrice price = db.prices().get(priceId);
+		order.setProductPrice(price != null ? InMemoryProductPriceDAO.copy(price) : priceReference(priceId));
+		return order;
+	}
+
+	private static ProductDetailDTO productReference(int productId) {
+		ProductDetailDTO product = new ProductDetailDTO();
+		product.setId(productId);
+		return product;
+	}
+
+	private static ProductPrice priceReference(int priceId) {
+		ProductPrice productPrice = new ProductPrice();
+		productPrice.setId(priceId);
+		return productPrice;
+	}
+
+}
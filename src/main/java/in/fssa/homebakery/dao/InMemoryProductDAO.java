@@ -0,0 +1,296 @@
+package in.fssa.homebakery.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.model.Product;
+import in.fssa.homebakery.model.ProductPrice;
+
+/**
+ * Serves products from an 'InMemoryDatabase' instead of MySQL.
+ *
+ * The methods return the same products in the same order as the queries of
+ * 'ProductDAO'. Listings by ID walk the ID ordered product table, listings of
+ * a category walk the category index, and listings by price walk the price
+ * order of the database, so no listing sorts or scans the whole catalog.
+ */
+public class InMemoryProductDAO implements ProductInterface {
+
+	private static final int SET_SIZE = 5;
+
+	private final InMemoryDatabase db;
+
+	public InMemoryProductDAO(InMemoryDatabase db) {
+		this.db = db;
+	}
+
+	/**
+	 * Stores a new product. Like the foreign key of the 'products' table, the
+	 * category of the product must exist.
+	 */
+	@Override
+	public int create(ProductDetailDTO productDetailDTO) throws PersistanceException {
+		synchronized (db) {
+			if (!db.categories().containsKey(productDetailDTO.getCategoryId())) {
+				throw new PersistanceException("Category " + productDetailDTO.getCategoryId() + " does not exist", false);
+			}
+			int id = db.productSequence.incrementAndGet();
+			ProductDetailDTO row = copy(productDetailDTO);
+			row.setId(id);
+			row.setActive(productDetailDTO.isActive());
+			db.products().put(id, row);
+			InMemoryDatabase.index(db.productsByCategory(), row.getCategoryId(), id);
+			return id;
+		}
+	}
+
+	@Override
+	public int update(int id, Product newProduct) {
+		synchronized (db) {
+			ProductDetailDTO product = db.products().get(id);
+			if (product == null || !product.isActive()) {
+				return 0;
+			}
+			ProductDetailDTO row = new ProductDetailDTO();
+			row.setId(id);
+			row.setName(newProduct.getProductName());
+			row.setDescription(newProduct.getDescription());
+			row.setCategoryId(newProduct.getCategoryId());
+			row.setImageUrl(newProduct.getImageUrl());
+			row.setVeg(newProduct.isVeg());
+			row.setActive(newProduct.isActive());
+			db.products().put(id, row);
+			InMemoryDatabase.unindex(db.productsByCategory(), product.getCategoryId(), id);
+			InMemoryDatabase.index(db.productsByCategory(), row.getCategoryId(), id);
+			db.reindexPriceOrder(id);
+			return 1;
+		}
+	}
+
+	@Override
+	public int delete(int id) {
+		synchronized (db) {
+			ProductDetailDTO product = db.products().get(id);
+			if (product == null || !product.isActive()) {
+				return 0;
+			}
+			ProductDetailDTO row = copy(product);
+			row.setActive(false);
+			db.products().put(id, row);
+			db.reindexPriceOrder(id);
+			return 1;
+		}
+	}
+
+	@Override
+	public Set<ProductDetailDTO> findAll() {
+		Set<ProductDetailDTO> setOfProducts = new HashSet<>();
+		for (ProductDetailDTO product : db.products().values()) {
+			if (product.isActive()) {
+				setOfProducts.add(copy(product));
+			}
+		}
+		return setOfProducts;
+	}
+
+	@Override
+	public Stream<ProductDetailDTO> streamAll() {
+		return db.products().values().stream().filter(ProductDetailDTO::isActive).map(InMemoryProductDAO::copy);
+	}
+
+	@Override
+	public ProductDetailDTO findById(int id) {
+		ProductDetailDTO product = db.products().get(id);
+		return product != null && product.isActive() ? copy(product) : null;
+	}
+
+	@Override
+	public Map<Integer, ProductDetailDTO> findByIds(Collection<Integer> ids) {
+		Map<Integer, ProductDetailDTO> productById = new HashMap<>();
+		for (Integer id : ids) {
+			ProductDetailDTO product = id != null ? findById(id) : null;
+			if (product != null) {
+				productById.put(id, product);
+			}
+		}
+		return productById;
+	}
+
+	@Override
+	public List<ProductDetailDTO> findByCategoryId(int categoryId) {
+		return findByCategoryId(categoryId, 0, 0, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public boolean productExists(int productId) {
+		ProductDetailDTO product = db.products().get(productId);
+		return product != null && product.isActive();
+	}
+
+	@Override
+	public Set<ProductDetailDTO> findSetsOfProducts(int n) {
+		Set<ProductDetailDTO> setOfProducts = new LinkedHashSet<>();
+		int skipped = 0;
+		for (ProductDetailDTO product : db.products().values()) {
+			if (setOfProducts.size() == SET_SIZE) {
+				break;
+			}
+			if (product.isActive() && skipped++ >= n) {
+				setOfProducts.add(copy(product));
+			}
+		}
+		return setOfProducts;
+	}
+
+	@Override
+	public Set<ProductDetailDTO> findSetsOfProductsOrderByPrice(int n, String sort) {
+		List<ProductDetailDTO> productList = findByPrice("desc".equalsIgnoreCase(sort), 0, 0, n, SET_SIZE, false);
+		return new LinkedHashSet<>(productList);
+	}
+
+	@Override
+	public List<ProductDetailDTO> findSetByCategoryId(int categoryId, int n) {
+		return findByCategoryId(categoryId, 0, n, SET_SIZE);
+	}
+
+	@Override
+	public List<ProductDetailDTO> findPageOfProducts(int afterId, int limit) {
+		List<ProductDetailDTO> productList = new ArrayList<>();
+		for (ProductDetailDTO product : db.products().tailMap(afterId, false).values()) {
+			if (productList.size() == limit) {
+				break;
+			}
+			if (product.isActive()) {
+				productList.add(copy(product));
+			}
+		}
+		return productList;
+	}
+
+	@Override
+	public List<ProductDetailDTO> findPageByCategoryId(int categoryId, int afterId, int limit) {
+		return findByCategoryId(categoryId, afterId, 0, limit);
+	}
+
+	@Override
+	public List<ProductDetailDTO> findPageOrderByPrice(boolean descending, int afterPrice, int afterId, int limit) {
+		return findByPrice(descending, afterPrice, afterId, 0, limit, true);
+	}
+
+	@Override
+	public void refreshMinPrice(int productId) {
+		synchronized (db) {
+			db.refreshMinPrice(productId);
+		}
+	}
+
+	@Override
+	public void refreshMinPriceByPriceId(int priceId) {
+		synchronized (db) {
+			ProductPrice price = db.prices().get(priceId);
+			if (price != null) {
+				db.refreshMinPrice(price.getProductId());
+			}
+		}
+	}
+
+	@Override
+	public int findCountOfActiveProducts() {
+		int count = 0;
+		for (ProductDetailDTO product : db.products().values()) {
+			if (product.isActive()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public int findCountOfActiveProductsByCategoryId(int id) {
+		int count = 0;
+		Map<Integer, ProductDetailDTO> products = db.products();
+		for (Integer productId : InMemoryDatabase.rowIds(db.productsByCategory(), id)) {
+			ProductDetailDTO product = products.get(productId);
+			if (product != null && product.isActive() && product.getCategoryId() == id) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns at most 'limit' active products of a category with an ID greater
+	 * than 'afterId', ordered by ID, after skipping the first 'offset' of them.
+	 */
+	private List<ProductDetailDTO> findByCategoryId(int categoryId, int afterId, int offset, int limit) {
+		List<ProductDetailDTO> productList = new ArrayList<>();
+		int skipped = 0;
+		Map<Integer, ProductDetailDTO> products = db.products();
+		for (Integer productId : InMemoryDatabase.rowIds(db.productsByCategory(), categoryId)) {
+			if (productList.size() == limit) {
+				break;
+			}
+			ProductDetailDTO product = products.get(productId);
+			if (productId > afterId && product != null && product.isActive() && product.getCategoryId() == categoryId
+					&& skipped++ >= offset) {
+				productList.add(copy(product));
+			}
+		}
+		return productList;
+	}
+
+	/**
+	 * Returns at most 'limit' active products with a current price that follow
+	 * the given position of the price order, after skipping the first 'offset' of
+	 * them.
+	 */
+	private List<ProductDetailDTO> findByPrice(boolean descending, int afterPrice, int afterId, int offset,
+			int limit, boolean withMinPrice) {
+		List<ProductDetailDTO> productList = new ArrayList<>();
+		int skipped = 0;
+		Map<Integer, ProductDetailDTO> products = db.products();
+		Map<Integer, Integer> minPriceByProduct = db.minPriceByProduct();
+		for (Long key : db.productsByMinPriceAfter(descending, afterPrice, afterId)) {
+			if (productList.size() == limit) {
+				break;
+			}
+			ProductDetailDTO product = products.get(InMemoryDatabase.productIdOf(key));
+			Integer minPrice = product != null ? minPriceByProduct.get(product.getId()) : null;
+			if (product == null || !product.isActive() || minPrice == null || skipped++ < offset) {
+				continue;
+			}
+			ProductDetailDTO copy = copy(product);
+			if (withMinPrice) {
+				copy.setMinPrice(minPrice);
+			}
+			productList.add(copy);
+		}
+		return productList;
+	}
+
+	/**
+	 * Copies the columns of a product that 'ProductDAO' reads. Like its row
+	 * mapper, the copy is not marked active.
+	 */
+	static ProductDetailDTO copy(ProductDetailDTO product) {
+		ProductDetailDTO copy = new ProductDetailDTO();
+		copy.setId(product.getId());
+		copy.setName(product.getName());
+		copy.setDescription(product.getDescription());
+		copy.setCategoryId(product.getCategoryId());
+		copy.setImageUrl(product.getImageUrl());
+		copy.setVeg(product.isVeg());
+		return copy;
+	}
+
+}
@@ -0,0 +1,262 @@
+package in.fssa.homebakery.dao;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
+import in.fssa.homebakery.model.ProductPrice;
+
+/**
+ * Serves product prices from an 'InMemoryDatabase' instead of MySQL.
+ *
+ * Prices are looked up through the index of their product, so the lookups of
+ * one product never read the prices of the others. Like the 'price' column of
+ * the 'product_prices' table, stored prices are rounded to whole numbers.
+ */
+public class InMemoryProductPriceDAO implements ProductPricesInterface {
+
+	private static final Comparator<ProductPrice> BY_QUANTITY = Comparator.comparingDouble(ProductPrice::getQuantity);
+
+	private final InMemoryDatabase db;
+
+	public InMemoryProductPriceDAO(InMemoryDatabase db) {
+		this.db = db;
+	}
+
+	/**
+	 * Stores a new product price. Like the foreign key of the 'product_prices'
+	 * table, the product must exist.
+	 */
+	@Override
+	public void create(ProductPrice newPrice, int productId) throws PersistanceException {
+		insert(productId, newPrice.getPrice(), newPrice.getQuantity(), newPrice, newPrice.getStartDate());
+	}
+
+	@Override
+	public void createAll(List<ProductPrice> newPrices, int productId) throws PersistanceException {
+		synchronized (db) {
+			for (ProductPrice newPrice : newPrices) {
+				create(newPrice, productId);
+			}
+		}
+	}
+
+	@Override
+	public void update(int id, ProductPrice productPrice, double quantity) throws PersistanceException {
+		insert(id, productPrice.getPrice(), quantity, productPrice, new Timestamp(System.currentTimeMillis()));
+	}
+
+	@Override
+	public void delete(int priceId) {
+		synchronized (db) {
+			ProductPrice price = db.prices().get(priceId);
+			if (price != null && price.getEndDate() == null) {
+				end(price);
+			}
+		}
+	}
+
+	@Override
+	public void deleteByProductId(int productId) {
+		synchronized (db) {
+			Map<Integer, ProductPrice> prices = db.prices();
+			for (Integer priceId : InMemoryDatabase.rowIds(db.pricesByProduct(), productId)) {
+				ProductPrice price = prices.get(priceId);
+				if (price.getEndDate() == null) {
+					end(price);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void setEndDate(int productId, double quantity) {
+		synchronized (db) {
+			Map<Integer, ProductPrice> prices = db.prices();
+			for (Integer priceId : InMemoryDatabase.rowIds(db.pricesByProduct(), productId)) {
+				ProductPrice price = prices.get(priceId);
+				if (price.getQuantity() == quantity && price.getEndDate() == null) {
+					end(price);
+				}
+			}
+		}
+	}
+
+	@Override
+	public Set<ProductPrice> findAll() {
+		Set<ProductPrice> productPrices = new HashSet<>();
+		for (ProductPrice price : db.prices().values()) {
+			productPrices.add(copy(price));
+		}
+		return productPrices;
+	}
+
+	@Override
+	public Stream<ProductPrice> streamAll() {
+		return db.prices().values().stream().map(InMemoryProductPriceDAO::copy);
+	}
+
+	@Override
+	public List<ProductPrice> findByProductId(int id) {
+		return findByProductId(id, false);
+	}
+
+	@Override
+	public Map<Integer, List<ProductPrice>> findByProductIds(Collection<Integer> productIds) {
+		return findGroupedByProductIds(productIds, false);
+	}
+
+	@Override
+	public Map<Integer, List<ProductPrice>> findCurrentPriceByProductIds(Collection<Integer> productIds) {
+		return findGroupedByProductIds(productIds, true);
+	}
+
+	@Override
+	public ProductPrice findById(int id) {
+		ProductPrice price = db.prices().get(id);
+		return price != null ? copy(price) : null;
+	}
+
+	@Override
+	public Map<Integer, ProductPrice> findByIds(Collection<Integer> ids) {
+		Map<Integer, ProductPrice> productPriceById = new HashMap<>();
+		for (Integer id : ids) {
+			ProductPrice price = id != null ? findById(id) : null;
+			if (price != null) {
+				productPriceById.put(id, price);
+			}
+		}
+		return productPriceById;
+	}
+
+	@Override
+	public List<ProductPrice> findCurrentPrice(int productId) {
+		return findByProductId(productId, true);
+	}
+
+	@Override
+	public List<ProductPrice> findCurrentPriceForAllProducts() {
+		List<ProductPrice> priceList = new ArrayList<>();
+		for (ProductPrice price : db.prices().values()) {
+			if (price.getEndDate() == null) {
+				priceList.add(copy(price));
+			}
+		}
+		return priceList;
+	}
+
+	@Override
+	public List<ProductPrice> findPricesByQuantity(double quantity) {
+		List<ProductPrice> priceList = new ArrayList<>();
+		for (ProductPrice price : db.prices().values()) {
+			if (price.getQuantity() == quantity && price.getEndDate() == null) {
+				priceList.add(copy(price));
+			}
+		}
+		return priceList;
+	}
+
+	@Override
+	public ProductPrice findPriceByIdAndQuantity(int productId, double quantity) {
+		for (ProductPrice price : findByProductId(productId, true)) {
+			if (price.getQuantity() == quantity) {
+				return price;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean quantityExistsForProduct(int productId, double quantity) {
+		Map<Integer, ProductPrice> prices = db.prices();
+		for (Integer priceId : InMemoryDatabase.rowIds(db.pricesByProduct(), productId)) {
+			if (prices.get(priceId).getQuantity() == quantity) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean priceExists(int priceId) {
+		return db.prices().containsKey(priceId);
+	}
+
+	private void insert(int productId, double price, double quantity, ProductPrice newPrice, Timestamp startDate)
+			throws PersistanceException {
+		synchronized (db) {
+			if (!db.products().containsKey(productId)) {
+				throw new PersistanceException("Product " + productId + " does not exist", false);
+			}
+			int id = db.priceSequence.incrementAndGet();
+			ProductPrice row = new ProductPrice();
+			row.setId(id);
+			row.setProductId(productId);
+			row.setPrice((int) Math.round(price));
+			row.setQuantity(quantity);
+			row.setType(newPrice.getType());
+			row.setStartDate(startDate);
+			db.prices().put(id, row);
+			InMemoryDatabase.index(db.pricesByProduct(), productId, id);
+		}
+	}
+
+	private void end(ProductPrice price) {
+		ProductPrice ended = copy(price);
+		ended.setEndDate(new Timestamp(System.currentTimeMillis()));
+		db.prices().put(ended.getId(), ended);
+	}
+
+	/**
+	 * Returns the prices of a product ordered by ID, or only its current prices
+	 * ordered by quantity.
+	 */
+	private List<ProductPrice> findByProductId(int productId, boolean currentOnly) {
+		List<ProductPrice> priceList = new ArrayList<>();
+		Map<Integer, ProductPrice> prices = db.prices();
+		for (Integer priceId : InMemoryDatabase.rowIds(db.pricesByProduct(), productId)) {
+			ProductPrice price = prices.get(priceId);
+			if (!currentOnly || price.getEndDate() == null) {
+				priceList.add(copy(price));
+			}
+		}
+		if (currentOnly) {
+			priceList.sort(BY_QUANTITY);
+		}
+		return priceList;
+	}
+
+	private Map<Integer, List<ProductPrice>> findGroupedByProductIds(Collection<Integer> productIds,
+			boolean currentOnly) {
+		Map<Integer, List<ProductPrice>> pricesByProduct = new HashMap<>();
+		for (Integer productId : new HashSet<>(productIds)) {
+			List<ProductPrice> priceList = productId != null ? findByProductId(productId, currentOnly) : List.of();
+			if (!priceList.isEmpty()) {
+				pricesByProduct.put(productId, priceList);
+			}
+		}
+		return pricesByProduct;
+	}
+
+	static ProductPrice copy(ProductPrice price) {
+		ProductPrice copy = new ProductPrice();
+		copy.setId(price.getId());
+		copy.setProductId(price.getProductId());
+		copy.setPrice(price.getPrice());
+		copy.setQuantity(price.getQuantity());
+		copy.setType(price.getType());
+		copy.setStartDate(price.getStartDate());
+		copy.setEndDate(price.getEndDate());
+		return copy;
+	}
+
+}
@@ -0,0 +1,185 @@
+package in.fssa.homebakery.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import in.fssa.homebakery.interfaces.UserInterface;
+import in.fssa.homebakery.model.User;
+
+/**
+ * Serves users from an 'InMemoryDatabase' instead of MySQL.
+ *
+ * Users are indexed by their lower case email address, because MySQL compares
+ * email addresses without regard to case, and by their phone number. Passwords
+ * are kept as they are given instead of being encrypted with 'SECRET_KEY': they
+ * never leave the process, and the methods that return passwords return them
+ * in plain text like 'UserDAO' does after decrypting them.
+ */
+public class InMemoryUserDAO implements UserInterface {
+
+	private final InMemoryDatabase db;
+
+	public InMemoryUserDAO(InMemoryDatabase db) {
+		this.db = db;
+	}
+
+	@Override
+	public void create(User newUser) {
+		synchronized (db) {
+			int id = db.userSequence.incrementAndGet();
+			User user = copy(newUser, true);
+			user.setId(id);
+			user.setActive(true);
+			db.users().put(id, user);
+			InMemoryDatabase.index(db.usersByEmail(), emailKey(user.getEmail()), id);
+			InMemoryDatabase.index(db.usersByPhoneNo(), user.getPhoneNo(), id);
+		}
+	}
+
+	@Override
+	public int update(int id, User updatedUser) {
+		synchronized (db) {
+			User user = db.users().get(id);
+			if (user == null || !user.isActive()) {
+				return 0;
+			}
+			User updated = copy(updatedUser, true);
+			updated.setId(id);
+			updated.setActive(true);
+			db.users().put(id, updated);
+			InMemoryDatabase.unindex(db.usersByEmail(), emailKey(user.getEmail()), id);
+			InMemoryDatabase.unindex(db.usersByPhoneNo(), user.getPhoneNo(), id);
+			InMemoryDatabase.index(db.usersByEmail(), emailKey(updated.getEmail()), id);
+			InMemoryDatabase.index(db.usersByPhoneNo(), updated.getPhoneNo(), id);
+			return 1;
+		}
+	}
+
+	/**
+	 * Deactivates a user. Like 'UserDAO', a user that is already inactive is
+	 * counted as well.
+	 */
+	@Override
+	public int delete(int userId) {
+		synchronized (db) {
+			User user = db.users().get(userId);
+			if (user == null) {
+				return 0;
+			}
+			User deactivated = copy(user, true);
+			deactivated.setActive(false);
+			db.users().put(userId, deactivated);
+			return 1;
+		}
+	}
+
+	@Override
+	public Set<User> findAll() {
+		Set<User> setOfUser = new HashSet<>();
+		for (User user : db.users().values()) {
+			if (user.isActive()) {
+				setOfUser.add(copy(user, false));
+			}
+		}
+		return setOfUser;
+	}
+
+	@Override
+	public Stream<User> streamAll() {
+		return db.users().values().stream().filter(User::isActive).map(user -> copy(user, false));
+	}
+
+	@Override
+	public User findById(int userId) {
+		User user = db.users().get(userId);
+		return user != null && user.isActive() ? copy(user, true) : null;
+	}
+
+	@Override
+	public Map<Integer, User> findByIds(Collection<Integer> ids) {
+		Map<Integer, User> userById = new HashMap<>();
+		for (Integer id : ids) {
+			User user = id != null ? findById(id) : null;
+			if (user != null) {
+				userById.put(id, user);
+			}
+		}
+		return userById;
+	}
+
+	@Override
+	public User findByEmail(String email) {
+		List<User> matches = findActiveByEmail(email);
+		return matches.isEmpty() ? null : matches.get(0);
+	}
+
+	/**
+	 * Retrieves several active users by their email addresses at once. Like
+	 * 'UserDAO', the returned map is keyed by the lower case email address.
+	 */
+	@Override
+	public Map<String, User> findByEmails(Collection<String> emails) {
+		Map<String, User> userByEmail = new HashMap<>();
+		for (String email : emails) {
+			for (User user : findActiveByEmail(email)) {
+				userByEmail.put(emailKey(user.getEmail()), user);
+			}
+		}
+		return userByEmail;
+	}
+
+	@Override
+	public boolean isUserPresent(int id) {
+		return db.users().containsKey(id);
+	}
+
+	@Override
+	public boolean isUserEmailPresent(String email) {
+		return email != null && !InMemoryDatabase.rowIds(db.usersByEmail(), emailKey(email)).isEmpty();
+	}
+
+	@Override
+	public boolean isUserPhoneNoPresent(long phoneNo) {
+		return !InMemoryDatabase.rowIds(db.usersByPhoneNo(), phoneNo).isEmpty();
+	}
+
+	private List<User> findActiveByEmail(String email) {
+		List<User> matches = new ArrayList<>();
+		if (email == null) {
+			return matches;
+		}
+		for (Integer id : InMemoryDatabase.rowIds(db.usersByEmail(), emailKey(email))) {
+			User user = findById(id);
+			if (user != null) {
+				matches.add(user);
+			}
+		}
+		return matches;
+	}
+
+	private static String emailKey(String email) {
+		return email != null ? email.toLowerCase(Locale.ROOT) : "";
+	}
+
+	static User copy(User user, boolean withPassword) {
+		User copy = new User();
+		copy.setId(user.getId());
+		copy.setFirstName(user.getFirstName());
+		copy.setLastName(user.getLastName());
+		copy.setEmail(user.getEmail());
+		copy.setPhoneNo(user.getPhoneNo());
+		copy.setActive(user.isActive());
+		if (withPassword) {
+			copy.setPassword(user.getPassword());
+		}
+		return copy;
+	}
+
+}
@@ -0,0 +1,79 @@
+package in.fssa.homebakery.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import in.fssa.homebakery.util.MethodMetrics;
+import in.fssa.homebakery.util.MethodMetrics.Recorder;
+
+/**
+ * Wraps a DAO so that every call of its interface methods is recorded in
+ * 'MethodMetrics' under the name 'DAOClass.method', with its latency and
+ * whether it threw.
+ *
+ * The recorders are resolved once when the DAO is wrapped, so a call only pays
+ * for the reflective invocation and two 'System.nanoTime' calls. Methods that
+ * return a stream are measured until the stream is returned, not until it is
+ * consumed.
+ */
+class InstrumentedDAO implements InvocationHandler {
+
+	private final Object target;
+	private final Map<Method, Recorder> recorders = new HashMap<>();
+
+	private InstrumentedDAO(Class<?> type, Object target) {
+		this.target = target;
+		String prefix = target.getClass().getSimpleName() + ".";
+		for (Method method : type.getMethods()) {
+			recorders.put(method, MethodMetrics.recorder(prefix + method.getName()));
+		}
+	}
+
+	/**
+	 * Returns the DAO wrapped in a recording proxy, or the DAO itself if
+	 * recording is turned off.
+	 *
+	 * @param <T>    The interface of the DAO.
+	 * @param type   The interface whose methods are recorded.
+	 * @param target The DAO to wrap.
+	 * @return A proxy implementing 'type' that delegates to the DAO.
+	 */
+	static <T> T wrap(Class<T> type, T target) {
+		if (!MethodMetrics.isEnabled()) {
+			return target;
+		}
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				new InstrumentedDAO(type, target)));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		Recorder recorder = recorders.get(method);
+		if (recorder == null) {
+			return invokeTarget(method, args);
+		}
+
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			Object result = invokeTarget(method, args);
+			failed = false;
+			return result;
+		} finally {
+			recorder.record(start, failed);
+		}
+	}
+
+	private Object invokeTarget(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+}
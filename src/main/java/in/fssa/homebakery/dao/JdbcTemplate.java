@@ -0,0 +1,518 @@
+package in.fssa.homebakery.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.exception.UncheckedPersistanceException;
+import in.fssa.homebakery.interfaces.RowMapper;
+import in.fssa.homebakery.interfaces.RowMapperFactory;
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.Logger;
+import in.fssa.homebakery.util.SlowQueryLog;
+import in.fssa.homebakery.util.SqlUtil;
+
+/**
+ * Runs the SQL statements of the DAOs and owns their resource handling.
+ *
+ * Every method borrows a connection from 'ConnectionUtil', so statements take
+ * part in an active transaction like before, prepares the statement, binds the
+ * parameters in order, reads the result and closes everything again. SQL
+ * errors are logged with the DAO method, the SQL and its parameters, and
+ * rethrown as 'PersistanceException'.
+ *
+ * Rows are mapped with a 'RowMapperFactory', which is compiled once per result
+ * set. The factory resolves the column indexes of the labels it needs, and the
+ * mapper it returns reads every row by index instead of searching the columns
+ * by name again for each row.
+ *
+ * The fetch size and query timeout of every statement are set here. They are
+ * read from the 'homebakery.db.fetchSize' and 'homebakery.db.queryTimeoutSeconds'
+ * system properties when the template is created; 0 keeps the defaults of the
+ * driver. A template holds no other state and can be shared by all threads.
+ *
+ * Every statement is timed from the moment it is prepared until its result has
+ * been read, and reported with its parameters and row count to the
+ * 'SlowQueryLog', which writes it out if it was slower than the threshold.
+ */
+public class JdbcTemplate {
+
+	private static final Logger LOG = Logger.getLogger(JdbcTemplate.class);
+
+	private final int fetchSize;
+	private final int queryTimeoutSeconds;
+	private final SlowQueryLog slowQueryLog;
+
+	/**
+	 * Creates a template configured from the system properties.
+	 */
+	public JdbcTemplate() {
+		this(Integer.getInteger("homebakery.db.fetchSize", 0),
+				Integer.getInteger("homebakery.db.queryTimeoutSeconds", 0));
+	}
+
+	/**
+	 * Creates a template with the given statement settings that reports to the
+	 * shared slow query log.
+	 *
+	 * @param fetchSize           The number of rows fetched from the database at
+	 *                            a time, or 0 for the driver default.
+	 * @param queryTimeoutSeconds The number of seconds a statement may run before
+	 *                            it is cancelled, or 0 for no limit.
+	 */
+	public JdbcTemplate(int fetchSize, int queryTimeoutSeconds) {
+		this(fetchSize, queryTimeoutSeconds, SlowQueryLog.getInstance());
+	}
+
+	/**
+	 * Creates a template with the given statement settings and slow query log.
+	 *
+	 * @param fetchSize           The number of rows fetched from the database at
+	 *                            a time, or 0 for the driver default.
+	 * @param queryTimeoutSeconds The number of seconds a statement may run before
+	 *                            it is cancelled, or 0 for no limit.
+	 * @param slowQueryLog        The log that slow statements are reported to.
+	 */
+	public JdbcTemplate(int fetchSize, int queryTimeoutSeconds, SlowQueryLog slowQueryLog) {
+		this.fetchSize = fetchSize;
+		this.queryTimeoutSeconds = queryTimeoutSeconds;
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	/**
+	 * Runs a query and maps all of its rows.
+	 *
+	 * @param <T>     The type of the mapped rows.
+	 * @param query   The SQL query to run.
+	 * @param factory Compiles the row mapper for the result set.
+	 * @param params  The values bound to the placeholders of the query, in order.
+	 * @return The mapped rows in the order of the result, or an empty list.
+	 * @throws PersistanceException If an error occurs while running the query.
+	 */
+	public <T> List<T> query(String query, RowMapperFactory<T> factory, Object... params)
+			throws PersistanceException {
+		List<T> rows = new ArrayList<>();
+		forEach(query, factory, rows::add, params);
+		return rows;
+	}
+
+	/**
+	 * Runs a query and hands every mapped row to a consumer, so that the rows can
+	 * be collected into any structure without an intermediate list.
+	 *
+	 * @param <T>      The type of the mapped rows.
+	 * @param query    The SQL query to run.
+	 * @param factory  Compiles the row mapper for the result set.
+	 * @param consumer Receives the mapped rows in the order of the result.
+	 * @param params   The values bound to the placeholders of the query, in
+	 *                 order.
+	 * @throws PersistanceException If an error occurs while running the query.
+	 */
+	public <T> void forEach(String query, RowMapperFactory<T> factory, Consumer<? super T> consumer, Object... params)
+			throws PersistanceException {
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		long start = 0;
+		long rows = 0;
+
+		try {
+			conn = ConnectionUtil.getConnection();
+			start = System.nanoTime();
+			ps = prepare(conn, query);
+			bind(ps, params);
+			rs = ps.executeQuery();
+
+			RowMapper<T> mapper = factory.compile(rs);
+			while (rs.next()) {
+				consumer.accept(mapper.mapRow(rs));
+				rows++;
+			}
+		} catch (SQLException e) {
+			LOG.error("Statement failed", e, "dao", daoMethod(), "sql", query, "params", params);
+			throw new PersistanceException(e.getMessage());
+		} finally {
+			ConnectionUtil.close(conn, ps, rs);
+			logIfSlow(query, params, start, rows);
+		}
+	}
+
+	/**
+	 * Runs a query with an 'IN' list for any number of values.
+	 *
+	 * The values are split with 'SqlUtil.partition' and the query is run once per
+	 * chunk, with the placeholders of the chunk in place of the '%s' of the query
+	 * template. Duplicate values are bound once.
+	 *
+	 * @param <T>           The type of the mapped rows.
+	 * @param <V>           The type of the values.
+	 * @param queryTemplate The SQL query with '%s' where the 'IN' list goes.
+	 * @param values        The values of the 'IN' list.
+	 * @param factory       Compiles the row mapper for each result set.
+	 * @param consumer      Receives the mapped rows of all chunks.
+	 * @throws PersistanceException If an error occurs while running a query.
+	 */
+	public <T, V> void queryIn(String queryTemplate, Collection<V> values, RowMapperFactory<T> factory,
+			Consumer<? super T> consumer) throws PersistanceException {
+		for (List<V> chunk : SqlUtil.partition(values)) {
+			String query = String.format(queryTemplate, SqlUtil.placeholders(chunk.size()));
+			forEach(query, factory, consumer, chunk.toArray());
+		}
+	}
+
+	/**
+	 * Runs a query and maps its first row.
+	 *
+	 * @param <T>     The type of the mapped row.
+	 * @param query   The SQL query to run.
+	 * @param factory Compiles the row mapper for the result set.
+	 * @param params  The values bound to the placeholders of the query, in order.
+	 * @return The first mapped row, or null if the query returns no rows.
+	 * @throws PersistanceException If an error occurs while running the query.
+	 */
+	public <T> T queryForObject(String query, RowMapperFactory<T> factory, Object... params)
+			throws PersistanceException {
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		long start = 0;
+		long rows = 0;
+
+		try {
+			conn = ConnectionUtil.getConnection();
+			start = System.nanoTime();
+			ps = prepare(conn, query);
+			ps.setMaxRows(1);
+			bind(ps, params);
+			rs = ps.executeQuery();
+
+			if (rs.next()) {
+				rows = 1;
+				return factory.compile(rs).mapRow(rs);
+			}
+			return null;
+		} catch (SQLException e) {
+			LOG.error("Statement failed", e, "dao", daoMethod(), "sql", query, "params", params);
+			throw new PersistanceException(e.getMessage());
+		} finally {
+			ConnectionUtil.close(conn, ps, rs);
+			logIfSlow(query, params, start, rows);
+		}
+	}
+
+	/**
+	 * Runs a query whose first column is a number, such as a 'COUNT(*)' or a
+	 * 'SELECT 1', and returns the number of its first row.
+	 *
+	 * @param query  The SQL query to run.
+	 * @param params The values bound to the placeholders of the query, in order.
+	 * @return The number in the first row, or 0 if the query returns no rows.
+	 * @throws PersistanceException If an error occurs while running the query.
+	 */
+	public int queryForInt(String query, Object... params) throws PersistanceException {
+		Integer value = queryForObject(query, rs -> row -> row.getInt(1), params);
+		return value != null ? value : 0;
+	}
+
+	/**
+	 * Checks whether a query like 'SELECT 1 FROM ... WHERE ...' or
+	 * 'SELECT COUNT(*) FROM ... WHERE ...' finds anything.
+	 *
+	 * @param query  The SQL query to run.
+	 * @param params The values bound to the placeholders of the query, in order.
+	 * @return True if the first column of the first row is greater than 0.
+	 * @throws PersistanceException If an error occurs while running the query.
+	 */
+	public boolean exists(String query, Object... params) throws PersistanceException {
+		return queryForInt(query, params) > 0;
+	}
+
+	/**
+	 * Runs an 'INSERT', 'UPDATE' or 'DELETE' statement.
+	 *
+	 * @param query  The SQL statement to run.
+	 * @param params The values bound to the placeholders of the statement, in
+	 *               order.
+	 * @return The number of affected rows.
+	 * @throws PersistanceException If an error occurs while running the
+	 *                              statement.
+	 */
+	public int update(String query, Object... params) throws PersistanceException {
+		Connection conn = null;
+		PreparedStatement ps = null;
+		long start = 0;
+		long rows = 0;
+
+		try {
+			conn = ConnectionUtil.getConnection();
+			start = System.nanoTime();
+			ps = prepare(conn, query);
+			bind(ps, params);
+			int updated = ps.executeUpdate();
+			rows = updated;
+			return updated;
+		} catch (SQLException e) {
+			LOG.error("Statement failed", e, "dao", daoMethod(), "sql", query, "params", params);
+			throw new PersistanceException(e.getMessage());
+		} finally {
+			ConnectionUtil.close(conn, ps);
+			logIfSlow(query, params, start, rows);
+		}
+	}
+
+	/**
+	 * Runs an 'INSERT' statement and returns the key the database generated for
+	 * the new row.
+	 *
+	 * @param query  The SQL statement to run.
+	 * @param params The values bound to the placeholders of the statement, in
+	 *               order.
+	 * @return The generated key, or -1 if the database returned none.
+	 * @throws PersistanceException If an error occurs while running the
+	 *                              statement.
+	 */
+	public int insert(String query, Object... params) throws PersistanceException {
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet generatedKeys = null;
+		long start = 0;
+		long rows = 0;
+
+		try {
+			conn = ConnectionUtil.getConnection();
+			start = System.nanoTime();
+			ps = conn.prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS);
+			configure(ps);
+			bind(ps, params);
+			rows = ps.executeUpdate();
+
+			generatedKeys = ps.getGeneratedKeys();
+			return generatedKeys.next() ? generatedKeys.getInt(1) : -1;
+		} catch (SQLException e) {
+			LOG.error("Statement failed", e, "dao", daoMethod(), "sql", query, "params", params);
+			throw new PersistanceException(e.getMessage());
+		} finally {
+			ConnectionUtil.close(conn, ps, generatedKeys);
+			logIfSlow(query, params, start, rows);
+		}
+	}
+
+	/**
+	 * Runs a statement once for every parameter set, sending all of them to the
+	 * database as a single batch.
+	 *
+	 * @param query   The SQL statement to run.
+	 * @param batches The parameter sets, each bound to the placeholders of the
+	 *                statement in order.
+	 * @return The number of affected rows of each parameter set.
+	 * @throws PersistanceException If an error occurs while running the batch.
+	 */
+	public int[] batchUpdate(String query, List<Object[]> batches) throws PersistanceException {
+		if (batches.isEmpty()) {
+			return new int[0];
+		}
+
+		Connection conn = null;
+		PreparedStatement ps = null;
+		long start = 0;
+		long rows = 0;
+
+		try {
+			conn = ConnectionUtil.getConnection();
+			start = System.nanoTime();
+			ps = prepare(conn, query);
+			for (Object[] params : batches) {
+				bind(ps, params);
+				ps.addBatch();
+			}
+			int[] counts = ps.executeBatch();
+			for (int count : counts) {
+				rows += Math.max(count, 0);
+			}
+			return counts;
+		} catch (SQLException e) {
+			LOG.error("Statement failed", e, "dao", daoMethod(), "sql", query, "batchSize", batches.size());
+			throw new PersistanceException(e.getMessage());
+		} finally {
+			ConnectionUtil.close(conn, ps);
+			logIfSlow(query, batches.toArray(), start, rows);
+		}
+	}
+
+	/**
+	 * Runs a query and returns its rows as a lazily mapped stream.
+	 *
+	 * The statement is forward-only and read-only and uses the streaming fetch
+	 * size of 'ConnectionUtil', so the driver hands rows over a few at a time
+	 * instead of loading the whole result into memory. Each row is mapped when
+	 * the stream reaches it, which keeps memory flat however many rows the query
+	 * returns.
+	 *
+	 * The stream holds a pooled connection until it is closed. Callers must close
+	 * it, preferably with a try-with-resources statement. The resources are also
+	 * released as soon as the last row has been read. While a MySQL stream is open
+	 * its connection cannot run other statements, so a stream opened inside a
+	 * transaction must be closed before the transaction runs its next query.
+	 *
+	 * A stream is reported to the slow query log when it is closed, with the time
+	 * from opening to closing it, which includes the time the caller spent on
+	 * the rows.
+	 *
+	 * @param <T>     The type of the mapped rows.
+	 * @param query   The SQL query to run.
+	 * @param factory Compiles the row mapper for the result set.
+	 * @param params  The values bound to the placeholders of the query, in order.
+	 * @return A stream of the mapped rows.
+	 * @throws PersistanceException If the query cannot be run. Errors while
+	 *                              reading rows are thrown from the stream as
+	 *                              'UncheckedPersistanceException'.
+	 */
+	public <T> Stream<T> stream(String query, RowMapperFactory<T> factory, Object... params)
+			throws PersistanceException {
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		RowMapper<T> mapper;
+		long start = 0;
+
+		try {
+			conn = ConnectionUtil.getConnection();
+			start = System.nanoTime();
+			ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(ConnectionUtil.getStreamingFetchSize());
+			if (queryTimeoutSeconds > 0) {
+				ps.setQueryTimeout(queryTimeoutSeconds);
+			}
+			bind(ps, params);
+			rs = ps.executeQuery();
+			mapper = factory.compile(rs);
+		} catch (SQLException e) {
+			LOG.error("Statement failed", e, "dao", daoMethod(), "sql", query, "params", params);
+			ConnectionUtil.close(conn, ps, rs);
+			logIfSlow(query, params, start, 0);
+			throw new PersistanceException(e.getMessage());
+		}
+
+		long opened = start;
+		RowSpliterator<T> rows = new RowSpliterator<>(query, conn, ps, rs, mapper,
+				rowCount -> logIfSlow(query, params, opened, rowCount));
+		return StreamSupport.stream(rows, false).onClose(rows::close);
+	}
+
+	/**
+	 * Returns the DAO method that ran the failed statement, found on the stack
+	 * only when a statement fails.
+	 */
+	private static String daoMethod() {
+		return StackWalker.getInstance()
+				.walk(frames -> frames.filter(frame -> frame.getClassName().startsWith("in.fssa.homebakery.dao.")
+						&& !frame.getClassName().equals(JdbcTemplate.class.getName())
+						&& !frame.getClassName().equals(InstrumentedDAO.class.getName()))
+						.map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1) + "."
+								+ frame.getMethodName())
+						.findFirst())
+				.orElse("unknown");
+	}
+
+	private void logIfSlow(String query, Object[] params, long start, long rows) {
+		if (start != 0) {
+			long elapsed = System.nanoTime() - start;
+			if (slowQueryLog.isSlow(elapsed)) {
+				slowQueryLog.log(query, params, elapsed, rows);
+			}
+		}
+	}
+
+	private PreparedStatement prepare(Connection conn, String query) throws SQLException {
+		PreparedStatement ps = conn.prepareStatement(query);
+		configure(ps);
+		return ps;
+	}
+
+	private void configure(PreparedStatement ps) throws SQLException {
+		if (fetchSize > 0) {
+			ps.setFetchSize(fetchSize);
+		}
+		if (queryTimeoutSeconds > 0) {
+			ps.setQueryTimeout(queryTimeoutSeconds);
+		}
+	}
+
+	private static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+		for (int i = 0; i < params.length; i++) {
+			if (params[i] == null) {
+				ps.setNull(i + 1, Types.NULL);
+			} else {
+				ps.setObject(i + 1, params[i]);
+			}
+		}
+	}
+
+	private static class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+		private final String query;
+		private final Connection conn;
+		private final PreparedStatement ps;
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private final LongConsumer onClose;
+		private long rows = 0;
+		private boolean closed = false;
+
+		private RowSpliterator(String query, Connection conn, PreparedStatement ps, ResultSet rs, RowMapper<T> mapper,
+				LongConsumer onClose) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED);
+			this.query = query;
+			this.conn = conn;
+			this.ps = ps;
+			this.rs = rs;
+			this.mapper = mapper;
+			this.onClose = onClose;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (closed) {
+				return false;
+			}
+
+			T row;
+			try {
+				if (!rs.next()) {
+					close();
+					return false;
+				}
+				row = mapper.mapRow(rs);
+				rows++;
+			} catch (SQLException e) {
+				LOG.error("Reading a streamed row failed", e, "sql", query, "row", rows + 1);
+				close();
+				throw new UncheckedPersistanceException(new PersistanceException(e.getMessage()));
+			}
+			action.accept(row);
+			return true;
+		}
+
+		private void close() {
+			if (!closed) {
+				closed = true;
+				ConnectionUtil.close(conn, ps, rs);
+				onClose.accept(rows);
+			}
+		}
+	}
+
+}
@@ -1,271 +1,202 @@
 package in.fssa.homebakery.dao;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import in.fssa.homebakery.dto.OrderDetailDTO;
 import in.fssa.homebakery.dto.OrderDetailDTO.OrderStatus;
 import in.fssa.homebakery.dto.ProductDetailDTO;
 import in.fssa.homebakery.exception.PersistanceException;
-import in.fssa.homebakery.model.Product;
+import in.fssa.homebakery.interfaces.OrderInterface;
+import in.fssa.homebakery.interfaces.RowMapper;
+import in.fssa.homebakery.interfaces.RowMapperFactory;
 import in.fssa.homebakery.model.ProductPrice;
-import in.fssa.homebakery.util.ConnectionUtil;
-
-public class OrderDAO {
+import in.fssa.homebakery.model.ProductPriceEntity.QuantityType;
+import in.fssa.homebakery.util.EnumLookup;
+
+public class OrderDAO implements OrderInterface {
+
+	private static final String ORDER_WITH_DETAILS_QUERY = "SELECT o.id, o.address, o.status, o.quantity, o.product_id, o.price_id, o.delivery_date, o.delivery_time, o.ordered_time, "
+			+ "p.product_name, p.description, p.category_id, p.image_url, p.is_veg, p.is_active, "
+			+ "pp.product_id AS price_product_id, pp.quantity AS price_quantity, pp.price, pp.type, pp.start_date, pp.end_date "
+			+ "FROM orders o LEFT JOIN products p ON p.id = o.product_id LEFT JOIN product_prices pp ON pp.id = o.price_id";
+
+	private static final JdbcTemplate jdbc = new JdbcTemplate();
+
+	private static final EnumLookup<OrderStatus> ORDER_STATUSES = EnumLookup.of(OrderStatus.class);
+	private static final EnumLookup<QuantityType> QUANTITY_TYPES = EnumLookup.of(QuantityType.class);
+
+	private static final RowMapperFactory<OrderDetailDTO> ORDER_MAPPER = rs -> orderMapper(rs, true);
+	private static final RowMapperFactory<OrderDetailDTO> ORDER_SUMMARY_MAPPER = rs -> orderMapper(rs, false);
+
+	private static RowMapper<OrderDetailDTO> orderMapper(ResultSet rs, boolean withReferences) throws SQLException {
+		int id = rs.findColumn("id");
+		int address = rs.findColumn("address");
+		int status = rs.findColumn("status");
+		int quantity = rs.findColumn("quantity");
+		int productId = rs.findColumn("product_id");
+		int priceId = rs.findColumn("price_id");
+		int deliveryDate = rs.findColumn("delivery_date");
+		int deliveryTime = rs.findColumn("delivery_time");
+		int orderedTime = rs.findColumn("ordered_time");
+		return row -> {
+			OrderDetailDTO order = new OrderDetailDTO();
+			order.setId(row.getInt(id));
+			order.setAddress(row.getString(address));
+			order.setStatus(ORDER_STATUSES.get(row.getString(status)));
+			order.setQuantity(row.getInt(quantity));
+			order.setDeliveryDate(row.getTimestamp(deliveryDate));
+			order.setDeliveryTime(row.getTime(deliveryTime));
+			order.setOrderedTime(row.getTimestamp(orderedTime));
+			if (withReferences) {
+				ProductDetailDTO product = new ProductDetailDTO();
+				product.setId(row.getInt(productId));
+				order.setProduct(product);
+				ProductPrice productPrice = new ProductPrice();
+				productPrice.setId(row.getInt(priceId));
+				order.setProductPrice(productPrice);
+			}
+			return order;
+		};
+	}
 
+	private static final RowMapperFactory<OrderDetailDTO> ORDER_WITH_DETAILS_MAPPER = rs -> {
+		RowMapper<OrderDetailDTO> orderMapper = orderMapper(rs, false);
+		int productId = rs.findColumn("product_id");
+		int productName = rs.findColumn("product_name");
+		int description = rs.findColumn("description");
+		int categoryId = rs.findColumn("category_id");
+		int imageUrl = rs.findColumn("image_url");
+		int veg = rs.findColumn("is_veg");
+		int active = rs.findColumn("is_active");
+		int priceId = rs.findColumn("price_id");
+		int priceProductId = rs.findColumn("price_product_id");
+		int price = rs.findColumn("price");
+		int priceQuantity = rs.findColumn("price_quantity");
+		int type = rs.findColumn("type");
+		int startDate = rs.findColumn("start_date");
+		int endDate = rs.findColumn("end_date");
+		return row -> {
+			OrderDetailDTO order = orderMapper.mapRow(row);
+
+			ProductDetailDTO product = new ProductDetailDTO();
+			product.setId(row.getInt(productId));
+			product.setName(row.getString(productName));
+			product.setDescription(row.getString(description));
+			product.setCategoryId(row.getInt(categoryId));
+			product.setImageUrl(row.getString(imageUrl));
+			product.setVeg(row.getBoolean(veg));
+			product.setActive(row.getBoolean(active));
+			order.setProduct(product);
+
+			ProductPrice productPrice = new ProductPrice();
+			productPrice.setId(row.getInt(priceId));
+			String priceType = row.getString(type);
+			if (priceType != null) {
+				productPrice.setProductId(row.getInt(priceProductId));
+				productPrice.setPrice(row.getInt(price));
+				productPrice.setQuantity(row.getDouble(priceQuantity));
+				productPrice.setType(QUANTITY_TYPES.get(priceType));
+				productPrice.setStartDate(row.getTimestamp(startDate));
+				productPrice.setEndDate(row.getTimestamp(endDate));
+			}
+			order.setProductPrice(productPrice);
+			return order;
+		};
+	};
+
+	@Override
 	public void create(OrderDetailDTO order) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
 		Timestamp time = new Timestamp(System.currentTimeMillis());
-
-
-		try {
-	        String query = "INSERT INTO orders (user_id, product_id, price_id, quantity, address, delivery_date, delivery_time, status, ordered_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-	        conn = ConnectionUtil.getConnection();
-	        stmt = conn.prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS);
-
-	        stmt.setInt(1, order.getUser().getId()); // Assuming user.getId() returns the user's ID
-	        stmt.setInt(2, order.getProduct().getId()); // Assuming product.getId() returns the product's ID
-	        stmt.setInt(3, order.getProductPrice().getId()); // Assuming productPrice.getId() returns the price's ID
-	        stmt.setInt(4, order.getQuantity());
-	        stmt.setString(5, order.getAddress());
-	        Timestamp deliveryDate = new Timestamp(order.getDeliveryDate().getTime());
-	        stmt.setTimestamp(6, deliveryDate);
-	        Time deliveryTime = new Time(order.getDeliveryTime().getTime());
-	        stmt.setTime(7, deliveryTime);
-	        stmt.setString(8, order.getStatus().toString().toUpperCase()); 
-	        stmt.setTimestamp(9, time);
-
-	        stmt.executeUpdate();
-
-	        ResultSet generatedKeys = stmt.getGeneratedKeys();
-	        if (generatedKeys.next()) {
-	            int orderId = generatedKeys.getInt(1);
-	            order.setId(orderId); // Assuming setId exists in OrderDetailDTO to set the generated order ID
-	        }
-
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, stmt);
-	    }
+		String query = "INSERT INTO orders (user_id, product_id, price_id, quantity, address, delivery_date, delivery_time, status, ordered_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+		Timestamp deliveryDate = new Timestamp(order.getDeliveryDate().getTime());
+		Time deliveryTime = new Time(order.getDeliveryTime().getTime());
+
+		int orderId = jdbc.insert(query, order.getUser().getId(), order.getProduct().getId(),
+				order.getProductPrice().getId(), order.getQuantity(), order.getAddress(), deliveryDate, deliveryTime,
+				order.getStatus().toString().toUpperCase(), time);
+		if (orderId != -1) {
+			order.setId(orderId);
+		}
 	}
 	
 	
 
-	public void update(int orderId, OrderDetailDTO order) throws PersistanceException {
-	    Connection conn = null;
-	    PreparedStatement stmt = null;
-	    Timestamp time = new Timestamp(System.currentTimeMillis());
-	    
-	    try {
-	        String query = "UPDATE orders SET user_id = ?, product_id = ?, price_id = ?, quantity = ?, address = ?, delivery_date = ?, delivery_time = ?, status = ?, ordered_time = ? WHERE id = ?";
-	        conn = ConnectionUtil.getConnection();
-	        stmt = conn.prepareStatement(query);
-
-	        stmt.setInt(1, order.getUser().getId());
-	        stmt.setInt(2, order.getProduct().getId());
-	        stmt.setInt(3, order.getProductPrice().getId());
-	        stmt.setInt(4, order.getQuantity());
-	        stmt.setString(5, order.getAddress());
-	        Timestamp deliveryDate = new Timestamp(order.getDeliveryDate().getTime());
-	        stmt.setTimestamp(6, deliveryDate);
-	        Time deliveryTime = new Time(order.getDeliveryTime().getTime());
-	        stmt.setTime(7, deliveryTime);
-
-	        stmt.setString(8, order.getStatus().toString());
-	        stmt.setTimestamp(9, time);
-	        stmt.setInt(10, orderId);
-
-	        int rowsUpdated = stmt.executeUpdate();
+	@Override
+	public int update(int orderId, OrderDetailDTO order) throws PersistanceException {
+		Timestamp time = new Timestamp(System.currentTimeMillis());
+		String query = "UPDATE orders SET user_id = ?, product_id = ?, price_id = ?, quantity = ?, address = ?, delivery_date = ?, delivery_time = ?, status = ?, ordered_time = ? WHERE id = ?";
+		Timestamp deliveryDate = new Timestamp(order.getDeliveryDate().getTime());
+		Time deliveryTime = new Time(order.getDeliveryTime().getTime());
 
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, stmt);
-	    }
+		return jdbc.update(query, order.getUser().getId(), order.getProduct().getId(), order.getProductPrice().getId(),
+				order.getQuantity(), order.getAddress(), deliveryDate, deliveryTime, order.getStatus().toString(), time,
+				orderId);
 	}
 
+	@Override
 	public void changeStatus(int orderId, OrderStatus newStatus) throws PersistanceException {
-		 Connection conn = null;
-		    PreparedStatement stmt = null;
-
-		    try {
-		        String query = "UPDATE orders SET status = ? WHERE id = ?";
-		        conn = ConnectionUtil.getConnection();
-		        stmt = conn.prepareStatement(query);
-
-		        stmt.setString(1, newStatus.toString()); // Convert the enum to a string
-		        stmt.setInt(2, orderId);
-
-		        int rowsUpdated = stmt.executeUpdate();
-
-		    } catch (SQLException e) {
-		        e.printStackTrace();
-		        System.out.println(e.getMessage());
-		        throw new PersistanceException(e.getMessage());
-		    } finally {
-		        ConnectionUtil.close(conn, stmt);
-		    }
+		String query = "UPDATE orders SET status = ? WHERE id = ?";
+		jdbc.update(query, newStatus.toString(), orderId);
 	}
 
+	@Override
 	public List<OrderDetailDTO> findOrdersByUserId(int userId) throws PersistanceException {
-		Connection conn = null;
-	    PreparedStatement ps = null;
-	    ResultSet rs = null;
-	    List<OrderDetailDTO> orders = new ArrayList<>();
-
-	    try {
-	        String query = "SELECT id, address, status, quantity, product_id, price_id, delivery_date, delivery_time, ordered_time  FROM orders WHERE user_id = ?";
-	        conn = ConnectionUtil.getConnection();
-	        ps = conn.prepareStatement(query);
-	        ps.setInt(1, userId);
-
-	        rs = ps.executeQuery();
-
-	        while (rs.next()) {
-	            OrderDetailDTO order = new OrderDetailDTO();
-	            ProductDetailDTO product = new ProductDetailDTO();
-	            ProductPrice productPrice = new ProductPrice();
-	            order.setId(rs.getInt("id"));
-	            order.setAddress(rs.getString("address"));
-	            product.setId(rs.getInt("product_id"));
-	            productPrice.setId(rs.getInt("price_id"));
-	            order.setStatus(OrderDetailDTO.OrderStatus.valueOf(rs.getString("status").toUpperCase()));
-	            order.setQuantity(rs.getInt("quantity"));
-	            order.setDeliveryDate(rs.getTimestamp("delivery_date"));
-	            order.setDeliveryTime(rs.getTime("delivery_time"));
-	            order.setOrderedTime(rs.getTimestamp("ordered_time"));
-	            order.setProduct(product);
-	            order.setProductPrice(productPrice);
-	            orders.add(order);
-	            
-	        }
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, ps, rs);
-	    }
-	    
-	    return orders;
+		String query = "SELECT id, address, status, quantity, product_id, price_id, delivery_date, delivery_time, ordered_time  FROM orders WHERE user_id = ?";
+		return jdbc.query(query, ORDER_MAPPER, userId);
 	}
 	
+	@Override
 	public OrderDetailDTO findOrdersByOrderId(int orderId) throws PersistanceException {
-		Connection conn = null;
-	    PreparedStatement ps = null;
-	    ResultSet rs = null;
-	    OrderDetailDTO order = new OrderDetailDTO();
-
-	    try {
-	        String query = "SELECT id, address, status, quantity, product_id, price_id, delivery_date, delivery_time, ordered_time  FROM orders WHERE id = ?";
-	        conn = ConnectionUtil.getConnection();
-	        ps = conn.prepareStatement(query);
-	        ps.setInt(1, orderId);
+		String query = "SELECT id, address, status, quantity, product_id, price_id, delivery_date, delivery_time, ordered_time  FROM orders WHERE id = ?";
+		OrderDetailDTO order = jdbc.queryForObject(query, ORDER_MAPPER, orderId);
+		return order != null ? order : new OrderDetailDTO();
+	}
 
-	        rs = ps.executeQuery();
+	@Override
+	public List<OrderDetailDTO> findOrdersWithDetailsByUserId(int userId) throws PersistanceException {
+		String query = ORDER_WITH_DETAILS_QUERY + " WHERE o.user_id = ? ORDER BY o.id";
+		return jdbc.query(query, ORDER_WITH_DETAILS_MAPPER, userId);
+	}
 
-	        if (rs.next()) {
-	            ProductDetailDTO product = new ProductDetailDTO();
-	            ProductPrice productPrice = new ProductPrice();
-	            order.setId(rs.getInt("id"));
-	            order.setAddress(rs.getString("address"));
-	            product.setId(rs.getInt("product_id"));
-	            productPrice.setId(rs.getInt("price_id"));
-	            order.setStatus(OrderDetailDTO.OrderStatus.valueOf(rs.getString("status").toUpperCase()));
-	            order.setQuantity(rs.getInt("quantity"));
-	            order.setDeliveryDate(rs.getTimestamp("delivery_date"));
-	            order.setDeliveryTime(rs.getTime("delivery_time"));
-	            order.setOrderedTime(rs.getTimestamp("ordered_time"));
-	            order.setProduct(product);
-	            order.setProductPrice(productPrice);
-	            
-	        }
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, ps, rs);
-	    }
-	    
-	    return order;
+	@Override
+	public OrderDetailDTO findOrderWithDetailsByOrderId(int orderId) throws PersistanceException {
+		String query = ORDER_WITH_DETAILS_QUERY + " WHERE o.id = ?";
+		return jdbc.queryForObject(query, ORDER_WITH_DETAILS_MAPPER, orderId);
 	}
 
+	@Override
 	public List<OrderDetailDTO> findAllOrders() throws PersistanceException {
-		Connection conn = null;
-	    PreparedStatement ps = null;
-	    ResultSet rs = null;
-	    List<OrderDetailDTO> orders = new ArrayList<>();
-
-	    try {
-	        String query = "SELECT id, address, status, quantity, product_id, price_id, delivery_date, delivery_time, ordered_time FROM orders";
-	        conn = ConnectionUtil.getConnection();
-	        ps = conn.prepareStatement(query);
-
-	        rs = ps.executeQuery();
-
-	        while (rs.next()) {
-	            OrderDetailDTO order = new OrderDetailDTO();
-	            Product product = new Product();
-	            ProductPrice productPrice = new ProductPrice();
-	            order.setId(rs.getInt("id"));
-	            order.setAddress(rs.getString("address"));
-	            product.setId(rs.getInt("product_id"));
-	            productPrice.setId(rs.getInt("price_id"));
-	            order.setStatus(OrderDetailDTO.OrderStatus.valueOf(rs.getString("status").toUpperCase()));
-	            order.setQuantity(rs.getInt("quantity"));
-	            order.setDeliveryDate(rs.getTimestamp("delivery_date"));
-	            order.setDeliveryTime(rs.getTime("delivery_time"));
-	            order.setOrderedTime(rs.getTimestamp("ordered_time"));
+		String query = "SELECT id, address, status, quantity, product_id, price_id, delivery_date, delivery_time, ordered_time FROM orders";
+		return jdbc.query(query, ORDER_SUMMARY_MAPPER);
+	}
 
-	            orders.add(order);
-	        }
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, ps, rs);
-	    }
-	    
-	    return orders;
+	/**
+	 * Streams all orders from the database along with their product and product
+	 * price.
+	 *
+	 * Unlike 'findAllOrders', this method does not collect the orders in memory,
+	 * so exports and reports can run over any number of orders. Each order is read
+	 * and mapped when the stream reaches it, using the streaming fetch size of
+	 * 'ConnectionUtil'. The returned stream holds a database connection and must
+	 * be closed, preferably with a try-with-resources statement.
+	 *
+	 * @return A stream of all orders, ordered by ID.
+	 * @throws PersistanceException If the query cannot be run.
+	 */
+	@Override
+	public Stream<OrderDetailDTO> streamAllOrders() throws PersistanceException {
+		return jdbc.stream(ORDER_WITH_DETAILS_QUERY + " ORDER BY o.id", ORDER_WITH_DETAILS_MAPPER);
 	}
 	
-	public static boolean orderExists(int orderId) throws PersistanceException {
-	    Connection conn = null;
-	    PreparedStatement stmt = null;
-	    ResultSet rs = null;
-
-	    try {
-	        String query = "SELECT 1 FROM orders WHERE id = ?";
-	        conn = ConnectionUtil.getConnection();
-	        stmt = conn.prepareStatement(query);
-	        stmt.setInt(1, orderId);
-
-	        rs = stmt.executeQuery();
-	        if (rs.next()) {
-	            int count = rs.getInt(1);
-	            return count > 0;
-	        }
-
-	        return false; // No rows returned, order does not exist
-	    } catch (SQLException e) {
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, stmt, rs);
-	    }
+	@Override
+	public boolean orderExists(int orderId) throws PersistanceException {
+		String query = "SELECT 1 FROM orders WHERE id = ?";
+		return jdbc.exists(query, orderId);
 	}
 
 }
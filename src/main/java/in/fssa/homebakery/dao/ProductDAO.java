@@ -1,67 +1,84 @@
 package in.fssa.homebakery.dao;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import in.fssa.homebakery.dto.ProductDetailDTO;
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.interfaces.RowMapper;
+import in.fssa.homebakery.interfaces.RowMapperFactory;
 import in.fssa.homebakery.model.Product;
-import in.fssa.homebakery.util.ConnectionUtil;
-
-public class ProductDAO {
+import in.fssa.homebakery.util.Logger;
+
+public class ProductDAO implements ProductInterface {
+
+	private static final Logger LOG = Logger.getLogger(ProductDAO.class);
+
+	private static final JdbcTemplate jdbc = new JdbcTemplate();
+
+	private static final RowMapperFactory<ProductDetailDTO> PRODUCT_MAPPER = rs -> productMapper(rs, false);
+	private static final RowMapperFactory<ProductDetailDTO> PRODUCT_WITH_MIN_PRICE_MAPPER = rs -> productMapper(rs, true);
+
+	private static RowMapper<ProductDetailDTO> productMapper(ResultSet rs, boolean withMinPrice) throws SQLException {
+		int id = rs.findColumn("id");
+		int name = rs.findColumn("product_name");
+		int description = rs.findColumn("description");
+		int categoryId = rs.findColumn("category_id");
+		int imageUrl = rs.findColumn("image_url");
+		int veg = rs.findColumn("is_veg");
+		int minPrice = withMinPrice ? rs.findColumn("min_price") : 0;
+		return row -> {
+			ProductDetailDTO product = new ProductDetailDTO();
+			product.setId(row.getInt(id));
+			product.setName(row.getString(name));
+			product.setDescription(row.getString(description));
+			product.setCategoryId(row.getInt(categoryId));
+			product.setImageUrl(row.getString(imageUrl));
+			product.setVeg(row.getBoolean(veg));
+			if (withMinPrice) {
+				product.setMinPrice(row.getInt(minPrice));
+			}
+			return product;
+		};
+	}
 
 	/**
 	 * Updates product information with the specified ID in the database.
 	 *
-	 * This method updates the product information for the product with the provided
-	 * ID. The updated product information is obtained from the 'newProduct'
-	 * parameter. If the update is successful, the database record is modified, and
-	 * a success message is printed. If any exception occurs during the process, it
-	 * is caught, and a RuntimeException is thrown.
+	 * This method updates the product information for the active product with the
+	 * provided ID. The updated product information is obtained from the
+	 * 'newProduct' parameter. If the update is successful, the database record is
+	 * modified. If any exception occurs during the process, it is caught, and a
+	 * RuntimeException is thrown.
+	 *
+	 * The number of updated rows tells the caller whether the product exists, so
+	 * no separate existence check is needed.
 	 *
 	 * @param id         The ID of the product to be updated.
 	 * @param newProduct An instance of the 'Product' class containing the updated
 	 *                   product information. It should have the updated product
 	 *                   name, description, category ID, and boolean values
 	 *                   indicating whether the product is vegetarian and active.
+	 * @return The number of updated products, 0 if no active product has the ID.
 	 * @throws PersistanceException 
 	 * @throws RuntimeException If an error occurs during the database update
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
-	public void update(int id, Product newProduct) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-
-		try {
-			String query = "UPDATE products SET product_name = ?, description = ?, category_id = ?, image_url = ?,is_veg = ?, is_active = ? WHERE id = ?";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-
-			stmt.setString(1, newProduct.getProductName());
-			stmt.setString(2, newProduct.getDescription());
-			stmt.setInt(3, newProduct.getCategoryId());
-			stmt.setString(4, newProduct.getImageUrl());
-			stmt.setBoolean(5, newProduct.isVeg());
-			stmt.setBoolean(6, newProduct.isActive());
-			stmt.setInt(7, id);
-
-			stmt.executeUpdate();
-
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt);
-		}
-
+	@Override
+	public int update(int id, Product newProduct) throws PersistanceException {
+		String query = "UPDATE products SET product_name = ?, description = ?, category_id = ?, image_url = ?,is_veg = ?, is_active = ? WHERE id = ? AND is_active = 1";
+		return jdbc.update(query, newProduct.getProductName(), newProduct.getDescription(), newProduct.getCategoryId(),
+				newProduct.getImageUrl(), newProduct.isVeg(), newProduct.isActive(), id);
 	}
 
 	/**
@@ -75,33 +92,22 @@ public class ProductDAO {
 	 * and a RuntimeException is thrown.
 	 *
 	 * @param id The ID of the product to be deactivated.
+	 * @return The number of deactivated products, 0 if no active product has the
+	 *         ID.
 	 * @throws PersistanceException 
 	 * @throws RuntimeException If an error occurs during the database update
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
-	public void delete(int id) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-
-		try {
-			String query = "UPDATE products SET is_active = ? WHERE is_active = 1 AND id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
+	@Override
+	public int delete(int id) throws PersistanceException {
+		String query = "UPDATE products SET is_active = ? WHERE is_active = 1 AND id = ?";
+		int rowsUpdated = jdbc.update(query, 0, id);
 
-			ps.setInt(1, 0);
-			ps.setInt(2, id);
-			ps.executeUpdate();
-
-			System.out.println("Product has been successfully deactivated");
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps);
+		if (rowsUpdated > 0) {
+			LOG.info("Product has been successfully deactivated", "productId", id);
 		}
-
+		return rowsUpdated;
 	}
 
 	/**
@@ -121,39 +127,33 @@ public class ProductDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public Set<ProductDetailDTO> findAll() throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
 		Set<ProductDetailDTO> setOfProducts = new HashSet<>();
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-			rs = ps.executeQuery();
-
-			while (rs.next()) {
-				ProductDetailDTO product = new ProductDetailDTO();
-				product.setId(rs.getInt("id"));
-				product.setName(rs.getString("product_name"));
-				product.setDescription(rs.getString("description"));
-				product.setCategoryId(rs.getInt("category_id"));
-				product.setImageUrl(rs.getString("image_url"));
-				product.setVeg(rs.getBoolean("is_veg"));
-				setOfProducts.add(product);
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1";
+		jdbc.forEach(query, PRODUCT_MAPPER, setOfProducts::add);
 		return setOfProducts;
 	}
 
+	/**
+	 * Streams all active products from the database.
+	 *
+	 * Unlike 'findAll', this method does not collect the products in memory. Each
+	 * product is read and mapped when the stream reaches it, using the streaming
+	 * fetch size of 'ConnectionUtil'. The returned stream holds a database
+	 * connection and must be closed, preferably with a try-with-resources
+	 * statement.
+	 *
+	 * @return A stream of 'ProductDetailDTO' objects of all active products,
+	 *         without their prices.
+	 * @throws PersistanceException If the query cannot be run.
+	 */
+	@Override
+	public Stream<ProductDetailDTO> streamAll() throws PersistanceException {
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1";
+		return jdbc.stream(query, PRODUCT_MAPPER);
+	}
+
 	/**
 	 * Retrieves an active product from the database by its ID along with its
 	 * details.
@@ -174,39 +174,34 @@ public class ProductDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public ProductDetailDTO findById(int id) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-		ProductDetailDTO product = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setInt(1, id);
-
-			rs = ps.executeQuery();
-
-			if (rs.next()) {
-				product = new ProductDetailDTO();
-				product.setId(rs.getInt("id"));
-				product.setName(rs.getString("product_name"));
-				product.setDescription(rs.getString("description"));
-				product.setCategoryId(rs.getInt("category_id"));
-				product.setImageUrl(rs.getString("image_url"));
-				product.setVeg(rs.getBoolean("is_veg"));
-			}
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND id = ?";
+		return jdbc.queryForObject(query, PRODUCT_MAPPER, id);
+	}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
-		return product;
+	/**
+	 * Retrieves several active products from the database by their IDs at once.
+	 *
+	 * This method queries the 'products' table for all of the provided IDs using
+	 * 'IN' lists of at most 'SqlUtil.MAX_IN_LIST_SIZE' IDs, so that any number of
+	 * IDs is served with one query per chunk instead of one query per ID.
+	 * Duplicate IDs are looked up once. Like 'findById', only active products
+	 * are returned. If any database-related exception occurs during the
+	 * process, it is caught, and a PersistanceException is thrown.
+	 *
+	 * @param ids The IDs of the active products to be retrieved.
+	 * @return A 'Map' from ID to the retrieved 'ProductDetailDTO'. IDs without a matching
+	 *         record are not contained in the map.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public Map<Integer, ProductDetailDTO> findByIds(Collection<Integer> ids) throws PersistanceException {
+		Map<Integer, ProductDetailDTO> productById = new HashMap<>();
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND id IN (%s)";
+		jdbc.queryIn(query, ids, PRODUCT_MAPPER, product -> productById.put(product.getId(), product));
+		return productById;
 	}
 
 	/**
@@ -231,40 +226,10 @@ public class ProductDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public List<ProductDetailDTO> findByCategoryId(int categoryId) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-		List<ProductDetailDTO> productList = new ArrayList<>();
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND category_id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setInt(1, categoryId);
-
-			rs = ps.executeQuery();
-
-			while (rs.next()) {
-				ProductDetailDTO product = new ProductDetailDTO();
-				product.setId(rs.getInt("id"));
-				product.setName(rs.getString("product_name"));
-				product.setDescription(rs.getString("description"));
-				product.setCategoryId(rs.getInt("category_id"));
-				product.setImageUrl(rs.getString("image_url"));
-				product.setVeg(rs.getBoolean("is_veg"));
-				productList.add(product);
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
-		return productList;
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND category_id = ?";
+		return jdbc.query(query, PRODUCT_MAPPER, categoryId);
 	}
 
 	/**
@@ -288,37 +253,12 @@ public class ProductDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public int create(ProductDetailDTO productDetailDTO) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		int productId = -1;
-
-		try {
-			String query = "INSERT INTO products (product_name, description, category_id, image_url, is_veg, is_active) VALUES (?, ?, ?, ?, ?, ?)";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS);
-
-			stmt.setString(1, productDetailDTO.getName());
-			stmt.setString(2, productDetailDTO.getDescription());
-			stmt.setInt(3, productDetailDTO.getCategoryId());
-			stmt.setString(4, productDetailDTO.getImageUrl());
-			stmt.setBoolean(5, productDetailDTO.isVeg());
-			stmt.setBoolean(6, productDetailDTO.isActive());
-			stmt.executeUpdate();
-
-			ResultSet generatedKeys = stmt.getGeneratedKeys();
-			if (generatedKeys.next()) {
-				productId = generatedKeys.getInt(1);
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt);
-		}
-		return productId;
+		String query = "INSERT INTO products (product_name, description, category_id, image_url, is_veg, is_active) VALUES (?, ?, ?, ?, ?, ?)";
+		return jdbc.insert(query, productDetailDTO.getName(), productDetailDTO.getDescription(),
+				productDetailDTO.getCategoryId(), productDetailDTO.getImageUrl(), productDetailDTO.isVeg(),
+				productDetailDTO.isActive());
 	}
 	
 	/**
@@ -337,30 +277,10 @@ public class ProductDAO {
 	 * @throws PersistanceException 
 	 * @throws RuntimeException If an error occurs while querying the database.
 	 */
-	public static boolean productExists(int productId) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT 1 FROM products WHERE id = ? AND is_active = 1";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, productId);
-
-			rs = stmt.executeQuery();
-			if (rs.next()) {
-				int count = rs.getInt(1);
-				return count > 0;
-			}
-
-			return false; // No rows returned, product does not exist
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	@Override
+	public boolean productExists(int productId) throws PersistanceException {
+		String query = "SELECT 1 FROM products WHERE id = ? AND is_active = 1";
+		return jdbc.exists(query, productId);
 	}
 	
 	/**
@@ -380,88 +300,40 @@ public class ProductDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public Set<ProductDetailDTO> findSetsOfProducts(int n) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-		Set<ProductDetailDTO> setOfProducts = new HashSet<>();
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 LIMIT 5 OFFSET ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-			ps.setInt(1,n);
-			rs = ps.executeQuery();
-
-			while (rs.next()) {
-				ProductDetailDTO product = new ProductDetailDTO();
-				product.setId(rs.getInt("id"));
-				product.setName(rs.getString("product_name"));
-				product.setDescription(rs.getString("description"));
-				product.setCategoryId(rs.getInt("category_id"));
-				product.setImageUrl(rs.getString("image_url"));
-				product.setVeg(rs.getBoolean("is_veg"));
-				setOfProducts.add(product);
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
+		Set<ProductDetailDTO> setOfProducts = new LinkedHashSet<>();
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 ORDER BY id LIMIT 5 OFFSET ?";
+		jdbc.forEach(query, PRODUCT_MAPPER, setOfProducts::add, n);
 		return setOfProducts;
 	}
 	
 	/**
-	 * Retrieves all active products from the database along with their details.
+	 * Retrieves a set of five active products ordered by their lowest current
+	 * price.
 	 *
-	 * This method queries the database to retrieve all products that are currently
-	 * active, based on the 'is_active' status in the 'products' table. For each
-	 * active product, a 'ProductDetailDTO' object is created, populated with the
-	 * retrieved data, and added to a 'Set'. The set is then returned, containing
-	 * all active products' details. If any database-related exception occurs during
-	 * the process, it is caught, and a RuntimeException is thrown.
+	 * This method queries the 'products' table using the denormalized 'min_price'
+	 * column, which holds the lowest current price of each product and is kept up
+	 * to date by 'refreshMinPrice'. The rows are read in order from the
+	 * (is_active, min_price, id) index, so no per-request sort of the catalog is
+	 * needed. Products are ordered by 'min_price' and then by ID, ascending unless
+	 * 'sort' is "desc". Products without a current price are not included. If any
+	 * database-related exception occurs during the process, it is caught, and a
+	 * PersistanceException is thrown.
 	 *
-	 * @return A 'Set' containing 'ProductDetailDTO' objects representing details of
-	 *         all active products.
-	 * @throws PersistanceException 
-	 * @throws RuntimeException If an error occurs during the database retrieval
-	 *                          process. The original exception is printed, and a
-	 *                          RuntimeException is thrown.
+	 * @param n    The number of products to skip.
+	 * @param sort The sort order, either "asc" or "desc".
+	 * @return A 'Set' containing 'ProductDetailDTO' objects in price order.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
 	 */
+	@Override
 	public Set<ProductDetailDTO> findSetsOfProductsOrderByPrice(int n, String sort) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-		Set<ProductDetailDTO> setOfProducts = new HashSet<>();
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 LIMIT 5 OFFSET ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-			ps.setInt(1,n);
-			rs = ps.executeQuery();
-
-			while (rs.next()) {
-				ProductDetailDTO product = new ProductDetailDTO();
-				product.setId(rs.getInt("id"));
-				product.setName(rs.getString("product_name"));
-				product.setDescription(rs.getString("description"));
-				product.setCategoryId(rs.getInt("category_id"));
-				product.setImageUrl(rs.getString("image_url"));
-				product.setVeg(rs.getBoolean("is_veg"));
-				setOfProducts.add(product);
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
+		Set<ProductDetailDTO> setOfProducts = new LinkedHashSet<>();
+		String query = "desc".equalsIgnoreCase(sort)
+				? "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND min_price IS NOT NULL ORDER BY min_price DESC, id DESC LIMIT 5 OFFSET ?"
+				: "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND min_price IS NOT NULL ORDER BY min_price ASC, id ASC LIMIT 5 OFFSET ?";
+		jdbc.forEach(query, PRODUCT_MAPPER, setOfProducts::add, n);
 		return setOfProducts;
 	}
 	
@@ -487,44 +359,135 @@ public class ProductDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public List<ProductDetailDTO> findSetByCategoryId(int categoryId, int n) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-		List<ProductDetailDTO> productList = new ArrayList<>();
-		ResultSet rs = null;
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND category_id = ? ORDER BY id LIMIT 5 OFFSET ?";
+		return jdbc.query(query, PRODUCT_MAPPER, categoryId, n);
+	}
+
+	/**
+	 * Retrieves one page of active products ordered by ID using keyset
+	 * pagination.
+	 *
+	 * This method queries the database for at most 'limit' active products whose
+	 * ID is greater than 'afterId', ordered by ID. Because the query seeks
+	 * directly to 'afterId' on the primary key instead of skipping rows with an
+	 * offset, every page costs the same no matter how deep into the catalog it
+	 * is. If any database-related exception occurs during the process, it is
+	 * caught, and a PersistanceException is thrown.
+	 *
+	 * @param afterId The ID of the last product of the previous page, or 0 for the
+	 *                first page.
+	 * @param limit   The maximum number of products to be retrieved.
+	 * @return A 'List' of 'ProductDetailDTO' objects ordered by ID.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public List<ProductDetailDTO> findPageOfProducts(int afterId, int limit) throws PersistanceException {
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND id > ? ORDER BY id LIMIT ?";
+		return jdbc.query(query, PRODUCT_MAPPER, afterId, limit);
+	}
 
-		try {
-			String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND category_id = ? LIMIT 5 OFFSET ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
+	/**
+	 * Retrieves one page of active products of a category ordered by ID using
+	 * keyset pagination.
+	 *
+	 * This method works like 'findPageOfProducts' but only returns products that
+	 * belong to the specified category ID.
+	 *
+	 * @param categoryId The ID of the category for which to retrieve products.
+	 * @param afterId    The ID of the last product of the previous page, or 0 for
+	 *                   the first page.
+	 * @param limit      The maximum number of products to be retrieved.
+	 * @return A 'List' of 'ProductDetailDTO' objects ordered by ID.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public List<ProductDetailDTO> findPageByCategoryId(int categoryId, int afterId, int limit)
+			throws PersistanceException {
+		String query = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1 AND category_id = ? AND id > ? ORDER BY id LIMIT ?";
+		return jdbc.query(query, PRODUCT_MAPPER, categoryId, afterId, limit);
+	}
 
-			ps.setInt(1, categoryId);
-			ps.setInt(2, n);
+	/**
+	 * Retrieves one page of active products ordered by their lowest current price
+	 * using keyset pagination.
+	 *
+	 * This method seeks the (is_active, min_price, id) index directly past the
+	 * last product of the previous page, identified by its 'min_price' and ID, and
+	 * reads at most 'limit' products from there. Ties on the price are broken by
+	 * the product ID, so every product appears exactly once across pages. Products
+	 * without a current price are not included. If any database-related exception
+	 * occurs during the process, it is caught, and a PersistanceException is
+	 * thrown.
+	 *
+	 * @param descending Whether the most expensive products come first.
+	 * @param afterPrice The lowest price of the last product of the previous page.
+	 *                   Ignored when 'afterId' is 0.
+	 * @param afterId    The ID of the last product of the previous page, or 0 for
+	 *                   the first page.
+	 * @param limit      The maximum number of products to be retrieved.
+	 * @return A 'List' of 'ProductDetailDTO' objects in price order, each with its
+	 *         'minPrice' set.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public List<ProductDetailDTO> findPageOrderByPrice(boolean descending, int afterPrice, int afterId, int limit)
+			throws PersistanceException {
+		String query;
+		if (afterId == 0) {
+			query = descending
+					? "SELECT id, product_name, description, category_id, image_url, is_veg, min_price FROM products WHERE is_active = 1 AND min_price IS NOT NULL ORDER BY min_price DESC, id DESC LIMIT ?"
+					: "SELECT id, product_name, description, category_id, image_url, is_veg, min_price FROM products WHERE is_active = 1 AND min_price IS NOT NULL ORDER BY min_price ASC, id ASC LIMIT ?";
+			return jdbc.query(query, PRODUCT_WITH_MIN_PRICE_MAPPER, limit);
+		}
 
-			rs = ps.executeQuery();
+		query = descending
+				? "SELECT id, product_name, description, category_id, image_url, is_veg, min_price FROM products WHERE is_active = 1 AND (min_price < ? OR (min_price = ? AND id < ?)) ORDER BY min_price DESC, id DESC LIMIT ?"
+				: "SELECT id, product_name, description, category_id, image_url, is_veg, min_price FROM products WHERE is_active = 1 AND (min_price > ? OR (min_price = ? AND id > ?)) ORDER BY min_price ASC, id ASC LIMIT ?";
+		return jdbc.query(query, PRODUCT_WITH_MIN_PRICE_MAPPER, afterPrice, afterPrice, afterId, limit);
+	}
 
-			while (rs.next()) {
-				ProductDetailDTO product = new ProductDetailDTO();
-				product.setId(rs.getInt("id"));
-				product.setName(rs.getString("product_name"));
-				product.setDescription(rs.getString("description"));
-				product.setCategoryId(rs.getInt("category_id"));
-				product.setImageUrl(rs.getString("image_url"));
-				product.setVeg(rs.getBoolean("is_veg"));
-				productList.add(product);
-			}
+	/**
+	 * Recomputes the denormalized lowest current price of a product.
+	 *
+	 * This method sets the 'min_price' column of the product to the lowest price
+	 * among its product prices whose 'end_date' is not set, or to NULL if it has
+	 * no current price. It must be called, in the same transaction, after every
+	 * change to the product prices of the product so that price-ordered listings
+	 * stay correct. If any database-related exception occurs during the process,
+	 * it is caught, and a PersistanceException is thrown.
+	 *
+	 * @param productId The ID of the product whose lowest price is refreshed.
+	 * @throws PersistanceException If an error occurs during the database update
+	 *                              process.
+	 */
+	@Override
+	public void refreshMinPrice(int productId) throws PersistanceException {
+		String query = "UPDATE products SET min_price = (SELECT MIN(price) FROM product_prices WHERE product_id = ? AND end_date IS NULL) WHERE id = ?";
+		jdbc.update(query, productId, productId);
+	}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
-		return productList;
+	/**
+	 * Recomputes the denormalized lowest current price of the product that owns a
+	 * product price.
+	 *
+	 * This method works like 'refreshMinPrice' but identifies the product through
+	 * the ID of one of its product prices.
+	 *
+	 * @param priceId The ID of a product price of the product to be refreshed.
+	 * @throws PersistanceException If an error occurs during the database update
+	 *                              process.
+	 */
+	@Override
+	public void refreshMinPriceByPriceId(int priceId) throws PersistanceException {
+		String query = "UPDATE products SET min_price = (SELECT MIN(pp.price) FROM product_prices pp WHERE pp.product_id = products.id AND pp.end_date IS NULL) WHERE id = (SELECT product_id FROM product_prices WHERE id = ?)";
+		jdbc.update(query, priceId);
 	}
 
-	
 	/**
 	 * Retrieves the count of all active products from the database.
 	 *
@@ -538,30 +501,10 @@ public class ProductDAO {
 	 *                              process. The original exception is printed, and a
 	 *                              PersistanceException is thrown.
 	 */
+	@Override
 	public int findCountOfActiveProducts() throws PersistanceException {
-	    Connection conn = null;
-	    PreparedStatement ps = null;
-	    ResultSet rs = null;
-	    int count = 0;
-
-	    try {
-	        String query = "SELECT COUNT(*) AS product_count FROM products WHERE is_active = 1";
-	        conn = ConnectionUtil.getConnection();
-	        ps = conn.prepareStatement(query);
-	        rs = ps.executeQuery();
-
-	        if (rs.next()) {
-	            count = rs.getInt("product_count");
-	        }
-
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, ps, rs);
-	    }
-	    return count;
+		String query = "SELECT COUNT(*) AS product_count FROM products WHERE is_active = 1";
+		return jdbc.queryForInt(query);
 	}
 	
 	/**
@@ -577,31 +520,10 @@ public class ProductDAO {
 	 *                              process. The original exception is printed, and a
 	 *                              PersistanceException is thrown.
 	 */
+	@Override
 	public int findCountOfActiveProductsByCategoryId(int id) throws PersistanceException {
-	    Connection conn = null;
-	    PreparedStatement ps = null;
-	    ResultSet rs = null;
-	    int count = 0;
-
-	    try {
-	        String query = "SELECT COUNT(*) AS product_count FROM products WHERE is_active = 1 AND category_id = ?";
-	        conn = ConnectionUtil.getConnection();
-	        ps = conn.prepareStatement(query);
-	        ps.setInt(1 ,id);
-	        rs = ps.executeQuery();
-
-	        if (rs.next()) {
-	            count = rs.getInt("product_count");
-	        }
-
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, ps, rs);
-	    }
-	    return count;
+		String query = "SELECT COUNT(*) AS product_count FROM products WHERE is_active = 1 AND category_id = ?";
+		return jdbc.queryForInt(query, id);
 	}
 
 }
@@ -1,22 +1,49 @@
 package in.fssa.homebakery.dao;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
+import in.fssa.homebakery.interfaces.RowMapperFactory;
 import in.fssa.homebakery.model.ProductPrice;
 import in.fssa.homebakery.model.ProductPriceEntity.QuantityType;
-import in.fssa.homebakery.util.ConnectionUtil;
-
-public class ProductPriceDAO {
+import in.fssa.homebakery.util.EnumLookup;
+
+public class ProductPriceDAO implements ProductPricesInterface {
+
+	private static final JdbcTemplate jdbc = new JdbcTemplate();
+
+	private static final EnumLookup<QuantityType> QUANTITY_TYPES = EnumLookup.of(QuantityType.class);
+
+	private static final RowMapperFactory<ProductPrice> PRICE_MAPPER = rs -> {
+		int id = rs.findColumn("id");
+		int productId = rs.findColumn("product_id");
+		int price = rs.findColumn("price");
+		int quantity = rs.findColumn("quantity");
+		int type = rs.findColumn("type");
+		int startDate = rs.findColumn("start_date");
+		int endDate = rs.findColumn("end_date");
+		return row -> {
+			ProductPrice productPrice = new ProductPrice();
+			productPrice.setId(row.getInt(id));
+			productPrice.setProductId(row.getInt(productId));
+			productPrice.setPrice(row.getInt(price));
+			productPrice.setQuantity(row.getDouble(quantity));
+			productPrice.setType(QUANTITY_TYPES.get(row.getString(type)));
+			productPrice.setStartDate(row.getTimestamp(startDate));
+			productPrice.setEndDate(row.getTimestamp(endDate));
+			return productPrice;
+		};
+	};
 
 	/**
 	 * Creates a new product price entry in the database.
@@ -38,29 +65,39 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public void create(ProductPrice newPrice, int productId) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-
-		try {
-			String query = "INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (?, ?, ?, ?, ?)";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-
-			stmt.setInt(1, productId);
-			stmt.setDouble(2, newPrice.getPrice());
-			stmt.setDouble(3, newPrice.getQuantity());
-			stmt.setString(4, newPrice.getType().toString());
-			stmt.setTimestamp(5, newPrice.getStartDate());
-			stmt.executeUpdate();
+		String query = "INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (?, ?, ?, ?, ?)";
+		jdbc.update(query, productId, newPrice.getPrice(), newPrice.getQuantity(), newPrice.getType().toString(),
+				newPrice.getStartDate());
+	}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt);
+	/**
+	 * Creates several product price entries for a product in one batch.
+	 *
+	 * This method inserts every price in 'newPrices' into the 'product_prices'
+	 * table using a single JDBC batch, so the whole list is sent to the database
+	 * in one round trip instead of one statement per price. With the MySQL driver
+	 * option 'rewriteBatchedStatements' enabled, the batch is executed as one
+	 * multi-row insert. If any exception occurs during the process, it is caught,
+	 * and a PersistanceException is thrown.
+	 *
+	 * @param newPrices The list of 'ProductPrice' objects to be created. Each
+	 *                  should include the price, quantity, type, and start date.
+	 * @param productId The ID of the product for which the price entries are being
+	 *                  created.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              insertion process.
+	 */
+	@Override
+	public void createAll(List<ProductPrice> newPrices, int productId) throws PersistanceException {
+		String query = "INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (?, ?, ?, ?, ?)";
+		List<Object[]> batches = new ArrayList<>(newPrices.size());
+		for (ProductPrice newPrice : newPrices) {
+			batches.add(new Object[] { productId, newPrice.getPrice(), newPrice.getQuantity(),
+					newPrice.getType().toString(), newPrice.getStartDate() });
 		}
+		jdbc.batchUpdate(query, batches);
 	}
 
 	/**
@@ -86,55 +123,30 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public void update(int id, ProductPrice productPrice, double quantity) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
 		Timestamp time = new Timestamp(System.currentTimeMillis());
-
-		try {
-			String query = "INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (?, ?, ?, ?, ?)";
-
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, id);
-			stmt.setDouble(2, productPrice.getPrice());
-			stmt.setDouble(3, quantity);
-			stmt.setString(4, productPrice.getType().toString());
-			stmt.setTimestamp(5, time);
-			stmt.executeUpdate();
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt);
-		}
+		String query = "INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (?, ?, ?, ?, ?)";
+		jdbc.update(query, id, productPrice.getPrice(), quantity, productPrice.getType().toString(), time);
 	}
 	
+	@Override
 	public void delete(int priceId) throws PersistanceException {
-	    Connection conn = null;
-	    PreparedStatement stmt = null;
-
-	    try {
-	        String query = "UPDATE product_prices SET end_date = ? WHERE id = ? AND end_date IS NULL";
-	        conn = ConnectionUtil.getConnection();
-	        stmt = conn.prepareStatement(query);
-
-	        // Set the parameters for the prepared statement
-	        stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-	        stmt.setInt(2, priceId);
+		String query = "UPDATE product_prices SET end_date = ? WHERE id = ? AND end_date IS NULL";
+		jdbc.update(query, Timestamp.valueOf(LocalDateTime.now()), priceId);
+	}
 
-	        // Execute the update
-	        int rowsUpdated = stmt.executeUpdate();
-	        
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        System.out.println(e.getMessage());
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, stmt);
-	    }
+	/**
+	 * Ends every current price of a product by setting its 'end_date' to the
+	 * current timestamp. Prices that have already ended keep their end date.
+	 *
+	 * @param productId The ID of the product whose prices are ended.
+	 * @throws PersistanceException If the update fails.
+	 */
+	@Override
+	public void deleteByProductId(int productId) throws PersistanceException {
+		String query = "UPDATE product_prices SET end_date = ? WHERE product_id = ? AND end_date IS NULL";
+		jdbc.update(query, Timestamp.valueOf(LocalDateTime.now()), productId);
 	}
 
 	/**
@@ -158,28 +170,10 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public void setEndDate(int productId, double quantity) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-
-		try {
-			String query = "UPDATE product_prices SET end_date = ? WHERE product_id = ? AND quantity = ? AND end_date IS NULL";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-
-			// Set the parameters for the prepared statement
-			stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-			stmt.setInt(2, productId);
-			stmt.setDouble(3, quantity);
-			stmt.executeUpdate();
-			
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt);
-		}
+		String query = "UPDATE product_prices SET end_date = ? WHERE product_id = ? AND quantity = ? AND end_date IS NULL";
+		jdbc.update(query, Timestamp.valueOf(LocalDateTime.now()), productId, quantity);
 	}
 
 	/**
@@ -199,39 +193,30 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public Set<ProductPrice> findAll() throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
 		Set<ProductPrice> productPrices = new HashSet<>();
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices";
+		jdbc.forEach(query, PRICE_MAPPER, productPrices::add);
+		return productPrices;
+	}
 
-		try {
-			String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-
-			rs = stmt.executeQuery();
-			while (rs.next()) {
-				ProductPrice productPrice = new ProductPrice();
-				productPrice.setId(rs.getInt("id"));
-				productPrice.setProductId(rs.getInt("product_id"));
-				productPrice.setPrice(rs.getInt("price"));
-				productPrice.setQuantity(rs.getDouble("quantity"));
-				productPrice.setType(QuantityType.valueOf(rs.getString("type").toUpperCase()));
-				productPrice.setStartDate(rs.getTimestamp("start_date"));
-				productPrice.setEndDate(rs.getTimestamp("end_date") != null ? rs.getTimestamp("end_date") : null);
-
-				productPrices.add(productPrice);
-			}
-
-			return productPrices;
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	/**
+	 * Streams all product price entries from the database.
+	 *
+	 * Unlike 'findAll', this method does not collect the entries in memory. Each
+	 * entry is read and mapped when the stream reaches it, using the streaming
+	 * fetch size of 'ConnectionUtil'. The returned stream holds a database
+	 * connection and must be closed, preferably with a try-with-resources
+	 * statement.
+	 *
+	 * @return A stream of all 'ProductPrice' entries, ordered by ID.
+	 * @throws PersistanceException If the query cannot be run.
+	 */
+	@Override
+	public Stream<ProductPrice> streamAll() throws PersistanceException {
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices ORDER BY id";
+		return jdbc.stream(query, PRICE_MAPPER);
 	}
 
 	/**
@@ -256,41 +241,65 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public List<ProductPrice> findByProductId(int id) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_id, quantity, price,type, start_date, end_date FROM product_prices WHERE product_id = ?";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, id);
-
-			rs = stmt.executeQuery();
+		String query = "SELECT id, product_id, quantity, price,type, start_date, end_date FROM product_prices WHERE product_id = ?";
+		return jdbc.query(query, PRICE_MAPPER, id);
+	}
 
-			List<ProductPrice> productPrices = new ArrayList<>();
-			while (rs.next()) {
-				ProductPrice productPrice = new ProductPrice();
-				productPrice.setId(rs.getInt("id"));
-				productPrice.setProductId(rs.getInt("product_id"));
-				productPrice.setPrice(rs.getInt("price"));
-				productPrice.setQuantity(rs.getDouble("quantity"));
-				productPrice.setType(QuantityType.valueOf(rs.getString("type").toUpperCase()));
-				productPrice.setStartDate(rs.getTimestamp("start_date"));
-				productPrice.setEndDate(rs.getTimestamp("end_date") != null ? rs.getTimestamp("end_date") : null);
+	/**
+	 * Retrieves all product price entries of several products at once.
+	 *
+	 * This method queries the 'product_prices' table for every product ID in
+	 * 'productIds' using 'IN' lists of at most 'SqlUtil.MAX_IN_LIST_SIZE' IDs, so
+	 * the prices of a whole page of products are loaded with one query instead of
+	 * one query per product. The entries are grouped by product ID. If any
+	 * exception occurs during the process, it is caught, and a
+	 * PersistanceException is thrown.
+	 *
+	 * @param productIds The IDs of the products whose prices are being retrieved.
+	 * @return A 'Map' from product ID to the 'List' of its 'ProductPrice' entries.
+	 *         Products without any price entry are not contained in the map.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public Map<Integer, List<ProductPrice>> findByProductIds(Collection<Integer> productIds)
+			throws PersistanceException {
+		return findGroupedByProductIds(
+				"SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE product_id IN (%s) ORDER BY product_id, id",
+				productIds);
+	}
 
-				productPrices.add(productPrice);
-			}
+	/**
+	 * Retrieves the current product price entries of several products at once.
+	 *
+	 * This method behaves like 'findByProductIds' but only returns entries without
+	 * an end date (i.e., the pricing period is ongoing). The entries of each
+	 * product are ordered by quantity, like those returned by 'findCurrentPrice'.
+	 *
+	 * @param productIds The IDs of the products whose current prices are being
+	 *                   retrieved.
+	 * @return A 'Map' from product ID to the 'List' of its current 'ProductPrice'
+	 *         entries. Products without a current price are not contained in the
+	 *         map.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public Map<Integer, List<ProductPrice>> findCurrentPriceByProductIds(Collection<Integer> productIds)
+			throws PersistanceException {
+		return findGroupedByProductIds(
+				"SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE product_id IN (%s) AND end_date IS NULL ORDER BY product_id, quantity",
+				productIds);
+	}
 
-			return productPrices;
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	private Map<Integer, List<ProductPrice>> findGroupedByProductIds(String queryTemplate,
+			Collection<Integer> productIds) throws PersistanceException {
+		Map<Integer, List<ProductPrice>> pricesByProduct = new HashMap<>();
+		jdbc.queryIn(queryTemplate, productIds, PRICE_MAPPER, productPrice -> pricesByProduct
+				.computeIfAbsent(productPrice.getProductId(), key -> new ArrayList<>()).add(productPrice));
+		return pricesByProduct;
 	}
 
 	/**
@@ -312,39 +321,34 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public ProductPrice findById(int id) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-		ProductPrice productPrice = null;
-
-		try {
-			String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE id = ?";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, id);
-
-			rs = stmt.executeQuery();
-
-			if (rs.next()) {
-				productPrice = new ProductPrice();
-				productPrice.setId(rs.getInt("id"));
-				productPrice.setProductId(rs.getInt("product_id"));
-				productPrice.setPrice(rs.getInt("price"));
-				productPrice.setQuantity(rs.getDouble("quantity"));
-				productPrice.setType(QuantityType.valueOf(rs.getString("type").toUpperCase()));
-				productPrice.setStartDate(rs.getTimestamp("start_date"));
-				productPrice.setEndDate(rs.getTimestamp("end_date") != null ? rs.getTimestamp("end_date") : null);
-			}
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE id = ?";
+		return jdbc.queryForObject(query, PRICE_MAPPER, id);
+	}
 
-			return productPrice;
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	/**
+	 * Retrieves several product price entries from the database by their IDs at once.
+	 *
+	 * This method queries the 'product_prices' table for all of the provided IDs using
+	 * 'IN' lists of at most 'SqlUtil.MAX_IN_LIST_SIZE' IDs, so that any number of
+	 * IDs is served with one query per chunk instead of one query per ID.
+	 * Duplicate IDs are looked up once. If any database-related
+	 * exception occurs during the process, it is caught, and a
+	 * PersistanceException is thrown.
+	 *
+	 * @param ids The IDs of the product price entries to be retrieved.
+	 * @return A 'Map' from ID to the retrieved 'ProductPrice'. IDs without a matching
+	 *         record are not contained in the map.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public Map<Integer, ProductPrice> findByIds(Collection<Integer> ids) throws PersistanceException {
+		Map<Integer, ProductPrice> productPriceById = new HashMap<>();
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE id IN (%s)";
+		jdbc.queryIn(query, ids, PRICE_MAPPER, productPrice -> productPriceById.put(productPrice.getId(), productPrice));
+		return productPriceById;
 	}
 
 	/**
@@ -369,42 +373,10 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public List<ProductPrice> findCurrentPrice(int productId) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE product_id = ? AND end_date IS NULL ORDER BY quantity";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, productId);
-
-			rs = stmt.executeQuery();
-
-			List<ProductPrice> currentPrices = new ArrayList<>();
-
-			while (rs.next()) {
-				ProductPrice productPrice = new ProductPrice();
-				productPrice.setId(rs.getInt("id"));
-				productPrice.setProductId(rs.getInt("product_id"));
-				productPrice.setPrice(rs.getInt("price"));
-				productPrice.setQuantity(rs.getDouble("quantity"));
-				productPrice.setType(QuantityType.valueOf(rs.getString("type").toUpperCase()));
-				productPrice.setStartDate(rs.getTimestamp("start_date"));
-				productPrice.setEndDate(rs.getTimestamp("end_date") != null ? rs.getTimestamp("end_date") : null);
-
-				currentPrices.add(productPrice);
-			}
-
-			return currentPrices;
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE product_id = ? AND end_date IS NULL ORDER BY quantity";
+		return jdbc.query(query, PRICE_MAPPER, productId);
 	}
 	
 	/**
@@ -416,41 +388,10 @@ public class ProductPriceDAO {
 	 * @return A list of `ProductPrice` objects containing the current price details for all products.
 	 * @throws PersistenceException If there is an error while retrieving the product prices from the database.
 	 */
+	@Override
 	public List<ProductPrice> findCurrentPriceForAllProducts() throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE end_date IS NULL";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-
-			rs = stmt.executeQuery();
-
-			List<ProductPrice> currentPrices = new ArrayList<>();
-
-			while (rs.next()) {
-				ProductPrice productPrice = new ProductPrice();
-				productPrice.setId(rs.getInt("id"));
-				productPrice.setProductId(rs.getInt("product_id"));
-				productPrice.setPrice(rs.getInt("price"));
-				productPrice.setQuantity(rs.getDouble("quantity"));
-				productPrice.setType(QuantityType.valueOf(rs.getString("type").toUpperCase()));
-				productPrice.setStartDate(rs.getTimestamp("start_date"));
-				productPrice.setEndDate(rs.getTimestamp("end_date") != null ? rs.getTimestamp("end_date") : null);
-
-				currentPrices.add(productPrice);
-			}
-
-			return currentPrices;
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE end_date IS NULL";
+		return jdbc.query(query, PRICE_MAPPER);
 	}
 	
 	/**
@@ -475,42 +416,10 @@ public class ProductPriceDAO {
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
+	@Override
 	public List<ProductPrice> findPricesByQuantity(double quantity) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE quantity = ? end_date IS NULL";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setDouble(1, quantity);
-
-			rs = stmt.executeQuery();
-
-			List<ProductPrice> currentPrices = new ArrayList<>();
-
-			while (rs.next()) {
-				ProductPrice productPrice = new ProductPrice();
-				productPrice.setId(rs.getInt("id"));
-				productPrice.setProductId(rs.getInt("product_id"));
-				productPrice.setPrice(rs.getInt("price"));
-				productPrice.setQuantity(rs.getDouble("quantity"));
-				productPrice.setType(QuantityType.valueOf(rs.getString("type").toUpperCase()));
-				productPrice.setStartDate(rs.getTimestamp("start_date"));
-				productPrice.setEndDate(rs.getTimestamp("end_date") != null ? rs.getTimestamp("end_date") : null);
-
-				currentPrices.add(productPrice);
-			}
-
-			return currentPrices;
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE quantity = ? end_date IS NULL";
+		return jdbc.query(query, PRICE_MAPPER, quantity);
 	}
 	
 	/**
@@ -526,42 +435,10 @@ public class ProductPriceDAO {
 	 *         if no matching price is found.
 	 * @throws PersistenceException If there is an error while retrieving the product price details from the database.
 	 */
+	@Override
 	public ProductPrice findPriceByIdAndQuantity(int productId, double quantity) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-		ProductPrice productPrice = null;
-
-		try {
-			String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE quantity = ? AND product_id = ? AND end_date IS NULL";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setDouble(1, quantity);
-			stmt.setInt(2, productId);
-
-			rs = stmt.executeQuery();
-			
-
-			if (rs.next()) {
-				productPrice = new ProductPrice();
-				productPrice.setId(rs.getInt("id"));
-				productPrice.setProductId(rs.getInt("product_id"));
-				productPrice.setPrice(rs.getInt("price"));
-				productPrice.setQuantity(rs.getDouble("quantity"));
-				productPrice.setType(QuantityType.valueOf(rs.getString("type").toUpperCase()));
-				productPrice.setStartDate(rs.getTimestamp("start_date"));
-				productPrice.setEndDate(rs.getTimestamp("end_date") != null ? rs.getTimestamp("end_date") : null);
-			}
-
-			return productPrice;
-			
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+		String query = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices WHERE quantity = ? AND product_id = ? AND end_date IS NULL";
+		return jdbc.queryForObject(query, PRICE_MAPPER, quantity, productId);
 	}
 	
 	/**
@@ -583,58 +460,15 @@ public class ProductPriceDAO {
 	 *         'quantity' exists, 'false' otherwise.
 	 * @throws PersistanceException 
 	 */
-	public static boolean quantityExistsForProduct(int productId, double quantity) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT 1 FROM product_prices WHERE product_id = ? AND quantity = ?";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, productId);
-			stmt.setDouble(2, quantity);
-
-			rs = stmt.executeQuery();
-			if (rs.next()) {
-				int count = rs.getInt(1);
-				return count > 0; // If count > 0, product with quantity for the specified product ID exists
-			}
-
-			return false; // No rows returned, product with quantity for the specified product ID does not
-							// exist
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	@Override
+	public boolean quantityExistsForProduct(int productId, double quantity) throws PersistanceException {
+		String query = "SELECT 1 FROM product_prices WHERE product_id = ? AND quantity = ?";
+		return jdbc.exists(query, productId, quantity);
 	}
 	
-	public static boolean priceExists(int priceId) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT 1 FROM product_prices WHERE id = ?";
-			conn = ConnectionUtil.getConnection();
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, priceId);
-
-			rs = stmt.executeQuery();
-			if (rs.next()) {
-				int count = rs.getInt(1);
-				return count > 0; // If count > 0, category exists
-			}
-
-			return false; // No rows returned, category does not exist
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	@Override
+	public boolean priceExists(int priceId) throws PersistanceException {
+		String query = "SELECT 1 FROM product_prices WHERE id = ?";
+		return jdbc.exists(query, priceId);
 	}
 }
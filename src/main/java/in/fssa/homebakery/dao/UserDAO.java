@@ -1,25 +1,62 @@
 package in.fssa.homebakery.dao;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
 import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.RowMapper;
+import in.fssa.homebakery.interfaces.RowMapperFactory;
 import in.fssa.homebakery.interfaces.UserInterface;
 import in.fssa.homebakery.model.User;
-import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.Logger;
 import in.fssa.homebakery.util.PasswordEncryptor;
 
 public class UserDAO implements UserInterface {
 
+	private static final Logger LOG = Logger.getLogger(UserDAO.class);
+
+	private static final JdbcTemplate jdbc = new JdbcTemplate();
+
+	private static final RowMapperFactory<User> USER_MAPPER = rs -> userMapper(rs, false);
+	private static final RowMapperFactory<User> USER_WITH_PASSWORD_MAPPER = rs -> userMapper(rs, true);
+
+	private static RowMapper<User> userMapper(ResultSet rs, boolean withPassword) throws SQLException {
+		int id = rs.findColumn("id");
+		int firstName = rs.findColumn("first_name");
+		int lastName = rs.findColumn("last_name");
+		int email = rs.findColumn("email");
+		int phoneNo = rs.findColumn("phone_no");
+		int password = withPassword ? rs.findColumn("password") : 0;
+		return row -> {
+			User user = new User();
+			user.setId(row.getInt(id));
+			user.setFirstName(row.getString(firstName));
+			user.setLastName(row.getString(lastName));
+			user.setEmail(row.getString(email));
+			user.setPhoneNo(row.getLong(phoneNo));
+			if (withPassword) {
+				try {
+					user.setPassword(PasswordEncryptor.decrypt(row.getString(password), System.getenv("SECRET_KEY")));
+				} catch (Exception e) {
+					LOG.error("Could not decrypt password", e, "userId", user.getId());
+				}
+			}
+			return user;
+		};
+	}
+
 	/**
 	 * Creates a new user entry in the database.
 	 *
@@ -38,30 +75,17 @@ public class UserDAO implements UserInterface {
 	 */
 	@Override
 	public void create(User newUser) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-
+		String password;
 		try {
-			String query = "INSERT INTO users (first_name, last_name, email, password, phone_no) VALUES (?,?,?,?,?)";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setString(1, newUser.getFirstName());
-			ps.setString(2, newUser.getLastName());
-			ps.setString(3, newUser.getEmail());
-			ps.setString(4, PasswordEncryptor.encrypt(newUser.getPassword(), System.getenv("SECRET_KEY")));
-			ps.setLong(5, newUser.getPhoneNo()); 
-			ps.executeUpdate();
-			
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
+			password = PasswordEncryptor.encrypt(newUser.getPassword(), System.getenv("SECRET_KEY"));
 		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			ConnectionUtil.close(conn, ps);
+			LOG.error("Could not encrypt password", e, "dao", "UserDAO.create", "email", newUser.getEmail());
+			return;
 		}
+
+		String query = "INSERT INTO users (first_name, last_name, email, password, phone_no) VALUES (?,?,?,?,?)";
+		jdbc.update(query, newUser.getFirstName(), newUser.getLastName(), newUser.getEmail(), password,
+				newUser.getPhoneNo());
 	}
 
 	/**
@@ -78,37 +102,24 @@ public class UserDAO implements UserInterface {
 	 * @param id          The ID of the user to be updated.
 	 * @param updatedUser An instance of 'User' containing the updated user
 	 *                    information.
+	 * @return The number of updated users, 0 if no active user has the ID.
 	 * @throws RuntimeException If an error occurs during the database update
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
 	@Override
-	public void update(int id, User updatedUser) throws PersistanceException{
-		Connection conn = null;
-		PreparedStatement ps = null;
-
+	public int update(int id, User updatedUser) throws PersistanceException{
+		String password;
 		try {
-			String query = "UPDATE users SET first_name = ? , last_name = ? , phone_no = ? , password = ? , email = ? WHERE is_active = 1 AND id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setString(1, updatedUser.getFirstName());
-			ps.setString(2, updatedUser.getLastName());
-			ps.setLong(3, updatedUser.getPhoneNo());
-			ps.setString(4, PasswordEncryptor.encrypt(updatedUser.getPassword(), System.getenv("SECRET_KEY")));
-			ps.setString(5, updatedUser.getEmail());
-			ps.setInt(6, id);
-			ps.executeUpdate();
-			
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
+			password = PasswordEncryptor.encrypt(updatedUser.getPassword(), System.getenv("SECRET_KEY"));
 		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			ConnectionUtil.close(conn, ps);
+			LOG.error("Could not encrypt password", e, "dao", "UserDAO.update", "userId", id);
+			throw new PersistanceException(e.getMessage());
 		}
+
+		String query = "UPDATE users SET first_name = ? , last_name = ? , phone_no = ? , password = ? , email = ? WHERE is_active = 1 AND id = ?";
+		return jdbc.update(query, updatedUser.getFirstName(), updatedUser.getLastName(), updatedUser.getPhoneNo(),
+				password, updatedUser.getEmail(), id);
 	}
 
 	/**
@@ -121,33 +132,21 @@ public class UserDAO implements UserInterface {
 	 * exception occurs during the process, it is caught, and a RuntimeException is
 	 * thrown.
 	 *
+	 * Deactivating a user that is already inactive succeeds as well. The MySQL
+	 * driver reports matched rather than changed rows, so the result still counts
+	 * such a user.
+	 *
 	 * @param userId The ID of the user to be deactivated.
+	 * @return The number of matching users, 0 if no user has the ID.
 	 * @throws PersistanceException 
 	 * @throws RuntimeException If an error occurs during the database deactivation
 	 *                          process. The original exception is printed, and a
 	 *                          RuntimeException is thrown.
 	 */
 	@Override
-	public void delete(int userId) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
-
-		try {
-			String query = "UPDATE users SET is_active = ? WHERE is_active = 1 AND id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setInt(1, 0);
-			ps.setInt(2, userId);
-			ps.executeUpdate();
-			
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps);
-		}
+	public int delete(int userId) throws PersistanceException {
+		String query = "UPDATE users SET is_active = ? WHERE id = ?";
+		return jdbc.update(query, 0, userId);
 	}
 
 	/**
@@ -169,37 +168,30 @@ public class UserDAO implements UserInterface {
 	 */
 	@Override
 	public Set<User> findAll() throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement ps = null;
 		Set<User> setOfUser = new HashSet<>();
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, first_name, last_name, email, phone_no FROM users WHERE is_active = 1";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-			rs = ps.executeQuery();
-
-			while (rs.next()) {
-				User user = new User();
-				user.setId(rs.getInt("id"));
-				user.setFirstName(rs.getString("first_name"));
-				user.setLastName(rs.getString("last_name"));
-				user.setEmail(rs.getString("email"));
-				user.setPhoneNo(rs.getLong("phone_no"));
-				setOfUser.add(user);
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
+		String query = "SELECT id, first_name, last_name, email, phone_no FROM users WHERE is_active = 1";
+		jdbc.forEach(query, USER_MAPPER, setOfUser::add);
 		return setOfUser;
 	}
 
+	/**
+	 * Streams all active user entries from the database.
+	 *
+	 * Unlike 'findAll', this method does not collect the users in memory. Each
+	 * user is read and mapped when the stream reaches it, using the streaming
+	 * fetch size of 'ConnectionUtil'. Like 'findAll', it does not read passwords.
+	 * The returned stream holds a database connection and must be closed,
+	 * preferably with a try-with-resources statement.
+	 *
+	 * @return A stream of all active users, ordered by ID.
+	 * @throws PersistanceException If the query cannot be run.
+	 */
+	@Override
+	public Stream<User> streamAll() throws PersistanceException {
+		String query = "SELECT id, first_name, last_name, email, phone_no FROM users WHERE is_active = 1 ORDER BY id";
+		return jdbc.stream(query, USER_MAPPER);
+	}
+
 	/**
 	 * Retrieves an active user entry from the database by its ID.
 	 *
@@ -220,79 +212,66 @@ public class UserDAO implements UserInterface {
 	 */
 	@Override
 	public User findById(int userId) throws PersistanceException {
+		String query = "SELECT id, first_name, last_name, email, phone_no, password FROM users WHERE is_active = 1 AND id = ?";
+		return jdbc.queryForObject(query, USER_WITH_PASSWORD_MAPPER, userId);
+	}
 
-		Connection conn = null;
-		PreparedStatement ps = null;
-		User user = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, first_name, last_name, email, phone_no, password FROM users WHERE is_active = 1 AND id = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setInt(1, userId);
-
-			rs = ps.executeQuery();
-
-			if (rs.next()) {
-				user = new User();
-				user.setId(rs.getInt("id"));
-				user.setFirstName(rs.getString("first_name"));
-				user.setLastName(rs.getString("last_name"));
-				user.setEmail(rs.getString("email"));
-				user.setPhoneNo(rs.getLong("phone_no"));
-				user.setPassword(PasswordEncryptor.decrypt(rs.getString("password"), System.getenv("SECRET_KEY")));
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
-		return user;
+	/**
+	 * Retrieves several active users from the database by their IDs at once.
+	 *
+	 * This method queries the 'users' table for all of the provided IDs using
+	 * 'IN' lists of at most 'SqlUtil.MAX_IN_LIST_SIZE' IDs, so that any number of
+	 * IDs is served with one query per chunk instead of one query per ID.
+	 * Duplicate IDs are looked up once. Like 'findById', only active users
+	 * are returned. If any database-related exception occurs during the
+	 * process, it is caught, and a PersistanceException is thrown.
+	 *
+	 * @param ids The IDs of the active users to be retrieved.
+	 * @return A 'Map' from ID to the retrieved 'User'. IDs without a matching
+	 *         record are not contained in the map.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public Map<Integer, User> findByIds(Collection<Integer> ids) throws PersistanceException {
+		Map<Integer, User> userById = new HashMap<>();
+		String query = "SELECT id, first_name, last_name, email, phone_no, password FROM users WHERE is_active = 1 AND id IN (%s)";
+		jdbc.queryIn(query, ids, USER_WITH_PASSWORD_MAPPER, user -> userById.put(user.getId(), user));
+		return userById;
 	}
 	
+	@Override
 	public User findByEmail(String email) throws PersistanceException {
+		String query = "SELECT id, first_name, last_name, email, phone_no, password FROM users WHERE is_active = 1 AND email = ?";
+		return jdbc.queryForObject(query, USER_WITH_PASSWORD_MAPPER, email);
+	}
 
-		Connection conn = null;
-		PreparedStatement ps = null;
-		User user = null;
-		ResultSet rs = null;
-
-		try {
-			String query = "SELECT id, first_name, last_name, email, phone_no, password FROM users WHERE is_active = 1 AND email = ?";
-			conn = ConnectionUtil.getConnection();
-			ps = conn.prepareStatement(query);
-
-			ps.setString(1, email);
-
-			rs = ps.executeQuery();
-
-			if (rs.next()) {
-				user = new User();
-				user.setId(rs.getInt("id"));
-				user.setFirstName(rs.getString("first_name"));
-				user.setLastName(rs.getString("last_name"));
-				user.setEmail(rs.getString("email"));
-				user.setPhoneNo(rs.getLong("phone_no"));
-				user.setPassword(PasswordEncryptor.decrypt(rs.getString("password"), System.getenv("SECRET_KEY")));
-			}
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} catch (Exception e) {
-			e.printStackTrace();
-		} finally {
-			ConnectionUtil.close(conn, ps, rs);
-		}
-		return user;
+	/**
+	 * Retrieves several active users from the database by their email addresses
+	 * at once.
+	 *
+	 * This method queries the 'users' table for all of the provided email
+	 * addresses using 'IN' lists of at most 'SqlUtil.MAX_IN_LIST_SIZE' values, so
+	 * that any number of addresses is served with one query per chunk. Like
+	 * 'findByEmail', only active users are returned. Because email addresses are
+	 * compared without regard to case, the returned map is keyed by the lower case
+	 * email address. If any database-related exception occurs during the process,
+	 * it is caught, and a PersistanceException is thrown.
+	 *
+	 * @param emails The email addresses of the users to be retrieved.
+	 * @return A 'Map' from lower case email address to the retrieved 'User'.
+	 *         Addresses without a matching active user are not contained in the
+	 *         map.
+	 * @throws PersistanceException If an error occurs during the database
+	 *                              retrieval process.
+	 */
+	@Override
+	public Map<String, User> findByEmails(Collection<String> emails) throws PersistanceException {
+		Map<String, User> userByEmail = new HashMap<>();
+		String query = "SELECT id, first_name, last_name, email, phone_no, password FROM users WHERE is_active = 1 AND email IN (%s)";
+		jdbc.queryIn(query, emails, USER_WITH_PASSWORD_MAPPER,
+				user -> userByEmail.put(user.getEmail().toLowerCase(Locale.ROOT), user));
+		return userByEmail;
 	}
 	
 	/**
@@ -307,32 +286,10 @@ public class UserDAO implements UserInterface {
 	 * @throws PersistanceException 
 	 * @throws RuntimeException If an error occurs during database interaction.
 	 */
-	public static boolean isUserPresent(int id) throws PersistanceException {
-		Connection conn = null;
-		PreparedStatement stmt = null;
-		ResultSet rs = null;
-
-		try {
-			conn = ConnectionUtil.getConnection();
-			String query = "SELECT 1 FROM users WHERE id = ?";
-			stmt = conn.prepareStatement(query);
-			stmt.setInt(1, id);
-
-			rs = stmt.executeQuery();
-
-			if (rs.next()) {
-				int count = rs.getInt(1);
-				return count > 0;
-			}
-
-			return false;
-
-		} catch (SQLException e) {
-			System.out.println(e.getMessage());
-			throw new PersistanceException(e.getMessage());
-		} finally {
-			ConnectionUtil.close(conn, stmt, rs);
-		}
+	@Override
+	public boolean isUserPresent(int id) throws PersistanceException {
+		String query = "SELECT 1 FROM users WHERE id = ?";
+		return jdbc.exists(query, id);
 	}
 	
 	
@@ -348,31 +305,10 @@ public class UserDAO implements UserInterface {
 	 * @throws PersistanceException If an SQL exception occurs while interacting with the database.
 	 * @throws RuntimeException If an error occurs during database interaction.
 	 */
-	public static boolean isUserEmailPresent(String email) throws PersistanceException {
-	    Connection conn = null;
-	    PreparedStatement stmt = null;
-	    ResultSet rs = null;
-
-	    try {
-	        conn = ConnectionUtil.getConnection();
-	        String query = "SELECT 1 FROM users WHERE email = ?";
-	        stmt = conn.prepareStatement(query);
-	        stmt.setString(1, email);
-
-	        rs = stmt.executeQuery();
-
-	        if (rs.next()) {
-	            int count = rs.getInt(1);
-	            return count > 0;
-	        }
-
-	        return false;
-
-	    } catch (SQLException e) {
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, stmt, rs);
-	    }
+	@Override
+	public boolean isUserEmailPresent(String email) throws PersistanceException {
+		String query = "SELECT 1 FROM users WHERE email = ?";
+		return jdbc.exists(query, email);
 	}
 	
 	/**
@@ -387,31 +323,10 @@ public class UserDAO implements UserInterface {
 	 * @throws PersistanceException If an SQL exception occurs while interacting with the database.
 	 * @throws RuntimeException If an error occurs during database interaction.
 	 */
-	public static boolean isUserPhoneNoPresent(long phoneNo) throws PersistanceException {
-	    Connection conn = null;
-	    PreparedStatement stmt = null;
-	    ResultSet rs = null;
-
-	    try {
-	        conn = ConnectionUtil.getConnection();
-	        String query = "SELECT COUNT(*) FROM users WHERE phone_no = ?";
-	        stmt = conn.prepareStatement(query);
-	        stmt.setLong(1, phoneNo);
-
-	        rs = stmt.executeQuery();
-
-	        if (rs.next()) {
-	            int count = rs.getInt(1);
-	            return count > 0;
-	        }
-
-	        return false;
-
-	    } catch (SQLException e) {
-	        throw new PersistanceException(e.getMessage());
-	    } finally {
-	        ConnectionUtil.close(conn, stmt, rs);
-	    }
+	@Override
+	public boolean isUserPhoneNoPresent(long phoneNo) throws PersistanceException {
+		String query = "SELECT COUNT(*) FROM users WHERE phone_no = ?";
+		return jdbc.exists(query, phoneNo);
 	}
 	
 	
@@ -0,0 +1,39 @@
+package in.fssa.homebakery.dto;
+
+import java.util.List;
+
+public class PageDTO<T> {
+
+	private List<T> items;
+	private String nextPageToken;
+
+	public PageDTO(List<T> items, String nextPageToken) {
+		this.items = items;
+		this.nextPageToken = nextPageToken;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+
+	public void setNextPageToken(String nextPageToken) {
+		this.nextPageToken = nextPageToken;
+	}
+
+	public boolean hasMore() {
+		return nextPageToken != null;
+	}
+
+	@Override
+	public String toString() {
+		return "PageDTO [items=" + items + ", nextPageToken=" + nextPageToken + "]";
+	}
+}
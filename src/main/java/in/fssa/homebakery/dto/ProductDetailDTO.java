@@ -14,6 +14,7 @@ public class ProductDetailDTO implements Comparable<ProductDetailDTO>{
 	private boolean isActive;
 	private String imageUrl;
 	private List<ProductPrice> priceList;
+	private int minPrice;
 	
 
 	public String getImageUrl() {
@@ -81,6 +82,14 @@ public class ProductDetailDTO implements Comparable<ProductDetailDTO>{
 		this.priceList = prices;
 	}
 
+	public int getMinPrice() {
+		return minPrice;
+	}
+
+	public void setMinPrice(int minPrice) {
+		this.minPrice = minPrice;
+	}
+
 	@Override
 	public String toString() {
 		return "ProductDetailDTO [id=" + id + ", name=" + name + ", description=" + description + ", categoryId="
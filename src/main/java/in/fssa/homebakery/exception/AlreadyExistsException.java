@@ -0,0 +1,13 @@
+package in.fssa.homebakery.exception;
+
+/**
+ * Reports that an entity cannot be created because an equal one already
+ * exists, such as a second account with the same email. Like
+ * 'NotFoundException' it is an expected outcome and captures no stack trace.
+ */
+public class AlreadyExistsException extends ServiceException {
+
+	public AlreadyExistsException(String message) {
+		super(message, false);
+	}
+}
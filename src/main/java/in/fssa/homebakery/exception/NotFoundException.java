@@ -0,0 +1,17 @@
+package in.fssa.homebakery.exception;
+
+/**
+ * Reports that a requested entity, such as a product or user, does not exist
+ * or is no longer active.
+ *
+ * A missing entity is an expected outcome, for example when a client asks for
+ * an ID that was deleted, so no stack trace is captured. Callers that expect
+ * misses often can use the lookups returning 'Optional' instead, which do not
+ * throw at all.
+ */
+public class NotFoundException extends ServiceException {
+
+	public NotFoundException(String message) {
+		super(message, false);
+	}
+}
@@ -4,4 +4,16 @@ public class PersistanceException extends Exception {
 	public PersistanceException (String message) {
 		super(message);
 	}
+
+	/**
+	 * Creates an exception that may skip capturing the stack trace. Pass false
+	 * for expected outcomes, such as a row that refers to a missing row, where
+	 * the stack trace would never be looked at.
+	 *
+	 * @param message            The detail message.
+	 * @param writableStackTrace False to skip filling in the stack trace.
+	 */
+	public PersistanceException(String message, boolean writableStackTrace) {
+		super(message, null, writableStackTrace, writableStackTrace);
+	}
 }
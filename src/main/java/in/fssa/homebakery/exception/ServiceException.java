@@ -4,4 +4,15 @@ public class ServiceException extends RuntimeException {
 	public ServiceException(String message) {
         super(message);
     }
+
+	/**
+	 * Creates an exception that may skip capturing the stack trace, for
+	 * subclasses that report expected outcomes.
+	 *
+	 * @param message            The detail message.
+	 * @param writableStackTrace False to skip filling in the stack trace.
+	 */
+	protected ServiceException(String message, boolean writableStackTrace) {
+		super(message, null, writableStackTrace, writableStackTrace);
+	}
 }
@@ -0,0 +1,12 @@
+package in.fssa.homebakery.exception;
+
+public class UncheckedPersistanceException extends RuntimeException {
+	public UncheckedPersistanceException(PersistanceException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	@Override
+	public synchronized PersistanceException getCause() {
+		return (PersistanceException) super.getCause();
+	}
+}
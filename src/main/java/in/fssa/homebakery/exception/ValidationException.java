@@ -1,8 +1,15 @@
 package in.fssa.homebakery.exception;
 
+/**
+ * Reports input that failed validation.
+ *
+ * Invalid input is an expected outcome whose stack trace is never needed, and
+ * callers probing with invalid input can trigger it at a high rate, so the
+ * stack trace is not captured.
+ */
 public class ValidationException extends Exception {
 
 	public ValidationException(String message) {
-		super(message);
+		super(message, null, false, false);
 	}
 }
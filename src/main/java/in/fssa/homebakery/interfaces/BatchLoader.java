@@ -0,0 +1,11 @@
+package in.fssa.homebakery.interfaces;
+
+import java.util.Collection;
+import java.util.Map;
+
+import in.fssa.homebakery.exception.PersistanceException;
+
+@FunctionalInterface
+public interface BatchLoader<K, V> {
+	public abstract Map<K, V> loadAll(Collection<K> keys) throws PersistanceException;
+}
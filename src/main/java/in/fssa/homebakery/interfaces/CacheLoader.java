@@ -0,0 +1,8 @@
+package in.fssa.homebakery.interfaces;
+
+import in.fssa.homebakery.exception.PersistanceException;
+
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+	public abstract V load(K key) throws PersistanceException;
+}
@@ -1,5 +1,7 @@
 package in.fssa.homebakery.interfaces;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import in.fssa.homebakery.exception.PersistanceException;
@@ -8,4 +10,6 @@ import in.fssa.homebakery.model.Category;
 public interface CategoryInterface extends Base<Category>{
 	public abstract	Set<Category> findAll() throws PersistanceException;
 	public abstract Category findById(int id) throws PersistanceException;
+	public abstract Map<Integer, Category> findByIds(Collection<Integer> ids) throws PersistanceException;
+	public abstract boolean categoryExists(int categoryId) throws PersistanceException;
 }
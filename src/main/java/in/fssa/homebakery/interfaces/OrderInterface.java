@@ -0,0 +1,21 @@
+package in.fssa.homebakery.interfaces;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import in.fssa.homebakery.dto.OrderDetailDTO;
+import in.fssa.homebakery.dto.OrderDetailDTO.OrderStatus;
+import in.fssa.homebakery.exception.PersistanceException;
+
+public interface OrderInterface {
+	public abstract void create(OrderDetailDTO order) throws PersistanceException;
+	public abstract int update(int orderId, OrderDetailDTO order) throws PersistanceException;
+	public abstract void changeStatus(int orderId, OrderStatus newStatus) throws PersistanceException;
+	public abstract List<OrderDetailDTO> findOrdersByUserId(int userId) throws PersistanceException;
+	public abstract OrderDetailDTO findOrdersByOrderId(int orderId) throws PersistanceException;
+	public abstract List<OrderDetailDTO> findOrdersWithDetailsByUserId(int userId) throws PersistanceException;
+	public abstract OrderDetailDTO findOrderWithDetailsByOrderId(int orderId) throws PersistanceException;
+	public abstract List<OrderDetailDTO> findAllOrders() throws PersistanceException;
+	public abstract Stream<OrderDetailDTO> streamAllOrders() throws PersistanceException;
+	public abstract boolean orderExists(int orderId) throws PersistanceException;
+}
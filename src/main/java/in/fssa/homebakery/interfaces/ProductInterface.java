@@ -1,13 +1,33 @@
 package in.fssa.homebakery.interfaces;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.model.Product;
 
-public interface ProductInterface extends Base<Product>{
-	public abstract	Set<ProductDetailDTO> findAll();
-	public abstract Product findById(int id);
-	void create(ProductDetailDTO productDetailDto);
-	
+public interface ProductInterface {
+	public abstract int create(ProductDetailDTO productDetailDTO) throws PersistanceException;
+	public abstract int update(int id, Product newProduct) throws PersistanceException;
+	public abstract int delete(int id) throws PersistanceException;
+	public abstract	Set<ProductDetailDTO> findAll() throws PersistanceException;
+	public abstract Stream<ProductDetailDTO> streamAll() throws PersistanceException;
+	public abstract ProductDetailDTO findById(int id) throws PersistanceException;
+	public abstract Map<Integer, ProductDetailDTO> findByIds(Collection<Integer> ids) throws PersistanceException;
+	public abstract List<ProductDetailDTO> findByCategoryId(int categoryId) throws PersistanceException;
+	public abstract boolean productExists(int productId) throws PersistanceException;
+	public abstract Set<ProductDetailDTO> findSetsOfProducts(int n) throws PersistanceException;
+	public abstract Set<ProductDetailDTO> findSetsOfProductsOrderByPrice(int n, String sort) throws PersistanceException;
+	public abstract List<ProductDetailDTO> findSetByCategoryId(int categoryId, int n) throws PersistanceException;
+	public abstract List<ProductDetailDTO> findPageOfProducts(int afterId, int limit) throws PersistanceException;
+	public abstract List<ProductDetailDTO> findPageByCategoryId(int categoryId, int afterId, int limit) throws PersistanceException;
+	public abstract List<ProductDetailDTO> findPageOrderByPrice(boolean descending, int afterPrice, int afterId, int limit) throws PersistanceException;
+	public abstract void refreshMinPrice(int productId) throws PersistanceException;
+	public abstract void refreshMinPriceByPriceId(int priceId) throws PersistanceException;
+	public abstract int findCountOfActiveProducts() throws PersistanceException;
+	public abstract int findCountOfActiveProductsByCategoryId(int id) throws PersistanceException;
 }
@@ -1,13 +1,32 @@
 package in.fssa.homebakery.interfaces;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.model.ProductPrice;
 
-public interface ProductPricesInterface extends Base<ProductPrice>{
-	
-	public abstract	Set<ProductPrice> findAll();
-	public abstract ProductPrice findById(int id);
-	public void create(ProductPrice newT, int id);
+public interface ProductPricesInterface {
+	public abstract void create(ProductPrice newPrice, int productId) throws PersistanceException;
+	public abstract void createAll(List<ProductPrice> newPrices, int productId) throws PersistanceException;
+	public abstract void update(int id, ProductPrice productPrice, double quantity) throws PersistanceException;
+	public abstract void delete(int priceId) throws PersistanceException;
+	public abstract void deleteByProductId(int productId) throws PersistanceException;
+	public abstract void setEndDate(int productId, double quantity) throws PersistanceException;
+	public abstract	Set<ProductPrice> findAll() throws PersistanceException;
+	public abstract Stream<ProductPrice> streamAll() throws PersistanceException;
+	public abstract List<ProductPrice> findByProductId(int id) throws PersistanceException;
+	public abstract Map<Integer, List<ProductPrice>> findByProductIds(Collection<Integer> productIds) throws PersistanceException;
+	public abstract Map<Integer, List<ProductPrice>> findCurrentPriceByProductIds(Collection<Integer> productIds) throws PersistanceException;
+	public abstract ProductPrice findById(int id) throws PersistanceException;
+	public abstract Map<Integer, ProductPrice> findByIds(Collection<Integer> ids) throws PersistanceException;
+	public abstract List<ProductPrice> findCurrentPrice(int productId) throws PersistanceException;
+	public abstract List<ProductPrice> findCurrentPriceForAllProducts() throws PersistanceException;
+	public abstract List<ProductPrice> findPricesByQuantity(double quantity) throws PersistanceException;
+	public abstract ProductPrice findPriceByIdAndQuantity(int productId, double quantity) throws PersistanceException;
+	public abstract boolean quantityExistsForProduct(int productId, double quantity) throws PersistanceException;
+	public abstract boolean priceExists(int priceId) throws PersistanceException;
 }
@@ -0,0 +1,9 @@
+package in.fssa.homebakery.interfaces;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface RowMapper<T> {
+	public abstract T mapRow(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,9 @@
+package in.fssa.homebakery.interfaces;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface RowMapperFactory<T> {
+	public abstract RowMapper<T> compile(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,8 @@
+package in.fssa.homebakery.interfaces;
+
+import in.fssa.homebakery.exception.PersistanceException;
+
+@FunctionalInterface
+public interface TransactionCallback<T> {
+	public abstract T doInTransaction() throws PersistanceException;
+}
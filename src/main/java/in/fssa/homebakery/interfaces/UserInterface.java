@@ -1,12 +1,22 @@
 package in.fssa.homebakery.interfaces;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.model.User;
 
 public interface UserInterface extends Base<User>{
 	public abstract	Set<User> findAll() throws PersistanceException;
+	public abstract Stream<User> streamAll() throws PersistanceException;
 	public abstract User findById(int id) throws PersistanceException;
+	public abstract Map<Integer, User> findByIds(Collection<Integer> ids) throws PersistanceException;
+	public abstract User findByEmail(String email) throws PersistanceException;
+	public abstract Map<String, User> findByEmails(Collection<String> emails) throws PersistanceException;
+	public abstract boolean isUserPresent(int id) throws PersistanceException;
+	public abstract boolean isUserEmailPresent(String email) throws PersistanceException;
+	public abstract boolean isUserPhoneNoPresent(long phoneNo) throws PersistanceException;
 }
 
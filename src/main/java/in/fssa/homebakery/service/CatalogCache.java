@@ -0,0 +1,326 @@
+package in.fssa.homebakery.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.model.ProductPrice;
+
+/**
+ * In-memory read-through cache of the product catalog used by
+ * 'ProductService'.
+ *
+ * The cache holds products by ID, the listing of all products and the listing
+ * of each category, each with the prices that the corresponding service method
+ * returns. Entries are removed by the product and product price mutators of the
+ * services as soon as their changes are committed, and expire after
+ * 'homebakery.catalogCache.ttlMillis' milliseconds as a safety net against
+ * changes made outside this application. The cache can be turned off with the
+ * system property 'homebakery.catalogCache.enabled=false'.
+ *
+ * Callers always receive fresh copies of the cached products and of their
+ * price lists, so changing a returned product or collection never changes the
+ * cache.
+ */
+public class CatalogCache {
+
+	private static final long DEFAULT_TTL_MILLIS = 300000;
+
+	private static final boolean ENABLED = Boolean
+			.parseBoolean(System.getProperty("homebakery.catalogCache.enabled", "true"));
+	private static final long TTL_MILLIS = Long.getLong("homebakery.catalogCache.ttlMillis", DEFAULT_TTL_MILLIS);
+
+	private static final Map<Integer, Entry<ProductDetailDTO>> products = new ConcurrentHashMap<>();
+	private static final Map<Integer, Entry<List<ProductDetailDTO>>> categories = new ConcurrentHashMap<>();
+	private static volatile Entry<Set<ProductDetailDTO>> allProducts;
+
+	private static final AtomicLong generation = new AtomicLong();
+	private static final LongAdder hits = new LongAdder();
+	private static final LongAdder misses = new LongAdder();
+	private static final LongAdder evictions = new LongAdder();
+
+	private CatalogCache() {
+	}
+
+	/**
+	 * Returns whether the catalog cache is in use.
+	 *
+	 * @return True unless the cache was turned off with a system property.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Returns the current invalidation generation. A caller that loads a value
+	 * after a miss passes this generation to the matching 'put' method, which
+	 * drops the value if an invalidation happened while it was being loaded.
+	 *
+	 * @return The current invalidation generation.
+	 */
+	static long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * Returns a copy of the cached product with the given ID.
+	 *
+	 * @param productId The ID of the product.
+	 * @return A copy of the cached product, or null on a cache miss.
+	 */
+	static ProductDetailDTO getProduct(int productId) {
+		ProductDetailDTO product = read(products.get(productId), () -> products.remove(productId));
+		return product != null ? copy(product) : null;
+	}
+
+	/**
+	 * Caches a product loaded by ID.
+	 *
+	 * @param product          The loaded product with its prices.
+	 * @param loadedGeneration The generation read before the product was loaded.
+	 */
+	static void putProduct(ProductDetailDTO product, long loadedGeneration) {
+		if (ENABLED && product != null) {
+			ProductDetailDTO cached = copy(product);
+			products.put(cached.getId(), new Entry<>(cached));
+			dropIfStale(loadedGeneration, () -> products.remove(cached.getId()));
+		}
+	}
+
+	/**
+	 * Returns a copy of the cached listing of all products.
+	 *
+	 * @return A new set of copies of the cached products, or null on a cache miss.
+	 */
+	static Set<ProductDetailDTO> getAllProducts() {
+		Set<ProductDetailDTO> cached = read(allProducts, () -> allProducts = null);
+		return cached != null ? copyAll(cached, new HashSet<>()) : null;
+	}
+
+	/**
+	 * Caches the listing of all products.
+	 *
+	 * @param productList      The loaded products with their prices.
+	 * @param loadedGeneration The generation read before the products were
+	 *                         loaded.
+	 */
+	static void putAllProducts(Set<ProductDetailDTO> productList, long loadedGeneration) {
+		if (ENABLED) {
+			allProducts = new Entry<>(copyAll(productList, new HashSet<>()));
+			dropIfStale(loadedGeneration, () -> allProducts = null);
+		}
+	}
+
+	/**
+	 * Returns a copy of the cached listing of a category.
+	 *
+	 * @param categoryId The ID of the category.
+	 * @return A new list of copies of the cached products, or null on a cache
+	 *         miss.
+	 */
+	static List<ProductDetailDTO> getCategory(int categoryId) {
+		List<ProductDetailDTO> cached = read(categories.get(categoryId), () -> categories.remove(categoryId));
+		return cached != null ? copyAll(cached, new ArrayList<>()) : null;
+	}
+
+	/**
+	 * Caches the listing of a category.
+	 *
+	 * @param categoryId       The ID of the category.
+	 * @param productList      The loaded products with their current prices.
+	 * @param loadedGeneration The generation read before the products were
+	 *                         loaded.
+	 */
+	static void putCategory(int categoryId, List<ProductDetailDTO> productList, long loadedGeneration) {
+		if (ENABLED) {
+			categories.put(categoryId, new Entry<>(copyAll(productList, new ArrayList<>())));
+			dropIfStale(loadedGeneration, () -> categories.remove(categoryId));
+		}
+	}
+
+	/**
+	 * Removes every cached entry that contains the given product: the product
+	 * itself, the listing of all products and the listing of every category that
+	 * includes it.
+	 *
+	 * @param productId The ID of the product that changed.
+	 */
+	static void invalidateProduct(int productId) {
+		generation.incrementAndGet();
+		evict(products.remove(productId));
+		evictAllProducts();
+
+		Iterator<Map.Entry<Integer, Entry<List<ProductDetailDTO>>>> iterator = categories.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Integer, Entry<List<ProductDetailDTO>>> category = iterator.next();
+			if (contains(category.getValue().value, productId) && categories.remove(category.getKey(), category.getValue())) {
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Removes the listing of all products and the listing of the given category,
+	 * for changes that add a product to a category.
+	 *
+	 * @param categoryId The ID of the category that gained a product.
+	 */
+	static void invalidateCategory(int categoryId) {
+		generation.incrementAndGet();
+		evict(categories.remove(categoryId));
+		evictAllProducts();
+	}
+
+	/**
+	 * Removes every cached entry.
+	 */
+	public static void clear() {
+		generation.incrementAndGet();
+		evictions.add(products.size() + categories.size());
+		products.clear();
+		categories.clear();
+		evictAllProducts();
+	}
+
+	/**
+	 * Returns the number of lookups that were served from the cache.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that had to be loaded from the database.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of entries removed because they were invalidated or
+	 * expired.
+	 *
+	 * @return The number of evicted entries.
+	 */
+	public static long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	private static <T> T read(Entry<T> entry, Runnable remove) {
+		if (!ENABLED) {
+			return null;
+		}
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		if (entry.isExpired()) {
+			remove.run();
+			evictions.increment();
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return entry.value;
+	}
+
+	private static void dropIfStale(long loadedGeneration, Runnable remove) {
+		if (generation.get() != loadedGeneration) {
+			remove.run();
+		}
+	}
+
+	private static void evict(Entry<?> entry) {
+		if (entry != null) {
+			evictions.increment();
+		}
+	}
+
+	private static void evictAllProducts() {
+		Entry<Set<ProductDetailDTO>> entry = allProducts;
+		allProducts = null;
+		evict(entry);
+	}
+
+	private static boolean contains(Collection<ProductDetailDTO> productList, int productId) {
+		for (ProductDetailDTO product : productList) {
+			if (product.getId() == productId) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static <C extends Collection<ProductDetailDTO>> C copyAll(Collection<ProductDetailDTO> source, C target) {
+		for (ProductDetailDTO product : source) {
+			target.add(copy(product));
+		}
+		return target;
+	}
+
+	/**
+	 * Returns a copy of a product with its own list of copied prices, so that the
+	 * copy can be handed out without exposing the original.
+	 *
+	 * @param product The product to copy.
+	 * @return The copy of the product.
+	 */
+	static ProductDetailDTO copy(ProductDetailDTO product) {
+		ProductDetailDTO copy = new ProductDetailDTO();
+		copy.setId(product.getId());
+		copy.setName(product.getName());
+		copy.setDescription(product.getDescription());
+		copy.setCategoryId(product.getCategoryId());
+		copy.setImageUrl(product.getImageUrl());
+		copy.setVeg(product.isVeg());
+		copy.setActive(product.isActive());
+		copy.setMinPrice(product.getMinPrice());
+		if (product.getPrices() != null) {
+			List<ProductPrice> prices = new ArrayList<>(product.getPrices().size());
+			for (ProductPrice price : product.getPrices()) {
+				prices.add(copy(price));
+			}
+			copy.setPrices(prices);
+		}
+		return copy;
+	}
+
+	private static ProductPrice copy(ProductPrice price) {
+		ProductPrice copy = new ProductPrice();
+		copy.setId(price.getId());
+		copy.setProductId(price.getProductId());
+		copy.setPrice(price.getPrice());
+		copy.setQuantity(price.getQuantity());
+		copy.setType(price.getType());
+		copy.setStartDate(price.getStartDate());
+		copy.setEndDate(price.getEndDate());
+		return copy;
+	}
+
+	private static class Entry<T> {
+
+		private final T value;
+		private final long expiresAt = System.currentTimeMillis() + TTL_MILLIS;
+
+		private Entry(T value) {
+			this.value = value;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() >= expiresAt;
+		}
+	}
+
+}
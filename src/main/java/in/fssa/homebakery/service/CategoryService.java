@@ -3,29 +3,44 @@ package in.fssa.homebakery.service;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
-import in.fssa.homebakery.dao.CategoryDAO;
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.exception.NotFoundException;
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.exception.ServiceException;
 import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.interfaces.CategoryInterface;
 import in.fssa.homebakery.model.Category;
+import in.fssa.homebakery.util.BoundedCache;
 import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.Logger;
 import in.fssa.homebakery.validator.CategoryValidator;
 
 public class CategoryService {
 
+	private static final Logger LOG = Logger.getLogger(CategoryService.class);
+
+	private static final int CATEGORY_CACHE_SIZE = 100;
+	private static final long CATEGORY_CACHE_TTL_MILLIS = 300000;
+
+	private static final BoundedCache<Integer, Category> categoryCache = new BoundedCache<>(CATEGORY_CACHE_SIZE,
+			CATEGORY_CACHE_TTL_MILLIS, BoundedCache.EvictionPolicy.LRU);
+
 	/**
 	 * Retrieves a category by its ID.
 	 *
 	 * This method validates the provided 'categoryId' using the
 	 * 'CategoryValidator.validateId' method, ensuring that it is a valid category
-	 * ID. It then checks if the category exists using the 'categoryExists' method.
-	 * If the category does not exist, a RuntimeException is thrown with the message
-	 * "Category does not exist". If the category exists, the method uses a
-	 * 'CategoryDAO' instance to retrieve and return the category details
-	 * corresponding to the provided 'categoryId'.
+	 * ID. It then looks the category up in a bounded cache. On a miss, a
+	 * 'CategoryDAO' instance retrieves the category corresponding to the provided
+	 * 'categoryId', and a 'NotFoundException' is thrown with the message "Category
+	 * does not exist" if there is none. Found categories stay cached, so repeated
+	 * lookups of the same category do not query the database again. A copy of the
+	 * cached category is returned.
 	 *
 	 * @param categoryId The ID of the category to be retrieved.
 	 * @return A 'Category' object representing the details of the retrieved
@@ -39,16 +54,48 @@ public class CategoryService {
 	public Category findByCategoryId(int categoryId) throws ValidationException, ServiceException {
 		try {
 			CategoryValidator.validateId(categoryId);
-			CategoryDAO categoryDAO = new CategoryDAO();
-			boolean test = CategoryDAO.categoryExists(categoryId);
-			
-			if (!test) {
-				throw new RuntimeException("Category does not exist");
+			CategoryInterface categoryDAO = DAOFactory.getCategoryDAO();
+			Category category = categoryCache.get(categoryId, id -> {
+				Category found = categoryDAO.findById(id);
+
+				if (found == null) {
+					throw new NotFoundException("Category does not exist");
+				}
+
+				return found;
+			});
+			return copyOf(category);
+		} catch (PersistanceException e) {
+			LOG.error("findByCategoryId failed", e, "categoryId", categoryId);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Retrieves several categories by their IDs.
+	 *
+	 * This method validates every ID using the 'CategoryValidator.validateId'
+	 * method and uses a 'CategoryDAO' instance to retrieve all matching categories
+	 * with the 'findByIds' method.
+	 *
+	 * @param categoryIds The IDs of the categories to be retrieved.
+	 * @return A 'Map' from category ID to the retrieved 'Category'. IDs without a
+	 *         matching category are not contained in the map.
+	 * @throws ValidationException If any of the provided IDs is not valid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 */
+	public Map<Integer, Category> findByCategoryIds(Collection<Integer> categoryIds)
+			throws ValidationException, ServiceException {
+		try {
+			for (int categoryId : categoryIds) {
+				CategoryValidator.validateId(categoryId);
 			}
-			
-			return categoryDAO.findById(categoryId);
+
+			CategoryInterface categoryDAO = DAOFactory.getCategoryDAO();
+			return categoryDAO.findByIds(categoryIds);
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findByCategoryIds failed", e);
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -58,12 +105,10 @@ public class CategoryService {
 	 *
 	 * This method validates the provided 'id' using the
 	 * 'CategoryValidator.validateId' method, ensuring that it is a valid category
-	 * ID. It then checks if the category exists using the 'categoryExists' method.
-	 * If the category does not exist, a RuntimeException is thrown with the message
-	 * "Category does not exist". If the category exists, the method uses a
-	 * 'CategoryDAO' instance to update the category details based on the provided
-	 * 'updatedCategory'. The category update is performed using the
-	 * 'categoryDAO.update' method.
+	 * ID. It then uses a 'CategoryDAO' instance to update the category details
+	 * based on the provided 'updatedCategory'. The category update is performed
+	 * using the 'categoryDAO.update' method. If no category was updated, a
+	 * 'NotFoundException' is thrown with the message "Category does not exist".
 	 *
 	 * @param id              The ID of the category to be updated.
 	 * @param updatedCategory An instance of 'Category' containing the updated
@@ -77,17 +122,15 @@ public class CategoryService {
 	public void updateCategory(int id, Category updatedCategory) throws ValidationException, ServiceException {
 		try {
 			CategoryValidator.validateId(id);
-			CategoryDAO categoryDAO = new CategoryDAO();
-			
-			boolean test = CategoryDAO.categoryExists(id);
+			CategoryInterface categoryDAO = DAOFactory.getCategoryDAO();
 			
-			if (!test) {
-				throw new RuntimeException("Category does not exist");
+			if (categoryDAO.update(id, updatedCategory) == 0) {
+				throw new NotFoundException("Category does not exist");
 			}
 			
-			categoryDAO.update(2, updatedCategory);
+			categoryCache.invalidateAll();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("updateCategory failed", e, "categoryId", id);
 			throw new ServiceException(e.getMessage());
 		}
 
@@ -104,16 +147,26 @@ public class CategoryService {
 	 *         categories.
 	 */
 	public Set<Category> getAllCategories() throws ServiceException{
-		CategoryDAO categoryDAO = new CategoryDAO();
+		CategoryInterface categoryDAO = DAOFactory.getCategoryDAO();
 
 		Set<Category> categoryList = new HashSet<>();
 		try {
 			categoryList = categoryDAO.findAll();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getAllCategories failed", e);
 			throw new ServiceException(e.getMessage());
 		}
 
 		return categoryList;
 	}
+
+	private static Category copyOf(Category category) {
+		if (category == null) {
+			return null;
+		}
+		Category copy = new Category();
+		copy.setId(category.getId());
+		copy.setCategoryName(category.getCategoryName());
+		return copy;
+	}
 }
@@ -1,29 +1,53 @@
 package in.fssa.homebakery.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import com.google.protobuf.ServiceException;
 
-import in.fssa.homebakery.dao.OrderDAO;
-import in.fssa.homebakery.dao.ProductDAO;
-import in.fssa.homebakery.dao.ProductPriceDAO;
-import in.fssa.homebakery.dao.UserDAO;
+import in.fssa.homebakery.dao.DAOFactory;
 import in.fssa.homebakery.dto.OrderDetailDTO;
 import in.fssa.homebakery.dto.OrderDetailDTO.OrderStatus;
 import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.NotFoundException;
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.interfaces.OrderInterface;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
 import in.fssa.homebakery.model.ProductPrice;
 import in.fssa.homebakery.model.User;
 import in.fssa.homebakery.util.IntUtil;
+import in.fssa.homebakery.util.Logger;
 import in.fssa.homebakery.validator.OrderValidator;
 
 public class OrderService {
+
+	private static final Logger LOG = Logger.getLogger(OrderService.class);
 	
 	
+	/**
+	 * Places a new order for a product price on behalf of a user.
+	 *
+	 * The product, the product price and the user are looked up through one
+	 * 'RequestScope', which is shared by the services called here. The chosen
+	 * price normally comes along with the product, so placing an order costs
+	 * three lookup queries instead of one existence check and one fetch for each.
+	 *
+	 * @param newOrder  The order to be placed.
+	 * @param productId The ID of the ordered product.
+	 * @param priceId   The ID of the ordered product price.
+	 * @param email     The email address of the ordering user.
+	 * @throws ValidationException If the order is invalid or the user does not
+	 *                             exist.
+	 * @throws ServiceException    If an error occurs during database interaction.
+	 */
 	public void createOrder(OrderDetailDTO newOrder, int productId, int priceId, String email) throws ValidationException, ServiceException {
-	    try {
+	    try (RequestScope scope = RequestScope.open()) {
 	        ProductService productService = new ProductService();
 	        ProductDetailDTO product = productService.getByProductId(productId);
 	        
@@ -40,11 +64,11 @@ public class OrderService {
 	        OrderValidator.validate(newOrder);
 	        
 
-	        OrderDAO orderDAO = new OrderDAO();   
+	        OrderInterface orderDAO = DAOFactory.getOrderDAO();   
 	        orderDAO.create(newOrder); 
 
 	    } catch (PersistanceException e) {
-	        e.printStackTrace();
+	        LOG.error("createOrder failed", e, "productId", productId, "priceId", priceId, "email", email);
 	        throw new ServiceException(e.getMessage());
 	    }
 	}
@@ -53,18 +77,14 @@ public class OrderService {
 	public void updateOrder(int orderId, OrderDetailDTO newOrder) throws ValidationException, ServiceException {
 	    try {
 	        IntUtil.rejectIfInvalidInt(orderId);
-	        boolean orderExists = OrderDAO.orderExists(orderId);
-
-	        if (!orderExists) {
-	            throw new RuntimeException("Order does not exist");
-	        }
-
 	        OrderValidator.validate(newOrder);
 
-	        OrderDAO orderDAO = new OrderDAO();
-	        orderDAO.update(orderId, newOrder);
+	        OrderInterface orderDAO = DAOFactory.getOrderDAO();
+	        if (orderDAO.update(orderId, newOrder) == 0) {
+	            throw new NotFoundException("Order does not exist");
+	        }
 	    } catch (PersistanceException e) {
-	        e.printStackTrace();
+	        LOG.error("updateOrder failed", e, "orderId", orderId);
 	        throw new ServiceException(e.getMessage());
 	    }
 	}
@@ -72,23 +92,13 @@ public class OrderService {
 	public List<OrderDetailDTO> getOrdersByUserId(int userId) throws ServiceException, ValidationException{
 		List<OrderDetailDTO> orderList = new ArrayList<>();
 		
-		ProductService productService = new ProductService();
-        
-        ProductPriceService priceService = new ProductPriceService();
-		
 		try {
-			OrderDAO orderDAO = new OrderDAO();
-			orderList = orderDAO.findOrdersByUserId(userId);
-			
-			for(OrderDetailDTO order : orderList) {
-				ProductDetailDTO product = productService.getByProductId(order.getProduct().getId());
-				ProductPrice price = priceService.findByPriceId(order.getProductPrice().getId());
-				order.setProductPrice(price);
-				order.setProduct(product);
-			}
+			OrderInterface orderDAO = DAOFactory.getOrderDAO();
+			orderList = orderDAO.findOrdersWithDetailsByUserId(userId);
+			attachProductPrices(orderList);
 			
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getOrdersByUserId failed", e, "userId", userId);
 			throw new ServiceException(e.getMessage());
 		}
 		return orderList;
@@ -98,22 +108,20 @@ public class OrderService {
 		
 		IntUtil.rejectIfInvalidInt(orderId);
 		
-		OrderDetailDTO order = new OrderDetailDTO();
-		
-		ProductService productService = new ProductService();
-        
-        ProductPriceService priceService = new ProductPriceService();
+		OrderDetailDTO order = null;
 		
 		try {
-			OrderDAO orderDAO = new OrderDAO();
-			order = orderDAO.findOrdersByOrderId(orderId);
-				ProductDetailDTO product = productService.getByProductId(order.getProduct().getId());
-				ProductPrice price = priceService.findByPriceId(order.getProductPrice().getId());
-				order.setProductPrice(price);
-				order.setProduct(product);
+			OrderInterface orderDAO = DAOFactory.getOrderDAO();
+			order = orderDAO.findOrderWithDetailsByOrderId(orderId);
+			
+			if (order == null) {
+				throw new NotFoundException("Order does not exist");
+			}
+			
+			attachProductPrices(Collections.singletonList(order));
 			
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getOrderByOrderId failed", e, "orderId", orderId);
 			throw new ServiceException(e.getMessage());
 		}
 		return order;
@@ -124,13 +132,50 @@ public class OrderService {
 		
 
 		try {
-			OrderDAO orderDAO = new OrderDAO();
+			OrderInterface orderDAO = DAOFactory.getOrderDAO();
 			orderDAO.changeStatus(orderId, status);
 			
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("changeStatusOfOrder failed", e, "orderId", orderId);
 			throw new ServiceException(e.getMessage());
 		}
 	}
 	
+	/**
+	 * Streams all orders along with their product and product price, for exports
+	 * and reports.
+	 *
+	 * The orders are read from the database while the stream is consumed instead
+	 * of being collected first, so memory use does not grow with the number of
+	 * orders. The returned stream holds a database connection and must be closed,
+	 * preferably with a try-with-resources statement.
+	 *
+	 * @return A stream of all orders, ordered by ID.
+	 * @throws ServiceException If the orders cannot be read.
+	 */
+	public Stream<OrderDetailDTO> streamAllOrders() throws ServiceException {
+		try {
+			OrderInterface orderDAO = DAOFactory.getOrderDAO();
+			return orderDAO.streamAllOrders();
+		} catch (PersistanceException e) {
+			LOG.error("streamAllOrders failed", e);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+	
+	private static void attachProductPrices(List<OrderDetailDTO> orderList) throws PersistanceException {
+		Set<Integer> productIds = new LinkedHashSet<>();
+		for (OrderDetailDTO order : orderList) {
+			productIds.add(order.getProduct().getId());
+		}
+		
+		ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+		Map<Integer, List<ProductPrice>> pricesByProduct = productPriceDAO.findByProductIds(productIds);
+		
+		for (OrderDetailDTO order : orderList) {
+			List<ProductPrice> prices = pricesByProduct.get(order.getProduct().getId());
+			order.getProduct().setPrices(prices != null ? prices : new ArrayList<>());
+		}
+	}
+	
 }
@@ -1,22 +1,39 @@
 package in.fssa.homebakery.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import in.fssa.homebakery.dao.ProductDAO;
-import in.fssa.homebakery.dao.ProductPriceDAO;
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.AlreadyExistsException;
+import in.fssa.homebakery.exception.NotFoundException;
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.exception.ServiceException;
 import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
 import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.util.BoundedCache;
 import in.fssa.homebakery.util.IntUtil;
+import in.fssa.homebakery.util.Logger;
+import in.fssa.homebakery.util.TransactionUtil;
 import in.fssa.homebakery.validator.PriceValidator;
 
 public class ProductPriceService {
-	
-	
+
+	private static final Logger LOG = Logger.getLogger(ProductPriceService.class);
+
+	private static final int PRICE_CACHE_SIZE = 2000;
+	private static final long PRICE_CACHE_TTL_MILLIS = 300000;
+
+	private static final BoundedCache<Integer, ProductPrice> priceCache = new BoundedCache<>(PRICE_CACHE_SIZE,
+			PRICE_CACHE_TTL_MILLIS, BoundedCache.EvictionPolicy.W_TINY_LFU);
+
 	/**
 	 * Creates a new product price for a specific product.
 	 *
@@ -28,7 +45,7 @@ public class ProductPriceService {
 	 * @param productPrice The `ProductPrice` object containing the details of the new price.
 	 * @throws ValidationException If the input parameters are not valid or the price details fail validation checks.
 	 * @throws ServiceException If there is an error while creating the product price entry.
-	 * @throws RuntimeException If the specified product does not exist.
+	 * @throws NotFoundException If the specified product does not exist.
 	 */
 	public void createProductPrice(int productId, ProductPrice productPrice)
 			throws ValidationException, ServiceException {
@@ -37,22 +54,29 @@ public class ProductPriceService {
 			IntUtil.rejectIfInvalidInt(productId);
 			PriceValidator.validate(productPrice);
 
-			boolean test = ProductDAO.productExists(productId);
+			boolean test = DAOFactory.getProductDAO().productExists(productId);
 			if (!test) {
-				throw new RuntimeException("Product does not exist");
+				throw new NotFoundException("Product does not exist");
 			}
 			
-			boolean check = ProductPriceDAO.quantityExistsForProduct(productId, productPrice.getQuantity());
+			boolean check = DAOFactory.getProductPriceDAO().quantityExistsForProduct(productId, productPrice.getQuantity());
 
 			if (check) {
-				throw new RuntimeException("Quantity already exist for product");
+				throw new AlreadyExistsException("Quantity already exist for product");
 			}
 			
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
-			
-			productPriceDAO.create(productPrice,productId);
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+
+			TransactionUtil.executeInTransaction(() -> {
+				productPriceDAO.create(productPrice, productId);
+				productDAO.refreshMinPrice(productId);
+				return null;
+			});
+			CatalogCache.invalidateProduct(productId);
+			RequestScope.clearCurrent();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("createProductPrice failed", e, "productId", productId);
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -67,15 +91,18 @@ public class ProductPriceService {
 	 * with the provided 'id' exists using the 'productExists' method from the
 	 * 'ProductService'.
 	 *
-	 * If the product does not exist, a RuntimeException is thrown with the message
+	 * If the product does not exist, a 'NotFoundException' is thrown with the message
 	 * "Product does not exist". If the product exists, the method checks if the
 	 * provided 'quantity' exists for the product using 'quantityExistsForProduct'.
-	 * If the quantity does not exist, a RuntimeException is thrown with the message
+	 * If the quantity does not exist, a 'NotFoundException' is thrown with the message
 	 * "Quantity does not exist".
 	 *
 	 * The method then proceeds to set an end date for the previous price entry
 	 * using 'setEndDate' in 'ProductPriceDAO', and subsequently updates the
-	 * product's price and quantity using 'update' in 'ProductPriceDAO'.
+	 * product's price and quantity using 'update' in 'ProductPriceDAO'. Both steps
+	 * run in a single transaction, so the old price is never closed without the
+	 * new price being created. The price that was closed is read in the same
+	 * transaction, and only that price is removed from the price cache.
 	 *
 	 * @param id           The ID of the product for which the price and quantity
 	 *                     are being updated.
@@ -96,22 +123,33 @@ public class ProductPriceService {
 			PriceValidator.validate(productPrice);
 			PriceValidator.validateQuantity(quantity);
 
-			boolean test = ProductDAO.productExists(productId);
+			boolean test = DAOFactory.getProductDAO().productExists(productId);
 			if (!test) {
-				throw new RuntimeException("Product does not exist");
+				throw new NotFoundException("Product does not exist");
 			}
 
-			boolean check = ProductPriceDAO.quantityExistsForProduct(productId, quantity);
+			boolean check = DAOFactory.getProductPriceDAO().quantityExistsForProduct(productId, quantity);
 
 			if (!check) {
-				throw new RuntimeException("Quantity does not exist");
+				throw new NotFoundException("Quantity does not exist");
 			}
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
-
-			productPriceDAO.setEndDate(productId, quantity);
-			productPriceDAO.update(productId, productPrice, quantity);
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+
+			ProductPrice endedPrice = TransactionUtil.executeInTransaction(() -> {
+				ProductPrice currentPrice = productPriceDAO.findPriceByIdAndQuantity(productId, quantity);
+				productPriceDAO.setEndDate(productId, quantity);
+				productPriceDAO.update(productId, productPrice, quantity);
+				productDAO.refreshMinPrice(productId);
+				return currentPrice;
+			});
+			if (endedPrice != null) {
+				priceCache.invalidate(endedPrice.getId());
+			}
+			CatalogCache.invalidateProduct(productId);
+			RequestScope.clearCurrent();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("updateProductPrice failed", e, "productId", productId, "quantity", quantity);
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -121,19 +159,26 @@ public class ProductPriceService {
 		try {
 			IntUtil.rejectIfInvalidInt(productPriceId);
 			
-			boolean check = ProductPriceDAO.priceExists(productPriceId);
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPrice price = productPriceDAO.findById(productPriceId);
 			
-			if(!check) {
-				throw new RuntimeException("Price does not exist");
+			if (price == null) {
+				throw new NotFoundException("Price does not exist");
 			}
-			
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
-			
-			productPriceDAO.delete(productPriceId);
+
+			TransactionUtil.executeInTransaction(() -> {
+				productPriceDAO.delete(productPriceId);
+				productDAO.refreshMinPriceByPriceId(productPriceId);
+				return null;
+			});
+			priceCache.invalidate(productPriceId);
+			CatalogCache.invalidateProduct(price.getProductId());
+			RequestScope.clearCurrent();
 			
 			
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("deleteProductPrice failed", e, "productPriceId", productPriceId);
 			throw new ServiceException(e.getMessage());
 		}
 
@@ -153,12 +198,12 @@ public class ProductPriceService {
 	 * @throws PersistanceException
 	 */
 	public Set<ProductPrice> findAllProductPrices() throws ServiceException {
-		ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+		ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 		Set<ProductPrice> priceList = new HashSet<>();
 		try {
 			priceList = productPriceDAO.findAll();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findAllProductPrices failed", e);
 			throw new ServiceException(e.getMessage());
 		}
 		return priceList;
@@ -167,48 +212,25 @@ public class ProductPriceService {
 	/**
 	 * Retrieves a list of product prices associated with a specific product ID.
 	 *
-	 * This method validates the provided 'id' using 'IntUtil.rejectIfInvalidInt'.
-	 * It ensures that 'id' is a valid integer. It then checks if the product with
-	 * the provided 'id' exists using the 'productExists' method from the
-	 * 'ProductService'.
-	 *
-	 * If the product does not exist, a RuntimeException is thrown with the message
-	 * "Product does not exist". If the product exists, the method uses a
-	 * 'ProductPriceDAO' instance to retrieve a list of product prices associated
-	 * with the provided 'id'. The retrieved product prices are returned as a 'List'
-	 * of 'ProductPrice' objects. Additionally, for each retrieved 'ProductPrice',
-	 * the method prints its details using 'System.out.println' for debugging
-	 * purposes.
+	 * This method looks the product up with 'ProductService.findProductById',
+	 * which validates the provided 'id' and loads the product with all of its
+	 * product prices in one batch, from the catalog cache when it is there. Only
+	 * when no active product has the 'id' is a 'NotFoundException' thrown with the
+	 * message "Product does not exist", so no separate existence check is made.
+	 * The product prices, current and ended, are returned as a 'List' of
+	 * 'ProductPrice' objects.
 	 *
 	 * @param id The ID of the product for which to retrieve associated product
 	 *           prices.
 	 * @return A 'List' containing 'ProductPrice' objects representing the details
 	 *         of product prices associated with the specified product.
-	 * @throws ValidationException , ServiceException
-	 * @throws Exception           If the provided 'id' is not valid, if the product
-	 *                             does not exist, or if an error occurs during the
-	 *                             database retrieval process. The specific
-	 *                             exception type and message depend on the
-	 *                             underlying validation and retrieval logic.
+	 * @throws ValidationException If the provided 'id' is not valid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 * @throws NotFoundException   If the product does not exist.
 	 */
 	public List<ProductPrice> findByProductId(int id) throws ValidationException, ServiceException {
-		List<ProductPrice> priceList = new ArrayList<>();
-		try {
-			IntUtil.rejectIfInvalidInt(id);
-			boolean test = ProductDAO.productExists(id);
-
-			if (!test) {
-				throw new RuntimeException("Product does not exist");
-			}
-
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
-
-			priceList = productPriceDAO.findByProductId(id);
-		} catch (PersistanceException e) {
-			e.printStackTrace();
-			throw new ServiceException(e.getMessage());
-		}
-		return priceList;
+		return findProduct(id).getPrices();
 	}
 
 	/**
@@ -218,6 +240,9 @@ public class ProductPriceService {
 	 * It ensures that 'id' is a valid integer. It then uses a 'ProductPriceDAO'
 	 * instance to retrieve a product price entry associated with the provided 'id'.
 	 * The retrieved product price entry is returned as a 'ProductPrice' object.
+	 * Product prices are kept in a bounded cache, so repeated lookups of the same
+	 * entry do not query the database again. Cache misses are loaded through the
+	 * open 'RequestScope', together with every price queued in it.
 	 *
 	 * @param id The ID of the product price entry to retrieve.
 	 * @return A 'ProductPrice' object representing the details of the retrieved
@@ -229,60 +254,77 @@ public class ProductPriceService {
 	 *                             underlying validation and retrieval logic.
 	 */
 	public ProductPrice findByPriceId(int id) throws ValidationException, ServiceException {
-		try {
+		try (RequestScope scope = RequestScope.open()) {
 			IntUtil.rejectIfInvalidInt(id);
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
-			return productPriceDAO.findById(id);
+			return copyOf(priceCache.get(id, scope.prices()::load));
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findByPriceId failed", e, "priceId", id);
 			throw new ServiceException(e.getMessage());
 		}
 	}
 
 	/**
-	 * Retrieves the current product prices for a specific product.
+	 * Retrieves several product price entries by their IDs.
 	 *
-	 * This method validates the provided 'productId' using
-	 * 'IntUtil.rejectIfInvalidInt'. It ensures that 'productId' is a valid integer.
-	 * It then checks if the product with the provided 'productId' exists using the
-	 * 'productExists' method from the 'ProductService'.
+	 * This method validates every ID and uses a 'ProductPriceDAO' instance to
+	 * retrieve all entries with the 'findByIds' method, which needs one query per
+	 * thousand IDs. Entries already loaded by the open 'RequestScope' are not
+	 * queried again.
 	 *
-	 * If the product does not exist, a RuntimeException is thrown with the message
-	 * "Product does not exist". If the product exists, the method uses a
-	 * 'ProductPriceDAO' instance to retrieve the current product prices associated
-	 * with the provided 'productId'. The retrieved current product prices are
-	 * returned as a 'List' of 'ProductPrice' objects. Additionally, for each
-	 * retrieved 'ProductPrice', the method prints its details using
-	 * 'System.out.println' for debugging purposes.
+	 * @param ids The IDs of the product price entries to retrieve.
+	 * @return A 'Map' from ID to the retrieved 'ProductPrice'. IDs without a
+	 *         matching entry are not contained in the map.
+	 * @throws ValidationException If any of the IDs is invalid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 */
+	public Map<Integer, ProductPrice> findByPriceIds(Collection<Integer> ids)
+			throws ValidationException, ServiceException {
+		try (RequestScope scope = RequestScope.open()) {
+			for (int id : ids) {
+				IntUtil.rejectIfInvalidInt(id);
+			}
+
+			Map<Integer, ProductPrice> productPrices = scope.prices().loadMany(ids);
+			for (Map.Entry<Integer, ProductPrice> entry : productPrices.entrySet()) {
+				entry.setValue(copyOf(entry.getValue()));
+			}
+			return productPrices;
+		} catch (PersistanceException e) {
+			LOG.error("findByPriceIds failed", e);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Retrieves the current product prices for a specific product.
+	 *
+	 * This method looks the product up with 'ProductService.findProductById',
+	 * which validates the provided 'productId' and loads the product with all of
+	 * its product prices in one batch, from the catalog cache when it is there.
+	 * Only when no active product has the 'productId' is a 'NotFoundException'
+	 * thrown with the message "Product does not exist". Otherwise the prices
+	 * without an end date are returned as a 'List' of 'ProductPrice' objects,
+	 * ordered by quantity.
 	 *
 	 * @param productId The ID of the product for which to retrieve the current
 	 *                  product prices.
 	 * @return A 'List' containing 'ProductPrice' objects representing the current
 	 *         product prices for the specified product.
-	 * @throws ValidationException
-	 * @throws Exception           If the provided 'productId' is not valid, if the
-	 *                             product does not exist, or if an error occurs
-	 *                             during the database retrieval process. The
-	 *                             specific exception type and message depend on the
-	 *                             underlying validation and retrieval logic.
+	 * @throws ValidationException If the provided 'productId' is not valid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 * @throws NotFoundException   If the product does not exist.
 	 */
 	public List<ProductPrice> findCurrentPrice(int productId) throws ServiceException, ValidationException {
-		try {
-			IntUtil.rejectIfInvalidInt(productId);
-			boolean test = ProductDAO.productExists(productId);
-
-			if (!test) {
-				throw new RuntimeException("Product does not exist");
+		List<ProductPrice> priceList = new ArrayList<>();
+		for (ProductPrice productPrice : findProduct(productId).getPrices()) {
+			if (productPrice.getEndDate() == null) {
+				priceList.add(productPrice);
 			}
-
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
-
-			List<ProductPrice> priceList = productPriceDAO.findCurrentPrice(productId);
-			return priceList;
-		} catch (PersistanceException e) {
-			e.printStackTrace();
-			throw new ServiceException(e.getMessage());
 		}
+		priceList.sort(Comparator.comparingDouble(ProductPrice::getQuantity));
+		return priceList;
 	}
 
 	/**
@@ -293,7 +335,7 @@ public class ProductPriceService {
 	 * It then checks if the product with the provided 'productId' exists using the
 	 * 'productExists' method from the 'ProductService'.
 	 *
-	 * If the product does not exist, a RuntimeException is thrown with the message
+	 * If the product does not exist, a 'NotFoundException' is thrown with the message
 	 * "Product does not exist". If the product exists, the method uses a
 	 * 'ProductPriceDAO' instance to retrieve the current product prices associated
 	 * with the provided 'productId'. The retrieved current product prices are
@@ -316,12 +358,12 @@ public class ProductPriceService {
 		try {
 			IntUtil.rejectIfInvalidInt(quantity);
 
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 
 			List<ProductPrice> priceList = productPriceDAO.findPricesByQuantity(quantity);
 			return priceList;
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findPriceByQuantity failed", e, "quantity", quantity);
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -339,28 +381,58 @@ public class ProductPriceService {
 	 * @return The `ProductPrice` object containing the price details for the specified product and quantity.
 	 * @throws ServiceException If there is an error while retrieving the product price details.
 	 * @throws ValidationException If the input parameters are not valid.
-	 * @throws RuntimeException If the specified product does not exist.
+	 * @throws NotFoundException If the specified product does not exist.
 	 */
 	public ProductPrice findPriceByIdAndQuantity(int productId, double d)
 			throws ServiceException, ValidationException {
 		try {
 			IntUtil.rejectIfInvalidDouble(d);
 
-			boolean test = ProductDAO.productExists(productId);
+			boolean test = DAOFactory.getProductDAO().productExists(productId);
 
 			if (!test) {
-				throw new RuntimeException("Product does not exist");
+				throw new NotFoundException("Product does not exist");
 			}
 
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 
 			ProductPrice price =  productPriceDAO.findPriceByIdAndQuantity(productId, d);
 			
 			return price;
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findPriceByIdAndQuantity failed", e, "productId", productId, "quantity", d);
 			throw new ServiceException(e.getMessage());
 		}
 	}
 
+	/**
+	 * Removes a product price entry from the product price cache, for changes to
+	 * the entry made outside this service.
+	 *
+	 * @param priceId The ID of the product price entry that changed.
+	 */
+	static void invalidateCachedPrice(int priceId) {
+		priceCache.invalidate(priceId);
+	}
+
+	private static ProductDetailDTO findProduct(int productId) throws ValidationException, ServiceException {
+		return new ProductService().findProductById(productId)
+				.orElseThrow(() -> new NotFoundException("Product does not exist"));
+	}
+
+	private static ProductPrice copyOf(ProductPrice productPrice) {
+		if (productPrice == null) {
+			return null;
+		}
+		ProductPrice copy = new ProductPrice();
+		copy.setId(productPrice.getId());
+		copy.setProductId(productPrice.getProductId());
+		copy.setPrice(productPrice.getPrice());
+		copy.setQuantity(productPrice.getQuantity());
+		copy.setType(productPrice.getType());
+		copy.setStartDate(productPrice.getStartDate());
+		copy.setEndDate(productPrice.getEndDate());
+		return copy;
+	}
+
 }
@@ -1,23 +1,36 @@
 package in.fssa.homebakery.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
-import in.fssa.homebakery.dao.CategoryDAO;
-import in.fssa.homebakery.dao.ProductDAO;
-import in.fssa.homebakery.dao.ProductPriceDAO;
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.dto.PageDTO;
 import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.NotFoundException;
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.exception.ServiceException;
 import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
 import in.fssa.homebakery.model.Product;
 import in.fssa.homebakery.model.ProductPrice;
 import in.fssa.homebakery.util.IntUtil;
+import in.fssa.homebakery.util.Logger;
+import in.fssa.homebakery.util.PageTokenUtil;
+import in.fssa.homebakery.util.TransactionUtil;
 import in.fssa.homebakery.validator.CategoryValidator;
+import in.fssa.homebakery.validator.PageValidator;
 import in.fssa.homebakery.validator.ProductValidator;
 
 public class ProductService {
 
+	private static final Logger LOG = Logger.getLogger(ProductService.class);
+
 	/**
 	 * Creates a new product along with its associated product prices.
 	 *
@@ -30,11 +43,12 @@ public class ProductService {
 	 * in the database by invoking the 'create' method, which returns the ID of the
 	 * newly created product.
 	 * 
-	 * After creating the main product entry, the method iterates through the list
-	 * of product prices within 'newProduct'. For each 'ProductPrice' in the list,
-	 * it uses a 'ProductPriceDAO' instance to create the associated product price
-	 * entry in the database using the 'create' method, passing the newly created
-	 * product's ID.
+	 * After creating the main product entry, the method uses a 'ProductPriceDAO'
+	 * instance to create all product prices within 'newProduct' in one batch using
+	 * the 'createAll' method, passing the newly created product's ID.
+	 * 
+	 * The product and its prices are written in a single transaction, so either
+	 * all of them are created or none of them are.
 	 * 
 	 * @param newProduct A 'ProductDetailDTO' object containing the details of the
 	 *                   new product, including product information and a list of
@@ -48,17 +62,21 @@ public class ProductService {
 
 
 		try {
-			ProductDAO productDAO = new ProductDAO();
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 			ProductValidator.validate(newProduct);
 			ProductValidator.validatePriceList(newProduct.getPrices());
-			int id = productDAO.create(newProduct);
-			
-			for (ProductPrice newPrice : newProduct.getPrices()) {
-				productPriceDAO.create(newPrice, id);
-			}
+
+			TransactionUtil.executeInTransaction(() -> {
+				int id = productDAO.create(newProduct);
+				productPriceDAO.createAll(newProduct.getPrices(), id);
+				productDAO.refreshMinPrice(id);
+				return null;
+			});
+			CatalogCache.invalidateCategory(newProduct.getCategoryId());
+			RequestScope.clearCurrent();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("createProduct failed", e, "name", newProduct.getName());
 			throw new ServiceException(e.getMessage());
 		}
 
@@ -67,35 +85,41 @@ public class ProductService {
 	/**
 	 * Deletes a product by its ID.
 	 *
-	 * This method first checks if a product with the specified 'id' exists using
-	 * the 'productExists' method. If the product does not exist, a
-	 * 'RuntimeException' is thrown with an appropriate error message.
-	 * 
-	 * If the product exists, a 'ProductDAO' instance is created, and the 'delete'
-	 * method is invoked on it to delete the product entry.
+	 * A 'ProductDAO' instance is created, and the 'delete' method is invoked on it
+	 * to delete the product entry. The product and all of its current prices are
+	 * deactivated in a single transaction, and the ended prices are removed from
+	 * the price cache of 'ProductPriceService'. If no active product was
+	 * deactivated, the product does not exist, the transaction is rolled back and
+	 * a 'NotFoundException' is thrown with an appropriate error message.
 	 * 
 	 * @param id The ID of the product to be deleted.
 	 * @throws ValidationException 
 	 * @throws PersistanceException 
-	 * @throws RuntimeException If the specified product does not exist or if an
-	 *                          error occurs during the deletion process.
+	 * @throws NotFoundException If the specified product does not exist.
 	 */
 	public void deleteProduct(int id) throws ServiceException, ValidationException {
-		ProductDAO productDAO = new ProductDAO();
+		ProductInterface productDAO = DAOFactory.getProductDAO();
 		
 		try {
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 			IntUtil.rejectIfInvalidInt(id);
-			boolean test = ProductDAO.productExists(id);
 			
-			if (!test) {
-				throw new RuntimeException("Product does not exist");
+			List<ProductPrice> endedPrices = TransactionUtil.executeInTransaction(() -> {
+				if (productDAO.delete(id) == 0) {
+					throw new NotFoundException("Product does not exist");
+				}
+				List<ProductPrice> currentPrices = productPriceDAO.findCurrentPrice(id);
+				productPriceDAO.deleteByProductId(id);
+				productDAO.refreshMinPrice(id);
+				return currentPrices;
+			});
+			for (ProductPrice price : endedPrices) {
+				ProductPriceService.invalidateCachedPrice(price.getId());
 			}
-			
-			productDAO.delete(id);
-			productPriceDAO.delete(id);
+			CatalogCache.invalidateProduct(id);
+			RequestScope.clearCurrent();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("deleteProduct failed", e, "productId", id);
 			throw new ServiceException(e.getMessage());
 		}
 
@@ -105,32 +129,38 @@ public class ProductService {
 	 * Retrieves a set of all products along with their associated product prices.
 	 *
 	 * This method uses a 'ProductDAO' instance to retrieve a set of all products
-	 * from the database by invoking the 'findAll' method. For each retrieved
-	 * 'ProductDetailDTO' in the set, the method uses a 'ProductPriceDAO' instance
-	 * to retrieve the associated product prices using the 'findByProductId' method,
-	 * and then sets the retrieved prices using 'setPrices' on the product.
+	 * from the database by invoking the 'findAll' method. The method then uses a
+	 * 'ProductPriceDAO' instance to retrieve the prices of all retrieved products
+	 * in one query using the 'findByProductIds' method, and sets them using
+	 * 'setPrices' on each product.
 	 * 
 	 * The method prints each product along with its associated prices to the
 	 * console and returns the set of retrieved products.
 	 *
+	 * The result is served from 'CatalogCache' when it has been loaded before and
+	 * no product or product price has changed since.
+	 *
 	 * @return A set containing 'ProductDetailDTO' objects, each representing a
 	 *         product along with its associated product prices.
 	 * @throws PersistanceException 
 	 */
 	public Set<ProductDetailDTO> getAllProducts(){
 
-		Set<ProductDetailDTO> productList;
+		Set<ProductDetailDTO> productList = CatalogCache.getAllProducts();
+		if (productList != null) {
+			return productList;
+		}
+
 		try {
-			ProductDAO productDAO = new ProductDAO();
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+			long generation = CatalogCache.generation();
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 			productList = productDAO.findAll();
-			for (ProductDetailDTO product : productList) {
-				List<ProductPrice> prices = productPriceDAO.findByProductId(product.getId());
-				product.setPrices(prices);
-			}
+			attachPrices(productList, productPriceDAO.findByProductIds(productIds(productList)));
+			CatalogCache.putAllProducts(productList, generation);
 			return productList;
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getAllProducts failed", e);
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -139,10 +169,10 @@ public class ProductService {
 	 * Retrieves a set of all products along with their associated product prices.
 	 *
 	 * This method uses a 'ProductDAO' instance to retrieve a set of all products
-	 * from the database by invoking the 'findAll' method. For each retrieved
-	 * 'ProductDetailDTO' in the set, the method uses a 'ProductPriceDAO' instance
-	 * to retrieve the associated product prices using the 'findByProductId' method,
-	 * and then sets the retrieved prices using 'setPrices' on the product.
+	 * from the database by invoking the 'findAll' method. The method then uses a
+	 * 'ProductPriceDAO' instance to retrieve the prices of all retrieved products
+	 * in one query using the 'findByProductIds' method, and sets them using
+	 * 'setPrices' on each product.
 	 * 
 	 * The method prints each product along with its associated prices to the
 	 * console and returns the set of retrieved products.
@@ -156,16 +186,13 @@ public class ProductService {
 
 		Set<ProductDetailDTO> productList;
 		try {
-			ProductDAO productDAO = new ProductDAO();
-			ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 			productList = productDAO.findSetsOfProducts(n);
-			for (ProductDetailDTO product : productList) {
-				List<ProductPrice> prices = productPriceDAO.findByProductId(product.getId());
-				product.setPrices(prices);
-			}
+			attachPrices(productList, productPriceDAO.findByProductIds(productIds(productList)));
 			return productList;
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getSetOfProducts failed", e, "n", n);
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -173,53 +200,110 @@ public class ProductService {
 	/**
 	 * Retrieves a product by its ID along with its associated product prices.
 	 *
-	 * This method uses a 'ProductDAO' instance to retrieve a product from the database by invoking the 'findById' method.
-	 * It then uses a 'ProductPriceDAO' instance to retrieve the associated product prices using the 'findByProductId'
-	 * method, and sets the retrieved prices using 'setPrices' on the product.
+	 * This method looks the product up with 'findProductById'. If no active product has the provided ID, a
+	 * 'NotFoundException' is thrown with the message "Product does not exist". Callers that expect misses should use
+	 * 'findProductById' instead.
 	 *
-	 * If a matching product is found for the provided ID, the method prints the product along with its associated prices to
-	 * the console and returns the retrieved product. If no matching product is found, the method returns null.
+	 * The product is served from 'CatalogCache' when it has been loaded before and
+	 * has not changed since. Otherwise it is loaded through the open 'RequestScope',
+	 * so that a product already needed earlier in the same request, or queued with
+	 * other products, costs no extra query.
 	 *
 	 * @param id The ID of the product to be retrieved.
 	 * @return A 'ProductDetailDTO' object representing the retrieved product along with its associated product prices.
-	 *         Returns null if no matching product is found for the provided ID.
 	 * @throws ValidationException 
-	 * @throws PersistanceException 
+	 * @throws NotFoundException If no active product has the ID.
 	 */
 	public ProductDetailDTO getByProductId(int id) throws ValidationException, ServiceException {
+		return findProductById(id).orElseThrow(() -> new NotFoundException("Product does not exist"));
+	}
+
+	/**
+	 * Looks up a product by its ID like 'getByProductId', but reports a missing
+	 * product as an empty result instead of an exception. Callers that expect
+	 * misses, such as a page checking IDs taken from a stale cart, should use
+	 * this method.
+	 *
+	 * @param id The ID of the product to be retrieved.
+	 * @return The product with its prices, or an empty result if no active
+	 *         product has the ID.
+	 * @throws ValidationException If the ID is invalid.
+	 */
+	public Optional<ProductDetailDTO> findProductById(int id) throws ValidationException, ServiceException {
 	    
-	    try {
-	    	ProductDAO productDAO = new ProductDAO();
-	    	ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+	    try (RequestScope scope = RequestScope.open()) {
 			IntUtil.rejectIfInvalidInt(id);
-			boolean test = ProductDAO.productExists(id);
-			
-			if (!test) {
-				throw new RuntimeException("Product does not exist");
+
+			ProductDetailDTO product = CatalogCache.getProduct(id);
+			if (product != null) {
+				return Optional.of(product);
 			}
+
+			long generation = CatalogCache.generation();
+			product = scope.products().load(id);
 			
-			ProductDetailDTO product = productDAO.findById(id);
-			if (product != null) {
-				List<ProductPrice> prices = productPriceDAO.findByProductId(product.getId());
-				product.setPrices(prices);
+			if (product == null) {
+				return Optional.empty();
 			}
-			return product;
+			
+			CatalogCache.putProduct(product, generation);
+			return Optional.of(CatalogCache.copy(product));
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findProductById failed", e, "productId", id);
 			throw new ServiceException(e.getMessage());
 		}
 	    
 	}
 	
+	/**
+	 * Retrieves several products by their IDs along with their associated product
+	 * prices.
+	 *
+	 * This method validates every ID and uses a 'ProductDAO' instance to retrieve
+	 * all active products with the 'findByIds' method. The prices of all retrieved
+	 * products are then retrieved in one query using the 'findByProductIds' method
+	 * of 'ProductPriceDAO'. The whole lookup therefore costs two queries per
+	 * thousand IDs instead of three queries per ID. Products already loaded by the
+	 * open 'RequestScope' are not queried again.
+	 *
+	 * @param ids The IDs of the products to be retrieved.
+	 * @return A 'Map' from product ID to the retrieved 'ProductDetailDTO'. IDs of
+	 *         products that do not exist or are not active are not contained in
+	 *         the map.
+	 * @throws ValidationException If any of the IDs is invalid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 */
+	public Map<Integer, ProductDetailDTO> getByProductIds(Collection<Integer> ids)
+			throws ValidationException, ServiceException {
+		try (RequestScope scope = RequestScope.open()) {
+			for (int id : ids) {
+				IntUtil.rejectIfInvalidInt(id);
+			}
+
+			Map<Integer, ProductDetailDTO> products = scope.products().loadMany(ids);
+			for (Map.Entry<Integer, ProductDetailDTO> entry : products.entrySet()) {
+				entry.setValue(CatalogCache.copy(entry.getValue()));
+			}
+			return products;
+		} catch (PersistanceException e) {
+			LOG.error("getByProductIds failed", e);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+
 	/**
 	 * Retrieves a set of products by their category ID along with their associated product prices.
 	 *
 	 * This method uses a 'ProductDAO' instance to retrieve a set of products from the database by invoking the 'findByCategoryId' method.
-	 * For each retrieved 'ProductDetailDTO' in the set, the method uses a 'ProductPriceDAO' instance to retrieve the associated product
-	 * prices using the 'findByProductId' method, and then sets the retrieved prices using 'setPrices' on each product.
+	 * The method then uses a 'ProductPriceDAO' instance to retrieve the current prices of all retrieved products in one query
+	 * using the 'findCurrentPriceByProductIds' method, and sets them using 'setPrices' on each product.
 	 *
 	 * The method prints each product along with its associated prices to the console and returns the set of retrieved products.
 	 *
+	 * The result is served from 'CatalogCache' when it has been loaded before and
+	 * no product of the category has changed since.
+	 *
 	 * @param categoryId The category ID for which products are to be retrieved.
 	 * @return A set containing 'ProductDetailDTO' objects, each representing a product of the specified category along with its
 	 *         associated product prices.
@@ -229,23 +313,28 @@ public class ProductService {
 	public List<ProductDetailDTO> getByCategoryId(int categoryId) throws ValidationException, ServiceException {
 	    
 	    try {
-	    	ProductDAO productDAO = new ProductDAO();
-	    	ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+	    	ProductInterface productDAO = DAOFactory.getProductDAO();
+	    	ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 			CategoryValidator.validateId(categoryId);
-			boolean test = CategoryDAO.categoryExists(categoryId);
+
+			List<ProductDetailDTO> productList = CatalogCache.getCategory(categoryId);
+			if (productList != null) {
+				return productList;
+			}
+
+			long generation = CatalogCache.generation();
+			boolean test = DAOFactory.getCategoryDAO().categoryExists(categoryId);
 			
 			if (!test) {
-				throw new RuntimeException("Category does not exist");
+				throw new NotFoundException("Category does not exist");
 			}
 			
-			List<ProductDetailDTO> productList = productDAO.findByCategoryId(categoryId);
-			for (ProductDetailDTO product : productList) {
-				List<ProductPrice> prices = productPriceDAO.findCurrentPrice(product.getId());
-				product.setPrices(prices);
-			}
+			productList = productDAO.findByCategoryId(categoryId);
+			attachPrices(productList, productPriceDAO.findCurrentPriceByProductIds(productIds(productList)));
+			CatalogCache.putCategory(categoryId, productList, generation);
 			return productList;
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getByCategoryId failed", e, "categoryId", categoryId);
 			throw new ServiceException(e.getMessage());
 		}
 	    
@@ -255,8 +344,8 @@ public class ProductService {
 	 * Retrieves a set of products by their category ID along with their associated product prices.
 	 *
 	 * This method uses a 'ProductDAO' instance to retrieve a set of products from the database by invoking the 'findByCategoryId' method.
-	 * For each retrieved 'ProductDetailDTO' in the set, the method uses a 'ProductPriceDAO' instance to retrieve the associated product
-	 * prices using the 'findByProductId' method, and then sets the retrieved prices using 'setPrices' on each product.
+	 * The method then uses a 'ProductPriceDAO' instance to retrieve the current prices of all retrieved products in one query
+	 * using the 'findCurrentPriceByProductIds' method, and sets them using 'setPrices' on each product.
 	 *
 	 * The method prints each product along with its associated prices to the console and returns the set of retrieved products.
 	 *
@@ -269,37 +358,197 @@ public class ProductService {
 	public List<ProductDetailDTO> getSetByCategoryId(int categoryId, int n) throws ValidationException, ServiceException {
 	    
 	    try {
-	    	ProductDAO productDAO = new ProductDAO();
-	    	ProductPriceDAO productPriceDAO = new ProductPriceDAO();
+	    	ProductInterface productDAO = DAOFactory.getProductDAO();
+	    	ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
 			CategoryValidator.validateId(categoryId);
-			boolean test = CategoryDAO.categoryExists(categoryId);
+			boolean test = DAOFactory.getCategoryDAO().categoryExists(categoryId);
 			
 			if (!test) {
-				throw new RuntimeException("Category does not exist");
+				throw new NotFoundException("Category does not exist");
 			}
 			
 			List<ProductDetailDTO> productList = productDAO.findSetByCategoryId(categoryId, n);
-			for (ProductDetailDTO product : productList) {
-				List<ProductPrice> prices = productPriceDAO.findCurrentPrice(product.getId());
-				product.setPrices(prices);
-			}
+			attachPrices(productList, productPriceDAO.findCurrentPriceByProductIds(productIds(productList)));
 			return productList;
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getSetByCategoryId failed", e, "categoryId", categoryId, "n", n);
 			throw new ServiceException(e.getMessage());
 		}
 	    
 	}
 	
 
+	/**
+	 * Retrieves one page of active products along with their product prices.
+	 *
+	 * This method validates the requested 'pageSize' and decodes 'pageToken',
+	 * which is the continuation token returned with the previous page. It then
+	 * uses a 'ProductDAO' instance to seek directly past the last product of the
+	 * previous page with the 'findPageOfProducts' method, so deep pages cost the
+	 * same as the first one. Products are ordered by ID, and the prices of all
+	 * products of the page are retrieved in one query.
+	 *
+	 * @param pageToken The continuation token of the previous page, or null for
+	 *                  the first page.
+	 * @param pageSize  The maximum number of products in the page.
+	 * @return A 'PageDTO' containing the products of the page and the token for
+	 *         the next page, which is null when there are no more products.
+	 * @throws ValidationException If the page size or the page token is invalid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 */
+	public PageDTO<ProductDetailDTO> getPageOfProducts(String pageToken, int pageSize)
+			throws ValidationException, ServiceException {
+		try {
+			PageValidator.validatePageSize(pageSize);
+			int[] lastSeen = PageTokenUtil.decode(pageToken, 1);
+			int afterId = lastSeen != null ? lastSeen[0] : 0;
+
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+			List<ProductDetailDTO> productList = productDAO.findPageOfProducts(afterId, pageSize + 1);
+			PageDTO<ProductDetailDTO> page = toPage(productList, pageSize,
+					last -> PageTokenUtil.encode(last.getId()));
+			attachPrices(page.getItems(), productPriceDAO.findByProductIds(productIds(page.getItems())));
+			return page;
+		} catch (PersistanceException e) {
+			LOG.error("getPageOfProducts failed", e, "pageSize", pageSize);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Retrieves one page of active products of a category along with their
+	 * current product prices.
+	 *
+	 * This method works like 'getPageOfProducts' but only returns products of the
+	 * specified category, using the 'findPageByCategoryId' method of 'ProductDAO'.
+	 *
+	 * @param categoryId The category ID for which products are to be retrieved.
+	 * @param pageToken  The continuation token of the previous page, or null for
+	 *                   the first page.
+	 * @param pageSize   The maximum number of products in the page.
+	 * @return A 'PageDTO' containing the products of the page and the token for
+	 *         the next page, which is null when there are no more products.
+	 * @throws ValidationException If the category ID, the page size or the page
+	 *                             token is invalid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 */
+	public PageDTO<ProductDetailDTO> getPageByCategoryId(int categoryId, String pageToken, int pageSize)
+			throws ValidationException, ServiceException {
+		try {
+			CategoryValidator.validateId(categoryId);
+			PageValidator.validatePageSize(pageSize);
+			boolean test = DAOFactory.getCategoryDAO().categoryExists(categoryId);
+
+			if (!test) {
+				throw new NotFoundException("Category does not exist");
+			}
+
+			int[] lastSeen = PageTokenUtil.decode(pageToken, 1);
+			int afterId = lastSeen != null ? lastSeen[0] : 0;
+
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+			List<ProductDetailDTO> productList = productDAO.findPageByCategoryId(categoryId, afterId, pageSize + 1);
+			PageDTO<ProductDetailDTO> page = toPage(productList, pageSize,
+					last -> PageTokenUtil.encode(last.getId()));
+			attachPrices(page.getItems(), productPriceDAO.findCurrentPriceByProductIds(productIds(page.getItems())));
+			return page;
+		} catch (PersistanceException e) {
+			LOG.error("getPageByCategoryId failed", e, "categoryId", categoryId, "pageSize", pageSize);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Retrieves a set of five active products ordered by their lowest current
+	 * price, along with their current product prices.
+	 *
+	 * This method validates 'sort' and uses a 'ProductDAO' instance to retrieve the
+	 * products with the 'findSetsOfProductsOrderByPrice' method, which reads them
+	 * in price order from the maintained min-price index. The current prices of
+	 * all retrieved products are then retrieved in one query. Products without a
+	 * current price are not included.
+	 *
+	 * @param n    The number of products to skip.
+	 * @param sort The sort order, either "asc" or "desc".
+	 * @return A 'Set' containing 'ProductDetailDTO' objects in price order.
+	 * @throws ValidationException If 'n' or the sort order is invalid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 */
+	public Set<ProductDetailDTO> getSetOfProductsOrderByPrice(int n, String sort)
+			throws ValidationException, ServiceException {
+		try {
+			PageValidator.validateSortOrder(sort);
+
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+			Set<ProductDetailDTO> productList = productDAO.findSetsOfProductsOrderByPrice(n, sort);
+			attachPrices(productList, productPriceDAO.findCurrentPriceByProductIds(productIds(productList)));
+			return productList;
+		} catch (PersistanceException e) {
+			LOG.error("getSetOfProductsOrderByPrice failed", e, "n", n);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Retrieves one page of active products ordered by their lowest current price,
+	 * along with their current product prices.
+	 *
+	 * This method validates 'sort' and 'pageSize' and decodes 'pageToken', which
+	 * holds the lowest price and the ID of the last product of the previous page.
+	 * It then uses a 'ProductDAO' instance to seek past that product in the
+	 * maintained min-price index with the 'findPageOrderByPrice' method, so deep
+	 * pages cost the same as the first one. Products without a current price are
+	 * not included.
+	 *
+	 * @param sort      The sort order, either "asc" or "desc".
+	 * @param pageToken The continuation token of the previous page, or null for
+	 *                  the first page.
+	 * @param pageSize  The maximum number of products in the page.
+	 * @return A 'PageDTO' containing the products of the page and the token for
+	 *         the next page, which is null when there are no more products.
+	 * @throws ValidationException If the sort order, the page size or the page
+	 *                             token is invalid.
+	 * @throws ServiceException    If an error occurs during the database
+	 *                             retrieval process.
+	 */
+	public PageDTO<ProductDetailDTO> getPageOfProductsOrderByPrice(String sort, String pageToken, int pageSize)
+			throws ValidationException, ServiceException {
+		try {
+			PageValidator.validateSortOrder(sort);
+			PageValidator.validatePageSize(pageSize);
+			int[] lastSeen = PageTokenUtil.decode(pageToken, 2);
+			int afterPrice = lastSeen != null ? lastSeen[0] : 0;
+			int afterId = lastSeen != null ? lastSeen[1] : 0;
+
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+			List<ProductDetailDTO> productList = productDAO.findPageOrderByPrice("desc".equalsIgnoreCase(sort),
+					afterPrice, afterId, pageSize + 1);
+			PageDTO<ProductDetailDTO> page = toPage(productList, pageSize,
+					last -> PageTokenUtil.encode(last.getMinPrice(), last.getId()));
+			attachPrices(page.getItems(), productPriceDAO.findCurrentPriceByProductIds(productIds(page.getItems())));
+			return page;
+		} catch (PersistanceException e) {
+			LOG.error("getPageOfProductsOrderByPrice failed", e, "pageSize", pageSize);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+
 	/**
 	 * Updates the information of a product identified by its ID.
 	 *
-	 * This method first checks if a product with the specified 'id' exists using
-	 * the 'productExists' method. If the product does not exist, a
-	 * 'RuntimeException' is thrown with an appropriate error message.
+	 * The 'update' method of 'ProductDAO' only updates an active product and
+	 * returns the number of updated rows. If no row was updated, the product does
+	 * not exist and a 'NotFoundException' is thrown with an appropriate error
+	 * message, so the update needs no separate existence check.
 	 * 
-	 * If the product exists, the 'IntUtil.rejectIfInvalidInt' method is used to
+	 * Before the update, the 'IntUtil.rejectIfInvalidInt' method is used to
 	 * validate the 'id'.
 	 * 
 	 * The 'ProductValidator.validate' method is invoked to validate the attributes
@@ -319,18 +568,18 @@ public class ProductService {
 	public void updateProduct(int id, Product newProduct) throws ValidationException, ServiceException {
 		try {
 			IntUtil.rejectIfInvalidInt(id);
-			boolean test = ProductDAO.productExists(id);
-			
-			if (!test) {
-				throw new RuntimeException("Product does not exist");
-			}
-			
 			ProductValidator.validate(newProduct);
 			
-			ProductDAO productDAO = new ProductDAO();
-			productDAO.update(id, newProduct);
+			ProductInterface productDAO = DAOFactory.getProductDAO();
+			if (productDAO.update(id, newProduct) == 0) {
+				throw new NotFoundException("Product does not exist");
+			}
+
+			CatalogCache.invalidateProduct(id);
+			CatalogCache.invalidateCategory(newProduct.getCategoryId());
+			RequestScope.clearCurrent();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("updateProduct failed", e, "productId", id);
 			throw new ServiceException(e.getMessage());
 		}
 
@@ -348,10 +597,10 @@ public class ProductService {
 	 */
 	public int getCountOfActiveProducts() throws ServiceException {
 	    try {
-	        ProductDAO productDAO = new ProductDAO();
+	        ProductInterface productDAO = DAOFactory.getProductDAO();
 	        return productDAO.findCountOfActiveProducts();
 	    } catch (PersistanceException e) {
-	        e.printStackTrace();
+	        LOG.error("getCountOfActiveProducts failed", e);
 	        throw new ServiceException(e.getMessage());
 	    }
 	}
@@ -368,12 +617,39 @@ public class ProductService {
 	 */
 	public int getCountOfActiveProductsByCategoryId(int id) throws ServiceException {
 	    try {
-	        ProductDAO productDAO = new ProductDAO();
+	        ProductInterface productDAO = DAOFactory.getProductDAO();
 	        return productDAO.findCountOfActiveProductsByCategoryId(id);
 	    } catch (PersistanceException e) {
-	        e.printStackTrace();
+	        LOG.error("getCountOfActiveProductsByCategoryId failed", e, "categoryId", id);
 	        throw new ServiceException(e.getMessage());
 	    }
 	}
 
+	private static PageDTO<ProductDetailDTO> toPage(List<ProductDetailDTO> productList, int pageSize,
+			Function<ProductDetailDTO, String> tokenOfLast) {
+		if (productList.size() <= pageSize) {
+			return new PageDTO<>(productList, null);
+		}
+
+		List<ProductDetailDTO> items = new ArrayList<>(productList.subList(0, pageSize));
+		String nextPageToken = tokenOfLast.apply(items.get(pageSize - 1));
+		return new PageDTO<>(items, nextPageToken);
+	}
+
+	private static List<Integer> productIds(Collection<ProductDetailDTO> products) {
+		List<Integer> ids = new ArrayList<>(products.size());
+		for (ProductDetailDTO product : products) {
+			ids.add(product.getId());
+		}
+		return ids;
+	}
+
+	private static void attachPrices(Collection<ProductDetailDTO> products,
+			Map<Integer, List<ProductPrice>> pricesByProduct) {
+		for (ProductDetailDTO product : products) {
+			List<ProductPrice> prices = pricesByProduct.get(product.getId());
+			product.setPrices(prices != null ? prices : new ArrayList<>());
+		}
+	}
+
 }
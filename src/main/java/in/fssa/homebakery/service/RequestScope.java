@@ -0,0 +1,160 @@
+package in.fssa.homebakery.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.interfaces.ProductPricesInterface;
+import in.fssa.homebakery.interfaces.UserInterface;
+import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.model.User;
+import in.fssa.homebakery.util.DataLoader;
+
+/**
+ * The lookups of a single service call, shared by every service it calls on the
+ * same thread.
+ *
+ * A scope holds one 'DataLoader' per entity type. Lookups made through it are
+ * deduplicated, batched into one query per entity type and remembered until the
+ * outermost service call closes the scope, so a product, price or user that is
+ * needed several times during one request is queried only once. Opening a scope
+ * while another one is open on the same thread joins the open scope.
+ *
+ * Values loaded through a scope are shared by everyone in the request and must
+ * not be modified. Every service method that changes an entity clears the open
+ * scope, so later lookups in the same request see the change.
+ */
+public class RequestScope implements AutoCloseable {
+
+	private static final ThreadLocal<RequestScope> currentScope = new ThreadLocal<>();
+
+	private final DataLoader<Integer, ProductDetailDTO> products = new DataLoader<>(this::loadProducts);
+	private final DataLoader<Integer, ProductPrice> prices = new DataLoader<>(
+			ids -> DAOFactory.getProductPriceDAO().findByIds(ids));
+	private final DataLoader<Integer, User> users = new DataLoader<>(ids -> DAOFactory.getUserDAO().findByIds(ids));
+	private final DataLoader<String, User> usersByEmail = new DataLoader<>(RequestScope::loadUsersByEmail);
+
+	private int depth = 0;
+
+	private RequestScope() {
+	}
+
+	/**
+	 * Opens a request scope on the current thread, or joins the one that is
+	 * already open. The scope must be closed by the caller, preferably with a
+	 * try-with-resources statement.
+	 *
+	 * @return The open request scope.
+	 */
+	public static RequestScope open() {
+		RequestScope scope = currentScope.get();
+		if (scope == null) {
+			scope = new RequestScope();
+			currentScope.set(scope);
+		}
+		scope.depth++;
+		return scope;
+	}
+
+	/**
+	 * Forgets every value loaded by the request scope open on the current thread,
+	 * if there is one. Service methods call this after changing an entity.
+	 */
+	static void clearCurrent() {
+		RequestScope scope = currentScope.get();
+		if (scope != null) {
+			scope.products.clearAll();
+			scope.prices.clearAll();
+			scope.users.clearAll();
+			scope.usersByEmail.clearAll();
+		}
+	}
+
+	/**
+	 * Returns the loader of active products by ID. Each product is loaded with all
+	 * of its product prices, like 'ProductService.getByProductId' returns it, and
+	 * those prices are handed to the price loader as well.
+	 *
+	 * @return The product loader of this scope.
+	 */
+	public DataLoader<Integer, ProductDetailDTO> products() {
+		return products;
+	}
+
+	/**
+	 * Returns the loader of product price entries by ID.
+	 *
+	 * @return The product price loader of this scope.
+	 */
+	public DataLoader<Integer, ProductPrice> prices() {
+		return prices;
+	}
+
+	/**
+	 * Returns the loader of active users by ID.
+	 *
+	 * @return The user loader of this scope.
+	 */
+	public DataLoader<Integer, User> users() {
+		return users;
+	}
+
+	/**
+	 * Returns the loader of active users by email address. Email addresses are
+	 * compared without regard to case.
+	 *
+	 * @return The user by email loader of this scope.
+	 */
+	public DataLoader<String, User> usersByEmail() {
+		return usersByEmail;
+	}
+
+	/**
+	 * Leaves the scope. The outermost caller removes it from the current thread,
+	 * which discards every value it loaded.
+	 */
+	@Override
+	public void close() {
+		if (--depth == 0) {
+			currentScope.remove();
+		}
+	}
+
+	private Map<Integer, ProductDetailDTO> loadProducts(Collection<Integer> ids) throws PersistanceException {
+		ProductInterface productDAO = DAOFactory.getProductDAO();
+		ProductPricesInterface productPriceDAO = DAOFactory.getProductPriceDAO();
+
+		Map<Integer, ProductDetailDTO> productsById = productDAO.findByIds(ids);
+		Map<Integer, List<ProductPrice>> pricesByProduct = productPriceDAO.findByProductIds(productsById.keySet());
+		for (ProductDetailDTO product : productsById.values()) {
+			List<ProductPrice> productPrices = pricesByProduct.get(product.getId());
+			product.setPrices(productPrices != null ? productPrices : new ArrayList<>());
+			for (ProductPrice productPrice : product.getPrices()) {
+				prices.prime(productPrice.getId(), productPrice);
+			}
+		}
+		return productsById;
+	}
+
+	private static Map<String, User> loadUsersByEmail(Collection<String> emails) throws PersistanceException {
+		UserInterface userDAO = DAOFactory.getUserDAO();
+		Map<String, User> usersByLowerCaseEmail = userDAO.findByEmails(emails);
+
+		Map<String, User> usersByRequestedEmail = new HashMap<>();
+		for (String email : emails) {
+			User user = usersByLowerCaseEmail.get(email.toLowerCase(Locale.ROOT));
+			if (user != null) {
+				usersByRequestedEmail.put(email, user);
+			}
+		}
+		return usersByRequestedEmail;
+	}
+
+}
@@ -0,0 +1,223 @@
+package in.fssa.homebakery.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import in.fssa.homebakery.exception.ServiceException;
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.MethodMetrics;
+
+/**
+ * Runs service calls on virtual threads, with no more calls at a time than
+ * the connection pool has connections.
+ *
+ * The services block on JDBC, so a caller that serves many requests at once
+ * needs a thread per request. Virtual threads make those threads cheap: tens
+ * of thousands of waiting calls cost a few kilobytes each instead of a
+ * platform thread stack. What limits throughput is then the connection pool.
+ * If every call went straight to the pool, the calls beyond the pool size
+ * would queue inside 'ConnectionPool.borrow' and fail once its acquire timeout
+ * passed. This class therefore keeps a bulkhead: a fair semaphore with one
+ * permit per pooled connection. A call waits for a permit on its virtual
+ * thread, runs, and releases the permit when it returns. Calls inside the
+ * bulkhead never wait for a connection, and the calls queued behind it are
+ * parked virtual threads served in arrival order.
+ *
+ * A virtual thread that blocks inside a 'synchronized' block stays pinned to
+ * its carrier thread, and only as many threads as there are carriers can then
+ * wait on the database at once. The MySQL driver uses locks instead of
+ * 'synchronized' around its socket I/O since version 9, which is why the
+ * project depends on 'mysql-connector-j' 9 and not on 'mysql-connector-java'
+ * 8.
+ *
+ * A call that gets no permit within the maximum wait fails with a
+ * 'ServiceException' instead of waiting forever. The wait for a permit is
+ * recorded in 'MethodMetrics' as 'ServiceExecutor.acquire'.
+ *
+ * A call should not return an open stream, such as the one of
+ * 'OrderService.streamAllOrders', because the stream keeps its connection
+ * after the call has released its permit.
+ *
+ * The executor created with the default constructor is configured with the
+ * 'homebakery.executor.maxConcurrentCalls' system property, which defaults to
+ * the maximum pool size, and 'homebakery.executor.maxWaitMillis' (default
+ * 30000).
+ */
+public class ServiceExecutor implements AutoCloseable {
+
+	/**
+	 * A call to one of the services.
+	 *
+	 * @param <S> The type of the service.
+	 * @param <T> The type of the result.
+	 */
+	@FunctionalInterface
+	public interface ServiceCall<S, T> {
+		T call(S service) throws Exception;
+	}
+
+	private static final long DEFAULT_MAX_WAIT_MILLIS = 30000;
+
+	private final ProductService productService = new ProductService();
+	private final OrderService orderService = new OrderService();
+	private final UserService userService = new UserService();
+
+	private final ExecutorService executor = Executors
+			.newThreadPerTaskExecutor(Thread.ofVirtual().name("homebakery-service-", 0).factory());
+	private final MethodMetrics.Recorder acquireMetrics = MethodMetrics.recorder("ServiceExecutor.acquire");
+	private final LongAdder rejected = new LongAdder();
+
+	private final Semaphore bulkhead;
+	private final int maxConcurrentCalls;
+	private final long maxWaitNanos;
+
+	/**
+	 * Creates an executor sized from the system properties, by default to the
+	 * maximum size of the connection pool.
+	 */
+	public ServiceExecutor() {
+		this(Integer.getInteger("homebakery.executor.maxConcurrentCalls", ConnectionUtil.getMaxPoolSize()),
+				Long.getLong("homebakery.executor.maxWaitMillis", DEFAULT_MAX_WAIT_MILLIS));
+	}
+
+	/**
+	 * Creates an executor.
+	 *
+	 * @param maxConcurrentCalls How many calls may run at the same time. Should
+	 *                           not be more than the maximum pool size.
+	 * @param maxWaitMillis      How long a call may wait for its turn before it
+	 *                           fails.
+	 * @throws IllegalArgumentException If the limit is not positive or the wait
+	 *                                  is negative.
+	 */
+	public ServiceExecutor(int maxConcurrentCalls, long maxWaitMillis) {
+		if (maxConcurrentCalls <= 0 || maxWaitMillis < 0) {
+			throw new IllegalArgumentException("Invalid service executor settings");
+		}
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		this.bulkhead = new Semaphore(maxConcurrentCalls, true);
+	}
+
+	/**
+	 * Runs a call to the 'ProductService' on a virtual thread.
+	 *
+	 * @param <T>  The type of the result.
+	 * @param call The call, for example 'products -> products.getByProductId(id)'.
+	 * @return A future completed with the result of the call, or with the
+	 *         exception it threw.
+	 */
+	public <T> CompletableFuture<T> products(ServiceCall<ProductService, T> call) {
+		return submit(() -> call.call(productService));
+	}
+
+	/**
+	 * Runs a call to the 'OrderService' on a virtual thread.
+	 *
+	 * @param <T>  The type of the result.
+	 * @param call The call, for example 'orders -> orders.getOrdersByUserId(id)'.
+	 * @return A future completed with the result of the call, or with the
+	 *         exception it threw.
+	 */
+	public <T> CompletableFuture<T> orders(ServiceCall<OrderService, T> call) {
+		return submit(() -> call.call(orderService));
+	}
+
+	/**
+	 * Runs a call to the 'UserService' on a virtual thread.
+	 *
+	 * @param <T>  The type of the result.
+	 * @param call The call, for example 'users -> users.findByUserId(id)'.
+	 * @return A future completed with the result of the call, or with the
+	 *         exception it threw.
+	 */
+	public <T> CompletableFuture<T> users(ServiceCall<UserService, T> call) {
+		return submit(() -> call.call(userService));
+	}
+
+	/**
+	 * Runs any task that uses the database on a virtual thread, inside the same
+	 * bulkhead as the service calls.
+	 *
+	 * @param <T>  The type of the result.
+	 * @param task The task.
+	 * @return A future completed with the result of the task, or with the
+	 *         exception it threw.
+	 * @throws java.util.concurrent.RejectedExecutionException If the executor
+	 *                                                         has been closed.
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		executor.execute(() -> run(task, future));
+		return future;
+	}
+
+	/**
+	 * Returns how many calls may run at the same time.
+	 *
+	 * @return The size of the bulkhead.
+	 */
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	/**
+	 * Returns the number of calls waiting for their turn.
+	 *
+	 * @return An estimate of the waiting calls.
+	 */
+	public int getWaitingCalls() {
+		return bulkhead.getQueueLength();
+	}
+
+	/**
+	 * Returns the number of calls that failed because they waited longer than
+	 * the maximum wait.
+	 *
+	 * @return The number of rejected calls.
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Stops accepting calls and waits for the submitted ones to finish.
+	 */
+	@Override
+	public void close() {
+		executor.close();
+	}
+
+	private <T> void run(Callable<T> task, CompletableFuture<T> future) {
+		long start = System.nanoTime();
+		boolean acquired = false;
+		try {
+			acquired = bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(e);
+			return;
+		} finally {
+			acquireMetrics.record(start, !acquired);
+		}
+		if (!acquired) {
+			rejected.increment();
+			future.completeExceptionally(new ServiceException("Too many concurrent service calls"));
+			return;
+		}
+
+		try {
+			future.complete(task.call());
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+		} finally {
+			bulkhead.release();
+		}
+	}
+
+}
@@ -3,21 +3,37 @@ package in.fssa.homebakery.service;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
-import in.fssa.homebakery.dao.UserDAO;
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.exception.AlreadyExistsException;
+import in.fssa.homebakery.exception.NotFoundException;
 import in.fssa.homebakery.exception.PersistanceException;
 import in.fssa.homebakery.exception.ServiceException;
 import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.interfaces.UserInterface;
 import in.fssa.homebakery.model.User;
+import in.fssa.homebakery.util.BoundedCache;
 import in.fssa.homebakery.util.ConnectionUtil;
 import in.fssa.homebakery.util.IntUtil;
+import in.fssa.homebakery.util.Logger;
 import in.fssa.homebakery.util.StringUtil;
 import in.fssa.homebakery.validator.UserValidator;
 
 public class UserService {
 
+	private static final Logger LOG = Logger.getLogger(UserService.class);
+
+	private static final int USER_CACHE_SIZE = 1000;
+	private static final long USER_CACHE_TTL_MILLIS = 300000;
+
+	private static final BoundedCache<Integer, User> userCache = new BoundedCache<>(USER_CACHE_SIZE,
+			USER_CACHE_TTL_MILLIS, BoundedCache.EvictionPolicy.W_TINY_LFU);
+
 	/**
 	 * Retrieves a set of all active users from the database.
 	 *
@@ -29,12 +45,12 @@ public class UserService {
 	 * @throws RuntimeException If an error occurs while querying the database.
 	 */
 	public Set<User> getAllUsers() {
-		UserDAO userDAO = new UserDAO();
+		UserInterface userDAO = DAOFactory.getUserDAO();
 		Set<User> userList = new HashSet<>();
 		try {
 			userList = userDAO.findAll();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("getAllUsers failed", e);
 		}
 		return userList;
 	}
@@ -52,24 +68,27 @@ public class UserService {
 	 *                   occurs during database interaction.
 	 */
 	public void createUser(User newUser) throws ValidationException, ServiceException {
-		UserDAO userDAO = new UserDAO();
+		UserInterface userDAO = DAOFactory.getUserDAO();
 		try {
 			UserValidator.validate(newUser);
 			boolean check = userDAO.isUserEmailPresent(newUser.getEmail());
 			
 			if(check) {
-				throw new RuntimeException("An account with the email already exists");
+				throw new AlreadyExistsException("An account with the email already exists");
 			}
 			
 			boolean check2 = userDAO.isUserPhoneNoPresent(newUser.getPhoneNo());
 			
 			if(check2) {
-				throw new RuntimeException("An account with the phone already exists");
+				throw new AlreadyExistsException("An account with the phone already exists");
 			}
 			
 			userDAO.create(newUser);
+			RequestScope.clearCurrent();
+		} catch (AlreadyExistsException e) {
+			throw e;
 		} catch (PersistanceException | RuntimeException e) {
-			e.printStackTrace();
+			LOG.error("createUser failed", e, "email", newUser.getEmail());
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -80,7 +99,8 @@ public class UserService {
 	 * This method is responsible for updating the information of an existing user
 	 * in the database based on the provided user ID and updated User object. The
 	 * provided user ID and updated information are validated before attempting to
-	 * update the user's information in the database.
+	 * update the user's information in the database. Only active users are
+	 * updated, and an update that changes no row means the user does not exist.
 	 * 
 	 * @param id          The ID of the user whose information needs to be updated.
 	 * @param updatedUser The User object containing the updated details of the
@@ -93,17 +113,17 @@ public class UserService {
 	public void updateUser(int id, User updatedUser) throws ValidationException, ServiceException{
 
 		try {
-			UserDAO userDAO = new UserDAO();
+			UserInterface userDAO = DAOFactory.getUserDAO();
 			IntUtil.rejectIfInvalidInt(id);
-			boolean check = UserDAO.isUserPresent(id);
+			UserValidator.validate(updatedUser);
 			
-			if (!check) {
-				throw new RuntimeException("User does not exist");
+			if (userDAO.update(id, updatedUser) == 0) {
+				throw new NotFoundException("User does not exist");
 			}
-			UserValidator.validate(updatedUser);
-			userDAO.update(id, updatedUser);
+			userCache.invalidate(id);
+			RequestScope.clearCurrent();
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("updateUser failed", e, "userId", id);
 			throw new ServiceException(e.getMessage());
 		}
 
@@ -115,28 +135,28 @@ public class UserService {
 	 *
 	 * This method is responsible for deleting a user from the database based on the
 	 * provided user ID. The provided user ID is validated before attempting to
-	 * delete the user.
+	 * delete the user, and a deletion that matches no row means the user does not
+	 * exist.
 	 * 
 	 * @param userId The ID of the user to be deleted.
 	 * @throws ValidationException If the provided user ID is invalid.
 	 * @throws PersistanceException 
-	 * @throws RuntimeException    If the user does not exist or an error occurs
-	 *                             during database interaction.
+	 * @throws NotFoundException   If the user does not exist.
 	 */
 	public void deleteUser(int userId) throws ValidationException, ServiceException {
 
 		try {
-			UserDAO userDAO = new UserDAO();
+			UserInterface userDAO = DAOFactory.getUserDAO();
 			IntUtil.rejectIfInvalidInt(userId);
-			userDAO.delete(userId);
+			int rowsUpdated = userDAO.delete(userId);
+			userCache.invalidate(userId);
+			RequestScope.clearCurrent();
 			
-			boolean check = UserDAO.isUserPresent(userId);
-			
-			if (!check) {
-				throw new RuntimeException("User does not exist");
+			if (rowsUpdated == 0) {
+				throw new NotFoundException("User does not exist");
 			}
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("deleteUser failed", e, "userId", userId);
 			throw new ServiceException(e.getMessage());
 		}
 	}
@@ -146,55 +166,115 @@ public class UserService {
 	 *
 	 * This method is responsible for retrieving a user from the database using the
 	 * provided user ID. The provided user ID is validated before attempting to
-	 * retrieve the user.
+	 * retrieve the user. Users are kept in a bounded cache, so repeated lookups of
+	 * the same user do not query the database again. Cache misses are loaded
+	 * through the open 'RequestScope', together with every user queued in it.
 	 * 
 	 * @param userId The ID of the user to be retrieved.
 	 * @return The retrieved user.
 	 * @throws ValidationException If the provided user ID is invalid.
-	 * @throws PersistanceException 
-	 * @throws RuntimeException    If the user does not exist or an error occurs
-	 *                             during database interaction.
+	 * @throws NotFoundException   If no active user has the ID.
+	 * @throws ServiceException    If an error occurs during database interaction.
 	 */
 	public User findByUserId(int userId) throws ValidationException, ServiceException {
-		try {
+		return findUserById(userId).orElseThrow(() -> new NotFoundException("User does not exist"));
+	}
+
+	/**
+	 * Looks up a user by ID like 'findByUserId', but reports a missing user as
+	 * an empty result instead of an exception. Misses are not cached, so a user
+	 * created later is found on the next lookup.
+	 *
+	 * @param userId The ID of the user to be retrieved.
+	 * @return The user, or an empty result if no active user has the ID.
+	 * @throws ValidationException If the provided user ID is invalid.
+	 */
+	public Optional<User> findUserById(int userId) throws ValidationException, ServiceException {
+		try (RequestScope scope = RequestScope.open()) {
 			IntUtil.rejectIfInvalidInt(userId);
 			
-			boolean check = UserDAO.isUserPresent(userId);
-			
-			if (!check) {
-				throw new RuntimeException("User does not exist");
-			}
-			
-			UserDAO userDAO = new UserDAO();
-			User user = null;
-			user =  userDAO.findById(userId);
-			return user;
+			User user = userCache.get(userId, id -> scope.users().load(id));
+			return Optional.ofNullable(user).map(UserService::copyOf);
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findUserById failed", e, "userId", userId);
 			throw new ServiceException(e.getMessage());
 		}
 		
 	}
 	
+	/**
+	 * Retrieves several users from the database based on the provided user IDs.
+	 *
+	 * This method validates every user ID and retrieves all matching active users
+	 * with the 'findByIds' method of 'UserDAO', which needs one query per thousand
+	 * IDs. Users already loaded by the open 'RequestScope' are not queried again.
+	 * 
+	 * @param userIds The IDs of the users to be retrieved.
+	 * @return A 'Map' from user ID to the retrieved user. IDs of users that do not
+	 *         exist or are not active are not contained in the map.
+	 * @throws ValidationException If any of the provided user IDs is invalid.
+	 * @throws ServiceException    If an error occurs during database interaction.
+	 */
+	public Map<Integer, User> findByUserIds(Collection<Integer> userIds) throws ValidationException, ServiceException {
+		try (RequestScope scope = RequestScope.open()) {
+			for (int userId : userIds) {
+				IntUtil.rejectIfInvalidInt(userId);
+			}
+
+			Map<Integer, User> users = scope.users().loadMany(userIds);
+			for (Map.Entry<Integer, User> entry : users.entrySet()) {
+				entry.setValue(copyOf(entry.getValue()));
+			}
+			return users;
+		} catch (PersistanceException e) {
+			LOG.error("findByUserIds failed", e);
+			throw new ServiceException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Retrieves an active user by their email address.
+	 *
+	 * The user is loaded through the open 'RequestScope', so that looking up the
+	 * same email address again during one request, for example to authenticate
+	 * and then to show the profile, costs no extra query.
+	 *
+	 * @param email The email address of the user to be retrieved.
+	 * @return The retrieved user.
+	 * @throws ValidationException If the email address is invalid or does not
+	 *                             belong to an active user.
+	 * @throws ServiceException    If an error occurs during database interaction.
+	 */
 	public User findByEmail(String email) throws ValidationException, ServiceException {
-		try {
+		try (RequestScope scope = RequestScope.open()) {
 			UserValidator.validateEmail(email);
 			
-			boolean check = UserDAO.isUserEmailPresent(email);
+			User user = scope.usersByEmail().load(email);
 			
-			if (!check) {
+			if (user == null) {
 				throw new ValidationException("User does not exist");
 			}
 			
-			UserDAO userDAO = new UserDAO();
-			User user = null;
-			user =  userDAO.findByEmail(email);
-			return user;
+			return copyOf(user);
 		} catch (PersistanceException e) {
-			e.printStackTrace();
+			LOG.error("findByEmail failed", e, "email", email);
 			throw new ServiceException(e.getMessage());
 		}
 		
 	}
 
+	private static User copyOf(User user) {
+		if (user == null) {
+			return null;
+		}
+		User copy = new User();
+		copy.setId(user.getId());
+		copy.setFirstName(user.getFirstName());
+		copy.setLastName(user.getLastName());
+		copy.setEmail(user.getEmail());
+		copy.setPassword(user.getPassword());
+		copy.setPhoneNo(user.getPhoneNo());
+		copy.setActive(user.isActive());
+		return copy;
+	}
 }
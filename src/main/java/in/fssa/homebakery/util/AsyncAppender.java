@@ -0,0 +1,408 @@
+package in.fssa.homebakery.util;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the events of 'Logger' on a background thread, so that logging never
+ * makes a request wait for the console.
+ *
+ * Events are put into a fixed-size ring buffer with a compare-and-set on its
+ * tail, without locks or allocation beyond the event itself. A single daemon
+ * thread takes them out in order, formats them and writes them to the output.
+ * If the buffer is full, because the output cannot keep up, the event is
+ * dropped and counted, and the writer reports the number of dropped events
+ * with the next event it writes.
+ *
+ * Repeated warnings and errors are rate limited before they reach the buffer.
+ * Events with the same logger, message and exception type share a window:
+ * only the first 'repeatLimit' of them per window are written, the rest are
+ * counted, and the next event written after the window has passed reports how
+ * many were suppressed. A stack trace is only printed for the first event of
+ * a window, so a database outage that fails thousands of requests produces a
+ * handful of lines instead of thousands of stack traces.
+ *
+ * The shared appender of 'getInstance' writes to standard output and is
+ * configured with the 'homebakery.log.bufferSize' (default 8192),
+ * 'homebakery.log.suppressWindowMillis' (default 10000) and
+ * 'homebakery.log.repeatLimit' (default 5) system properties.
+ */
+public final class AsyncAppender {
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final long DEFAULT_SUPPRESS_WINDOW_MILLIS = 10000;
+	private static final int DEFAULT_REPEAT_LIMIT = 5;
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private static volatile AsyncAppender instance;
+
+	private final PrintStream out;
+	private final RingBuffer<Event> buffer;
+	private final long suppressWindowMillis;
+	private final int repeatLimit;
+	private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder suppressed = new LongAdder();
+	private volatile long processed = 0;
+	private long reportedDropped = 0;
+
+	private final Thread writer;
+	private volatile boolean running = true;
+	private volatile boolean waiting = false;
+
+	/**
+	 * Creates an appender and starts its writer thread.
+	 *
+	 * @param out                  The stream the events are written to.
+	 * @param bufferSize           How many events may wait for the writer. It is
+	 *                             rounded up to a power of two.
+	 * @param suppressWindowMillis The length of a rate limiting window, or 0 to
+	 *                             write every event.
+	 * @param repeatLimit          How many events of one kind are written per
+	 *                             window.
+	 * @throws IllegalArgumentException If the buffer size or repeat limit is not
+	 *                                  positive.
+	 */
+	public AsyncAppender(PrintStream out, int bufferSize, long suppressWindowMillis, int repeatLimit) {
+		if (bufferSize <= 0 || repeatLimit <= 0) {
+			throw new IllegalArgumentException("Invalid appender settings");
+		}
+		this.out = out;
+		this.buffer = new RingBuffer<>(bufferSize);
+		this.suppressWindowMillis = suppressWindowMillis;
+		this.repeatLimit = repeatLimit;
+
+		writer = new Thread(this::writeEvents, "homebakery-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Returns the appender shared by all loggers, creating it from the system
+	 * properties on first use. Pending events are written when the JVM shuts
+	 * down.
+	 *
+	 * @return The shared appender.
+	 */
+	public static AsyncAppender getInstance() {
+		AsyncAppender current = instance;
+		if (current != null) {
+			return current;
+		}
+		synchronized (AsyncAppender.class) {
+			if (instance == null) {
+				AsyncAppender appender = new AsyncAppender(System.out,
+						Integer.getInteger("homebakery.log.bufferSize", DEFAULT_BUFFER_SIZE),
+						Long.getLong("homebakery.log.suppressWindowMillis", DEFAULT_SUPPRESS_WINDOW_MILLIS),
+						Integer.getInteger("homebakery.log.repeatLimit", DEFAULT_REPEAT_LIMIT));
+				Runtime.getRuntime().addShutdownHook(new Thread(appender::close, "homebakery-log-shutdown"));
+				instance = appender;
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * Hands an event to the writer thread without waiting.
+	 *
+	 * @param level   The level of the event.
+	 * @param logger  The name of the logger.
+	 * @param message The message.
+	 * @param error   The exception to report, or null.
+	 * @param fields  Alternating field names and values. The values are
+	 *                formatted later on the writer thread, so they should not
+	 *                change after the call.
+	 * @return True if the event was queued, false if it was suppressed or
+	 *         dropped.
+	 */
+	public boolean append(Logger.Level level, String logger, String message, Throwable error, Object[] fields) {
+		long now = System.currentTimeMillis();
+		long suppressedBefore = 0;
+		boolean withStackTrace = error != null;
+
+		if (suppressWindowMillis > 0 && level.compareTo(Logger.Level.WARN) >= 0) {
+			String key = logger + '|' + message + '|' + (error != null ? error.getClass().getName() : "");
+			Window window = windows.computeIfAbsent(key, k -> new Window(logger, message, now));
+			long start = window.start.get();
+			if (now - start >= suppressWindowMillis && window.start.compareAndSet(start, now)) {
+				suppressedBefore = window.suppressed.getAndSet(0);
+				window.count.set(0);
+			}
+			long count = window.count.incrementAndGet();
+			if (count > repeatLimit) {
+				window.suppressed.incrementAndGet();
+				suppressed.increment();
+				return false;
+			}
+			withStackTrace = error != null && count == 1;
+		}
+
+		Event event = new Event(now, level, Thread.currentThread().getName(), logger, message, error,
+				withStackTrace, fields, suppressedBefore);
+		if (!buffer.offer(event)) {
+			dropped.increment();
+			return false;
+		}
+		accepted.increment();
+		if (waiting) {
+			LockSupport.unpark(writer);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of events dropped because the buffer was full.
+	 *
+	 * @return The number of dropped events.
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Returns the number of events held back by the rate limit.
+	 *
+	 * @return The number of suppressed events.
+	 */
+	public long getSuppressedCount() {
+		return suppressed.sum();
+	}
+
+	/**
+	 * Waits until every event queued before the call has been written.
+	 *
+	 * @param timeoutMillis The longest time to wait.
+	 * @return True if the events were written in time.
+	 */
+	public boolean flush(long timeoutMillis) {
+		long target = accepted.sum();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		while (processed < target) {
+			if (System.nanoTime() > deadline || !writer.isAlive()) {
+				return false;
+			}
+			LockSupport.unpark(writer);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the pending events, reports the events suppressed in the current
+	 * windows and stops the writer thread.
+	 */
+	public void close() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(writer);
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (Window window : windows.values()) {
+			long count = window.suppressed.getAndSet(0);
+			if (count > 0) {
+				out.println(format(now(), "WARN", Thread.currentThread().getName(), window.logger,
+						window.message) + " (suppressed " + count + " similar events)");
+			}
+		}
+		out.flush();
+	}
+
+	private void writeEvents() {
+		StringBuilder line = new StringBuilder(256);
+		long written = 0;
+		while (true) {
+			Event event = buffer.poll();
+			if (event == null) {
+				processed = written;
+				out.flush();
+				if (!running) {
+					return;
+				}
+				waiting = true;
+				if (buffer.isEmpty() && running) {
+					LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				}
+				waiting = false;
+				continue;
+			}
+
+			reportDropped();
+			line.setLength(0);
+			write(line, event);
+			out.println(line);
+			if (event.withStackTrace) {
+				event.error.printStackTrace(out);
+			}
+			written++;
+		}
+	}
+
+	private void reportDropped() {
+		long total = dropped.sum();
+		if (total > reportedDropped) {
+			out.println(format(now(), "WARN", writer.getName(), "AsyncAppender",
+					(total - reportedDropped) + " log events were dropped because the buffer was full"));
+			reportedDropped = total;
+		}
+	}
+
+	private static void write(StringBuilder line, Event event) {
+		LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timeMillis), ZoneId.systemDefault());
+		line.append(format(time, event.level.name(), event.thread, event.logger, event.message));
+
+		Object[] fields = event.fields;
+		for (int i = 0; i + 1 < fields.length; i += 2) {
+			line.append(' ').append(fields[i]).append('=');
+			appendValue(line, fields[i + 1]);
+		}
+		if (event.error != null) {
+			line.append(" error=");
+			appendValue(line, event.error.getClass().getSimpleName() + ": " + event.error.getMessage());
+		}
+		if (event.suppressedBefore > 0) {
+			line.append(" (suppressed ").append(event.suppressedBefore).append(" similar events)");
+		}
+	}
+
+	private static LocalDateTime now() {
+		return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+	}
+
+	private static String format(LocalDateTime time, String level, String thread, String logger, String message) {
+		return time + " " + level + " [" + thread + "] " + logger + " - " + message;
+	}
+
+	private static void appendValue(StringBuilder line, Object value) {
+		String text = value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value);
+		boolean quote = text.isEmpty();
+		for (int i = 0; i < text.length() && !quote; i++) {
+			char c = text.charAt(i);
+			quote = Character.isWhitespace(c) || c == '"' || c == '=';
+		}
+		if (!quote) {
+			line.append(text);
+			return;
+		}
+		String escaped = text.replace("\"", "\\\"").replace("\r", "\\r").replace("\n", "\\n");
+		line.append('"').append(escaped).append('"');
+	}
+
+	private static class Event {
+
+		private final long timeMillis;
+		private final Logger.Level level;
+		private final String thread;
+		private final String logger;
+		private final String message;
+		private final Throwable error;
+		private final boolean withStackTrace;
+		private final Object[] fields;
+		private final long suppressedBefore;
+
+		private Event(long timeMillis, Logger.Level level, String thread, String logger, String message,
+				Throwable error, boolean withStackTrace, Object[] fields, long suppressedBefore) {
+			this.timeMillis = timeMillis;
+			this.level = level;
+			this.thread = thread;
+			this.logger = logger;
+			this.message = message;
+			this.error = error;
+			this.withStackTrace = withStackTrace;
+			this.fields = fields;
+			this.suppressedBefore = suppressedBefore;
+		}
+	}
+
+	private static class Window {
+
+		private final String logger;
+		private final String message;
+		private final AtomicLong start;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong suppressed = new AtomicLong();
+
+		private Window(String logger, String message, long start) {
+			this.logger = logger;
+			this.message = message;
+			this.start = new AtomicLong(start);
+		}
+	}
+
+	/**
+	 * A bounded queue for many producers and a single consumer. Every slot
+	 * carries a sequence number that tells whether it is free for the producer
+	 * of a given position or holds the element the consumer expects next, so
+	 * producers only compete for the tail counter.
+	 */
+	static class RingBuffer<E> {
+
+		private final int mask;
+		private final AtomicReferenceArray<E> elements;
+		private final AtomicLongArray sequences;
+		private final AtomicLong tail = new AtomicLong();
+		private long head = 0;
+
+		RingBuffer(int minCapacity) {
+			int capacity = Integer.highestOneBit(Math.max(1, minCapacity - 1)) << 1;
+			mask = capacity - 1;
+			elements = new AtomicReferenceArray<>(capacity);
+			sequences = new AtomicLongArray(capacity);
+			for (int i = 0; i < capacity; i++) {
+				sequences.set(i, i);
+			}
+		}
+
+		boolean offer(E element) {
+			while (true) {
+				long position = tail.get();
+				int index = (int) position & mask;
+				long difference = sequences.get(index) - position;
+				if (difference < 0) {
+					return false;
+				}
+				if (difference == 0 && tail.compareAndSet(position, position + 1)) {
+					elements.set(index, element);
+					sequences.set(index, position + 1);
+					return true;
+				}
+			}
+		}
+
+		E poll() {
+			int index = (int) head & mask;
+			if (sequences.get(index) != head + 1) {
+				return null;
+			}
+			E element = elements.get(index);
+			elements.set(index, null);
+			sequences.set(index, head + mask + 1);
+			head++;
+			return element;
+		}
+
+		boolean isEmpty() {
+			return sequences.get((int) head & mask) != head + 1;
+		}
+	}
+
+}
@@ -0,0 +1,451 @@
+package in.fssa.homebakery.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.CacheLoader;
+
+/**
+ * A thread-safe cache bounded by size and by time to live.
+ *
+ * The keys are spread over up to sixteen independently locked segments, so
+ * lookups of different keys rarely wait for each other. Each segment holds at
+ * most its share of 'maximumSize' entries and evicts according to the
+ * configured 'EvictionPolicy' once it is full. Entries older than the time to
+ * live are treated as missing and removed when they are next read. Null values
+ * are never cached.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values.
+ */
+public class BoundedCache<K, V> {
+
+	/**
+	 * The strategies a 'BoundedCache' can use to decide which entry leaves a full
+	 * segment.
+	 */
+	public enum EvictionPolicy {
+		/**
+		 * Evicts the least recently used entry. Cheap, but a single scan over many
+		 * keys that are read once flushes the whole cache.
+		 */
+		LRU,
+		/**
+		 * Window TinyLFU. New entries enter a small LRU window. When the window
+		 * overflows, its oldest entry only replaces the least recently used entry of
+		 * the main area if it has been requested more often, as estimated by a
+		 * count-min sketch of recent requests. Popular entries therefore survive
+		 * scans and bursts of one-off keys.
+		 */
+		W_TINY_LFU
+	}
+
+	private static final int MAX_SEGMENTS = 16;
+	private static final int MIN_ENTRIES_PER_SEGMENT = 8;
+
+	private final Segment<K, V>[] segments;
+	private final int segmentMask;
+	private final long ttlNanos;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param maximumSize The maximum number of entries held at a time.
+	 * @param ttlMillis   How long an entry stays valid after it is written, or 0
+	 *                    for no time limit.
+	 * @param policy      The eviction policy used when the cache is full.
+	 * @throws IllegalArgumentException If the size or time to live is invalid.
+	 */
+	@SuppressWarnings("unchecked")
+	public BoundedCache(int maximumSize, long ttlMillis, EvictionPolicy policy) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("Invalid cache size");
+		}
+		if (ttlMillis < 0) {
+			throw new IllegalArgumentException("Invalid cache time to live");
+		}
+		if (policy == null) {
+			throw new IllegalArgumentException("Eviction policy cannot be null");
+		}
+
+		int segmentCount = 1;
+		while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * MIN_ENTRIES_PER_SEGMENT <= maximumSize) {
+			segmentCount *= 2;
+		}
+
+		this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			int capacity = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+			segments[i] = new Segment<>(capacity, policy, evictions);
+		}
+		this.segmentMask = segmentCount - 1;
+		this.ttlNanos = ttlMillis == 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+	}
+
+	/**
+	 * Returns the cached value of a key.
+	 *
+	 * @param key The key to look up.
+	 * @return The cached value, or null if the key is not cached or has expired.
+	 */
+	public V get(K key) {
+		int hash = spread(key.hashCode());
+		V value = segmentFor(hash).get(key, hash);
+		if (value != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the cached value of a key, loading and caching it on a miss.
+	 *
+	 * The loader runs without holding any lock, so two threads that miss the same
+	 * key at the same time may both load it. A loaded value is not cached if the
+	 * key was invalidated while it was being loaded, so an invalidation never gets
+	 * overwritten by data read before it.
+	 *
+	 * @param key    The key to look up.
+	 * @param loader Loads the value of the key on a cache miss.
+	 * @return The cached or loaded value, or null if the loader returned null.
+	 * @throws PersistanceException If the loader fails.
+	 */
+	public V get(K key, CacheLoader<K, V> loader) throws PersistanceException {
+		int hash = spread(key.hashCode());
+		Segment<K, V> segment = segmentFor(hash);
+
+		V value = segment.get(key, hash);
+		if (value != null) {
+			hits.increment();
+			return value;
+		}
+		misses.increment();
+
+		long invalidations = segment.invalidations;
+		value = loader.load(key);
+		if (value != null) {
+			segment.put(key, hash, value, expiry(), invalidations);
+		}
+		return value;
+	}
+
+	/**
+	 * Caches a value, replacing any value already cached for the key.
+	 *
+	 * @param key   The key.
+	 * @param value The value to cache. Null values are ignored.
+	 */
+	public void put(K key, V value) {
+		if (value == null) {
+			return;
+		}
+		int hash = spread(key.hashCode());
+		Segment<K, V> segment = segmentFor(hash);
+		segment.put(key, hash, value, expiry(), -1);
+	}
+
+	/**
+	 * Removes a key from the cache.
+	 *
+	 * @param key The key to remove.
+	 */
+	public void invalidate(K key) {
+		int hash = spread(key.hashCode());
+		segmentFor(hash).invalidate(key);
+	}
+
+	/**
+	 * Removes every entry from the cache.
+	 */
+	public void invalidateAll() {
+		for (Segment<K, V> segment : segments) {
+			segment.invalidateAll();
+		}
+	}
+
+	/**
+	 * Returns the number of entries currently held, including expired entries
+	 * that have not been read since they expired.
+	 *
+	 * @return The number of cached entries.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment<K, V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of lookups that found a cached value.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that found no cached value.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of entries removed to make room for others or because
+	 * they expired. Explicit invalidations are not counted.
+	 *
+	 * @return The number of evicted entries.
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the fraction of lookups that found a cached value.
+	 *
+	 * @return The hit rate between 0 and 1, or 0 if there were no lookups.
+	 */
+	public double getHitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	private long expiry() {
+		return ttlNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+	}
+
+	private Segment<K, V> segmentFor(int hash) {
+		return segments[hash & segmentMask];
+	}
+
+	private static int spread(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x45d9f3b;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static class Node<V> {
+
+		private final V value;
+		private final int hash;
+		private final long expiresAt;
+
+		private Node(V value, int hash, long expiresAt) {
+			this.value = value;
+			this.hash = hash;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(long now) {
+			return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+		}
+	}
+
+	private static class Segment<K, V> {
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+		private final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+		private final int windowCapacity;
+		private final int mainCapacity;
+		private final FrequencySketch sketch;
+		private final LongAdder evictions;
+
+		private volatile long invalidations = 0;
+
+		private Segment(int capacity, EvictionPolicy policy, LongAdder evictions) {
+			boolean tinyLfu = policy == EvictionPolicy.W_TINY_LFU && capacity >= 2;
+			this.windowCapacity = tinyLfu ? Math.max(1, capacity / 100) : 0;
+			this.mainCapacity = capacity - windowCapacity;
+			this.sketch = tinyLfu ? new FrequencySketch(capacity) : null;
+			this.evictions = evictions;
+		}
+
+		private V get(K key, int hash) {
+			lock.lock();
+			try {
+				if (sketch != null) {
+					sketch.increment(hash);
+				}
+
+				LinkedHashMap<K, Node<V>> area = window;
+				Node<V> node = window.get(key);
+				if (node == null) {
+					area = main;
+					node = main.get(key);
+				}
+				if (node == null) {
+					return null;
+				}
+				if (node.isExpired(System.nanoTime())) {
+					area.remove(key);
+					evictions.increment();
+					return null;
+				}
+				return node.value;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void put(K key, int hash, V value, long expiresAt, long expectedInvalidations) {
+			lock.lock();
+			try {
+				if (expectedInvalidations >= 0 && expectedInvalidations != invalidations) {
+					return;
+				}
+
+				Node<V> node = new Node<>(value, hash, expiresAt);
+				if (window.containsKey(key)) {
+					window.put(key, node);
+				} else if (main.containsKey(key) || windowCapacity == 0) {
+					main.put(key, node);
+					if (main.size() > mainCapacity) {
+						removeEldest(main);
+						evictions.increment();
+					}
+				} else {
+					window.put(key, node);
+					if (window.size() > windowCapacity) {
+						admit(removeEldest(window));
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void admit(Map.Entry<K, Node<V>> candidate) {
+			if (main.size() < mainCapacity) {
+				main.put(candidate.getKey(), candidate.getValue());
+				return;
+			}
+
+			Map.Entry<K, Node<V>> victim = main.entrySet().iterator().next();
+			if (sketch.frequency(candidate.getValue().hash) > sketch.frequency(victim.getValue().hash)) {
+				main.remove(victim.getKey());
+				main.put(candidate.getKey(), candidate.getValue());
+			}
+			evictions.increment();
+		}
+
+		private Map.Entry<K, Node<V>> removeEldest(LinkedHashMap<K, Node<V>> area) {
+			Iterator<Map.Entry<K, Node<V>>> iterator = area.entrySet().iterator();
+			Map.Entry<K, Node<V>> eldest = iterator.next();
+			Map.Entry<K, Node<V>> removed = Map.entry(eldest.getKey(), eldest.getValue());
+			iterator.remove();
+			return removed;
+		}
+
+		private void invalidate(K key) {
+			lock.lock();
+			try {
+				invalidations++;
+				if (window.remove(key) == null) {
+					main.remove(key);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void invalidateAll() {
+			lock.lock();
+			try {
+				invalidations++;
+				window.clear();
+				main.clear();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private int size() {
+			lock.lock();
+			try {
+				return window.size() + main.size();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * A count-min sketch of four rows of counters that saturate at 15. All
+	 * counters are halved once the number of recorded requests reaches ten times
+	 * the segment capacity, so the estimated frequencies favour recent requests.
+	 */
+	private static class FrequencySketch {
+
+		private static final int DEPTH = 4;
+		private static final int MAX_COUNT = 15;
+		private static final int[] SEEDS = { 0x97cb3127, 0xb8f6d1ab, 0x2c1b3c6d, 0x7fb5d329 };
+
+		private final byte[][] counters;
+		private final int widthMask;
+		private final int sampleSize;
+		private int additions = 0;
+
+		private FrequencySketch(int capacity) {
+			int width = 16;
+			while (width < capacity * 2) {
+				width *= 2;
+			}
+			this.counters = new byte[DEPTH][width];
+			this.widthMask = width - 1;
+			this.sampleSize = Math.max(10 * capacity, 16);
+		}
+
+		private void increment(int hash) {
+			for (int row = 0; row < DEPTH; row++) {
+				int index = indexOf(hash, row);
+				if (counters[row][index] < MAX_COUNT) {
+					counters[row][index]++;
+				}
+			}
+			if (++additions >= sampleSize) {
+				age();
+			}
+		}
+
+		private int frequency(int hash) {
+			int frequency = MAX_COUNT;
+			for (int row = 0; row < DEPTH; row++) {
+				frequency = Math.min(frequency, counters[row][indexOf(hash, row)]);
+			}
+			return frequency;
+		}
+
+		private int indexOf(int hash, int row) {
+			int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+			return (h ^ (h >>> 15)) & widthMask;
+		}
+
+		private void age() {
+			for (byte[] row : counters) {
+				for (int i = 0; i < row.length; i++) {
+					row[i] >>= 1;
+				}
+			}
+			additions /= 2;
+		}
+	}
+
+}
@@ -0,0 +1,523 @@
+package in.fssa.homebakery.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPool {
+
+	private static final Logger LOG = Logger.getLogger(ConnectionPool.class);
+
+	private final String url;
+	private final String userName;
+	private final String passWord;
+
+	private final int minSize;
+	private final int maxSize;
+	private final long acquireTimeoutMillis;
+	private final long idleTimeoutMillis;
+	private final int validationTimeoutSeconds;
+	private final int statementCacheSize;
+
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+	private final AtomicInteger openConnections = new AtomicInteger();
+	private final LongAdder statementCount = new LongAdder();
+	private final LongAdder statementCacheHits = new LongAdder();
+	private final LongAdder statementCacheMisses = new LongAdder();
+	private final ScheduledExecutorService evictor;
+
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Creates a bounded connection pool for the given database.
+	 *
+	 * The pool opens 'minSize' physical connections up front and never holds more
+	 * than 'maxSize' connections at a time. Callers that cannot get a connection
+	 * within 'acquireTimeoutMillis' receive an SQLException. Idle connections
+	 * above 'minSize' are closed once they have been unused for
+	 * 'idleTimeoutMillis', and every idle connection is validated before it is
+	 * handed out again.
+	 *
+	 * Every connection keeps up to 'statementCacheSize' prepared statements in a
+	 * least recently used cache keyed by their SQL. Preparing a statement whose
+	 * SQL is cached on the connection reuses it instead of preparing it again,
+	 * and closing such a statement hands it back to the cache. Only statements
+	 * prepared with 'prepareStatement(String)' or 'prepareStatement(String, int)'
+	 * are cached; scrollable or streaming statements are always prepared anew.
+	 *
+	 * @param url                      The JDBC url of the database.
+	 * @param userName                 The database user name.
+	 * @param passWord                 The database password.
+	 * @param minSize                  The number of connections kept open while idle.
+	 * @param maxSize                  The maximum number of open connections.
+	 * @param acquireTimeoutMillis     How long a caller waits for a free connection.
+	 * @param idleTimeoutMillis        How long a surplus connection may stay idle.
+	 * @param validationTimeoutSeconds The timeout used when validating a connection
+	 *                                 on borrow.
+	 * @param statementCacheSize       The number of prepared statements cached per
+	 *                                 connection, or 0 to disable the cache.
+	 * @throws IllegalArgumentException If the sizes or timeouts are invalid.
+	 */
+	public ConnectionPool(String url, String userName, String passWord, int minSize, int maxSize,
+			long acquireTimeoutMillis, long idleTimeoutMillis, int validationTimeoutSeconds, int statementCacheSize) {
+		if (minSize < 0 || maxSize <= 0 || minSize > maxSize || statementCacheSize < 0) {
+			throw new IllegalArgumentException("Invalid pool size");
+		}
+		if (acquireTimeoutMillis < 0 || idleTimeoutMillis <= 0 || validationTimeoutSeconds < 0) {
+			throw new IllegalArgumentException("Invalid pool timeout");
+		}
+
+		this.url = url;
+		this.userName = userName;
+		this.passWord = passWord;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		this.statementCacheSize = statementCacheSize;
+		this.permits = new Semaphore(maxSize, true);
+
+		this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "homebakery-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1000, idleTimeoutMillis / 2);
+		this.evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Opens the minimum number of idle connections.
+	 *
+	 * @throws SQLException If a connection to the database cannot be opened.
+	 */
+	public void warmUp() throws SQLException {
+		while (openConnections.get() < minSize) {
+			idleConnections.offerLast(openPhysicalConnection());
+		}
+	}
+
+	/**
+	 * Borrows a connection from the pool.
+	 *
+	 * This method waits up to the configured acquire timeout for a free slot. An
+	 * idle connection is reused if it is still valid, otherwise a new physical
+	 * connection is opened. Closing the returned connection hands it back to the
+	 * pool instead of closing the underlying socket.
+	 *
+	 * @return A pooled database connection.
+	 * @throws SQLException If the pool is shut down, no connection becomes free in
+	 *                      time or a new connection cannot be opened.
+	 */
+	public Connection borrow() throws SQLException {
+		if (shutdown) {
+			throw new SQLException("Connection pool is shut down");
+		}
+
+		try {
+			if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out waiting for a database connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection");
+		}
+
+		try {
+			PooledConnection pooled;
+			while ((pooled = idleConnections.pollFirst()) != null) {
+				if (isUsable(pooled)) {
+					return pooled.lease();
+				}
+				discard(pooled);
+			}
+			return openPhysicalConnection().lease();
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the number of physical connections currently open.
+	 *
+	 * @return The number of open connections, both idle and borrowed.
+	 */
+	public int getOpenConnections() {
+		return openConnections.get();
+	}
+
+	/**
+	 * Returns the maximum number of connections the pool opens at a time.
+	 *
+	 * @return The maximum pool size.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of connections waiting in the pool to be borrowed.
+	 *
+	 * @return The number of idle connections.
+	 */
+	public int getIdleConnections() {
+		return idleConnections.size();
+	}
+
+	/**
+	 * Returns the number of statements prepared on connections of this pool.
+	 *
+	 * Every DAO method prepares one statement per query it sends, so the
+	 * difference between two readings is the number of queries made in between.
+	 *
+	 * @return The number of statements created since the pool was created.
+	 */
+	public long getStatementCount() {
+		return statementCount.sum();
+	}
+
+	/**
+	 * Returns the number of prepared statements that were taken from the
+	 * statement cache of their connection instead of being prepared again.
+	 *
+	 * @return The number of statement cache hits since the pool was created.
+	 */
+	public long getStatementCacheHits() {
+		return statementCacheHits.sum();
+	}
+
+	/**
+	 * Returns the number of cacheable statements that were not in the statement
+	 * cache of their connection and had to be prepared by the driver.
+	 *
+	 * @return The number of statement cache misses since the pool was created.
+	 */
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.sum();
+	}
+
+	/**
+	 * Closes every idle connection and stops handing out new ones. Connections that
+	 * are still borrowed are closed when they are returned.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		evictor.shutdownNow();
+		PooledConnection pooled;
+		while ((pooled = idleConnections.pollFirst()) != null) {
+			discard(pooled);
+		}
+	}
+
+	private PooledConnection openPhysicalConnection() throws SQLException {
+		Connection physical = DriverManager.getConnection(url, userName, passWord);
+		openConnections.incrementAndGet();
+		return new PooledConnection(physical);
+	}
+
+	private boolean isUsable(PooledConnection pooled) {
+		try {
+			return !pooled.physical.isClosed() && pooled.physical.isValid(validationTimeoutSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void release(PooledConnection pooled) {
+		try {
+			boolean reusable = !shutdown && !pooled.physical.isClosed();
+			if (reusable && !pooled.physical.getAutoCommit()) {
+				pooled.physical.rollback();
+				pooled.physical.setAutoCommit(true);
+			}
+			if (reusable) {
+				pooled.lastUsed = System.currentTimeMillis();
+				idleConnections.offerFirst(pooled);
+			} else {
+				discard(pooled);
+			}
+		} catch (SQLException e) {
+			discard(pooled);
+		} finally {
+			permits.release();
+		}
+	}
+
+	private void discard(PooledConnection pooled) {
+		openConnections.decrementAndGet();
+		try {
+			pooled.physical.close();
+		} catch (SQLException e) {
+			LOG.warn("Could not close connection", e);
+		}
+	}
+
+	private void evictIdleConnections() {
+		long now = System.currentTimeMillis();
+		Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+		while (iterator.hasNext() && openConnections.get() > minSize) {
+			PooledConnection pooled = iterator.next();
+			if (now - pooled.lastUsed >= idleTimeoutMillis && idleConnections.removeLastOccurrence(pooled)) {
+				discard(pooled);
+			}
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			LOG.warn("Could not close statement", e);
+		}
+	}
+
+	private class PooledConnection {
+
+		private final Connection physical;
+		private volatile long lastUsed = System.currentTimeMillis();
+
+		/**
+		 * The idle prepared statements of this connection, least recently used
+		 * first. A statement in use is removed from the cache and put back when it
+		 * is closed, so two callers never share one statement. Only the thread
+		 * leasing the connection touches the cache.
+		 */
+		private final Map<StatementKey, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+				if (size() > statementCacheSize) {
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+
+		private PooledConnection(Connection physical) {
+			this.physical = physical;
+		}
+
+		private Connection lease() {
+			return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new LeaseHandler(this));
+		}
+
+		private PreparedStatement checkOut(StatementKey key) throws SQLException {
+			PreparedStatement statement = statements.remove(key);
+			if (statement != null && !statement.isClosed()) {
+				statementCacheHits.increment();
+				return statement;
+			}
+
+			statementCacheMisses.increment();
+			return key.autoGeneratedKeys == PreparedStatement.NO_GENERATED_KEYS
+					? physical.prepareStatement(key.sql)
+					: physical.prepareStatement(key.sql, key.autoGeneratedKeys);
+		}
+
+		private void checkIn(StatementKey key, PreparedStatement statement) {
+			try {
+				if (statement.isClosed()) {
+					return;
+				}
+				statement.clearParameters();
+				statement.clearBatch();
+				statement.setMaxRows(0);
+				statement.setQueryTimeout(0);
+				statement.setFetchSize(0);
+			} catch (SQLException e) {
+				closeQuietly(statement);
+				return;
+			}
+
+			if (statements.putIfAbsent(key, statement) != null) {
+				closeQuietly(statement);
+			}
+		}
+	}
+
+	private static class StatementKey {
+
+		private final String sql;
+		private final int autoGeneratedKeys;
+
+		private StatementKey(String sql, int autoGeneratedKeys) {
+			this.sql = sql;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof StatementKey)) {
+				return false;
+			}
+			StatementKey key = (StatementKey) other;
+			return autoGeneratedKeys == key.autoGeneratedKeys && sql.equals(key.sql);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(sql, autoGeneratedKeys);
+		}
+	}
+
+	private class LeaseHandler implements InvocationHandler {
+
+		private final PooledConnection pooled;
+		private boolean closed = false;
+
+		private LeaseHandler(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					release(pooled);
+				}
+				return null;
+			case "isClosed":
+				return closed || pooled.physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "PooledConnection[" + pooled.physical + "]";
+			default:
+				break;
+			}
+
+			if (closed) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+
+			switch (method.getName()) {
+			case "prepareStatement":
+				statementCount.increment();
+				StatementKey key = cacheKey(args);
+				if (key != null) {
+					return cachedStatement(proxy, key);
+				}
+				break;
+			case "createStatement":
+			case "prepareCall":
+				statementCount.increment();
+				break;
+			default:
+				break;
+			}
+
+			try {
+				return method.invoke(pooled.physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		private StatementKey cacheKey(Object[] args) {
+			if (statementCacheSize == 0) {
+				return null;
+			}
+			if (args.length == 1) {
+				return new StatementKey((String) args[0], PreparedStatement.NO_GENERATED_KEYS);
+			}
+			if (args.length == 2 && args[1] instanceof Integer) {
+				return new StatementKey((String) args[0], (Integer) args[1]);
+			}
+			return null;
+		}
+
+		private PreparedStatement cachedStatement(Object connection, StatementKey key) throws SQLException {
+			PreparedStatement statement = pooled.checkOut(key);
+			return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class },
+					new CachedStatementHandler(this, (Connection) connection, key, statement));
+		}
+	}
+
+	/**
+	 * Hands a cached statement to a single caller. Closing it returns the
+	 * statement to the cache of its connection, unless the connection has been
+	 * returned to the pool in the meantime, in which case the statement is closed.
+	 */
+	private class CachedStatementHandler implements InvocationHandler {
+
+		private final LeaseHandler lease;
+		private final Connection connection;
+		private final StatementKey key;
+		private final PreparedStatement statement;
+		private boolean closed = false;
+
+		private CachedStatementHandler(LeaseHandler lease, Connection connection, StatementKey key,
+				PreparedStatement statement) {
+			this.lease = lease;
+			this.connection = connection;
+			this.key = key;
+			this.statement = statement;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					if (lease.closed) {
+						closeQuietly(statement);
+					} else {
+						lease.pooled.checkIn(key, statement);
+					}
+				}
+				return null;
+			case "isClosed":
+				return closed || statement.isClosed();
+			case "getConnection":
+				return connection;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "CachedStatement[" + statement + "]";
+			default:
+				break;
+			}
+
+			if (closed) {
+				throw new SQLException("Statement has already been closed");
+			}
+
+			try {
+				return method.invoke(statement, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+}
@@ -1,54 +1,300 @@
 package in.fssa.homebakery.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-//import io.github.cdimascio.dotenv.Dotenv;
-
 public class ConnectionUtil {
 
+	private static final Logger LOG = Logger.getLogger(ConnectionUtil.class);
+
+	private static final int DEFAULT_MIN_POOL_SIZE = 2;
+	private static final int DEFAULT_MAX_POOL_SIZE = 10;
+	private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 5000;
+	private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 300000;
+	private static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 2;
+	private static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	private static volatile ConnectionPool pool;
+	private static volatile boolean migrated = false;
+
+	private static final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+
+	private static final MethodMetrics.Recorder acquireMetrics = MethodMetrics
+			.recorder("ConnectionUtil.getConnection");
+
+	/**
+	 * Configures the size and timeouts of the connection pool.
+	 *
+	 * This method is meant to be called once at application startup, before the
+	 * first call to 'getConnection'. If a pool already exists it is shut down and
+	 * replaced by a new one with the given settings. When it is never called, the
+	 * pool is created on first use from the 'homebakery.pool.*' system properties,
+	 * falling back to the defaults of this class.
+	 *
+	 * @param minSize              The number of connections kept open while idle.
+	 * @param maxSize              The maximum number of open connections.
+	 * @param acquireTimeoutMillis How long a caller waits for a free connection.
+	 * @param idleTimeoutMillis    How long a surplus connection may stay idle
+	 *                             before it is closed.
+	 * @throws IllegalArgumentException If the sizes or timeouts are invalid.
+	 */
+	public static synchronized void configurePool(int minSize, int maxSize, long acquireTimeoutMillis,
+			long idleTimeoutMillis) {
+		ConnectionPool newPool = new ConnectionPool(getUrl(), getUserName(), getPassWord(), minSize, maxSize,
+				acquireTimeoutMillis, idleTimeoutMillis, DEFAULT_VALIDATION_TIMEOUT_SECONDS, getStatementCacheSize());
+		if (pool != null) {
+			pool.shutdown();
+		}
+		pool = newPool;
+	}
+
+	/**
+	 * Closes every pooled connection. Subsequent calls to 'getConnection' create a
+	 * new pool, and migrate its database if the url has changed in between.
+	 */
+	public static synchronized void shutdownPool() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		migrated = false;
+	}
+
+	/**
+	 * Returns the number of statements prepared on pooled connections.
+	 *
+	 * Reading the count before and after a service call tells how many queries
+	 * the call sent to the database.
+	 *
+	 * @return The number of statements created by the current pool, or 0 if no
+	 *         pool has been created yet.
+	 */
+	public static long getStatementCount() {
+		ConnectionPool current = pool;
+		return current != null ? current.getStatementCount() : 0;
+	}
+
+	/**
+	 * Returns the maximum number of connections the pool opens at a time.
+	 *
+	 * @return The maximum size of the current pool, or the size the pool will be
+	 *         created with if no pool has been created yet.
+	 */
+	public static int getMaxPoolSize() {
+		ConnectionPool current = pool;
+		return current != null ? current.getMaxSize()
+				: Integer.getInteger("homebakery.pool.maxSize", DEFAULT_MAX_POOL_SIZE);
+	}
+
+	/**
+	 * Returns how many prepared statements were reused from the statement cache of
+	 * their pooled connection instead of being prepared again.
+	 *
+	 * @return The number of statement cache hits of the current pool, or 0 if no
+	 *         pool has been created yet.
+	 */
+	public static long getStatementCacheHits() {
+		ConnectionPool current = pool;
+		return current != null ? current.getStatementCacheHits() : 0;
+	}
+
+	/**
+	 * Returns how many cacheable statements had to be prepared because they were
+	 * not in the statement cache of their pooled connection.
+	 *
+	 * @return The number of statement cache misses of the current pool, or 0 if
+	 *         no pool has been created yet.
+	 */
+	public static long getStatementCacheMisses() {
+		ConnectionPool current = pool;
+		return current != null ? current.getStatementCacheMisses() : 0;
+	}
+
 	/**
-	 * Establishes a database connection using the provided configuration.
+	 * Borrows a database connection from the connection pool.
 	 *
-	 * This method creates a database connection to the configured database server.
-	 * It uses the database hostname, username, and password obtained from the
-	 * environment variables.
+	 * This method hands out a connection from a bounded pool of connections to
+	 * the configured database server, creating the pool on first use. Closing
+	 * the returned connection, directly or through the 'close' methods of this
+	 * class, returns it to the pool.
+	 * 
+	 * If a transaction started by 'TransactionUtil' is active on the current
+	 * thread, the connection of that transaction is returned instead, so that
+	 * every DAO call of the unit of work runs on the same connection.
+	 * 
+	 * The first call of the process also brings the schema up to date with
+	 * 'MigrationRunner', unless the 'homebakery.db.migrate' system property is
+	 * set to false.
+	 * 
+	 * The time spent borrowing from the pool, including waits for a free
+	 * connection, is recorded in 'MethodMetrics' as
+	 * 'ConnectionUtil.getConnection'.
 	 * 
 	 * @return A database connection instance.
-	 * @throws SQLException 
-	 * @throws RuntimeException If an error occurs while establishing the
-	 *                          connection.
+	 * @throws SQLException If no connection becomes free within the acquire
+	 *                      timeout or a new connection cannot be established.
 	 */
 	public static Connection getConnection() throws SQLException {
+		Connection conn = transactionConnection.get();
+		if (conn != null) {
+			return conn;
+		}
+
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			conn = getPool().borrow();
+			failed = false;
+			return conn;
+		} finally {
+			acquireMetrics.record(start, failed);
+		}
+	}
+
+	/**
+	 * Returns the fetch size used for statements whose rows are streamed.
+	 *
+	 * The size can be set with the 'homebakery.db.streamFetchSize' system
+	 * property. Without it, MySQL statements use Integer.MIN_VALUE, which makes
+	 * the MySQL driver read the result one row at a time instead of buffering it
+	 * completely, and statements of other databases fetch rows in chunks of
+	 * 'DEFAULT_STREAMING_FETCH_SIZE'.
+	 *
+	 * @return The fetch size for streaming statements.
+	 */
+	public static int getStreamingFetchSize() {
+		Integer fetchSize = Integer.getInteger("homebakery.db.streamFetchSize");
+		if (fetchSize != null) {
+			return fetchSize;
+		}
+		return getUrl().startsWith("jdbc:mysql:") ? Integer.MIN_VALUE : DEFAULT_STREAMING_FETCH_SIZE;
+	}
+
+	/**
+	 * Checks whether a transaction is active on the current thread.
+	 *
+	 * @return True if DAO calls on this thread currently share a transaction
+	 *         connection, false otherwise.
+	 */
+	public static boolean isInTransaction() {
+		return transactionConnection.get() != null;
+	}
 
+	static void bindTransactionConnection(Connection conn) {
+		transactionConnection.set(conn);
+	}
 
+	static void unbindTransactionConnection() {
+		transactionConnection.remove();
+	}
 
-		Connection connection = null;
-	    String url;
-        String userName;
-        String passWord;
+	private static ConnectionPool getPool() throws SQLException {
+		ConnectionPool current = pool;
+		if (current != null && migrated) {
+			return current;
+		}
 
-//            url = System.getenv("DATABASE_HOSTNAME");
-//            userName = System.getenv("DATABASE_USERNAME");
-//            passWord = System.getenv("DATABASE_PASSWORD");
-        
-        		url = "jdbc:mysql://localhost:3306/homebakery";
-        		userName = "root";
-        		passWord= "123456";
+		synchronized (ConnectionUtil.class) {
+			if (pool == null) {
+				try {
+					Class.forName(System.getProperty("homebakery.db.driver", "com.mysql.cj.jdbc.Driver"));
+				} catch (ClassNotFoundException e) {
+					LOG.error("Could not load the JDBC driver", e);
+					throw new SQLException(e);
+				}
 
-		try {
-			Class.forName("com.mysql.cj.jdbc.Driver");
-			connection = DriverManager.getConnection(url, userName, passWord);
+				ConnectionPool newPool = new ConnectionPool(getUrl(), getUserName(), getPassWord(),
+						Integer.getInteger("homebakery.pool.minSize", DEFAULT_MIN_POOL_SIZE),
+						Integer.getInteger("homebakery.pool.maxSize", DEFAULT_MAX_POOL_SIZE),
+						Long.getLong("homebakery.pool.acquireTimeoutMillis", DEFAULT_ACQUIRE_TIMEOUT_MILLIS),
+						Long.getLong("homebakery.pool.idleTimeoutMillis", DEFAULT_IDLE_TIMEOUT_MILLIS),
+						DEFAULT_VALIDATION_TIMEOUT_SECONDS, getStatementCacheSize());
+				try {
+					newPool.warmUp();
+				} catch (SQLException e) {
+					newPool.shutdown();
+					throw e;
+				}
+				pool = newPool;
+			}
+			if (!migrated) {
+				migrate(pool);
+				migrated = true;
+			}
+			return pool;
+		}
+	}
+
+	private static void migrate(ConnectionPool current) throws SQLException {
+		if (!Boolean.parseBoolean(System.getProperty("homebakery.db.migrate", "true"))) {
+			return;
+		}
+		try (Connection conn = current.borrow()) {
+			MigrationRunner.migrate(conn);
+		} catch (SQLException e) {
+			LOG.error("Schema migration failed", e);
+			throw e;
+		}
+	}
+
+	private static String getUrl() {
+//		String url = System.getenv("DATABASE_HOSTNAME");
+		String url = System.getProperty("homebakery.db.url", "jdbc:mysql://localhost:3306/homebakery");
+		return withDriverDefaults(url);
+	}
+
+	/**
+	 * Returns the number of prepared statements each pooled connection caches,
+	 * from the 'homebakery.pool.statementCacheSize' system property. 0 disables
+	 * the cache.
+	 */
+	private static int getStatementCacheSize() {
+		return Integer.getInteger("homebakery.pool.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE);
+	}
 
-		} catch (ClassNotFoundException | SQLException e) {
-			e.printStackTrace();
-			throw new SQLException(e);
+	/**
+	 * Adds the MySQL driver options this application relies on to a JDBC url.
+	 *
+	 * 'rewriteBatchedStatements' lets the MySQL driver send a batch of inserts as
+	 * a single multi-row statement. 'useServerPrepStmts' makes the server parse
+	 * each prepared statement once and execute it by handle afterwards, and
+	 * 'cachePrepStmts' with its size and SQL length limit keeps those server
+	 * statements for reuse across 'prepareStatement' calls on a connection.
+	 * Options already present in the url are left untouched, and urls of other
+	 * databases are returned unchanged.
+	 *
+	 * @param url The configured JDBC url.
+	 * @return The url including the driver options.
+	 */
+	private static String withDriverDefaults(String url) {
+		if (!url.startsWith("jdbc:mysql:")) {
+			return url;
 		}
+		url = withOption(url, "rewriteBatchedStatements", "true");
+		url = withOption(url, "useServerPrepStmts", "true");
+		url = withOption(url, "cachePrepStmts", "true");
+		url = withOption(url, "prepStmtCacheSize", "250");
+		return withOption(url, "prepStmtCacheSqlLimit", "2048");
+	}
+
+	private static String withOption(String url, String name, String value) {
+		if (url.contains(name + "=")) {
+			return url;
+		}
+		return url + (url.contains("?") ? "&" : "?") + name + "=" + value;
+	}
+
+	private static String getUserName() {
+//		return System.getenv("DATABASE_USERNAME");
+		return System.getProperty("homebakery.db.username", "root");
+	}
 
-		return connection;
+	private static String getPassWord() {
+//		return System.getenv("DATABASE_PASSWORD");
+		return System.getProperty("homebakery.db.password", "123456");
 	}
 
 	/**
@@ -56,7 +302,9 @@ public class ConnectionUtil {
 	 *
 	 * This method is used to close both the database connection and the prepared
 	 * statement after they have been used for database operations. It ensures that
-	 * the resources are properly released and the connection is closed.
+	 * the resources are properly released and the connection is returned to the
+	 * connection pool. The connection of an active transaction is left open until
+	 * the transaction ends.
 	 *
 	 * @param connection The database connection to be closed.
 	 * @param ps         The prepared statement to be closed.
@@ -66,11 +314,11 @@ public class ConnectionUtil {
 			if (ps != null) {
 				ps.close();
 			}
-			if (connection != null) {
+			if (connection != null && connection != transactionConnection.get()) {
 				connection.close();
 			}
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
+			LOG.warn("Could not close connection", e);
 		}
 	}
 
@@ -79,7 +327,9 @@ public class ConnectionUtil {
 	 *
 	 * This method is used to close the database connection, prepared statement, and
 	 * result set after they have been used for database operations. It ensures that
-	 * the resources are properly released and the connection is closed.
+	 * the resources are properly released and the connection is returned to the
+	 * connection pool. The connection of an active transaction is left open until
+	 * the transaction ends.
 	 *
 	 * @param connection The database connection to be closed.
 	 * @param ps         The prepared statement to be closed.
@@ -93,11 +343,11 @@ public class ConnectionUtil {
 			if (ps != null) {
 				ps.close();
 			}
-			if (connection != null) {
+			if (connection != null && connection != transactionConnection.get()) {
 				connection.close();
 			}
 		} catch (SQLException e) {
-			System.out.println(e.getMessage());
+			LOG.warn("Could not close connection", e);
 		}
 	}
 
@@ -0,0 +1,160 @@
+package in.fssa.homebakery.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.BatchLoader;
+
+/**
+ * Collects lookups by key, deduplicates them and loads them with one batched
+ * query, remembering every result for the lifetime of the loader.
+ *
+ * Keys can be queued with 'prime' ahead of time, so that the first 'load'
+ * fetches all of them together. Keys that were looked up but not found are
+ * remembered as well and return null without another query. A loader is meant
+ * to live for a single request on a single thread and is not thread-safe.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the loaded values.
+ */
+public class DataLoader<K, V> {
+
+	private final BatchLoader<K, V> batchLoader;
+	private final Map<K, V> loaded = new HashMap<>();
+	private final Set<K> pending = new LinkedHashSet<>();
+	private int batchCount = 0;
+
+	/**
+	 * Creates a loader that fetches values with the given batch loader.
+	 *
+	 * @param batchLoader Loads the values of several keys at once. Keys without a
+	 *                    value are simply left out of its result.
+	 */
+	public DataLoader(BatchLoader<K, V> batchLoader) {
+		this.batchLoader = batchLoader;
+	}
+
+	/**
+	 * Queues a key to be loaded with the next batch, unless its value is already
+	 * known.
+	 *
+	 * @param key The key to queue.
+	 */
+	public void prime(K key) {
+		if (!loaded.containsKey(key)) {
+			pending.add(key);
+		}
+	}
+
+	/**
+	 * Remembers the value of a key that was obtained some other way, for example
+	 * as part of a larger entity, unless a value is already known. A later lookup
+	 * of the key then costs no query.
+	 *
+	 * @param key   The key of the value.
+	 * @param value The value of the key.
+	 */
+	public void prime(K key, V value) {
+		if (!loaded.containsKey(key)) {
+			loaded.put(key, value);
+			pending.remove(key);
+		}
+	}
+
+	/**
+	 * Returns the value of a key, loading it together with every queued key if it
+	 * is not known yet.
+	 *
+	 * @param key The key to look up.
+	 * @return The value of the key, or null if it does not exist.
+	 * @throws PersistanceException If the batch loader fails.
+	 */
+	public V load(K key) throws PersistanceException {
+		if (loaded.containsKey(key)) {
+			return loaded.get(key);
+		}
+		pending.add(key);
+		dispatch();
+		return loaded.get(key);
+	}
+
+	/**
+	 * Returns the values of several keys, loading all unknown keys and every
+	 * queued key in one batch.
+	 *
+	 * @param keys The keys to look up.
+	 * @return A 'Map' from key to value, in the order of 'keys'. Keys that do not
+	 *         exist are not contained in the map.
+	 * @throws PersistanceException If the batch loader fails.
+	 */
+	public Map<K, V> loadMany(Collection<K> keys) throws PersistanceException {
+		for (K key : keys) {
+			prime(key);
+		}
+		dispatch();
+
+		Map<K, V> values = new LinkedHashMap<>();
+		for (K key : keys) {
+			V value = loaded.get(key);
+			if (value != null) {
+				values.put(key, value);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Loads every queued key in one batch.
+	 *
+	 * @throws PersistanceException If the batch loader fails. The queued keys are
+	 *                              then dropped and loaded again on their next
+	 *                              lookup.
+	 */
+	public void dispatch() throws PersistanceException {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		List<K> keys = new ArrayList<>(pending);
+		pending.clear();
+		Map<K, V> values = batchLoader.loadAll(keys);
+		batchCount++;
+
+		for (K key : keys) {
+			loaded.put(key, values.get(key));
+		}
+	}
+
+	/**
+	 * Forgets the value of a key, so that its next lookup queries it again.
+	 *
+	 * @param key The key to forget.
+	 */
+	public void clear(K key) {
+		loaded.remove(key);
+	}
+
+	/**
+	 * Forgets every known value.
+	 */
+	public void clearAll() {
+		loaded.clear();
+	}
+
+	/**
+	 * Returns the number of batches this loader has dispatched.
+	 *
+	 * @return The number of calls made to the batch loader.
+	 */
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+}
@@ -0,0 +1,63 @@
+package in.fssa.homebakery.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves the constants of an enum from the strings stored in the database.
+ *
+ * The constants are indexed once by their name, their lower case name and
+ * their capitalised name, so the spellings the database actually holds are
+ * found with a single map lookup instead of an upper case copy of every value
+ * followed by 'valueOf'. Any other spelling falls back to that conversion.
+ * A lookup is immutable and can be shared by all threads.
+ *
+ * @param <E> The type of the enum.
+ */
+public class EnumLookup<E extends Enum<E>> {
+
+	private final Class<E> type;
+	private final Map<String, E> constants = new HashMap<>();
+
+	private EnumLookup(Class<E> type) {
+		this.type = type;
+		for (E constant : type.getEnumConstants()) {
+			String name = constant.name();
+			String lowerCase = name.toLowerCase(Locale.ROOT);
+			constants.put(name, constant);
+			constants.put(lowerCase, constant);
+			constants.put(name.charAt(0) + lowerCase.substring(1), constant);
+		}
+	}
+
+	/**
+	 * Creates the lookup of an enum.
+	 *
+	 * @param <E>  The type of the enum.
+	 * @param type The class of the enum.
+	 * @return The lookup of the constants of the enum.
+	 */
+	public static <E extends Enum<E>> EnumLookup<E> of(Class<E> type) {
+		return new EnumLookup<>(type);
+	}
+
+	/**
+	 * Returns the constant with the given name, ignoring case.
+	 *
+	 * @param value The name of the constant, in any case.
+	 * @return The matching constant, or null if the value is null.
+	 * @throws IllegalArgumentException If the enum has no constant with the name.
+	 */
+	public E get(String value) {
+		if (value == null) {
+			return null;
+		}
+		E constant = constants.get(value);
+		if (constant != null) {
+			return constant;
+		}
+		return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+	}
+
+}
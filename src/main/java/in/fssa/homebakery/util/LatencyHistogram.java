@@ -0,0 +1,168 @@
+package in.fssa.homebakery.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records latencies in nanoseconds and answers percentile queries about them.
+ *
+ * Values are counted in log-linear buckets: every power of two is split into
+ * 'SUB_BUCKETS' buckets of equal width, so a percentile is reported with a
+ * relative error below 1 / 'SUB_BUCKETS' (about 6%) whatever the magnitude of
+ * the latency. Values above 'MAX_TRACKABLE_NANOS', about 18 minutes, are
+ * counted in the last bucket.
+ *
+ * Recording only increments counters, without locks or allocation, so any
+ * number of threads can record into one histogram at the same time. Reads are
+ * not atomic with respect to concurrent recording: a percentile computed while
+ * values are being recorded may miss the latest of them, which is fine for
+ * monitoring.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 40;
+
+	public static final long MAX_TRACKABLE_NANOS = (1L << (MAX_EXPONENT + 1)) - 1;
+
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Records one latency.
+	 *
+	 * @param nanos The latency in nanoseconds. Negative values are recorded as 0.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucketOf(Math.min(value, MAX_TRACKABLE_NANOS)));
+		totalCount.increment();
+		totalNanos.add(value);
+
+		long max = maxNanos.get();
+		while (value > max && !maxNanos.compareAndSet(max, value)) {
+			max = maxNanos.get();
+		}
+	}
+
+	/**
+	 * Returns the number of recorded latencies.
+	 *
+	 * @return The number of calls to 'record' since the histogram was created or
+	 *         reset.
+	 */
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	/**
+	 * Returns the sum of all recorded latencies.
+	 *
+	 * @return The total in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	/**
+	 * Returns the largest recorded latency.
+	 *
+	 * @return The maximum in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * Returns the average of the recorded latencies.
+	 *
+	 * @return The mean in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public double getMeanNanos() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) getTotalNanos() / count;
+	}
+
+	/**
+	 * Returns the latency below which the given share of the recorded latencies
+	 * lie.
+	 *
+	 * The result is the upper end of the bucket holding the requested rank, but
+	 * never more than the largest recorded latency.
+	 *
+	 * @param percentile The percentile between 0 and 100, for example 99.9.
+	 * @return The latency in nanoseconds, or 0 if nothing was recorded.
+	 * @throws IllegalArgumentException If the percentile is outside 0 to 100.
+	 */
+	public long getPercentileNanos(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100");
+		}
+
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * Forgets all recorded latencies.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.reset();
+		totalNanos.reset();
+		maxNanos.set(0);
+	}
+
+	/**
+	 * Returns the bucket of a value. Values below 'SUB_BUCKETS' get a bucket each,
+	 * larger values share a bucket with the values that have the same highest
+	 * bit and the same 'SUB_BUCKET_BITS' bits below it.
+	 */
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Returns the largest value counted in a bucket.
+	 */
+	static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return (SUB_BUCKETS + subBucket) * width + width - 1;
+	}
+
+}
@@ -0,0 +1,100 @@
+package in.fssa.homebakery.util;
+
+import java.util.Locale;
+
+/**
+ * Logs messages with structured fields through the shared 'AsyncAppender'.
+ *
+ * Every class keeps one logger in a static field, named after the class:
+ *
+ * private static final Logger LOG = Logger.getLogger(ProductService.class);
+ *
+ * Messages are constant texts, and the values that change from call to call,
+ * such as the DAO method or the ID of an entity, are passed as alternating
+ * names and values, for example
+ *
+ * LOG.error("Could not find product", e, "productId", id);
+ *
+ * which keeps the messages searchable and lets the appender recognise repeats
+ * of the same error. Levels below the threshold of the
+ * 'homebakery.log.level' system property (default INFO) return without doing
+ * anything.
+ */
+public class Logger {
+
+	/**
+	 * The severity of a log event.
+	 */
+	public enum Level {
+		DEBUG, INFO, WARN, ERROR
+	}
+
+	private static final Level THRESHOLD = parseLevel(System.getProperty("homebakery.log.level", "INFO"));
+
+	private static final Object[] NO_FIELDS = new Object[0];
+
+	private final String name;
+
+	private Logger(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns a logger named after a class.
+	 *
+	 * @param type The class that logs.
+	 * @return A logger using the simple name of the class.
+	 */
+	public static Logger getLogger(Class<?> type) {
+		return new Logger(type.getSimpleName());
+	}
+
+	/**
+	 * Checks whether events of a level are written.
+	 *
+	 * @param level The level to check.
+	 * @return True if the level is at or above the configured threshold.
+	 */
+	public boolean isEnabled(Level level) {
+		return level.compareTo(THRESHOLD) >= 0;
+	}
+
+	public void debug(String message, Object... fields) {
+		log(Level.DEBUG, message, null, fields);
+	}
+
+	public void info(String message, Object... fields) {
+		log(Level.INFO, message, null, fields);
+	}
+
+	public void warn(String message, Object... fields) {
+		log(Level.WARN, message, null, fields);
+	}
+
+	public void warn(String message, Throwable error, Object... fields) {
+		log(Level.WARN, message, error, fields);
+	}
+
+	public void error(String message, Object... fields) {
+		log(Level.ERROR, message, null, fields);
+	}
+
+	public void error(String message, Throwable error, Object... fields) {
+		log(Level.ERROR, message, error, fields);
+	}
+
+	private void log(Level level, String message, Throwable error, Object[] fields) {
+		if (isEnabled(level)) {
+			AsyncAppender.getInstance().append(level, name, message, error, fields != null ? fields : NO_FIELDS);
+		}
+	}
+
+	private static Level parseLevel(String level) {
+		try {
+			return Level.valueOf(level.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			return Level.INFO;
+		}
+	}
+
+}
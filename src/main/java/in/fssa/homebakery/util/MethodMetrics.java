@@ -0,0 +1,213 @@
+package in.fssa.homebakery.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps call counts, error counts and latency histograms of named operations,
+ * such as 'ProductPriceDAO.findCurrentPrice' or 'ConnectionUtil.getConnection'.
+ *
+ * The DAOs handed out by 'DAOFactory' record every method call here, and
+ * 'ConnectionUtil' records every connection borrowed from the pool. A
+ * 'Recorder' is looked up once per operation and then only increments
+ * counters, so recording adds no locking to the measured calls.
+ *
+ * Recording can be turned off with the 'homebakery.metrics.enabled' system
+ * property, which is read once when the class is loaded.
+ */
+public class MethodMetrics {
+
+	private static final boolean ENABLED = Boolean
+			.parseBoolean(System.getProperty("homebakery.metrics.enabled", "true"));
+
+	private static final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+	private MethodMetrics() {
+	}
+
+	/**
+	 * Returns whether calls are being recorded.
+	 *
+	 * @return True unless recording was turned off with a system property.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Returns the recorder of an operation, creating it on first use.
+	 *
+	 * @param name The name of the operation, by convention 'Class.method'.
+	 * @return The recorder shared by every caller using this name.
+	 */
+	public static Recorder recorder(String name) {
+		return recorders.computeIfAbsent(name, Recorder::new);
+	}
+
+	/**
+	 * Returns the current figures of every operation that has a recorder.
+	 *
+	 * @return The snapshots ordered by operation name.
+	 */
+	public static List<Snapshot> snapshot() {
+		List<Snapshot> snapshots = new ArrayList<>();
+		for (Recorder recorder : recorders.values()) {
+			snapshots.add(recorder.snapshot());
+		}
+		snapshots.sort(Comparator.comparing(Snapshot::getName));
+		return snapshots;
+	}
+
+	/**
+	 * Formats the figures of every operation that was called as a table, slowest
+	 * p99 latency first, with latencies in milliseconds.
+	 *
+	 * @return The table, one line per operation after a header line.
+	 */
+	public static String dump() {
+		List<Snapshot> snapshots = snapshot();
+		snapshots.removeIf(snapshot -> snapshot.getCalls() == 0);
+		snapshots.sort(Comparator.comparingLong(Snapshot::getP99Nanos).reversed());
+
+		StringBuilder table = new StringBuilder(String.format("%-60s %10s %8s %10s %10s %10s %10s %10s%n",
+				"operation", "calls", "errors", "mean", "p50", "p99", "p999", "max"));
+		for (Snapshot snapshot : snapshots) {
+			table.append(String.format("%-60s %10d %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", snapshot.getName(),
+					snapshot.getCalls(), snapshot.getErrors(), millis(snapshot.getMeanNanos()),
+					millis(snapshot.getP50Nanos()), millis(snapshot.getP99Nanos()), millis(snapshot.getP999Nanos()),
+					millis(snapshot.getMaxNanos())));
+		}
+		return table.toString();
+	}
+
+	/**
+	 * Sets the figures of every operation back to zero, for example between the
+	 * warm-up and the measured part of a load test.
+	 */
+	public static void reset() {
+		for (Recorder recorder : recorders.values()) {
+			recorder.reset();
+		}
+	}
+
+	private static double millis(double nanos) {
+		return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * Counts the calls of one operation and records their latencies.
+	 */
+	public static class Recorder {
+
+		private final String name;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LatencyHistogram latencies = new LatencyHistogram();
+
+		private Recorder(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Records one call of the operation.
+		 *
+		 * @param startNanos The 'System.nanoTime' at which the call started.
+		 * @param failed     Whether the call ended with an exception.
+		 */
+		public void record(long startNanos, boolean failed) {
+			if (!ENABLED) {
+				return;
+			}
+			latencies.record(System.nanoTime() - startNanos);
+			calls.increment();
+			if (failed) {
+				errors.increment();
+			}
+		}
+
+		private Snapshot snapshot() {
+			return new Snapshot(name, calls.sum(), errors.sum(), latencies.getMeanNanos(),
+					latencies.getPercentileNanos(50), latencies.getPercentileNanos(99),
+					latencies.getPercentileNanos(99.9), latencies.getMaxNanos());
+		}
+
+		private void reset() {
+			calls.reset();
+			errors.reset();
+			latencies.reset();
+		}
+	}
+
+	/**
+	 * The figures of one operation at the time 'snapshot' was called. Latencies
+	 * are in nanoseconds.
+	 */
+	public static class Snapshot {
+
+		private final String name;
+		private final long calls;
+		private final long errors;
+		private final double meanNanos;
+		private final long p50Nanos;
+		private final long p99Nanos;
+		private final long p999Nanos;
+		private final long maxNanos;
+
+		private Snapshot(String name, long calls, long errors, double meanNanos, long p50Nanos, long p99Nanos,
+				long p999Nanos, long maxNanos) {
+			this.name = name;
+			this.calls = calls;
+			this.errors = errors;
+			this.meanNanos = meanNanos;
+			this.p50Nanos = p50Nanos;
+			this.p99Nanos = p99Nanos;
+			this.p999Nanos = p999Nanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCalls() {
+			return calls;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public double getMeanNanos() {
+			return meanNanos;
+		}
+
+		public long getP50Nanos() {
+			return p50Nanos;
+		}
+
+		public long getP99Nanos() {
+			return p99Nanos;
+		}
+
+		public long getP999Nanos() {
+			return p999Nanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot [name=" + name + ", calls=" + calls + ", errors=" + errors + ", meanNanos=" + meanNanos
+					+ ", p50Nanos=" + p50Nanos + ", p99Nanos=" + p99Nanos + ", p999Nanos=" + p999Nanos
+					+ ", maxNanos=" + maxNanos + "]";
+		}
+	}
+
+}
@@ -0,0 +1,252 @@
+package in.fssa.homebakery.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brings the database schema up to date with the versioned scripts in
+ * 'src/main/resources/db/migration'.
+ *
+ * Each script is named 'V<version>__<description>.sql' and listed in
+ * 'MIGRATIONS'. The versions applied so far are recorded in the
+ * 'schema_version' table, and every script with a higher version is run once,
+ * in order. 'CREATE DATABASE' and 'USE' statements of the scripts are skipped,
+ * because the connection already points at the configured database.
+ *
+ * Databases that were set up by hand before migrations were tracked already
+ * contain the tables of the first script. When the runner finds a 'products'
+ * table but no 'schema_version' table, it records 'BASELINE_VERSION' as
+ * applied and only runs the scripts after it. Some of those scripts add what
+ * such databases may already have had added by hand, so an 'ALTER TABLE ...
+ * ADD COLUMN' of a column that exists and a 'CREATE INDEX' of an index that
+ * exists are skipped.
+ *
+ * MySQL commits every DDL statement on its own, so a script that fails half way
+ * is not rolled back. Its version is not recorded and it is run again on the
+ * next start once the failing statement has been fixed.
+ */
+public class MigrationRunner {
+
+	private static final Logger LOG = Logger.getLogger(MigrationRunner.class);
+
+	private static final String MIGRATION_PATH = "db/migration/";
+
+	private static final Pattern ADD_COLUMN = Pattern.compile(
+			"ALTER\\s+TABLE\\s+`?(\\w+)`?\\s+ADD\\s+(?:COLUMN\\s+)?`?(\\w+)`?\\s.*",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern CREATE_INDEX = Pattern.compile(
+			"CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+`?(\\w+)`?\\s+ON\\s+`?(\\w+)`?.*",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final String[] MIGRATIONS = { "V1__create_users.sql", "V2__add_product_min_price.sql",
+			"V3__add_orders_and_product_images.sql", "V4__add_hot_query_indexes.sql" };
+
+	/**
+	 * The last version that every hand-made database contains.
+	 */
+	public static final int BASELINE_VERSION = 1;
+
+	private MigrationRunner() {
+	}
+
+	/**
+	 * Runs every migration the database has not seen yet.
+	 *
+	 * @param conn A connection to the database to migrate. It is left open.
+	 * @return The number of migrations that were run.
+	 * @throws SQLException If the history cannot be read or a migration fails.
+	 */
+	public static int migrate(Connection conn) throws SQLException {
+		if (!tableExists(conn, "schema_version")) {
+			boolean existingSchema = tableExists(conn, "products");
+			try (Statement stmt = conn.createStatement()) {
+				stmt.executeUpdate("CREATE TABLE schema_version (version INT NOT NULL, description VARCHAR(255) NOT NULL, "
+						+ "installed_on TIMESTAMP NOT NULL, PRIMARY KEY (version))");
+			}
+			if (existingSchema) {
+				record(conn, BASELINE_VERSION, "<< baseline >>");
+			}
+		}
+
+		int currentVersion = findCurrentVersion(conn);
+		int applied = 0;
+		for (String migration : MIGRATIONS) {
+			int version = versionOf(migration);
+			if (version <= currentVersion) {
+				continue;
+			}
+
+			try (Statement stmt = conn.createStatement()) {
+				for (String sql : splitStatements(readScript(migration))) {
+					if (!isSkipped(sql) && !isAlreadyApplied(conn, sql)) {
+						stmt.execute(sql);
+					}
+				}
+			} catch (SQLException e) {
+				throw new SQLException("Migration " + migration + " failed: " + e.getMessage(), e);
+			}
+			record(conn, version, descriptionOf(migration));
+			LOG.info("Applied migration", "migration", migration);
+			applied++;
+		}
+		return applied;
+	}
+
+	/**
+	 * Returns the highest schema version recorded in the database.
+	 *
+	 * @param conn A connection to the database.
+	 * @return The current version, or 0 if no migration has been recorded.
+	 * @throws SQLException If the history table cannot be read.
+	 */
+	public static int findCurrentVersion(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	/**
+	 * Splits a script into its statements at every semicolon outside of quotes.
+	 * Lines starting with '--' are dropped.
+	 */
+	static List<String> splitStatements(String script) {
+		StringBuilder withoutComments = new StringBuilder(script.length());
+		for (String line : script.split("\r?\n")) {
+			if (!line.trim().startsWith("--")) {
+				withoutComments.append(line).append('\n');
+			}
+		}
+
+		List<String> statements = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		char quote = 0;
+		for (int i = 0; i < withoutComments.length(); i++) {
+			char c = withoutComments.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"' || c == '`') {
+				quote = c;
+			} else if (c == ';') {
+				addStatement(statements, current);
+				current.setLength(0);
+				continue;
+			}
+			current.append(c);
+		}
+		addStatement(statements, current);
+		return statements;
+	}
+
+	private static void addStatement(List<String> statements, StringBuilder statement) {
+		String sql = statement.toString().trim();
+		if (!sql.isEmpty()) {
+			statements.add(sql);
+		}
+	}
+
+	private static boolean isSkipped(String sql) {
+		String upperCase = sql.toUpperCase(Locale.ROOT);
+		return upperCase.startsWith("CREATE DATABASE") || upperCase.startsWith("USE ");
+	}
+
+	/**
+	 * Checks whether a statement adds a column or an index that already exists.
+	 */
+	private static boolean isAlreadyApplied(Connection conn, String sql) throws SQLException {
+		Matcher addColumn = ADD_COLUMN.matcher(sql);
+		if (addColumn.matches()) {
+			return columnExists(conn, addColumn.group(1), addColumn.group(2));
+		}
+		Matcher createIndex = CREATE_INDEX.matcher(sql);
+		if (createIndex.matches()) {
+			return indexExists(conn, createIndex.group(2), createIndex.group(1));
+		}
+		return false;
+	}
+
+	private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+		DatabaseMetaData metaData = conn.getMetaData();
+		for (String name : new String[] { table, table.toUpperCase(Locale.ROOT) }) {
+			try (ResultSet rs = metaData.getColumns(conn.getCatalog(), null, name, null)) {
+				while (rs.next()) {
+					if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+		DatabaseMetaData metaData = conn.getMetaData();
+		for (String name : new String[] { table, table.toUpperCase(Locale.ROOT) }) {
+			try (ResultSet rs = metaData.getIndexInfo(conn.getCatalog(), null, name, false, false)) {
+				while (rs.next()) {
+					if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean tableExists(Connection conn, String table) throws SQLException {
+		DatabaseMetaData metaData = conn.getMetaData();
+		for (String name : new String[] { table, table.toUpperCase(Locale.ROOT) }) {
+			try (ResultSet rs = metaData.getTables(conn.getCatalog(), null, name, new String[] { "TABLE" })) {
+				if (rs.next()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static void record(Connection conn, int version, String description) throws SQLException {
+		String query = "INSERT INTO schema_version (version, description, installed_on) VALUES (?, ?, ?)";
+		try (PreparedStatement ps = conn.prepareStatement(query)) {
+			ps.setInt(1, version);
+			ps.setString(2, description);
+			ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+			ps.executeUpdate();
+		}
+	}
+
+	private static String readScript(String migration) throws SQLException {
+		try (InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream(MIGRATION_PATH + migration)) {
+			if (in == null) {
+				throw new SQLException("Migration " + migration + " not found");
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new SQLException("Migration " + migration + " cannot be read: " + e.getMessage(), e);
+		}
+	}
+
+	private static int versionOf(String migration) {
+		return Integer.parseInt(migration.substring(1, migration.indexOf("__")));
+	}
+
+	private static String descriptionOf(String migration) {
+		return migration.substring(migration.indexOf("__") + 2, migration.length() - ".sql".length()).replace('_', ' ');
+	}
+
+}
@@ -0,0 +1,70 @@
+package in.fssa.homebakery.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import in.fssa.homebakery.exception.ValidationException;
+
+public class PageTokenUtil {
+
+	private static final String TOKEN_PREFIX = "v1:";
+
+	/**
+	 * Encodes the sort keys of the last row of a page into a continuation token.
+	 *
+	 * The token is an opaque, url safe string. Clients pass it back unchanged to
+	 * fetch the next page, which then starts right after the row with these keys.
+	 *
+	 * @param keys The sort keys of the last row of the page, most significant
+	 *             first. The row ID is usually the last key.
+	 * @return The continuation token.
+	 */
+	public static String encode(int... keys) {
+		StringBuilder builder = new StringBuilder(TOKEN_PREFIX);
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(keys[i]);
+		}
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a continuation token created by 'encode'.
+	 *
+	 * @param token        The continuation token received from the client. A
+	 *                     null or empty token means the first page.
+	 * @param expectedKeys The number of sort keys the token must contain.
+	 * @return The sort keys stored in the token, or null for the first page.
+	 * @throws ValidationException If the token is malformed or was created for a
+	 *                             different ordering.
+	 */
+	public static int[] decode(String token, int expectedKeys) throws ValidationException {
+		if (StringUtil.isInvalidString(token)) {
+			return null;
+		}
+
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+			if (!decoded.startsWith(TOKEN_PREFIX)) {
+				throw new ValidationException("Invalid page token");
+			}
+
+			String[] parts = decoded.substring(TOKEN_PREFIX.length()).split(",");
+			if (parts.length != expectedKeys) {
+				throw new ValidationException("Invalid page token");
+			}
+
+			int[] keys = new int[parts.length];
+			for (int i = 0; i < parts.length; i++) {
+				keys[i] = Integer.parseInt(parts[i]);
+			}
+			return keys;
+		} catch (IllegalArgumentException e) {
+			throw new ValidationException("Invalid page token");
+		}
+	}
+
+}
@@ -0,0 +1,363 @@
+package in.fssa.homebakery.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Writes the statements that took longer than a threshold to a log file, one
+ * line per statement with its SQL text, bound parameters, elapsed time, row
+ * count and the application method that ran it.
+ *
+ * 'JdbcTemplate' reports every statement here. Statements under the threshold
+ * cost one comparison. A slow statement is formatted on the calling thread and
+ * handed to a bounded queue without waiting; a single daemon thread writes the
+ * queue to the file. If the queue is full because the disk cannot keep up, the
+ * entry is dropped and counted instead of blocking the request.
+ *
+ * When the file would grow beyond its maximum size it is renamed to 'name.1',
+ * older files move up to 'name.2' and so on, and the oldest file beyond the
+ * configured number of backups is deleted.
+ *
+ * The shared log of 'getInstance' is configured with these system properties:
+ *
+ * 'homebakery.slowQueryLog.thresholdMillis' (default 500; a negative value
+ * turns the log off), 'homebakery.slowQueryLog.file' (default
+ * 'logs/slow-queries.log'), 'homebakery.slowQueryLog.maxFileBytes' (default
+ * 10 MB), 'homebakery.slowQueryLog.maxBackups' (default 5) and
+ * 'homebakery.slowQueryLog.queueCapacity' (default 1024).
+ */
+public class SlowQueryLog {
+
+	private static final Logger LOG = Logger.getLogger(SlowQueryLog.class);
+
+	private static final long DEFAULT_THRESHOLD_MILLIS = 500;
+	private static final String DEFAULT_FILE = "logs/slow-queries.log";
+	private static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+	private static final int DEFAULT_MAX_BACKUPS = 5;
+	private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private static final int MAX_PARAMETER_LENGTH = 100;
+	private static final int MAX_LISTED_PARAMETERS = 20;
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final String STOP = new String("stop");
+
+	private static volatile SlowQueryLog instance;
+
+	private final Path file;
+	private final long thresholdNanos;
+	private final long maxFileBytes;
+	private final int maxBackups;
+	private final BlockingQueue<String> queue;
+
+	private final LongAdder written = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	private Thread writer;
+	private boolean closed = false;
+
+	/**
+	 * Creates a slow query log.
+	 *
+	 * @param file            The file the entries are appended to. Missing
+	 *                        parent directories are created.
+	 * @param thresholdMillis Statements that take longer are logged. A negative
+	 *                        threshold turns the log off.
+	 * @param maxFileBytes    The size after which the file is rolled over.
+	 * @param maxBackups      How many rolled over files are kept.
+	 * @param queueCapacity   How many entries may wait for the writer thread.
+	 * @throws IllegalArgumentException If a size or count is not positive.
+	 */
+	public SlowQueryLog(Path file, long thresholdMillis, long maxFileBytes, int maxBackups, int queueCapacity) {
+		if (maxFileBytes <= 0 || maxBackups < 0 || queueCapacity <= 0) {
+			throw new IllegalArgumentException("Invalid slow query log settings");
+		}
+		this.file = file;
+		this.thresholdNanos = thresholdMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.maxFileBytes = maxFileBytes;
+		this.maxBackups = maxBackups;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	/**
+	 * Returns the log shared by all DAOs, creating it from the system properties
+	 * on first use. Pending entries are written when the JVM shuts down.
+	 *
+	 * @return The shared slow query log.
+	 */
+	public static SlowQueryLog getInstance() {
+		SlowQueryLog current = instance;
+		if (current != null) {
+			return current;
+		}
+		synchronized (SlowQueryLog.class) {
+			if (instance == null) {
+				SlowQueryLog log = new SlowQueryLog(
+						Paths.get(System.getProperty("homebakery.slowQueryLog.file", DEFAULT_FILE)),
+						Long.getLong("homebakery.slowQueryLog.thresholdMillis", DEFAULT_THRESHOLD_MILLIS),
+						Long.getLong("homebakery.slowQueryLog.maxFileBytes", DEFAULT_MAX_FILE_BYTES),
+						Integer.getInteger("homebakery.slowQueryLog.maxBackups", DEFAULT_MAX_BACKUPS),
+						Integer.getInteger("homebakery.slowQueryLog.queueCapacity", DEFAULT_QUEUE_CAPACITY));
+				Runtime.getRuntime().addShutdownHook(new Thread(log::close, "homebakery-slow-query-log-shutdown"));
+				instance = log;
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * Checks whether a statement took long enough to be logged.
+	 *
+	 * @param elapsedNanos The time the statement took.
+	 * @return True if the statement is slower than the threshold.
+	 */
+	public boolean isSlow(long elapsedNanos) {
+		return elapsedNanos > thresholdNanos;
+	}
+
+	/**
+	 * Logs a statement if it was slower than the threshold.
+	 *
+	 * The caller is the first method on the stack outside the 'dao' and 'util'
+	 * packages, usually the service method that issued the query. Lambdas are
+	 * skipped, so a query run by 'TransactionUtil' is attributed to the method
+	 * that started the transaction.
+	 *
+	 * @param sql          The SQL text of the statement.
+	 * @param params       The bound parameters. Nested arrays, such as the
+	 *                     parameter sets of a batch, are listed as well.
+	 * @param elapsedNanos The time the statement took.
+	 * @param rows         The number of rows read or changed.
+	 */
+	public void log(String sql, Object[] params, long elapsedNanos, long rows) {
+		if (!isSlow(elapsedNanos)) {
+			return;
+		}
+
+		StringBuilder entry = new StringBuilder(256);
+		entry.append(LocalDateTime.now()).append(' ');
+		entry.append(String.format("%.3f ms", elapsedNanos / 1e6));
+		entry.append(" rows=").append(rows);
+		entry.append(" caller=").append(findCaller());
+		entry.append(" sql=").append(WHITESPACE.matcher(sql.trim()).replaceAll(" "));
+		entry.append(" params=");
+		appendValue(entry, params);
+
+		if (!queue.offer(entry.toString())) {
+			dropped.increment();
+			return;
+		}
+		startWriter();
+	}
+
+	/**
+	 * Returns the number of entries written to the file.
+	 *
+	 * @return The number of written entries.
+	 */
+	public long getWrittenCount() {
+		return written.sum();
+	}
+
+	/**
+	 * Returns the number of entries dropped because the queue was full.
+	 *
+	 * @return The number of dropped entries.
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Writes the pending entries and stops the writer thread. Entries logged
+	 * afterwards are dropped.
+	 */
+	public void close() {
+		Thread current;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			current = writer;
+		}
+		if (current == null) {
+			return;
+		}
+		try {
+			queue.put(STOP);
+			current.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private synchronized void startWriter() {
+		if (closed) {
+			queue.clear();
+			return;
+		}
+		if (writer == null) {
+			writer = new Thread(this::writeEntries, "homebakery-slow-query-log");
+			writer.setDaemon(true);
+			writer.start();
+		}
+	}
+
+	private void writeEntries() {
+		BufferedWriter out = null;
+		long size = 0;
+		List<String> batch = new ArrayList<>();
+		try {
+			while (true) {
+				batch.add(queue.take());
+				queue.drainTo(batch);
+
+				for (String entry : batch) {
+					if (entry == STOP) {
+						return;
+					}
+					byte[] line = (entry + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+					try {
+						if (out == null) {
+							Path parent = file.toAbsolutePath().getParent();
+							if (parent != null) {
+								Files.createDirectories(parent);
+							}
+							out = open();
+							size = Files.size(file);
+						}
+						if (size > 0 && size + line.length > maxFileBytes) {
+							out.close();
+							roll();
+							out = open();
+							size = 0;
+						}
+						out.write(entry);
+						out.newLine();
+						size += line.length;
+						written.increment();
+					} catch (IOException e) {
+						LOG.warn("Could not write slow query log", e, "file", file);
+						dropped.increment();
+					}
+				}
+				batch.clear();
+				flush(out);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			flush(out);
+			closeQuietly(out);
+		}
+	}
+
+	private BufferedWriter open() throws IOException {
+		return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+	}
+
+	private void roll() throws IOException {
+		if (maxBackups == 0) {
+			Files.deleteIfExists(file);
+			return;
+		}
+		Files.deleteIfExists(backup(maxBackups));
+		for (int i = maxBackups - 1; i >= 1; i--) {
+			if (Files.exists(backup(i))) {
+				Files.move(backup(i), backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private Path backup(int index) {
+		return file.resolveSibling(file.getFileName() + "." + index);
+	}
+
+	private static void flush(BufferedWriter out) {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.flush();
+		} catch (IOException e) {
+			LOG.warn("Could not write slow query log", e);
+		}
+	}
+
+	private static void closeQuietly(BufferedWriter out) {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.close();
+		} catch (IOException e) {
+			LOG.warn("Could not close slow query log", e);
+		}
+	}
+
+	private static String findCaller() {
+		return StackWalker.getInstance()
+				.walk(frames -> frames.filter(SlowQueryLog::isApplicationFrame)
+						.map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName()).findFirst())
+				.orElse("unknown");
+	}
+
+	private static boolean isApplicationFrame(StackWalker.StackFrame frame) {
+		String className = frame.getClassName();
+		return className.startsWith("in.fssa.homebakery.") && !className.startsWith("in.fssa.homebakery.dao.")
+				&& !className.startsWith("in.fssa.homebakery.util.") && !frame.getMethodName().startsWith("lambda$");
+	}
+
+	private static String simpleName(String className) {
+		return className.substring(className.lastIndexOf('.') + 1);
+	}
+
+	private static void appendValue(StringBuilder entry, Object value) {
+		if (value == null) {
+			entry.append("NULL");
+		} else if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			entry.append('[');
+			for (int i = 0; i < length && i < MAX_LISTED_PARAMETERS; i++) {
+				if (i > 0) {
+					entry.append(", ");
+				}
+				appendValue(entry, Array.get(value, i));
+			}
+			if (length > MAX_LISTED_PARAMETERS) {
+				entry.append(", ... ").append(length - MAX_LISTED_PARAMETERS).append(" more");
+			}
+			entry.append(']');
+		} else if (value instanceof CharSequence) {
+			String text = value.toString();
+			entry.append('\'');
+			if (text.length() > MAX_PARAMETER_LENGTH) {
+				entry.append(text, 0, MAX_PARAMETER_LENGTH).append("...");
+			} else {
+				entry.append(text);
+			}
+			entry.append('\'');
+		} else {
+			entry.append(value);
+		}
+	}
+
+}
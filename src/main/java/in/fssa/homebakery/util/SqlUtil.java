@@ -0,0 +1,55 @@
+package in.fssa.homebakery.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public class SqlUtil {
+
+	/**
+	 * The largest number of values bound into a single SQL 'IN' list.
+	 */
+	public static final int MAX_IN_LIST_SIZE = 1000;
+
+	/**
+	 * Builds the placeholder list for an SQL 'IN' clause.
+	 *
+	 * For a count of 3 this method returns "?, ?, ?". It is used together with
+	 * 'partition' to bind a list of values into a prepared statement.
+	 *
+	 * @param count The number of placeholders, at least one.
+	 * @return The comma separated placeholders.
+	 */
+	public static String placeholders(int count) {
+		StringBuilder builder = new StringBuilder(count * 3);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append('?');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Splits a collection of values into distinct chunks for SQL 'IN' lists.
+	 *
+	 * Duplicate values are removed and the remaining values are split, in their
+	 * original order, into lists of at most 'MAX_IN_LIST_SIZE' values, so that a
+	 * large lookup never produces an oversized statement.
+	 *
+	 * @param <T>    The type of the values.
+	 * @param values The values to be split.
+	 * @return The chunks, or an empty list if there are no values.
+	 */
+	public static <T> List<List<T>> partition(Collection<T> values) {
+		List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+		List<List<T>> chunks = new ArrayList<>();
+		for (int from = 0; from < distinct.size(); from += MAX_IN_LIST_SIZE) {
+			chunks.add(distinct.subList(from, Math.min(from + MAX_IN_LIST_SIZE, distinct.size())));
+		}
+		return chunks;
+	}
+
+}
@@ -0,0 +1,90 @@
+package in.fssa.homebakery.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.interfaces.TransactionCallback;
+
+public class TransactionUtil {
+
+	private static final Logger LOG = Logger.getLogger(TransactionUtil.class);
+
+	/**
+	 * Runs a unit of work inside a single database transaction.
+	 *
+	 * This method borrows one connection from the pool, disables auto-commit and
+	 * binds the connection to the current thread. Every DAO call made by the
+	 * callback on this thread then obtains the same connection from
+	 * 'ConnectionUtil.getConnection', so all of its statements share one
+	 * connection and one commit. If the callback completes normally the
+	 * transaction is committed. If it throws anything, including an Error, the
+	 * transaction is rolled back before auto-commit is restored, and the
+	 * exception is rethrown.
+	 *
+	 * If a transaction is already active on the current thread, the callback
+	 * simply joins it and the outermost call decides whether to commit.
+	 *
+	 * With the in-memory backend of 'DAOFactory' no connection is borrowed. The
+	 * callback runs under the lock of the in-memory database on a copy of the
+	 * tables it touches, which replaces the shared tables only if it completes.
+	 *
+	 * @param <T>      The type of the value returned by the callback.
+	 * @param callback The unit of work to run.
+	 * @return The value returned by the callback.
+	 * @throws PersistanceException If the callback fails with a persistence error
+	 *                              or the transaction cannot be started or
+	 *                              committed.
+	 */
+	public static <T> T executeInTransaction(TransactionCallback<T> callback) throws PersistanceException {
+		if (DAOFactory.isInMemory()) {
+			return DAOFactory.getInMemoryDatabase().executeInTransaction(callback);
+		}
+		if (ConnectionUtil.isInTransaction()) {
+			return callback.doInTransaction();
+		}
+
+		Connection conn = null;
+		try {
+			conn = ConnectionUtil.getConnection();
+			conn.setAutoCommit(false);
+		} catch (SQLException e) {
+			LOG.error("Could not start transaction", e);
+			ConnectionUtil.close(conn, null);
+			throw new PersistanceException(e.getMessage());
+		}
+
+		ConnectionUtil.bindTransactionConnection(conn);
+		boolean committed = false;
+		try {
+			T result = callback.doInTransaction();
+			conn.commit();
+			committed = true;
+			return result;
+		} catch (SQLException e) {
+			LOG.error("Could not commit transaction", e);
+			throw new PersistanceException(e.getMessage());
+		} finally {
+			ConnectionUtil.unbindTransactionConnection();
+			if (!committed) {
+				rollback(conn);
+			}
+			try {
+				conn.setAutoCommit(true);
+			} catch (SQLException e) {
+				LOG.warn("Could not restore auto-commit", e);
+			}
+			ConnectionUtil.close(conn, null);
+		}
+	}
+
+	private static void rollback(Connection conn) {
+		try {
+			conn.rollback();
+		} catch (SQLException e) {
+			LOG.warn("Could not roll back transaction", e);
+		}
+	}
+
+}
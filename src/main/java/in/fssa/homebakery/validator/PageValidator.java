@@ -0,0 +1,43 @@
+package in.fssa.homebakery.validator;
+
+import in.fssa.homebakery.exception.ValidationException;
+
+public class PageValidator {
+
+	/**
+	 * The largest number of items that can be requested in one page.
+	 */
+	public static final int MAX_PAGE_SIZE = 100;
+
+	/**
+	 * Validates the requested page size of a paginated listing.
+	 *
+	 * This method checks whether the provided page size is between one and
+	 * 'MAX_PAGE_SIZE'. If it is not, a ValidationException is thrown with an
+	 * error message.
+	 *
+	 * @param pageSize The number of items requested per page.
+	 * @throws ValidationException If the page size is outside the valid range.
+	 */
+	public static void validatePageSize(int pageSize) throws ValidationException {
+		if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+			throw new ValidationException("Invalid page size");
+		}
+	}
+
+	/**
+	 * Validates the requested sort order of a sorted listing.
+	 *
+	 * This method checks whether the provided sort order is either "asc" or
+	 * "desc", ignoring case. If it is not, a ValidationException is thrown with an
+	 * error message.
+	 *
+	 * @param sort The requested sort order.
+	 * @throws ValidationException If the sort order is null or not recognised.
+	 */
+	public static void validateSortOrder(String sort) throws ValidationException {
+		if (!"asc".equalsIgnoreCase(sort) && !"desc".equalsIgnoreCase(sort)) {
+			throw new ValidationException("Invalid sort order");
+		}
+	}
+}
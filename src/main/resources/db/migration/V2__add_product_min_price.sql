@@ -0,0 +1,17 @@
+-- products.min_price holds the lowest current price of every product. The
+-- product and price DAOs write it on every price change, so it must exist
+-- before this version of the application runs. MigrationRunner applies this
+-- script on startup. Databases started with -Dhomebakery.db.migrate=false
+-- need it applied by hand.
+
+USE `project_backend`;
+
+ALTER TABLE products ADD COLUMN min_price INT NULL;
+
+UPDATE products p
+SET p.min_price = (
+    SELECT MIN(pp.price) FROM product_prices pp
+    WHERE pp.product_id = p.id AND pp.end_date IS NULL
+);
+
+CREATE INDEX idx_products_active_min_price ON products (is_active, min_price, id);
@@ -0,0 +1,28 @@
+-- Databases set up by hand may already have some of these changes. The
+-- orders table is only created when it is missing, MigrationRunner skips
+-- adding a column that exists, and the MODIFY statements can run again.
+
+USE `project_backend`;
+
+CREATE TABLE IF NOT EXISTS orders (
+	id INT NOT NULL AUTO_INCREMENT,
+    user_id INT NOT NULL,
+    product_id INT NOT NULL,
+    price_id INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 1,
+    address VARCHAR(255) NOT NULL,
+    delivery_date TIMESTAMP NULL,
+    delivery_time TIME NULL,
+    status VARCHAR(20) NOT NULL,
+    ordered_time TIMESTAMP NULL,
+    PRIMARY KEY (id),
+    FOREIGN KEY (user_id) REFERENCES users (id),
+    FOREIGN KEY (product_id) REFERENCES products (id),
+    FOREIGN KEY (price_id) REFERENCES product_prices (id)
+);
+
+ALTER TABLE products ADD COLUMN image_url VARCHAR(255);
+
+ALTER TABLE users MODIFY phone_no BIGINT NOT NULL;
+
+ALTER TABLE product_prices MODIFY quantity DOUBLE NOT NULL DEFAULT 1;
@@ -0,0 +1,11 @@
+USE `project_backend`;
+
+CREATE INDEX idx_product_prices_product_end_quantity ON product_prices (product_id, end_date, quantity);
+
+CREATE INDEX idx_orders_user_ordered_time ON orders (user_id, ordered_time);
+
+CREATE INDEX idx_products_active_category ON products (is_active, category_id);
+
+CREATE INDEX idx_users_email ON users (email);
+
+CREATE INDEX idx_users_phone_no ON users (phone_no);
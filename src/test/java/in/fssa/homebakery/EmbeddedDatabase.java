@@ -0,0 +1,211 @@
+package in.fssa.homebakery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Set;
+
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.PasswordEncryptor;
+
+/**
+ * Prepares an embedded database for the tests and benchmarks, so that they can
+ * run without a MySQL server.
+ *
+ * Without a 'homebakery.db.url' system property 'ConnectionUtil' is pointed at
+ * an in-memory H2 database in MySQL mode, whose schema is created by the
+ * migrations that run on the first connection. An empty database is then
+ * filled with a generated catalog, users and orders; a database that already
+ * contains products is used as it is.
+ *
+ * The size of the generated data is set with these system properties:
+ *
+ * 'homebakery.seed.categories' (default 3), 'homebakery.seed.products'
+ * (default 300), 'homebakery.seed.pricesPerProduct' (default 3),
+ * 'homebakery.seed.users' (default 50) and 'homebakery.seed.ordersPerUser'
+ * (default 20).
+ *
+ * Every generated user has the password 'Bench@123', encrypted with the
+ * 'SECRET_KEY' environment variable when it is set.
+ *
+ * A few rows match what the tests in this directory expect of the shared
+ * development database: the products they use as deleted ones are generated
+ * inactive, the users they use as deleted ones are left out, user 1 has the
+ * email the order tests sign in with, and product 1 has no price for 1 kg,
+ * which the price tests create.
+ */
+public class EmbeddedDatabase {
+
+	public static final int CATEGORIES = Integer.getInteger("homebakery.seed.categories", 3);
+	public static final int PRODUCTS = Integer.getInteger("homebakery.seed.products", 300);
+	public static final int PRICES_PER_PRODUCT = Integer.getInteger("homebakery.seed.pricesPerProduct", 3);
+	public static final int USERS = Integer.getInteger("homebakery.seed.users", 50);
+	public static final int ORDERS_PER_USER = Integer.getInteger("homebakery.seed.ordersPerUser", 20);
+
+	public static final String PASSWORD = "Bench@123";
+
+	private static final Set<Integer> DELETED_PRODUCT_IDS = Set.of(10, 33, 35, 44, 99);
+	private static final Set<Integer> MISSING_USER_IDS = Set.of(29);
+	private static final String FIRST_USER_EMAIL = "john@example.com";
+	private static final int PRODUCT_WITHOUT_FIRST_QUANTITY = 1;
+
+	private static final String EMBEDDED_URL = "jdbc:h2:mem:homebakery;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	private static final int BATCH_SIZE = 1000;
+
+	private static boolean started = false;
+
+	private EmbeddedDatabase() {
+	}
+
+	/**
+	 * Points 'ConnectionUtil' at the embedded database and fills it if it is
+	 * empty. Calls after the first return at once.
+	 *
+	 * @throws SQLException If the database cannot be reached or filled.
+	 */
+	public static synchronized void start() throws SQLException {
+		if (started) {
+			return;
+		}
+		if (System.getProperty("homebakery.db.url") == null) {
+			System.setProperty("homebakery.db.url", EMBEDDED_URL);
+			System.setProperty("homebakery.db.driver", "org.h2.Driver");
+		}
+
+		try (Connection conn = ConnectionUtil.getConnection()) {
+			if (count(conn, "SELECT COUNT(*) FROM products") == 0) {
+				fill(conn);
+			}
+		}
+		started = true;
+	}
+
+	/**
+	 * Closes the pooled connections. The in-memory database keeps its data until
+	 * the JVM exits.
+	 */
+	public static synchronized void stop() {
+		ConnectionUtil.shutdownPool();
+	}
+
+	private static void fill(Connection conn) throws SQLException {
+		conn.setAutoCommit(false);
+		try (PreparedStatement categories = conn
+				.prepareStatement("INSERT INTO categories (id, category_name) VALUES (?, ?)")) {
+			for (int category = 1; category <= CATEGORIES; category++) {
+				categories.setInt(1, category);
+				categories.setString(2, "Category " + category);
+				addBatch(categories, category);
+			}
+			categories.executeBatch();
+		}
+
+		Timestamp start = new Timestamp(System.currentTimeMillis());
+		try (PreparedStatement products = conn.prepareStatement(
+				"INSERT INTO products (id, product_name, description, category_id, image_url, is_veg, is_active, min_price) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement prices = conn.prepareStatement(
+						"INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (?, ?, ?, 'kg', ?)")) {
+			int priceCount = 0;
+			for (int product = 1; product <= PRODUCTS; product++) {
+				products.setInt(1, product);
+				products.setString(2, "Cake " + product);
+				products.setString(3, "Generated cake number " + product);
+				products.setInt(4, product % CATEGORIES + 1);
+				products.setString(5, "https://picsum.photos/200");
+				products.setBoolean(6, product % 2 == 0);
+				products.setBoolean(7, !DELETED_PRODUCT_IDS.contains(product));
+				products.setInt(8, priceOf(product, firstQuantityOf(product)));
+				addBatch(products, product);
+			}
+			products.executeBatch();
+
+			for (int product = 1; product <= PRODUCTS; product++) {
+				int firstQuantity = firstQuantityOf(product);
+				for (int quantity = firstQuantity; quantity < firstQuantity + PRICES_PER_PRODUCT; quantity++) {
+					prices.setInt(1, product);
+					prices.setInt(2, priceOf(product, quantity));
+					prices.setDouble(3, quantity);
+					prices.setTimestamp(4, start);
+					addBatch(prices, ++priceCount);
+				}
+			}
+			prices.executeBatch();
+		}
+
+		String password = encryptedPassword();
+		try (PreparedStatement users = conn.prepareStatement(
+				"INSERT INTO users (id, first_name, last_name, email, password, phone_no) VALUES (?, 'Generated', 'User', ?, ?, ?)");
+				PreparedStatement orders = conn.prepareStatement(
+						"INSERT INTO orders (user_id, product_id, price_id, quantity, address, delivery_date, delivery_time, status, ordered_time) VALUES (?, ?, ?, 1, 'Generated street', ?, ?, 'NOT_DELIVERED', ?)")) {
+			for (int user = 1; user <= USERS; user++) {
+				if (MISSING_USER_IDS.contains(user)) {
+					continue;
+				}
+				users.setInt(1, user);
+				users.setString(2, user == 1 ? FIRST_USER_EMAIL : "generated" + user + "@gmail.com");
+				users.setString(3, password);
+				users.setLong(4, 9000000000L + user);
+				addBatch(users, user);
+			}
+			users.executeBatch();
+
+			int orderCount = 0;
+			for (int user = 1; user <= USERS; user++) {
+				if (MISSING_USER_IDS.contains(user)) {
+					continue;
+				}
+				for (int order = 0; order < ORDERS_PER_USER; order++) {
+					int product = (user * ORDERS_PER_USER + order) % PRODUCTS + 1;
+					orders.setInt(1, user);
+					orders.setInt(2, product);
+					orders.setInt(3, (product - 1) * PRICES_PER_PRODUCT + 1);
+					orders.setTimestamp(4, start);
+					orders.setTime(5, new Time(start.getTime()));
+					orders.setTimestamp(6, start);
+					addBatch(orders, ++orderCount);
+				}
+			}
+			orders.executeBatch();
+		}
+		conn.commit();
+		conn.setAutoCommit(true);
+	}
+
+	private static int firstQuantityOf(int product) {
+		return product == PRODUCT_WITHOUT_FIRST_QUANTITY ? 2 : 1;
+	}
+
+	private static int priceOf(int product, int quantity) {
+		return (100 + product) * quantity;
+	}
+
+	private static void addBatch(PreparedStatement stmt, int count) throws SQLException {
+		stmt.addBatch();
+		if (count % BATCH_SIZE == 0) {
+			stmt.executeBatch();
+		}
+	}
+
+	private static String encryptedPassword() {
+		String secretKey = System.getenv("SECRET_KEY");
+		if (secretKey == null) {
+			return "unused";
+		}
+		try {
+			return PasswordEncryptor.encrypt(PASSWORD, secretKey);
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not encrypt the generated password", e);
+		}
+	}
+
+	private static int count(Connection conn, String query) throws SQLException {
+		try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+package in.fssa.homebakery;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Starts the 'EmbeddedDatabase' before the first test class runs.
+ *
+ * The extension is registered through 'META-INF/services' and only takes
+ * effect when JUnit's extension autodetection is turned on, which the
+ * 'embedded-db' Maven profile does. Without the profile the tests use the
+ * database configured for 'ConnectionUtil' as before.
+ */
+public class EmbeddedDatabaseExtension implements BeforeAllCallback {
+
+	@Override
+	public void beforeAll(ExtensionContext context) throws Exception {
+		EmbeddedDatabase.start();
+	}
+
+}
@@ -0,0 +1,78 @@
+package in.fssa.homebakery;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.MigrationRunner;
+
+/**
+ * An empty in-memory H2 database in MySQL mode that 'ConnectionUtil' hands out
+ * connections to while it is open, for the tests that need a database of their
+ * own. Closing it points 'ConnectionUtil' back at the database configured
+ * before and drops the scratch database.
+ *
+ * The schema is not migrated on the first connection. Call 'migrate' for the
+ * current schema, or create an older one with 'execute' first.
+ */
+class ScratchDatabase implements AutoCloseable {
+
+	private static final String[] PROPERTIES = { "homebakery.db.url", "homebakery.db.driver",
+			"homebakery.db.username", "homebakery.db.password", "homebakery.db.migrate" };
+
+	private final String[] previous = new String[PROPERTIES.length];
+	private final Connection conn;
+
+	ScratchDatabase(String name) throws SQLException {
+		String url = "jdbc:h2:mem:scratch-" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+		conn = DriverManager.getConnection(url, "sa", "");
+
+		for (int i = 0; i < PROPERTIES.length; i++) {
+			previous[i] = System.getProperty(PROPERTIES[i]);
+		}
+		System.setProperty("homebakery.db.url", url);
+		System.setProperty("homebakery.db.driver", "org.h2.Driver");
+		System.setProperty("homebakery.db.username", "sa");
+		System.setProperty("homebakery.db.password", "");
+		System.setProperty("homebakery.db.migrate", "false");
+		ConnectionUtil.shutdownPool();
+	}
+
+	/**
+	 * Runs the migrations that have not been applied yet.
+	 */
+	void migrate() throws SQLException {
+		MigrationRunner.migrate(conn);
+	}
+
+	void execute(String... statements) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			for (String sql : statements) {
+				stmt.execute(sql);
+			}
+		}
+	}
+
+	int count(String query) throws SQLException {
+		try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		ConnectionUtil.shutdownPool();
+		for (int i = 0; i < PROPERTIES.length; i++) {
+			if (previous[i] == null) {
+				System.clearProperty(PROPERTIES[i]);
+			} else {
+				System.setProperty(PROPERTIES[i], previous[i]);
+			}
+		}
+		conn.close();
+	}
+
+}
@@ -0,0 +1,152 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.util.AsyncAppender;
+import in.fssa.homebakery.util.Logger.Level;
+
+public class TestAsyncAppender {
+
+	@Test
+	public void writesMessageWithStructuredFields() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		AsyncAppender appender = new AsyncAppender(new PrintStream(bytes, true), 16, 0, 1);
+
+		appender.append(Level.INFO, "ProductDAO", "Statement failed", null, new Object[] { "dao",
+				"ProductDAO.findById", "sql", "SELECT 1\nFROM dual", "params", new Object[] { 5 } });
+		assertTrue(appender.flush(5000));
+		appender.close();
+
+		String output = bytes.toString(StandardCharsets.UTF_8);
+		assertTrue(output.contains(" INFO ["));
+		assertTrue(output.contains(
+				"ProductDAO - Statement failed dao=ProductDAO.findById sql=\"SELECT 1\\nFROM dual\" params=[5]"));
+	}
+
+	@Test
+	public void suppressesRepeatedErrorsWithinWindow() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		AsyncAppender appender = new AsyncAppender(new PrintStream(bytes, true), 64, 60000, 2);
+
+		for (int i = 0; i < 10; i++) {
+			appender.append(Level.ERROR, "ProductService", "getByProductId failed", new SQLException("down"),
+					new Object[] { "productId", i });
+		}
+		appender.append(Level.ERROR, "UserService", "findByUserId failed", new SQLException("down"), new Object[0]);
+		assertTrue(appender.flush(5000));
+		appender.close();
+
+		String output = bytes.toString(StandardCharsets.UTF_8);
+		assertEquals(8, appender.getSuppressedCount());
+		assertTrue(output.contains("productId=0"));
+		assertTrue(output.contains("productId=1"));
+		assertFalse(output.contains("productId=2"));
+		assertTrue(output.contains("UserService - findByUserId failed"));
+		assertEquals(2, count(output, "java.sql.SQLException: down"));
+		assertTrue(output.contains("getByProductId failed (suppressed 8 similar events)"));
+	}
+
+	@Test
+	public void reportsSuppressedEventsWhenWindowEnds() throws InterruptedException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		AsyncAppender appender = new AsyncAppender(new PrintStream(bytes, true), 64, 50, 1);
+
+		for (int i = 0; i < 3; i++) {
+			appender.append(Level.WARN, "TransactionUtil", "Could not roll back transaction", null, new Object[0]);
+		}
+		Thread.sleep(100);
+		appender.append(Level.WARN, "TransactionUtil", "Could not roll back transaction", null, new Object[0]);
+		assertTrue(appender.flush(5000));
+		appender.close();
+
+		String output = bytes.toString(StandardCharsets.UTF_8);
+		assertEquals(2, count(output, "Could not roll back transaction"));
+		assertTrue(output.contains("Could not roll back transaction (suppressed 2 similar events)"));
+	}
+
+	@Test
+	public void dropsEventsInsteadOfBlockingWhenOutputStalls() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		OutputStream stalled = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				bytes.write(b);
+			}
+		};
+		AsyncAppender appender = new AsyncAppender(new PrintStream(stalled, true), 4, 0, 1);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 100; i++) {
+			appender.append(Level.ERROR, "JdbcTemplate", "Statement failed", null, new Object[] { "i", i });
+		}
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+		release.countDown();
+		assertTrue(appender.flush(5000));
+		appender.close();
+
+		assertTrue(elapsedMillis < 1000);
+		assertTrue(appender.getDroppedCount() >= 90);
+		assertTrue(bytes.toString(StandardCharsets.UTF_8)
+				.contains("log events were dropped because the buffer was full"));
+	}
+
+	@Test
+	public void keepsEveryEventFromConcurrentProducers() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		AsyncAppender appender = new AsyncAppender(new PrintStream(bytes, false), 1 << 17, 0, 1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				int producer = thread;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 5000; i++) {
+						appender.append(Level.INFO, "Producer", "event", null, new Object[] { "producer", producer });
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(appender.flush(10000));
+		appender.close();
+
+		assertEquals(0, appender.getDroppedCount());
+		assertEquals(40000, count(bytes.toString(StandardCharsets.UTF_8), "Producer - event"));
+	}
+
+	private static int count(String text, String part) {
+		int count = 0;
+		for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + part.length())) {
+			count++;
+		}
+		return count;
+	}
+
+}
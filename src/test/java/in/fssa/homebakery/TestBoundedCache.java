@@ -0,0 +1,151 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.util.BoundedCache;
+import in.fssa.homebakery.util.BoundedCache.EvictionPolicy;
+
+public class TestBoundedCache {
+
+	@Test
+	public void evictsLeastRecentlyUsedEntry() {
+		BoundedCache<Integer, String> cache = new BoundedCache<>(2, 0, EvictionPolicy.LRU);
+
+		cache.put(1, "one");
+		cache.put(2, "two");
+		cache.get(1);
+		cache.put(3, "three");
+
+		assertEquals("one", cache.get(1));
+		assertNull(cache.get(2));
+		assertEquals("three", cache.get(3));
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void neverExceedsMaximumSize() {
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, 0, policy);
+
+			for (int i = 0; i < 10000; i++) {
+				cache.put(i, i);
+			}
+
+			assertTrue(cache.size() <= 100);
+		}
+	}
+
+	@Test
+	public void expiresEntriesAfterTimeToLive() throws InterruptedException {
+		BoundedCache<Integer, String> cache = new BoundedCache<>(10, 20, EvictionPolicy.LRU);
+
+		cache.put(1, "one");
+		assertEquals("one", cache.get(1));
+
+		Thread.sleep(50);
+
+		assertNull(cache.get(1));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void tinyLfuKeepsPopularEntriesDuringScan() {
+		int lruSurvivors = popularSurvivorsOfScan(EvictionPolicy.LRU);
+		int tinyLfuSurvivors = popularSurvivorsOfScan(EvictionPolicy.W_TINY_LFU);
+
+		assertTrue(tinyLfuSurvivors >= 45, "Only " + tinyLfuSurvivors + " popular entries survived the scan");
+		assertTrue(tinyLfuSurvivors > lruSurvivors);
+	}
+
+	private int popularSurvivorsOfScan(EvictionPolicy policy) {
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, 0, policy);
+
+		for (int round = 0; round < 5; round++) {
+			for (int key = 0; key < 50; key++) {
+				readThrough(cache, key);
+			}
+		}
+		for (int key = 1000; key < 3000; key++) {
+			readThrough(cache, key);
+			if (key % 3 == 0) {
+				readThrough(cache, key % 50);
+			}
+		}
+
+		int survivors = 0;
+		for (int key = 0; key < 50; key++) {
+			if (cache.get(key) != null) {
+				survivors++;
+			}
+		}
+		return survivors;
+	}
+
+	private void readThrough(BoundedCache<Integer, Integer> cache, int key) {
+		if (cache.get(key) == null) {
+			cache.put(key, key);
+		}
+	}
+
+	@Test
+	public void loadsMissingEntriesOnce() throws Exception {
+		BoundedCache<Integer, String> cache = new BoundedCache<>(10, 0, EvictionPolicy.W_TINY_LFU);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals("value 7", cache.get(7, key -> {
+			loads.incrementAndGet();
+			return "value " + key;
+		}));
+		assertEquals("value 7", cache.get(7, key -> {
+			loads.incrementAndGet();
+			return "value " + key;
+		}));
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void doesNotCacheNullValues() throws Exception {
+		BoundedCache<Integer, String> cache = new BoundedCache<>(10, 0, EvictionPolicy.LRU);
+
+		assertNull(cache.get(1, key -> null));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void invalidateRemovesEntries() {
+		BoundedCache<Integer, String> cache = new BoundedCache<>(10, 0, EvictionPolicy.W_TINY_LFU);
+		cache.put(1, "one");
+		cache.put(2, "two");
+
+		cache.invalidate(1);
+		assertNull(cache.get(1));
+		assertNotNull(cache.get(2));
+
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void rejectsInvalidSize() {
+		Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+			new BoundedCache<Integer, String>(0, 0, EvictionPolicy.LRU);
+		});
+
+		String expectedMessage = "Invalid cache size";
+		String actualMessage = exception.getMessage();
+
+		assertTrue(expectedMessage.equals(actualMessage));
+	}
+
+}
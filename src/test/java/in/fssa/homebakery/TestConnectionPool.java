@@ -0,0 +1,143 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.util.ConnectionPool;
+
+public class TestConnectionPool {
+
+	private ConnectionPool pool;
+
+	private ConnectionPool createPool(String name, int minSize, int maxSize, long acquireTimeoutMillis,
+			long idleTimeoutMillis, int statementCacheSize) {
+		pool = new ConnectionPool("jdbc:h2:mem:pool-" + name + ";DB_CLOSE_DELAY=-1", "sa", "", minSize, maxSize,
+				acquireTimeoutMillis, idleTimeoutMillis, 1, statementCacheSize);
+		return pool;
+	}
+
+	@AfterEach
+	public void shutdownPool() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void borrowTimesOutWhenPoolIsExhausted() throws SQLException {
+		ConnectionPool pool = createPool("timeout", 0, 1, 100, 60000, 0);
+
+		try (Connection conn = pool.borrow()) {
+			long start = System.nanoTime();
+			SQLException exception = assertThrows(SQLException.class, () -> pool.borrow());
+			assertEquals("Timed out waiting for a database connection", exception.getMessage());
+			assertTrue(System.nanoTime() - start >= 90_000_000L);
+		}
+
+		try (Connection conn = pool.borrow()) {
+			assertFalse(conn.isClosed());
+		}
+	}
+
+	@Test
+	public void evictsSurplusIdleConnections() throws Exception {
+		ConnectionPool pool = createPool("eviction", 1, 3, 1000, 100, 0);
+		pool.warmUp();
+
+		Connection first = pool.borrow();
+		Connection second = pool.borrow();
+		Connection third = pool.borrow();
+		first.close();
+		second.close();
+		third.close();
+		assertEquals(3, pool.getOpenConnections());
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getOpenConnections() > 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertEquals(1, pool.getOpenConnections());
+		assertEquals(1, pool.getIdleConnections());
+	}
+
+	@Test
+	public void replacesConnectionsThatFailValidationOnBorrow() throws SQLException {
+		ConnectionPool pool = createPool("validation", 1, 1, 1000, 60000, 0);
+		pool.warmUp();
+
+		Connection physical;
+		try (Connection conn = pool.borrow()) {
+			physical = conn.unwrap(Connection.class);
+		}
+		physical.close();
+
+		try (Connection conn = pool.borrow()) {
+			assertNotSame(physical, conn.unwrap(Connection.class));
+			assertTrue(conn.isValid(1));
+		}
+		assertEquals(1, pool.getOpenConnections());
+	}
+
+	@Test
+	public void rollsBackUncommittedWorkOnRelease() throws SQLException {
+		ConnectionPool pool = createPool("rollback", 1, 1, 1000, 60000, 0);
+
+		try (Connection conn = pool.borrow(); Statement stmt = conn.createStatement()) {
+			stmt.executeUpdate("CREATE TABLE cakes (id INT PRIMARY KEY)");
+		}
+
+		try (Connection conn = pool.borrow()) {
+			conn.setAutoCommit(false);
+			try (Statement stmt = conn.createStatement()) {
+				stmt.executeUpdate("INSERT INTO cakes (id) VALUES (1)");
+			}
+		}
+
+		try (Connection conn = pool.borrow();
+				Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM cakes")) {
+			assertTrue(conn.getAutoCommit());
+			assertTrue(rs.next());
+			assertEquals(0, rs.getInt(1));
+		}
+	}
+
+	@Test
+	public void reusesCachedStatementsAcrossBorrows() throws SQLException {
+		ConnectionPool pool = createPool("statements", 1, 1, 1000, 60000, 4);
+
+		PreparedStatement physical;
+		try (Connection conn = pool.borrow(); PreparedStatement ps = conn.prepareStatement("SELECT ?")) {
+			physical = ps.unwrap(PreparedStatement.class);
+			ps.setInt(1, 1);
+			ps.executeQuery().close();
+		}
+
+		try (Connection conn = pool.borrow(); PreparedStatement ps = conn.prepareStatement("SELECT ?")) {
+			assertSame(physical, ps.unwrap(PreparedStatement.class));
+			ps.setInt(1, 2);
+			try (ResultSet rs = ps.executeQuery()) {
+				assertTrue(rs.next());
+				assertEquals(2, rs.getInt(1));
+			}
+		}
+
+		assertEquals(1, pool.getStatementCacheHits());
+		assertEquals(1, pool.getStatementCacheMisses());
+		assertEquals(2, pool.getStatementCount());
+	}
+
+}
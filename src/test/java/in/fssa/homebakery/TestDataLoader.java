@@ -0,0 +1,126 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.service.ProductPriceService;
+import in.fssa.homebakery.service.RequestScope;
+import in.fssa.homebakery.util.DataLoader;
+
+public class TestDataLoader {
+
+	private final List<List<Integer>> batches = new ArrayList<>();
+
+	private final DataLoader<Integer, String> loader = new DataLoader<>(keys -> {
+		batches.add(new ArrayList<>(keys));
+		Map<Integer, String> values = new HashMap<>();
+		for (Integer key : keys) {
+			if (key < 100) {
+				values.put(key, "cake " + key);
+			}
+		}
+		return values;
+	});
+
+	@Test
+	public void loadsQueuedKeysInOneDeduplicatedBatch() throws PersistanceException {
+		loader.prime(1);
+		loader.prime(2);
+		loader.prime(1);
+
+		assertEquals("cake 3", loader.load(3));
+		assertEquals("cake 1", loader.load(1));
+		assertEquals(List.of(3, 1, 2), loader.loadMany(List.of(3, 1, 2, 1)).keySet().stream().toList());
+
+		assertEquals(List.of(List.of(1, 2, 3)), batches);
+		assertEquals(1, loader.getBatchCount());
+	}
+
+	@Test
+	public void remembersKeysThatWereNotFound() throws PersistanceException {
+		assertNull(loader.load(404));
+		assertNull(loader.load(404));
+		assertEquals(Map.of(1, "cake 1"), loader.loadMany(List.of(1, 404)));
+
+		assertEquals(List.of(List.of(404), List.of(1)), batches);
+	}
+
+	@Test
+	public void queriesClearedKeysAgain() throws PersistanceException {
+		loader.load(1);
+		loader.prime(2, "known cake");
+		loader.clear(1);
+
+		assertEquals("cake 1", loader.load(1));
+		assertEquals("known cake", loader.load(2));
+
+		loader.clearAll();
+		assertEquals("cake 2", loader.load(2));
+		assertEquals(List.of(List.of(1), List.of(1), List.of(2)), batches);
+	}
+
+	@Test
+	public void loadsKeysOfFailedBatchOnNextLookup() throws PersistanceException {
+		int[] calls = { 0 };
+		DataLoader<Integer, String> failingOnce = new DataLoader<>(keys -> {
+			if (calls[0]++ == 0) {
+				throw new PersistanceException("Connection reset");
+			}
+			return Map.of(1, "cake 1");
+		});
+
+		failingOnce.prime(1);
+		assertThrows(PersistanceException.class, () -> failingOnce.dispatch());
+		assertEquals("cake 1", failingOnce.load(1));
+	}
+
+	@Test
+	public void sharesScopeUntilOutermostClose() {
+		RequestScope outer = RequestScope.open();
+		try (RequestScope inner = RequestScope.open()) {
+			assertSame(outer, inner);
+		}
+		try (RequestScope joined = RequestScope.open()) {
+			assertSame(outer, joined);
+		}
+		outer.close();
+
+		try (RequestScope next = RequestScope.open()) {
+			assertNotSame(outer, next);
+		}
+	}
+
+	@Test
+	public void forgetsLoadedValuesWhenServiceChangesThem() throws Exception {
+		try (ScratchDatabase database = new ScratchDatabase("dataloader")) {
+			database.migrate();
+			database.execute("INSERT INTO categories (id, category_name) VALUES (1, 'Cakes')",
+					"INSERT INTO products (id, product_name, description, category_id, min_price) VALUES (1, 'Cake', 'A cake', 1, 500)",
+					"INSERT INTO product_prices (id, product_id, price, quantity, type, start_date) VALUES (1, 1, 500, 1, 'kg', CURRENT_DATE)");
+
+			try (RequestScope scope = RequestScope.open()) {
+				assertNull(scope.prices().load(1).getEndDate());
+
+				new ProductPriceService().deleteProductPrice(1);
+
+				ProductPrice price = scope.prices().load(1);
+				assertNotNull(price.getEndDate());
+				assertEquals(2, scope.prices().getBatchCount());
+			}
+		}
+	}
+
+}
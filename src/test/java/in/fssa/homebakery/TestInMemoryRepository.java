@@ -0,0 +1,346 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.dao.InMemoryCategoryDAO;
+import in.fssa.homebakery.dao.InMemoryDatabase;
+import in.fssa.homebakery.dao.InMemoryOrderDAO;
+import in.fssa.homebakery.dao.InMemoryProductDAO;
+import in.fssa.homebakery.dao.InMemoryProductPriceDAO;
+import in.fssa.homebakery.dao.InMemoryUserDAO;
+import in.fssa.homebakery.dto.OrderDetailDTO;
+import in.fssa.homebakery.dto.OrderDetailDTO.OrderStatus;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.model.Category;
+import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.model.ProductPriceEntity.QuantityType;
+import in.fssa.homebakery.model.User;
+
+public class TestInMemoryRepository {
+
+	private InMemoryDatabase db;
+	private InMemoryCategoryDAO categoryDAO;
+	private InMemoryProductDAO productDAO;
+	private InMemoryProductPriceDAO productPriceDAO;
+	private InMemoryUserDAO userDAO;
+	private InMemoryOrderDAO orderDAO;
+	private int categoryId;
+
+	@BeforeEach
+	public void createDatabase() {
+		db = new InMemoryDatabase();
+		categoryDAO = new InMemoryCategoryDAO(db);
+		productDAO = new InMemoryProductDAO(db);
+		productPriceDAO = new InMemoryProductPriceDAO(db);
+		userDAO = new InMemoryUserDAO(db);
+		orderDAO = new InMemoryOrderDAO(db);
+
+		Category category = new Category();
+		category.setCategoryName("Cakes");
+		categoryDAO.create(category);
+		categoryId = category.getId();
+	}
+
+	@Test
+	public void findsOnlyActiveProductsById() throws PersistanceException {
+		int active = createProduct("Black Forest", 500);
+		int inactive = createProduct("Red Velvet", 600);
+
+		assertEquals(1, productDAO.delete(inactive));
+
+		assertEquals("Black Forest", productDAO.findById(active).getName());
+		assertNull(productDAO.findById(inactive));
+		assertFalse(productDAO.productExists(inactive));
+		assertEquals(1, productDAO.findAll().size());
+		assertEquals(0, productDAO.delete(inactive));
+	}
+
+	@Test
+	public void returnsCopiesOfStoredRows() throws PersistanceException {
+		int id = createProduct("Black Forest", 500);
+
+		productDAO.findById(id).setName("Changed");
+
+		assertEquals("Black Forest", productDAO.findById(id).getName());
+	}
+
+	@Test
+	public void pagesThroughCategoryById() throws PersistanceException {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			ids.add(createProduct("Cake " + i, 100 + i));
+		}
+
+		List<ProductDetailDTO> firstPage = productDAO.findPageByCategoryId(categoryId, 0, 5);
+		List<ProductDetailDTO> secondPage = productDAO.findPageByCategoryId(categoryId,
+				firstPage.get(4).getId(), 5);
+
+		assertEquals(5, firstPage.size());
+		assertEquals(2, secondPage.size());
+		assertEquals(ids.get(6), secondPage.get(1).getId());
+		assertEquals(7, productDAO.findCountOfActiveProductsByCategoryId(categoryId));
+		assertTrue(productDAO.findByCategoryId(categoryId + 1).isEmpty());
+	}
+
+	@Test
+	public void ordersProductsByLowestCurrentPrice() throws PersistanceException {
+		int cheap = createProduct("Cupcake", 100);
+		int expensive = createProduct("Wedding Cake", 900);
+		int middle = createProduct("Brownie", 400);
+
+		List<ProductDetailDTO> ascending = productDAO.findPageOrderByPrice(false, 0, 0, 10);
+		assertEquals(List.of(cheap, middle, expensive), productIds(ascending));
+		assertEquals(100, ascending.get(0).getMinPrice());
+
+		List<ProductDetailDTO> afterCheapest = productDAO.findPageOrderByPrice(false, 100, cheap, 10);
+		assertEquals(List.of(middle, expensive), productIds(afterCheapest));
+
+		List<ProductDetailDTO> descending = productDAO.findPageOrderByPrice(true, 0, 0, 10);
+		assertEquals(List.of(expensive, middle, cheap), productIds(descending));
+	}
+
+	@Test
+	public void refreshesLowestPriceWhenPricesChange() throws PersistanceException {
+		int id = createProduct("Cupcake", 300);
+		ProductPrice cheaper = newPrice(150, 2);
+		productPriceDAO.create(cheaper, id);
+		productDAO.refreshMinPrice(id);
+
+		assertEquals(150, productDAO.findPageOrderByPrice(false, 0, 0, 1).get(0).getMinPrice());
+
+		productPriceDAO.setEndDate(id, 2);
+		productDAO.refreshMinPrice(id);
+
+		assertEquals(300, productDAO.findPageOrderByPrice(false, 0, 0, 1).get(0).getMinPrice());
+		assertEquals(1, productPriceDAO.findCurrentPrice(id).size());
+		assertEquals(2, productPriceDAO.findByProductId(id).size());
+		assertTrue(productPriceDAO.quantityExistsForProduct(id, 2));
+
+		productDAO.delete(id);
+		assertTrue(productDAO.findPageOrderByPrice(false, 0, 0, 1).isEmpty());
+	}
+
+	@Test
+	public void endsAllCurrentPricesOfProduct() throws PersistanceException {
+		int id = createProduct("Cupcake", 300);
+		int other = createProduct("Brownie", 400);
+		productPriceDAO.create(newPrice(500, 2), id);
+
+		productPriceDAO.deleteByProductId(id);
+
+		assertTrue(productPriceDAO.findCurrentPrice(id).isEmpty());
+		assertEquals(2, productPriceDAO.findByProductId(id).size());
+		assertEquals(1, productPriceDAO.findCurrentPrice(other).size());
+	}
+
+	@Test
+	public void discardsWritesOfFailedUnitOfWork() throws PersistanceException {
+		int kept = createProduct("Black Forest", 500);
+
+		assertThrows(PersistanceException.class, () -> db.executeInTransaction(() -> {
+			int id = productDAO.create(newProduct("Red Velvet"));
+			productPriceDAO.create(newPrice(100, 1), id);
+			productDAO.refreshMinPrice(id);
+			productPriceDAO.setEndDate(kept, 1);
+			productDAO.refreshMinPrice(kept);
+			productPriceDAO.create(newPrice(100, 1), 42);
+			return id;
+		}));
+		assertThrows(AssertionError.class, () -> db.executeInTransaction(() -> {
+			productDAO.delete(kept);
+			throw new AssertionError("Callback failed");
+		}));
+
+		assertEquals(List.of(kept), productIds(productDAO.findPageOrderByPrice(false, 0, 0, 10)));
+		assertEquals(500, productDAO.findPageOrderByPrice(false, 0, 0, 10).get(0).getMinPrice());
+		assertEquals(1, productDAO.findAll().size());
+		assertEquals(1, productPriceDAO.findCurrentPrice(kept).size());
+		assertEquals(1, productPriceDAO.findAll().size());
+	}
+
+	@Test
+	public void hidesUnitOfWorkFromOtherThreadsUntilItCompletes() throws Exception {
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		try {
+			int id = db.executeInTransaction(() -> {
+				int created = productDAO.create(newProduct("Cupcake"));
+				productPriceDAO.create(newPrice(100, 1), created);
+				productDAO.refreshMinPrice(created);
+
+				assertNotNull(productDAO.findById(created));
+				assertEquals(1, productDAO.findPageOrderByPrice(false, 0, 0, 10).size());
+				try {
+					assertNull(reader.submit(() -> productDAO.findById(created)).get());
+					assertTrue(reader.submit(() -> productPriceDAO.findCurrentPrice(created)).get().isEmpty());
+					assertTrue(reader.submit(() -> productDAO.findPageOrderByPrice(false, 0, 0, 10)).get().isEmpty());
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+				return created;
+			});
+
+			assertNotNull(reader.submit(() -> productDAO.findById(id)).get());
+			assertEquals(1, reader.submit(() -> productPriceDAO.findCurrentPrice(id)).get().size());
+			assertEquals(1, reader.submit(() -> productDAO.findPageOrderByPrice(false, 0, 0, 10)).get().size());
+		} finally {
+			reader.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectsPricesOfUnknownProducts() {
+		assertThrows(PersistanceException.class, () -> productPriceDAO.create(newPrice(100, 1), 42));
+	}
+
+	@Test
+	public void findsUsersByEmailIgnoringCase() throws PersistanceException {
+		User user = newUser("Baker@Gmail.com", 9876543210L);
+		userDAO.create(user);
+
+		User found = userDAO.findByEmail("baker@gmail.com");
+		assertNotNull(found);
+		assertEquals("Baker@123", found.getPassword());
+		assertTrue(userDAO.isUserEmailPresent("BAKER@GMAIL.COM"));
+		assertTrue(userDAO.isUserPhoneNoPresent(9876543210L));
+
+		Map<String, User> byEmail = userDAO.findByEmails(List.of("BAKER@gmail.com"));
+		assertEquals(found.getId(), byEmail.get("baker@gmail.com").getId());
+
+		assertEquals(1, userDAO.delete(found.getId()));
+		assertNull(userDAO.findByEmail("baker@gmail.com"));
+		assertTrue(userDAO.isUserEmailPresent("baker@gmail.com"));
+		assertTrue(userDAO.findAll().isEmpty());
+	}
+
+	@Test
+	public void joinsProductAndPriceIntoOrderDetails() throws PersistanceException {
+		int productId = createProduct("Black Forest", 500);
+		int priceId = productPriceDAO.findCurrentPrice(productId).get(0).getId();
+		userDAO.create(newUser("order@gmail.com", 9876543211L));
+		User user = userDAO.findByEmail("order@gmail.com");
+
+		OrderDetailDTO order = newOrder(user.getId(), productId, priceId);
+		orderDAO.create(order);
+		orderDAO.changeStatus(order.getId(), OrderStatus.DELIVERED);
+
+		List<OrderDetailDTO> orders = orderDAO.findOrdersWithDetailsByUserId(user.getId());
+		assertEquals(1, orders.size());
+		assertEquals(OrderStatus.DELIVERED, orders.get(0).getStatus());
+		assertEquals("Black Forest", orders.get(0).getProduct().getName());
+		assertEquals(500, orders.get(0).getProductPrice().getPrice());
+		assertNotNull(orders.get(0).getOrderedTime());
+
+		assertThrows(PersistanceException.class, () -> orderDAO.create(newOrder(user.getId() + 1, productId, priceId)));
+	}
+
+	@Test
+	public void createsUniqueIdsConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				String name = "Cake " + i;
+				futures.add(executor.submit(() -> createProduct(name, 100)));
+			}
+
+			Set<Integer> ids = new HashSet<>();
+			for (Future<Integer> future : futures) {
+				ids.add(future.get());
+			}
+
+			assertEquals(200, ids.size());
+			assertEquals(200, productDAO.findCountOfActiveProducts());
+			assertEquals(200, productPriceDAO.findCurrentPriceForAllProducts().size());
+			assertEquals(200, productDAO.findPageOrderByPrice(false, 0, 0, 1000).size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private int createProduct(String name, int price) throws PersistanceException {
+		ProductDetailDTO product = newProduct(name);
+
+		return db.executeInTransaction(() -> {
+			int id = productDAO.create(product);
+			productPriceDAO.createAll(List.of(newPrice(price, 1)), id);
+			productDAO.refreshMinPrice(id);
+			return id;
+		});
+	}
+
+	private ProductDetailDTO newProduct(String name) {
+		ProductDetailDTO product = new ProductDetailDTO();
+		product.setName(name);
+		product.setDescription(name + " from the test bakery");
+		product.setCategoryId(categoryId);
+		product.setActive(true);
+		return product;
+	}
+
+	private static ProductPrice newPrice(int price, double quantity) {
+		ProductPrice productPrice = new ProductPrice();
+		productPrice.setPrice(price);
+		productPrice.setQuantity(quantity);
+		productPrice.setType(QuantityType.KG);
+		productPrice.setStartDate(new Timestamp(System.currentTimeMillis()));
+		return productPrice;
+	}
+
+	private static User newUser(String email, long phoneNo) {
+		User user = new User();
+		user.setFirstName("Test");
+		user.setLastName("Baker");
+		user.setEmail(email);
+		user.setPassword("Baker@123");
+		user.setPhoneNo(phoneNo);
+		return user;
+	}
+
+	private static OrderDetailDTO newOrder(int userId, int productId, int priceId) {
+		OrderDetailDTO order = new OrderDetailDTO();
+		User user = new User();
+		user.setId(userId);
+		order.setUser(user);
+		ProductDetailDTO product = new ProductDetailDTO();
+		product.setId(productId);
+		order.setProduct(product);
+		ProductPrice productPrice = new ProductPrice();
+		productPrice.setId(priceId);
+		order.setProductPrice(productPrice);
+		order.setQuantity(1);
+		order.setAddress("12 Baker Street");
+		order.setStatus(OrderStatus.NOT_DELIVERED);
+		order.setDeliveryDate(new Timestamp(System.currentTimeMillis()));
+		order.setDeliveryTime(new Time(System.currentTimeMillis()));
+		return order;
+	}
+
+	private static List<Integer> productIds(List<ProductDetailDTO> products) {
+		List<Integer> ids = new ArrayList<>();
+		for (ProductDetailDTO product : products) {
+			ids.add(product.getId());
+		}
+		return ids;
+	}
+
+}
@@ -0,0 +1,95 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.util.LatencyHistogram;
+import in.fssa.homebakery.util.MethodMetrics;
+import in.fssa.homebakery.util.MethodMetrics.Snapshot;
+
+public class TestMethodMetrics {
+
+	@Test
+	public void reportsPercentilesWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long micros = 1; micros <= 1000; micros++) {
+			histogram.record(micros * 1000);
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMaxNanos());
+		assertWithin(500000, histogram.getPercentileNanos(50));
+		assertWithin(990000, histogram.getPercentileNanos(99));
+		assertWithin(999000, histogram.getPercentileNanos(99.9));
+		assertEquals(1000000, histogram.getPercentileNanos(100));
+		assertEquals(500500, histogram.getMeanNanos(), 0.001);
+	}
+
+	@Test
+	public void keepsSmallAndHugeLatencies() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(3);
+		histogram.record(Long.MAX_VALUE);
+
+		assertEquals(3, histogram.getPercentileNanos(50));
+		assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+		assertTrue(histogram.getPercentileNanos(100) >= LatencyHistogram.MAX_TRACKABLE_NANOS / 2);
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(101));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentileNanos(99));
+	}
+
+	@Test
+	public void countsCallsAndErrorsFromManyThreads() throws Exception {
+		MethodMetrics.Recorder recorder = MethodMetrics.recorder("TestMethodMetrics.concurrent");
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 10000; i++) {
+						recorder.record(System.nanoTime(), i % 100 == 0);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Snapshot snapshot = find("TestMethodMetrics.concurrent");
+		assertEquals(80000, snapshot.getCalls());
+		assertEquals(800, snapshot.getErrors());
+		assertTrue(snapshot.getP50Nanos() <= snapshot.getP99Nanos());
+		assertTrue(snapshot.getP99Nanos() <= snapshot.getP999Nanos());
+		assertTrue(snapshot.getP999Nanos() <= snapshot.getMaxNanos());
+		assertTrue(MethodMetrics.dump().contains("TestMethodMetrics.concurrent"));
+	}
+
+	private static Snapshot find(String name) {
+		for (Snapshot snapshot : MethodMetrics.snapshot()) {
+			if (snapshot.getName().equals(name)) {
+				return snapshot;
+			}
+		}
+		throw new AssertionError(name + " was not recorded");
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected / 16, "expected about " + expected + " but was " + actual);
+	}
+
+}
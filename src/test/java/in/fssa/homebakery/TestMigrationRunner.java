@@ -0,0 +1,85 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.MigrationRunner;
+
+public class TestMigrationRunner {
+
+	/**
+	 * The schema of a database set up by hand before migrations were tracked: the
+	 * tables of the first script, with the orders table, product images and the
+	 * wider columns added later by hand, but without 'min_price'.
+	 */
+	private static final String[] HAND_MADE_SCHEMA = {
+			"CREATE TABLE users (id INT NOT NULL AUTO_INCREMENT, first_name VARCHAR(255) NOT NULL, last_name VARCHAR(255) NOT NULL, "
+					+ "email VARCHAR(255) NOT NULL, password VARCHAR(255) NOT NULL, phone_no BIGINT NOT NULL, is_active BOOLEAN DEFAULT TRUE, "
+					+ "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, modified_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (id))",
+			"CREATE TABLE categories (id INT NOT NULL AUTO_INCREMENT, category_name VARCHAR(255) NOT NULL, PRIMARY KEY (id))",
+			"CREATE TABLE products (id INT NOT NULL AUTO_INCREMENT, product_name VARCHAR(255) NOT NULL, description VARCHAR(255) NOT NULL, "
+					+ "category_id INT NOT NULL, is_veg BOOLEAN DEFAULT TRUE, is_active BOOLEAN DEFAULT TRUE, image_url VARCHAR(255), "
+					+ "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, modified_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (id), "
+					+ "FOREIGN KEY (category_id) REFERENCES categories (id))",
+			"CREATE TABLE product_prices (id INT NOT NULL AUTO_INCREMENT, product_id INT NOT NULL, price INT NOT NULL, "
+					+ "quantity DOUBLE NOT NULL DEFAULT 1, type ENUM('kg', 'nos'), start_date DATE NOT NULL, end_date DATE, "
+					+ "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, modified_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (id), "
+					+ "FOREIGN KEY (product_id) REFERENCES products (id))",
+			"CREATE TABLE orders (id INT NOT NULL AUTO_INCREMENT, user_id INT NOT NULL, product_id INT NOT NULL, price_id INT NOT NULL, "
+					+ "quantity INT NOT NULL DEFAULT 1, address VARCHAR(255) NOT NULL, delivery_date TIMESTAMP NULL, delivery_time TIME NULL, "
+					+ "status VARCHAR(20) NOT NULL, ordered_time TIMESTAMP NULL, PRIMARY KEY (id))" };
+
+	@Test
+	public void migratesHandMadeDatabaseBeforePriceOrderedListing() throws Exception {
+		try (ScratchDatabase database = new ScratchDatabase("hand-made")) {
+			database.execute(HAND_MADE_SCHEMA);
+			database.execute("INSERT INTO categories (id, category_name) VALUES (1, 'Cakes')",
+					"INSERT INTO products (id, product_name, description, category_id) VALUES (1, 'Black Forest', 'Cherries', 1)",
+					"INSERT INTO products (id, product_name, description, category_id) VALUES (2, 'Cupcake', 'Small', 1)",
+					"INSERT INTO products (id, product_name, description, category_id) VALUES (3, 'Brownie', 'Without prices', 1)",
+					"INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (1, 700, 1, 'kg', CURRENT_DATE)",
+					"INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (1, 1300, 2, 'kg', CURRENT_DATE)",
+					"INSERT INTO product_prices (product_id, price, quantity, type, start_date, end_date) VALUES (2, 100, 1, 'nos', CURRENT_DATE, CURRENT_DATE)",
+					"INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (2, 150, 1, 'nos', CURRENT_DATE)");
+
+			database.migrate();
+
+			List<ProductDetailDTO> products = DAOFactory.getProductDAO().findPageOrderByPrice(false, 0, 0, 10);
+			List<Integer> ids = new ArrayList<>();
+			List<Integer> minPrices = new ArrayList<>();
+			for (ProductDetailDTO product : products) {
+				ids.add(product.getId());
+				minPrices.add(product.getMinPrice());
+			}
+			assertEquals(List.of(2, 1), ids);
+			assertEquals(List.of(150, 700), minPrices);
+
+			try (Connection conn = ConnectionUtil.getConnection()) {
+				assertEquals(4, MigrationRunner.findCurrentVersion(conn));
+				assertEquals(0, MigrationRunner.migrate(conn));
+			}
+			assertEquals(1, database.count("SELECT COUNT(*) FROM schema_version WHERE version = "
+					+ MigrationRunner.BASELINE_VERSION + " AND description = '<< baseline >>'"));
+		}
+	}
+
+	@Test
+	public void migratesEmptyDatabaseFromFirstScript() throws Exception {
+		try (ScratchDatabase database = new ScratchDatabase("empty")) {
+			try (Connection conn = ConnectionUtil.getConnection()) {
+				assertEquals(4, MigrationRunner.migrate(conn));
+				assertEquals(4, MigrationRunner.findCurrentVersion(conn));
+			}
+			assertEquals(0, database.count("SELECT COUNT(*) FROM products"));
+		}
+	}
+
+}
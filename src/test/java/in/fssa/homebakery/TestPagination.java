@@ -0,0 +1,142 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.dto.PageDTO;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.service.ProductService;
+import in.fssa.homebakery.util.PageTokenUtil;
+
+public class TestPagination {
+
+	private static final int[] MIN_PRICES = { 300, 100, 200, 100, 300 };
+
+	private ScratchDatabase database;
+
+	@BeforeEach
+	public void createDatabase() throws Exception {
+		database = new ScratchDatabase("pagination");
+		database.migrate();
+		database.execute("INSERT INTO categories (id, category_name) VALUES (1, 'Cakes')");
+		for (int i = 0; i < MIN_PRICES.length; i++) {
+			int id = i + 1;
+			database.execute(
+					"INSERT INTO products (id, product_name, description, category_id, min_price) VALUES (" + id
+							+ ", 'Cake " + id + "', 'Cake number " + id + "', 1, " + MIN_PRICES[i] + ")",
+					"INSERT INTO product_prices (product_id, price, quantity, type, start_date) VALUES (" + id + ", "
+							+ MIN_PRICES[i] + ", 1, 'kg', CURRENT_DATE)");
+		}
+	}
+
+	@AfterEach
+	public void dropDatabase() throws Exception {
+		database.close();
+	}
+
+	private static String tokenOf(String content) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void decodesTheKeysItEncoded() throws ValidationException {
+		String token = PageTokenUtil.encode(250, Integer.MAX_VALUE);
+
+		assertArrayEquals(new int[] { 250, Integer.MAX_VALUE }, PageTokenUtil.decode(token, 2));
+		assertArrayEquals(new int[] { -1 }, PageTokenUtil.decode(PageTokenUtil.encode(-1), 1));
+		assertFalse(token.contains("=") || token.contains("+") || token.contains("/"));
+	}
+
+	@Test
+	public void treatsMissingTokenAsFirstPage() throws ValidationException {
+		assertNull(PageTokenUtil.decode(null, 1));
+		assertNull(PageTokenUtil.decode("", 1));
+		assertNull(PageTokenUtil.decode("   ", 2));
+	}
+
+	@Test
+	public void rejectsTamperedTokens() {
+		String[] tokens = { "not a token!", tokenOf("v2:5"), tokenOf("5"), tokenOf("v1:five"),
+				tokenOf("v1:99999999999"), PageTokenUtil.encode(100, 5), PageTokenUtil.encode(5).substring(1) };
+
+		for (String token : tokens) {
+			ValidationException exception = assertThrows(ValidationException.class,
+					() -> PageTokenUtil.decode(token, 1), token);
+			assertEquals("Invalid page token", exception.getMessage());
+		}
+	}
+
+	@Test
+	public void walksAllProductsWithoutGapsOrRepeats() throws Exception {
+		ProductService productService = new ProductService();
+
+		List<Integer> ids = new ArrayList<>();
+		List<Integer> pageSizes = new ArrayList<>();
+		String token = null;
+		do {
+			PageDTO<ProductDetailDTO> page = productService.getPageOfProducts(token, 2);
+			pageSizes.add(page.getItems().size());
+			for (ProductDetailDTO product : page.getItems()) {
+				ids.add(product.getId());
+				assertEquals(1, product.getPrices().size());
+			}
+			token = page.getNextPageToken();
+		} while (token != null);
+
+		assertEquals(List.of(1, 2, 3, 4, 5), ids);
+		assertEquals(List.of(2, 2, 1), pageSizes);
+	}
+
+	@Test
+	public void endsOnFullLastPage() throws Exception {
+		ProductService productService = new ProductService();
+
+		PageDTO<ProductDetailDTO> first = productService.getPageOfProducts(null, 5);
+		assertEquals(5, first.getItems().size());
+		assertNull(first.getNextPageToken());
+
+		PageDTO<ProductDetailDTO> page = productService.getPageOfProducts(PageTokenUtil.encode(4), 1);
+		assertEquals(5, page.getItems().get(0).getId());
+		assertFalse(page.hasMore());
+
+		assertTrue(productService.getPageOfProducts(PageTokenUtil.encode(5), 1).getItems().isEmpty());
+	}
+
+	@Test
+	public void pagesThroughEqualPricesById() throws Exception {
+		ProductService productService = new ProductService();
+
+		List<Integer> ids = new ArrayList<>();
+		String token = null;
+		do {
+			PageDTO<ProductDetailDTO> page = productService.getPageOfProductsOrderByPrice("asc", token, 1);
+			page.getItems().forEach(product -> ids.add(product.getId()));
+			token = page.getNextPageToken();
+		} while (token != null);
+
+		assertEquals(List.of(2, 4, 3, 1, 5), ids);
+	}
+
+	@Test
+	public void rejectsPageSizesOutsideLimits() {
+		ProductService productService = new ProductService();
+
+		assertThrows(ValidationException.class, () -> productService.getPageOfProducts(null, 0));
+		assertThrows(ValidationException.class, () -> productService.getPageOfProducts(null, 101));
+	}
+
+}
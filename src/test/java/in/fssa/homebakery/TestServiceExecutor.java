@@ -0,0 +1,80 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.exception.ServiceException;
+import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.service.ServiceExecutor;
+
+public class TestServiceExecutor {
+
+	@Test
+	public void runsManyBlockingCallsOnVirtualThreadsWithinBulkhead() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+		try (ServiceExecutor executor = new ServiceExecutor(4, 60000)) {
+			for (int i = 0; i < 10000; i++) {
+				futures.add(executor.submit(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					Thread.sleep(1);
+					running.decrementAndGet();
+					return Thread.currentThread().isVirtual();
+				}));
+			}
+			for (CompletableFuture<Boolean> future : futures) {
+				assertTrue(future.get(60, TimeUnit.SECONDS));
+			}
+		}
+
+		assertTrue(maxRunning.get() <= 4);
+	}
+
+	@Test
+	public void completesWithExceptionOfCall() {
+		try (ServiceExecutor executor = new ServiceExecutor(1, 1000)) {
+			CompletableFuture<Object> future = executor.submit(() -> {
+				throw new ValidationException("Invalid Id");
+			});
+
+			ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertTrue(exception.getCause() instanceof ValidationException);
+			assertEquals("Invalid Id", exception.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void rejectsCallsThatWaitTooLong() throws Exception {
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (ServiceExecutor executor = new ServiceExecutor(1, 50)) {
+			CompletableFuture<Boolean> blocker = executor.submit(() -> {
+				holding.countDown();
+				return release.await(5, TimeUnit.SECONDS);
+			});
+			assertTrue(holding.await(5, TimeUnit.SECONDS));
+			CompletableFuture<Boolean> waiting = executor.submit(() -> true);
+
+			ExecutionException exception = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+			assertTrue(exception.getCause() instanceof ServiceException);
+			assertEquals(1, executor.getRejectedCount());
+
+			release.countDown();
+			assertTrue(blocker.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import in.fssa.homebakery.util.SlowQueryLog;
+
+public class TestSlowQueryLog {
+
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(250);
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void writesOnlyStatementsAboveThreshold() throws IOException {
+		Path file = dir.resolve("logs/slow.log");
+		SlowQueryLog log = new SlowQueryLog(file, 100, 1024 * 1024, 2, 16);
+
+		log.log("SELECT * FROM products\n\t WHERE id = ?", new Object[] { 7 }, SLOW, 1);
+		log.log("SELECT 1", new Object[0], FAST, 1);
+		log.close();
+
+		List<String> lines = Files.readAllLines(file);
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).contains("250.000 ms rows=1 caller=TestSlowQueryLog.writesOnlyStatementsAboveThreshold"));
+		assertTrue(lines.get(0).endsWith("sql=SELECT * FROM products WHERE id = ? params=[7]"));
+		assertEquals(1, log.getWrittenCount());
+	}
+
+	@Test
+	public void formatsNestedAndLongParameters() throws IOException {
+		Path file = dir.resolve("slow.log");
+		SlowQueryLog log = new SlowQueryLog(file, 0, 1024 * 1024, 2, 16);
+
+		Object[] batches = { new Object[] { 1, "a".repeat(150) }, new Object[] { 2, null } };
+		log.log("INSERT INTO t VALUES (?, ?)", batches, SLOW, 2);
+		log.close();
+
+		String line = Files.readAllLines(file).get(0);
+		assertTrue(line.endsWith("params=[[1, '" + "a".repeat(100) + "...'], [2, NULL]]"));
+	}
+
+	@Test
+	public void rollsOverAndKeepsConfiguredBackups() throws IOException {
+		Path file = dir.resolve("slow.log");
+		SlowQueryLog log = new SlowQueryLog(file, 0, 300, 2, 64);
+
+		for (int i = 0; i < 20; i++) {
+			log.log("SELECT " + i, new Object[0], SLOW, 0);
+		}
+		log.close();
+
+		assertEquals(20, log.getWrittenCount());
+		assertTrue(Files.size(file) <= 300);
+		assertTrue(Files.exists(dir.resolve("slow.log.1")));
+		assertTrue(Files.exists(dir.resolve("slow.log.2")));
+		assertFalse(Files.exists(dir.resolve("slow.log.3")));
+		assertTrue(Files.readString(file).contains("sql=SELECT 19 "));
+	}
+
+	@Test
+	public void negativeThresholdTurnsLogOff() {
+		SlowQueryLog log = new SlowQueryLog(dir.resolve("slow.log"), -1, 1024, 1, 1);
+
+		log.log("SELECT 1", new Object[0], Long.MAX_VALUE, 1);
+		log.close();
+
+		assertFalse(log.isSlow(Long.MAX_VALUE));
+		assertFalse(Files.exists(dir.resolve("slow.log")));
+	}
+
+}
@@ -0,0 +1,46 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.exception.AlreadyExistsException;
+import in.fssa.homebakery.exception.NotFoundException;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.exception.ServiceException;
+import in.fssa.homebakery.exception.ValidationException;
+import in.fssa.homebakery.util.IntUtil;
+
+public class TestStacklessExceptions {
+
+	@Test
+	public void notFoundIsServiceExceptionWithoutStackTrace() {
+		RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+			throw new NotFoundException("Product does not exist");
+		});
+
+		assertTrue(exception instanceof ServiceException);
+		assertEquals("Product does not exist", exception.getMessage());
+		assertEquals(0, exception.getStackTrace().length);
+		assertEquals(0, new AlreadyExistsException("An account with the email already exists").getStackTrace().length);
+	}
+
+	@Test
+	public void validationExceptionHasNoStackTrace() {
+		ValidationException exception = assertThrows(ValidationException.class, () -> {
+			IntUtil.rejectIfInvalidInt(-1);
+		});
+
+		assertEquals(0, exception.getStackTrace().length);
+	}
+
+	@Test
+	public void unexpectedErrorsKeepStackTrace() {
+		assertTrue(new ServiceException("Connection refused").getStackTrace().length > 0);
+		assertTrue(new PersistanceException("Connection refused").getStackTrace().length > 0);
+		assertEquals(0, new PersistanceException("Product 5 does not exist", false).getStackTrace().length);
+	}
+
+}
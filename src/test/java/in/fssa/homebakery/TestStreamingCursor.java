@@ -0,0 +1,90 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.interfaces.ProductInterface;
+import in.fssa.homebakery.util.ConnectionUtil;
+
+public class TestStreamingCursor {
+
+	private ScratchDatabase database;
+	private final ProductInterface productDAO = DAOFactory.getProductDAO();
+
+	@BeforeEach
+	public void createDatabase() throws Exception {
+		database = new ScratchDatabase("streaming");
+		database.migrate();
+		database.execute("INSERT INTO categories (id, category_name) VALUES (1, 'Cakes')");
+		for (int id = 1; id <= 3; id++) {
+			database.execute("INSERT INTO products (id, product_name, description, category_id) VALUES (" + id
+					+ ", 'Cake " + id + "', 'Cake number " + id + "', 1)");
+		}
+		ConnectionUtil.configurePool(0, 1, 200, 60000);
+	}
+
+	@AfterEach
+	public void dropDatabase() throws Exception {
+		database.close();
+	}
+
+	private static void assertConnectionReturned() throws SQLException {
+		try (Connection conn = ConnectionUtil.getConnection()) {
+			assertTrue(conn.isValid(1));
+		}
+	}
+
+	@Test
+	public void holdsConnectionUntilClosed() throws Exception {
+		try (Stream<ProductDetailDTO> products = productDAO.streamAll()) {
+			Iterator<ProductDetailDTO> iterator = products.iterator();
+			assertTrue(iterator.hasNext());
+			assertThrows(SQLException.class, () -> ConnectionUtil.getConnection());
+		}
+
+		assertConnectionReturned();
+	}
+
+	@Test
+	public void closesConnectionWhenClosedBeforeLastRow() throws Exception {
+		try (Stream<ProductDetailDTO> products = productDAO.streamAll()) {
+			assertEquals(1, products.limit(1).count());
+		}
+
+		assertConnectionReturned();
+	}
+
+	@Test
+	public void closesConnectionAfterLastRowWithoutClose() throws Exception {
+		List<Integer> ids = productDAO.streamAll().map(ProductDetailDTO::getId).sorted().collect(Collectors.toList());
+
+		assertEquals(List.of(1, 2, 3), ids);
+		assertConnectionReturned();
+	}
+
+	@Test
+	public void closesConnectionWhenConsumerFails() throws Exception {
+		try (Stream<ProductDetailDTO> products = productDAO.streamAll()) {
+			assertThrows(IllegalStateException.class, () -> products.forEach(product -> {
+				throw new IllegalStateException("Export failed");
+			}));
+		}
+
+		assertConnectionReturned();
+	}
+
+}
@@ -0,0 +1,67 @@
+package in.fssa.homebakery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import in.fssa.homebakery.dao.DAOFactory;
+import in.fssa.homebakery.exception.PersistanceException;
+import in.fssa.homebakery.model.Category;
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.TransactionUtil;
+
+public class TestTransactionUtil {
+
+	private ScratchDatabase database;
+
+	@BeforeEach
+	public void createDatabase() throws Exception {
+		database = new ScratchDatabase("transactions");
+		database.migrate();
+		database.execute("INSERT INTO categories (id, category_name) VALUES (1, 'Cakes')");
+	}
+
+	@AfterEach
+	public void dropDatabase() throws Exception {
+		database.close();
+	}
+
+	private static Category renamed(String name) {
+		Category category = new Category();
+		category.setCategoryName(name);
+		return category;
+	}
+
+	@Test
+	public void rollsBackWhenCallbackThrowsAnError() throws Exception {
+		assertThrows(AssertionError.class, () -> TransactionUtil.executeInTransaction(() -> {
+			DAOFactory.getCategoryDAO().update(1, renamed("Cookies"));
+			throw new AssertionError("failed after the first write");
+		}));
+
+		assertEquals(0, database.count("SELECT COUNT(*) FROM categories WHERE category_name = 'Cookies'"));
+		assertFalse(ConnectionUtil.isInTransaction());
+	}
+
+	@Test
+	public void rollsBackWhenCallbackThrowsAnException() throws Exception {
+		assertThrows(PersistanceException.class, () -> TransactionUtil.executeInTransaction(() -> {
+			DAOFactory.getCategoryDAO().update(1, renamed("Cookies"));
+			throw new PersistanceException("failed after the first write");
+		}));
+
+		assertEquals(0, database.count("SELECT COUNT(*) FROM categories WHERE category_name = 'Cookies'"));
+	}
+
+	@Test
+	public void commitsWhenCallbackCompletes() throws Exception {
+		TransactionUtil.executeInTransaction(() -> DAOFactory.getCategoryDAO().update(1, renamed("Cookies")));
+
+		assertEquals(1, database.count("SELECT COUNT(*) FROM categories WHERE category_name = 'Cookies'"));
+	}
+
+}
@@ -0,0 +1,127 @@
+package in.fssa.homebakery.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import in.fssa.homebakery.util.BoundedCache;
+import in.fssa.homebakery.util.BoundedCache.EvictionPolicy;
+
+/**
+ * Compares the hit rate and throughput of the 'BoundedCache' eviction policies
+ * on a skewed bakery workload.
+ *
+ * Customers mostly look up a few popular product prices, following a Zipf
+ * distribution over the catalog, while the occasional full catalog browse
+ * reads a long run of prices once each. Run it with
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=in.fssa.homebakery.benchmark.BoundedCacheBenchmark
+ */
+public class BoundedCacheBenchmark {
+
+	private static final int CATALOG_SIZE = 20000;
+	private static final int CACHE_SIZE = 1000;
+	private static final double ZIPF_EXPONENT = 0.9;
+	private static final int SCAN_LENGTH = 5000;
+	private static final double SCAN_PROBABILITY = 0.0002;
+	private static final int REQUESTS = 2000000;
+	private static final int THREADS = 8;
+	private static final long THROUGHPUT_MILLIS = 2000;
+
+	public static void main(String[] args) throws InterruptedException {
+		int[] workload = workload(new Random(42), REQUESTS);
+
+		System.out.printf("catalog=%d cache=%d requests=%d zipf=%.2f%n", CATALOG_SIZE, CACHE_SIZE, REQUESTS,
+				ZIPF_EXPONENT);
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			BoundedCache<Integer, Integer> cache = new BoundedCache<>(CACHE_SIZE, 0, policy);
+			for (int key : workload) {
+				if (cache.get(key) == null) {
+					cache.put(key, key);
+				}
+			}
+			System.out.printf("%-10s hit rate %6.2f%%  evictions %d%n", policy, cache.getHitRate() * 100,
+					cache.getEvictionCount());
+		}
+
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			System.out.printf("%-10s %,d ops/s with %d threads%n", policy, throughput(policy, workload), THREADS);
+		}
+	}
+
+	private static long throughput(EvictionPolicy policy, int[] workload) throws InterruptedException {
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(CACHE_SIZE, 0, policy);
+		LongAdder operations = new LongAdder();
+		CountDownLatch start = new CountDownLatch(1);
+		long deadline = System.nanoTime() + THROUGHPUT_MILLIS * 1000000;
+
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			int offset = t * (workload.length / THREADS);
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				long done = 0;
+				int i = offset;
+				while ((done & 1023) != 0 || System.nanoTime() < deadline) {
+					int key = workload[i];
+					if (cache.get(key) == null) {
+						cache.put(key, key);
+					}
+					i = i + 1 == workload.length ? 0 : i + 1;
+					done++;
+				}
+				operations.add(done);
+			});
+			threads[t].start();
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return operations.sum() * 1000 / THROUGHPUT_MILLIS;
+	}
+
+	private static int[] workload(Random random, int requests) {
+		double[] cumulative = new double[CATALOG_SIZE];
+		double total = 0;
+		for (int rank = 0; rank < CATALOG_SIZE; rank++) {
+			total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+			cumulative[rank] = total;
+		}
+
+		int[] workload = new int[requests];
+		int i = 0;
+		while (i < requests) {
+			if (random.nextDouble() < SCAN_PROBABILITY) {
+				int first = random.nextInt(CATALOG_SIZE);
+				for (int j = 0; j < SCAN_LENGTH && i < requests; j++) {
+					workload[i++] = (first + j) % CATALOG_SIZE;
+				}
+			} else {
+				workload[i++] = rank(cumulative, random.nextDouble() * total);
+			}
+		}
+		return workload;
+	}
+
+	private static int rank(double[] cumulative, double target) {
+		int low = 0;
+		int high = cumulative.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cumulative[mid] < target) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+}
@@ -0,0 +1,107 @@
+package in.fssa.homebakery.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import in.fssa.homebakery.util.ConnectionUtil;
+
+/**
+ * Reports the hot DAO queries that read a whole table.
+ *
+ * The report runs EXPLAIN for each query on the configured database and prints
+ * every table the plan reads with a full scan: MySQL plans with the access
+ * type 'ALL', or 'index' for a scan of a whole index. Opening the connection
+ * also runs the pending migrations, so the report checks the indexes of the
+ * latest schema. On a nearly empty table MySQL may choose a scan even though
+ * an index exists, so run it against a database with realistic data. Run it
+ * with
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=in.fssa.homebakery.benchmark.FullScanReport
+ */
+public class FullScanReport {
+
+	private static final Map<String, Object[]> HOT_QUERIES = new LinkedHashMap<>();
+
+	static {
+		String products = "SELECT id, product_name, description, category_id, image_url, is_veg FROM products WHERE is_active = 1";
+		String prices = "SELECT id, product_id, quantity, price, type, start_date, end_date FROM product_prices";
+		String users = "SELECT id, first_name, last_name, email, phone_no, password FROM users WHERE is_active = 1";
+
+		HOT_QUERIES.put(products + " AND id = ?", new Object[] { 1 });
+		HOT_QUERIES.put(products + " AND category_id = ? AND id > ? ORDER BY id LIMIT ?", new Object[] { 1, 0, 5 });
+		HOT_QUERIES.put("SELECT COUNT(*) AS product_count FROM products WHERE is_active = 1 AND category_id = ?",
+				new Object[] { 1 });
+		HOT_QUERIES.put(prices + " WHERE product_id = ? AND end_date IS NULL ORDER BY quantity", new Object[] { 1 });
+		HOT_QUERIES.put(prices + " WHERE quantity = ? AND product_id = ? AND end_date IS NULL", new Object[] { 1.0, 1 });
+		HOT_QUERIES.put(prices + " WHERE product_id IN (?, ?) ORDER BY product_id, id", new Object[] { 1, 2 });
+		HOT_QUERIES.put(users + " AND email = ?", new Object[] { "benchmark@gmail.com" });
+		HOT_QUERIES.put("SELECT COUNT(*) FROM users WHERE phone_no = ?", new Object[] { 9876543210L });
+		HOT_QUERIES.put("SELECT id, address, status, quantity, product_id, price_id, delivery_date, delivery_time, ordered_time FROM orders WHERE user_id = ? ORDER BY ordered_time",
+				new Object[] { 1 });
+	}
+
+	public static void main(String[] args) throws Exception {
+		int fullScans = 0;
+		try (Connection conn = ConnectionUtil.getConnection()) {
+			for (Map.Entry<String, Object[]> query : HOT_QUERIES.entrySet()) {
+				String fullScan = explain(conn, query.getKey(), query.getValue());
+				if (fullScan != null) {
+					fullScans++;
+					System.out.println("FULL SCAN " + fullScan + ": " + query.getKey());
+				} else {
+					System.out.println("ok        " + query.getKey());
+				}
+			}
+		} finally {
+			ConnectionUtil.shutdownPool();
+		}
+		System.out.println(fullScans + " of " + HOT_QUERIES.size() + " queries scan a whole table");
+	}
+
+	/**
+	 * Explains a query and returns a description of its first full scan, or null
+	 * if every table is read through an index. Databases without MySQL style
+	 * plans are checked for the 'tableScan' marker of their plan text instead.
+	 */
+	private static String explain(Connection conn, String query, Object[] params) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + query)) {
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			try (ResultSet rs = ps.executeQuery()) {
+				int typeColumn = findColumn(rs.getMetaData(), "type");
+				while (rs.next()) {
+					if (typeColumn == 0) {
+						String plan = rs.getString(1);
+						if (plan != null && plan.contains("tableScan")) {
+							return "(plan contains a table scan)";
+						}
+						continue;
+					}
+					String type = rs.getString(typeColumn);
+					if ("ALL".equals(type) || "index".equals(type)) {
+						return "of " + rs.getString("table") + " (type " + type + ", about " + rs.getLong("rows")
+								+ " rows)";
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private static int findColumn(ResultSetMetaData metaData, String label) throws SQLException {
+		for (int i = 1; i <= metaData.getColumnCount(); i++) {
+			if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+}
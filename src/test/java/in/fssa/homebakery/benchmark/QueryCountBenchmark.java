@@ -0,0 +1,142 @@
+package in.fssa.homebakery.benchmark;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.model.Product;
+import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.model.User;
+import in.fssa.homebakery.service.CategoryService;
+import in.fssa.homebakery.service.ProductService;
+import in.fssa.homebakery.service.UserService;
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.MethodMetrics;
+
+/**
+ * Counts the queries that single reads and writes of one entity send to the
+ * database.
+ *
+ * The benchmark creates a product and a user, looks them up, updates and
+ * deletes them, and prints how many statements each service call prepared on
+ * the connection pool. Lookups of missing entities are counted as well, since
+ * those are the calls that used to pay for an existence check on top of the
+ * fetch. The catalog cache is disabled so that every read reaches the database.
+ * The last column shows how many of those statements were reused from the
+ * statement cache of their pooled connection. The latencies of the DAO calls
+ * and connection borrows behind those service calls are printed at the end.
+ * Run it against a development database with
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=in.fssa.homebakery.benchmark.QueryCountBenchmark
+ */
+public class QueryCountBenchmark {
+
+	private static final int MISSING_ID = 999999;
+	private static final int CATEGORY_ID = 1;
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("homebakery.catalogCache.enabled", "false");
+
+		ProductService productService = new ProductService();
+		UserService userService = new UserService();
+		CategoryService categoryService = new CategoryService();
+
+		productService.createProduct(newProduct());
+		int productId = 0;
+		for (ProductDetailDTO product : productService.getAllProducts()) {
+			productId = Math.max(productId, product.getId());
+		}
+		int createdProductId = productId;
+
+		User user = newUser();
+		userService.createUser(user);
+		int userId = userService.findByEmail(user.getEmail()).getId();
+
+		System.out.printf("%-30s %-8s %s%n", "operation", "queries", "cached");
+		measure("getByProductId", () -> productService.getByProductId(createdProductId));
+		measure("getByProductId (missing)", () -> productService.getByProductId(MISSING_ID));
+		measure("findByUserId", () -> userService.findByUserId(userId));
+		measure("findByUserId (missing)", () -> userService.findByUserId(MISSING_ID));
+		measure("findByEmail", () -> userService.findByEmail(user.getEmail()));
+		measure("findByEmail (missing)", () -> userService.findByEmail("missing" + user.getEmail()));
+		measure("findByCategoryId", () -> categoryService.findByCategoryId(CATEGORY_ID));
+		measure("updateProduct", () -> productService.updateProduct(createdProductId, updatedProduct()));
+		measure("updateProduct (missing)", () -> productService.updateProduct(MISSING_ID, updatedProduct()));
+		measure("updateUser", () -> userService.updateUser(userId, user));
+		measure("deleteUser (missing)", () -> userService.deleteUser(MISSING_ID));
+		measure("deleteProduct", () -> productService.deleteProduct(createdProductId));
+		measure("deleteProduct (missing)", () -> productService.deleteProduct(createdProductId));
+		measure("deleteUser", () -> userService.deleteUser(userId));
+
+		System.out.println();
+		System.out.print(MethodMetrics.dump());
+		ConnectionUtil.shutdownPool();
+	}
+
+	private static void measure(String operation, Operation op) {
+		long before = ConnectionUtil.getStatementCount();
+		long hitsBefore = ConnectionUtil.getStatementCacheHits();
+		String outcome = "";
+		try {
+			op.run();
+		} catch (Exception e) {
+			outcome = "  (" + e.getMessage() + ")";
+		}
+		System.out.printf("%-30s %-8d %d%s%n", operation, ConnectionUtil.getStatementCount() - before,
+				ConnectionUtil.getStatementCacheHits() - hitsBefore, outcome);
+	}
+
+	private static ProductDetailDTO newProduct() {
+		ProductDetailDTO product = new ProductDetailDTO();
+		product.setName("Benchmark cake");
+		product.setDescription("Created by the query count benchmark");
+		product.setCategoryId(CATEGORY_ID);
+		product.setImageUrl("https://picsum.photos/200");
+		product.setVeg(true);
+		product.setActive(true);
+
+		List<ProductPrice> prices = new ArrayList<>();
+		for (int quantity = 1; quantity <= 3; quantity++) {
+			ProductPrice price = new ProductPrice();
+			price.setQuantity(quantity);
+			price.setType(ProductPrice.QuantityType.KG);
+			price.setPrice(100 * quantity);
+			price.setStartDate(new Timestamp(System.currentTimeMillis()));
+			prices.add(price);
+		}
+		product.setPrices(prices);
+		return product;
+	}
+
+	private static Product updatedProduct() {
+		Product product = new Product();
+		product.setProductName("Benchmark cake");
+		product.setDescription("Updated by the query count benchmark");
+		product.setCategoryId(CATEGORY_ID);
+		product.setImageUrl("https://picsum.photos/200");
+		product.setVeg(true);
+		product.setActive(true);
+		return product;
+	}
+
+	private static User newUser() {
+		Random random = new SecureRandom();
+		User user = new User();
+		user.setFirstName("Bench");
+		user.setLastName("Mark");
+		user.setEmail("benchmark" + random.nextInt(1000000) + "@gmail.com");
+		user.setPassword("Benchmark@2023");
+		user.setPhoneNo(6000000000L + random.nextInt(1000000000));
+		return user;
+	}
+
+	@FunctionalInterface
+	private interface Operation {
+		void run() throws Exception;
+	}
+
+}
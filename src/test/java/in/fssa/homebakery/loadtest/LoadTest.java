@@ -0,0 +1,232 @@
+package in.fssa.homebakery.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import in.fssa.homebakery.EmbeddedDatabase;
+import in.fssa.homebakery.loadtest.Workload.Operation;
+import in.fssa.homebakery.service.ServiceExecutor;
+import in.fssa.homebakery.util.ConnectionUtil;
+import in.fssa.homebakery.util.LatencyHistogram;
+import in.fssa.homebakery.util.MethodMetrics;
+
+/**
+ * Sends bakery traffic from concurrent virtual users to the services and
+ * reports the throughput and latency percentiles of every operation.
+ *
+ * Each virtual user is a thread that picks an operation from the 'Workload'
+ * mix, sends it, records how long it took and whether it failed, and then
+ * waits an exponentially distributed think time before the next one. The
+ * number of operations per second therefore grows with the number of users
+ * until the services or the connection pool become the bottleneck.
+ *
+ * The run is configured with these system properties, next to the workload
+ * properties described in 'Workload':
+ *
+ * 'loadtest.users' (default 50 virtual users), 'loadtest.durationSeconds'
+ * (default 60), 'loadtest.warmupSeconds' (default 10, not counted in the
+ * report), 'loadtest.thinkMillis' (mean think time, default 50),
+ * 'loadtest.reportSeconds' (interval of the progress lines, default 10),
+ * 'loadtest.seed' (default 42) and 'loadtest.virtualThreads' (default false).
+ *
+ * With 'loadtest.virtualThreads' set to true every virtual user is a virtual
+ * thread and sends its operations through a 'ServiceExecutor', so that tens of
+ * thousands of users can be simulated and the number of calls reaching the
+ * connection pool is bounded by the executor's bulkhead.
+ *
+ * Without a 'homebakery.db.url' system property the load test runs against
+ * the generated data of 'EmbeddedDatabase'. Run it with
+ *
+ * mvn -Pembedded-db test-compile exec:exec@loadtest
+ * -Dloadtest.jvmArgs="-Dloadtest.users=200"
+ *
+ * or against a development database with
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=in.fssa.homebakery.loadtest.LoadTest
+ * -Dhomebakery.db.url=...
+ */
+public class LoadTest {
+
+	private static final int USERS = Integer.getInteger("loadtest.users", 50);
+	private static final long DURATION_SECONDS = Long.getLong("loadtest.durationSeconds", 60);
+	private static final long WARMUP_SECONDS = Long.getLong("loadtest.warmupSeconds", 10);
+	private static final long THINK_MILLIS = Long.getLong("loadtest.thinkMillis", 50);
+	private static final long REPORT_SECONDS = Long.getLong("loadtest.reportSeconds", 10);
+	private static final long SEED = Long.getLong("loadtest.seed", 42);
+	private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("loadtest.virtualThreads");
+
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	private final Workload workload;
+	private final ServiceExecutor executor;
+	private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+	private final LongAdder[] errors = new LongAdder[OPERATIONS.length];
+	private final String[] lastErrors = new String[OPERATIONS.length];
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder orders = new LongAdder();
+
+	private LoadTest(Workload workload, ServiceExecutor executor) {
+		this.workload = workload;
+		this.executor = executor;
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			latencies[i] = new LatencyHistogram();
+			errors[i] = new LongAdder();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		EmbeddedDatabase.start();
+		Workload workload = Workload.load(SEED);
+
+		System.out.printf("users=%d duration=%ds warmup=%ds think=%dms products=%d accounts=%d virtualThreads=%b%n",
+				USERS, DURATION_SECONDS, WARMUP_SECONDS, THINK_MILLIS, workload.getProductCount(),
+				workload.getUserCount(), VIRTUAL_THREADS);
+		System.out.println(workload.describe());
+
+		if (VIRTUAL_THREADS) {
+			try (ServiceExecutor executor = new ServiceExecutor()) {
+				new LoadTest(workload, executor).run();
+				System.out.printf("rejected by the bulkhead of %d: %d%n", executor.getMaxConcurrentCalls(),
+						executor.getRejectedCount());
+			}
+		} else {
+			new LoadTest(workload, null).run();
+		}
+
+		System.out.println();
+		System.out.print(MethodMetrics.dump());
+		ConnectionUtil.shutdownPool();
+	}
+
+	private void run() throws InterruptedException {
+		long start = System.nanoTime();
+		long measureStart = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+		long deadline = measureStart + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int user = 0; user < USERS; user++) {
+			SplittableRandom random = new SplittableRandom(SEED + user);
+			Runnable simulation = () -> simulateUser(random, start, deadline);
+			Thread thread = VIRTUAL_THREADS ? Thread.ofVirtual().name("loadtest-user-" + user).unstarted(simulation)
+					: Thread.ofPlatform().name("loadtest-user-" + user).daemon().unstarted(simulation);
+			threads.add(thread);
+			thread.start();
+		}
+
+		boolean warm = WARMUP_SECONDS == 0;
+		long lastReport = start;
+		long lastCompleted = 0;
+		long lastOrders = 0;
+		long reportNanos = TimeUnit.SECONDS.toNanos(Math.max(1, REPORT_SECONDS));
+		while (System.nanoTime() < deadline) {
+			long now = System.nanoTime();
+			if (!warm && now >= measureStart) {
+				reset();
+				warm = true;
+			}
+			long next = Math.min(warm ? deadline : measureStart, lastReport + reportNanos);
+			TimeUnit.NANOSECONDS.sleep(Math.max(0, next - now));
+
+			now = System.nanoTime();
+			if (now - lastReport >= reportNanos || now >= deadline) {
+				long done = completed.sum();
+				long ordered = orders.sum();
+				double seconds = (now - lastReport) / 1e9;
+				System.out.printf("%4ds %8.1f ops/s %7.1f orders/s%s%s%n", TimeUnit.NANOSECONDS.toSeconds(now - start),
+						(done - lastCompleted) / seconds, (ordered - lastOrders) / seconds,
+						workload.isBurst(now - start) ? "  cut-off burst" : "", now < measureStart ? "  warmup" : "");
+				lastReport = now;
+				lastCompleted = done;
+				lastOrders = ordered;
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		report(Math.max(1, System.nanoTime() - Math.max(measureStart, start)));
+	}
+
+	private void simulateUser(SplittableRandom random, long start, long deadline) {
+		while (System.nanoTime() < deadline) {
+			Operation operation = workload.next(random, System.nanoTime() - start);
+			long begin = System.nanoTime();
+			try {
+				send(operation, random);
+			} catch (InterruptedException e) {
+				return;
+			} catch (Exception e) {
+				errors[operation.ordinal()].increment();
+				lastErrors[operation.ordinal()] = e.getClass().getSimpleName() + ": " + e.getMessage();
+			}
+			latencies[operation.ordinal()].record(System.nanoTime() - begin);
+			completed.increment();
+			if (operation == Operation.CREATE_ORDER) {
+				orders.increment();
+			}
+
+			if (THINK_MILLIS > 0) {
+				long think = (long) (-THINK_MILLIS * Math.log(1 - random.nextDouble()));
+				try {
+					Thread.sleep(think);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void send(Operation operation, SplittableRandom random) throws Exception {
+		if (executor == null) {
+			workload.run(operation, random);
+			return;
+		}
+		try {
+			executor.submit(() -> {
+				workload.run(operation, random);
+				return null;
+			}).get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+
+	private void reset() {
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			latencies[i].reset();
+			errors[i].reset();
+			lastErrors[i] = null;
+		}
+		MethodMetrics.reset();
+	}
+
+	private void report(long elapsedNanos) {
+		double seconds = elapsedNanos / 1e9;
+		System.out.println();
+		System.out.printf("%-16s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n", "operation", "calls", "errors", "ops/s",
+				"mean ms", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+		long calls = 0;
+		for (Operation operation : OPERATIONS) {
+			LatencyHistogram latency = latencies[operation.ordinal()];
+			calls += latency.getCount();
+			System.out.printf("%-16s %9d %7d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n", operation,
+					latency.getCount(), errors[operation.ordinal()].sum(), latency.getCount() / seconds,
+					latency.getMeanNanos() / 1e6, latency.getPercentileNanos(50) / 1e6,
+					latency.getPercentileNanos(95) / 1e6, latency.getPercentileNanos(99) / 1e6,
+					latency.getPercentileNanos(99.9) / 1e6, latency.getMaxNanos() / 1e6);
+		}
+		System.out.printf("%-16s %9d %7s %9.1f%n", "total", calls, "", calls / seconds);
+
+		for (Operation operation : OPERATIONS) {
+			String error = lastErrors[operation.ordinal()];
+			if (error != null) {
+				System.out.printf("last %s error: %s%n", operation, error);
+			}
+		}
+	}
+
+}
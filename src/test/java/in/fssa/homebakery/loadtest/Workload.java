@@ -0,0 +1,268 @@
+package in.fssa.homebakery.loadtest;
+
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import in.fssa.homebakery.dto.OrderDetailDTO;
+import in.fssa.homebakery.dto.ProductDetailDTO;
+import in.fssa.homebakery.model.Category;
+import in.fssa.homebakery.model.ProductPrice;
+import in.fssa.homebakery.model.User;
+import in.fssa.homebakery.service.CategoryService;
+import in.fssa.homebakery.service.OrderService;
+import in.fssa.homebakery.service.ProductService;
+import in.fssa.homebakery.service.UserService;
+
+/**
+ * The traffic the virtual users of 'LoadTest' send: which operation comes next
+ * and the products, users and categories it is sent for.
+ *
+ * Every operation has a weight, set with the 'loadtest.weight.<operation>'
+ * system property. The defaults make the traffic browse-heavy, as on the live
+ * site: most requests read the catalog or a product page, a few look at their
+ * orders or place one, and signups are rare.
+ *
+ * Orders come in bursts before the delivery cut-off. Time is divided into
+ * cut-off periods of 'loadtest.cutoffSeconds' (default 60); during the last
+ * 'loadtest.burstSeconds' (default 10) of every period the weight of
+ * 'create_order' is multiplied by 'loadtest.burstFactor' (default 10).
+ *
+ * Product popularity follows a Zipf distribution with the exponent
+ * 'loadtest.zipfExponent' (default 1.0) over the active catalog, so a few
+ * products get most of the product views and orders. Which products are the
+ * popular ones is chosen by a shuffle with the 'loadtest.seed' seed, so that
+ * popularity does not follow the product IDs.
+ */
+class Workload {
+
+	enum Operation {
+		BROWSE_CATALOG(30), BROWSE_CATEGORY(15), VIEW_PRODUCT(40), ORDER_HISTORY(8), CREATE_ORDER(5), SIGNUP(2);
+
+		private final double defaultWeight;
+
+		Operation(double defaultWeight) {
+			this.defaultWeight = defaultWeight;
+		}
+
+		@Override
+		public String toString() {
+			return name().toLowerCase();
+		}
+	}
+
+	private static final int PAGE_SIZE = 20;
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	private final ProductService productService = new ProductService();
+	private final CategoryService categoryService = new CategoryService();
+	private final OrderService orderService = new OrderService();
+	private final UserService userService = new UserService();
+
+	private final double[] weights = new double[OPERATIONS.length];
+	private final long cutoffNanos;
+	private final long burstNanos;
+	private final double burstFactor;
+	private final double zipfExponent;
+
+	private final List<ProductDetailDTO> products;
+	private final double[] popularity;
+	private final List<User> users;
+	private final List<Integer> categoryIds;
+
+	private final String runId = Long.toString(System.currentTimeMillis() % 1000000000L);
+	private final AtomicInteger signups = new AtomicInteger();
+
+	private Workload(List<ProductDetailDTO> products, List<User> users, List<Integer> categoryIds) {
+		for (Operation operation : OPERATIONS) {
+			weights[operation.ordinal()] = Double
+					.parseDouble(System.getProperty("loadtest.weight." + operation, Double.toString(operation.defaultWeight)));
+		}
+		this.cutoffNanos = TimeUnit.SECONDS.toNanos(Long.getLong("loadtest.cutoffSeconds", 60));
+		this.burstNanos = TimeUnit.SECONDS.toNanos(Long.getLong("loadtest.burstSeconds", 10));
+		this.burstFactor = Double.parseDouble(System.getProperty("loadtest.burstFactor", "10"));
+		this.zipfExponent = Double.parseDouble(System.getProperty("loadtest.zipfExponent", "1.0"));
+
+		this.products = products;
+		this.users = users;
+		this.categoryIds = categoryIds;
+		this.popularity = new double[products.size()];
+		double total = 0;
+		for (int rank = 0; rank < popularity.length; rank++) {
+			total += 1 / Math.pow(rank + 1, zipfExponent);
+			popularity[rank] = total;
+		}
+	}
+
+	/**
+	 * Reads the active catalog, users and categories the operations are sent
+	 * for.
+	 *
+	 * @param seed The seed of the shuffle that decides which products are
+	 *             popular.
+	 * @return The workload.
+	 * @throws Exception             If the data cannot be read.
+	 * @throws IllegalStateException If there are no priced products or no users
+	 *                               to order with.
+	 */
+	static Workload load(long seed) throws Exception {
+		List<ProductDetailDTO> products = new ArrayList<>();
+		for (ProductDetailDTO product : new ProductService().getAllProducts()) {
+			if (product.getPrices() != null && !product.getPrices().isEmpty()) {
+				products.add(product);
+			}
+		}
+		products.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+		Collections.shuffle(products, new Random(seed));
+
+		List<User> users = new ArrayList<>(new UserService().getAllUsers());
+		users.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+
+		List<Integer> categoryIds = new ArrayList<>();
+		for (Category category : new CategoryService().getAllCategories()) {
+			categoryIds.add(category.getId());
+		}
+
+		if (products.isEmpty() || users.isEmpty() || categoryIds.isEmpty()) {
+			throw new IllegalStateException("The database needs priced products, categories and users");
+		}
+		return new Workload(products, users, categoryIds);
+	}
+
+	int getProductCount() {
+		return products.size();
+	}
+
+	int getUserCount() {
+		return users.size();
+	}
+
+	String describe() {
+		StringBuilder mix = new StringBuilder();
+		for (Operation operation : OPERATIONS) {
+			mix.append(operation).append('=').append(weights[operation.ordinal()]).append(' ');
+		}
+		return String.format("mix: %sburst: x%.1f for the last %ds of every %ds zipf: %.2f", mix, burstFactor,
+				TimeUnit.NANOSECONDS.toSeconds(burstNanos), TimeUnit.NANOSECONDS.toSeconds(cutoffNanos), zipfExponent);
+	}
+
+	/**
+	 * Checks whether orders are in their burst before the delivery cut-off.
+	 *
+	 * @param elapsedNanos The time since the load test started.
+	 * @return True during the last seconds of a cut-off period.
+	 */
+	boolean isBurst(long elapsedNanos) {
+		return cutoffNanos > 0 && elapsedNanos % cutoffNanos >= cutoffNanos - burstNanos;
+	}
+
+	/**
+	 * Picks the next operation of a virtual user.
+	 *
+	 * @param random       The random numbers of the virtual user.
+	 * @param elapsedNanos The time since the load test started.
+	 * @return The operation to send.
+	 */
+	Operation next(SplittableRandom random, long elapsedNanos) {
+		boolean burst = isBurst(elapsedNanos);
+		double total = 0;
+		for (Operation operation : OPERATIONS) {
+			total += weight(operation, burst);
+		}
+		double target = random.nextDouble() * total;
+		for (Operation operation : OPERATIONS) {
+			target -= weight(operation, burst);
+			if (target < 0) {
+				return operation;
+			}
+		}
+		return Operation.VIEW_PRODUCT;
+	}
+
+	/**
+	 * Sends an operation to the services.
+	 *
+	 * @param operation The operation to send.
+	 * @param random    The random numbers of the virtual user.
+	 * @throws Exception If the service call fails.
+	 */
+	void run(Operation operation, SplittableRandom random) throws Exception {
+		switch (operation) {
+		case BROWSE_CATALOG:
+			productService.getPageOfProducts(null, PAGE_SIZE);
+			break;
+		case BROWSE_CATEGORY:
+			productService.getPageByCategoryId(categoryIds.get(random.nextInt(categoryIds.size())), null, PAGE_SIZE);
+			break;
+		case VIEW_PRODUCT:
+			productService.getByProductId(popularProduct(random).getId());
+			break;
+		case ORDER_HISTORY:
+			orderService.getOrdersByUserId(randomUser(random).getId());
+			break;
+		case CREATE_ORDER:
+			createOrder(random);
+			break;
+		case SIGNUP:
+			userService.createUser(newUser(random));
+			break;
+		}
+	}
+
+	private double weight(Operation operation, boolean burst) {
+		double weight = weights[operation.ordinal()];
+		return burst && operation == Operation.CREATE_ORDER ? weight * burstFactor : weight;
+	}
+
+	private ProductDetailDTO popularProduct(SplittableRandom random) {
+		double target = random.nextDouble() * popularity[popularity.length - 1];
+		int low = 0;
+		int high = popularity.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (popularity[mid] < target) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return products.get(low);
+	}
+
+	private User randomUser(SplittableRandom random) {
+		return users.get(random.nextInt(users.size()));
+	}
+
+	private void createOrder(SplittableRandom random) throws Exception {
+		ProductDetailDTO product = popularProduct(random);
+		List<ProductPrice> prices = product.getPrices();
+		ProductPrice price = prices.get(random.nextInt(prices.size()));
+
+		OrderDetailDTO order = new OrderDetailDTO();
+		order.setAddress("12 Load Test Street");
+		order.setStatus(OrderDetailDTO.OrderStatus.NOT_DELIVERED);
+		order.setQuantity(1 + random.nextInt(3));
+		Date tomorrow = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+		order.setDeliveryDate(tomorrow);
+		order.setDeliveryTime(new Time(tomorrow.getTime()));
+
+		orderService.createOrder(order, product.getId(), price.getId(), randomUser(random).getEmail());
+	}
+
+	private User newUser(SplittableRandom random) {
+		User user = new User();
+		user.setFirstName("Load");
+		user.setLastName("Test");
+		user.setEmail("loadtest" + runId + "x" + signups.incrementAndGet() + "@gmail.com");
+		user.setPassword("Loadtest@2023");
+		user.setPhoneNo(6000000000L + random.nextInt(1000000000));
+		return user;
+	}
+
+}